@@ -0,0 +1,80 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.hash;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+
+/**
+ * Compares hashing files by streaming them through a heap buffer with hashing them via memory mapped regions,
+ * to find the file size from which {@link DefaultFileHasher} should switch to memory mapping.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class FileHasherBenchmark {
+
+    @Param({"4096", "65536", "1048576", "16777216", "268435456"})
+    long fileSize;
+
+    @Param({"stream", "mmap"})
+    String mode;
+
+    File file;
+    FileHasher hasher;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        file = File.createTempFile("file-hasher-benchmark", ".bin");
+        byte[] chunk = new byte[65536];
+        Random random = new Random(1234L);
+        try (OutputStream outputStream = new FileOutputStream(file)) {
+            for (long written = 0; written < fileSize; written += chunk.length) {
+                random.nextBytes(chunk);
+                outputStream.write(chunk, 0, (int) Math.min(chunk.length, fileSize - written));
+            }
+        }
+        hasher = new DefaultFileHasher(new DefaultStreamHasher(), "mmap".equals(mode) ? 0 : Long.MAX_VALUE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (!file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    @Benchmark
+    public HashCode hashFile() {
+        return hasher.hash(file);
+    }
+}
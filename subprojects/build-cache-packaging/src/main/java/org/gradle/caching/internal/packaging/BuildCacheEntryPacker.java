@@ -31,6 +31,21 @@
 public interface BuildCacheEntryPacker {
     PackResult pack(CacheableEntity entity, Map<String, ? extends FileSystemSnapshot> snapshots, OutputStream output, OriginWriter writeOrigin) throws IOException;
 
+    /**
+     * Returns a packer that puts the contents of regular files into the given store, and only refers to them by hash in the packed entry.
+     *
+     * The returned packer can unpack both entries referring to stored contents and entries containing the contents.
+     */
+    BuildCacheEntryPacker withContentStore(FileContentStore contentStore);
+
+    /**
+     * Packs the entry into {@code output} with the contents of regular files, and at the same time into {@code referencingOutput}
+     * the way the packer returned by {@link #withContentStore(FileContentStore)} would pack it.
+     *
+     * The outputs are only visited once for both entries.
+     */
+    PackResult packWithContentReferences(CacheableEntity entity, Map<String, ? extends FileSystemSnapshot> snapshots, OutputStream output, OutputStream referencingOutput, FileContentStore contentStore, OriginWriter writeOrigin) throws IOException;
+
     class PackResult {
         private final long entries;
 
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.packaging;
+
+import org.gradle.internal.hash.HashCode;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Stores the contents of files by their hash, so build cache entries can refer to the contents instead of containing them.
+ *
+ * @see BuildCacheEntryPacker#withContentStore(FileContentStore)
+ */
+public interface FileContentStore {
+
+    /**
+     * Stores the content of the given file, unless content with the same hash has already been stored.
+     */
+    void store(HashCode contentHash, File file) throws IOException;
+
+    /**
+     * Creates the target file with the content stored for the given hash.
+     *
+     * @param unixMode the permissions the target file will be given after it has been created.
+     * @return whether the target shares the stored content, in which case it is read-only and must not be given the permissions.
+     * @throws java.io.FileNotFoundException if no content is stored for the hash.
+     */
+    boolean materialize(HashCode contentHash, int unixMode, File target) throws IOException;
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.packaging.impl;
+
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorInputStream;
+import org.apache.commons.compress.compressors.lz4.FramedLZ4CompressorOutputStream;
+import org.gradle.caching.internal.CacheableEntity;
+import org.gradle.caching.internal.origin.OriginReader;
+import org.gradle.caching.internal.origin.OriginWriter;
+import org.gradle.caching.internal.packaging.BuildCacheEntryPacker;
+import org.gradle.caching.internal.packaging.FileContentStore;
+import org.gradle.internal.snapshot.FileSystemSnapshot;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses build cache entries packed by the delegate.
+ *
+ * <p>Entries are written with the configured {@link Compression}, and the compression of an entry is detected from its header when it is unpacked.
+ * This way entries written with any of the compressions can be loaded, regardless of which one is configured.</p>
+ */
+public class CompressingBuildCacheEntryPacker implements BuildCacheEntryPacker {
+    private static final int MAX_HEADER_LENGTH = 4;
+
+    private final BuildCacheEntryPacker delegate;
+    private final Compression compression;
+
+    public CompressingBuildCacheEntryPacker(BuildCacheEntryPacker delegate, Compression compression) {
+        this.delegate = delegate;
+        this.compression = compression;
+    }
+
+    @Override
+    public PackResult pack(CacheableEntity entity, Map<String, ? extends FileSystemSnapshot> snapshots, OutputStream output, OriginWriter writeOrigin) throws IOException {
+        try (OutputStream compressedOutput = compression.compress(output)) {
+            return delegate.pack(entity, snapshots, compressedOutput, writeOrigin);
+        }
+    }
+
+    @Override
+    public PackResult packWithContentReferences(CacheableEntity entity, Map<String, ? extends FileSystemSnapshot> snapshots, OutputStream output, OutputStream referencingOutput, FileContentStore contentStore, OriginWriter writeOrigin) throws IOException {
+        try (OutputStream compressedOutput = compression.compress(output); OutputStream compressedReferencingOutput = compression.compress(referencingOutput)) {
+            return delegate.packWithContentReferences(entity, snapshots, compressedOutput, compressedReferencingOutput, contentStore, writeOrigin);
+        }
+    }
+
+    @Override
+    public BuildCacheEntryPacker withContentStore(FileContentStore contentStore) {
+        return new CompressingBuildCacheEntryPacker(delegate.withContentStore(contentStore), compression);
+    }
+
+    @Override
+    public UnpackResult unpack(CacheableEntity entity, InputStream input, OriginReader readOrigin) throws IOException {
+        PushbackInputStream headerInput = new PushbackInputStream(input, MAX_HEADER_LENGTH);
+        Compression entryCompression = detectCompression(headerInput);
+        try (InputStream decompressedInput = entryCompression.decompress(headerInput)) {
+            return delegate.unpack(entity, decompressedInput, readOrigin);
+        }
+    }
+
+    private static Compression detectCompression(PushbackInputStream input) throws IOException {
+        byte[] header = new byte[MAX_HEADER_LENGTH];
+        int length = 0;
+        while (length < header.length) {
+            int read = input.read(header, length, header.length - length);
+            if (read < 0) {
+                break;
+            }
+            length += read;
+        }
+        input.unread(header, 0, length);
+        for (Compression compression : Compression.values()) {
+            if (compression.matches(header, length)) {
+                return compression;
+            }
+        }
+        // Let GZIP report the unknown format, as it did before other compressions were supported
+        return Compression.GZIP;
+    }
+
+    public enum Compression {
+        /**
+         * GZIP compression, which is what build cache entries have always been compressed with.
+         */
+        GZIP {
+            @Override
+            OutputStream compress(OutputStream output) throws IOException {
+                return new GZIPOutputStream(output);
+            }
+
+            @Override
+            InputStream decompress(InputStream input) throws IOException {
+                return new GZIPInputStream(input);
+            }
+
+            @Override
+            boolean matches(byte[] header, int length) {
+                return GzipCompressorInputStream.matches(header, length);
+            }
+        },
+
+        /**
+         * LZ4 frame compression, which compresses less than GZIP but is considerably faster to compress and decompress.
+         */
+        LZ4 {
+            @Override
+            OutputStream compress(OutputStream output) throws IOException {
+                return new FramedLZ4CompressorOutputStream(output);
+            }
+
+            @Override
+            InputStream decompress(InputStream input) throws IOException {
+                return new FramedLZ4CompressorInputStream(input);
+            }
+
+            @Override
+            boolean matches(byte[] header, int length) {
+                return FramedLZ4CompressorInputStream.matches(header, length);
+            }
+        };
+
+        abstract OutputStream compress(OutputStream output) throws IOException;
+
+        abstract InputStream decompress(InputStream input) throws IOException;
+
+        abstract boolean matches(byte[] header, int length);
+
+        public static Compression forName(String name) {
+            try {
+                return valueOf(name.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown build cache entry compression '" + name + "'. Supported compressions are gzip and lz4.", e);
+            }
+        }
+    }
+}
@@ -31,6 +31,7 @@
 import org.gradle.caching.internal.origin.OriginReader;
 import org.gradle.caching.internal.origin.OriginWriter;
 import org.gradle.caching.internal.packaging.BuildCacheEntryPacker;
+import org.gradle.caching.internal.packaging.FileContentStore;
 import org.gradle.internal.RelativePathSupplier;
 import org.gradle.internal.file.FileType;
 import org.gradle.internal.file.TreeType;
@@ -75,6 +76,8 @@
 
 /**
  * Packages build cache entries to a POSIX TAR file.
+ *
+ * <p>When a {@link FileContentStore} is used, regular files are packed as empty TAR entries whose PAX headers refer to the content in the store.</p>
  */
 public class TarBuildCacheEntryPacker implements BuildCacheEntryPacker {
 
@@ -89,6 +92,8 @@ private interface UnixPermissions {
 
     private static final Charset ENCODING = StandardCharsets.UTF_8;
     private static final String METADATA_PATH = "METADATA";
+    private static final String CONTENT_HASH_HEADER = "GRADLE.content.hash";
+    private static final String CONTENT_LENGTH_HEADER = "GRADLE.content.length";
     private static final Pattern TREE_PATH = Pattern.compile("(missing-)?tree-([^/]+)(?:/(.*))?");
     private static final int BUFFER_SIZE = 64 * 1024;
     private static final ThreadLocal<byte[]> COPY_BUFFERS = ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
@@ -97,63 +102,104 @@ private interface UnixPermissions {
     private final FilePermissionAccess filePermissionAccess;
     private final StreamHasher streamHasher;
     private final Interner<String> stringInterner;
+    @Nullable
+    private final FileContentStore contentStore;
 
     public TarBuildCacheEntryPacker(
         TarPackerFileSystemSupport fileSystemSupport,
         FilePermissionAccess filePermissionAccess,
         StreamHasher streamHasher,
         Interner<String> stringInterner
+    ) {
+        this(fileSystemSupport, filePermissionAccess, streamHasher, stringInterner, null);
+    }
+
+    private TarBuildCacheEntryPacker(
+        TarPackerFileSystemSupport fileSystemSupport,
+        FilePermissionAccess filePermissionAccess,
+        StreamHasher streamHasher,
+        Interner<String> stringInterner,
+        @Nullable FileContentStore contentStore
     ) {
         this.fileSystemSupport = fileSystemSupport;
         this.filePermissionAccess = filePermissionAccess;
         this.streamHasher = streamHasher;
         this.stringInterner = stringInterner;
+        this.contentStore = contentStore;
+    }
+
+    @Override
+    public BuildCacheEntryPacker withContentStore(FileContentStore contentStore) {
+        return new TarBuildCacheEntryPacker(fileSystemSupport, filePermissionAccess, streamHasher, stringInterner, contentStore);
     }
 
     @Override
     public PackResult pack(CacheableEntity entity, Map<String, ? extends FileSystemSnapshot> snapshots, OutputStream output, OriginWriter writeOrigin) throws IOException {
+        try (TarArchiveOutputStream tarOutput = createTarOutput(output)) {
+            return contentStore == null
+                ? pack(entity, snapshots, tarOutput, null, null, writeOrigin)
+                : pack(entity, snapshots, null, tarOutput, contentStore, writeOrigin);
+        }
+    }
+
+    @Override
+    public PackResult packWithContentReferences(CacheableEntity entity, Map<String, ? extends FileSystemSnapshot> snapshots, OutputStream output, OutputStream referencingOutput, FileContentStore contentStore, OriginWriter writeOrigin) throws IOException {
+        try (TarArchiveOutputStream tarOutput = createTarOutput(output); TarArchiveOutputStream referencingTarOutput = createTarOutput(referencingOutput)) {
+            return pack(entity, snapshots, tarOutput, referencingTarOutput, contentStore, writeOrigin);
+        }
+    }
+
+    private static TarArchiveOutputStream createTarOutput(OutputStream output) {
         BufferedOutputStream bufferedOutput;
         if (output instanceof BufferedOutputStream) {
             bufferedOutput = (BufferedOutputStream) output;
         } else {
             bufferedOutput = new BufferedOutputStream(output);
         }
-        try (TarArchiveOutputStream tarOutput = new TarArchiveOutputStream(bufferedOutput, ENCODING.name())) {
-            tarOutput.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
-            tarOutput.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
-            tarOutput.setAddPaxHeadersForNonAsciiNames(true);
-            packMetadata(writeOrigin, tarOutput);
-            long entryCount = pack(entity, snapshots, tarOutput);
-            return new PackResult(entryCount + 1);
-        }
-    }
-
-    private void packMetadata(OriginWriter writeMetadata, TarArchiveOutputStream tarOutput) throws IOException {
-        ByteArrayOutputStream output = new ByteArrayOutputStream();
-        writeMetadata.execute(output);
-        createTarEntry(METADATA_PATH, output.size(), UnixPermissions.FILE_FLAG | UnixPermissions.DEFAULT_FILE_PERM, tarOutput);
-        tarOutput.write(output.toByteArray());
-        tarOutput.closeArchiveEntry();
+        TarArchiveOutputStream tarOutput = new TarArchiveOutputStream(bufferedOutput, ENCODING.name());
+        tarOutput.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+        tarOutput.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+        tarOutput.setAddPaxHeadersForNonAsciiNames(true);
+        return tarOutput;
     }
 
-    private long pack(CacheableEntity entity, Map<String, ? extends FileSystemSnapshot> snapshots, TarArchiveOutputStream tarOutput) {
+    /**
+     * Packs the entry with the file contents into {@code tarOutput}, and with references to the contents in the store into {@code referencingTarOutput}, whichever are given.
+     */
+    private PackResult pack(
+        CacheableEntity entity,
+        Map<String, ? extends FileSystemSnapshot> snapshots,
+        @Nullable TarArchiveOutputStream tarOutput,
+        @Nullable TarArchiveOutputStream referencingTarOutput,
+        @Nullable FileContentStore contentStore,
+        OriginWriter writeOrigin
+    ) throws IOException {
+        ByteArrayOutputStream metadata = new ByteArrayOutputStream();
+        writeOrigin.execute(metadata);
+        if (tarOutput != null) {
+            packMetadata(metadata, tarOutput);
+        }
+        if (referencingTarOutput != null) {
+            packMetadata(metadata, referencingTarOutput);
+        }
         AtomicLong entries = new AtomicLong();
         entity.visitOutputTrees((treeName, type, root) -> {
             FileSystemSnapshot treeSnapshots = snapshots.get(treeName);
             try {
-                long entryCount = packTree(treeName, type, treeSnapshots, tarOutput);
-                entries.addAndGet(entryCount);
+                PackingVisitor packingVisitor = new PackingVisitor(tarOutput, referencingTarOutput, treeName, type, filePermissionAccess, contentStore);
+                treeSnapshots.accept(new RelativePathTracker(), packingVisitor);
+                entries.addAndGet(packingVisitor.getPackedEntryCount());
             } catch (Exception ex) {
                 throw new RuntimeException(String.format("Could not pack tree '%s': %s", treeName, ex.getMessage()), ex);
             }
         });
-        return entries.get();
+        return new PackResult(entries.get() + 1);
     }
 
-    private long packTree(String name, TreeType type, FileSystemSnapshot snapshots, TarArchiveOutputStream tarOutput) {
-        PackingVisitor packingVisitor = new PackingVisitor(tarOutput, name, type, filePermissionAccess);
-        snapshots.accept(new RelativePathTracker(), packingVisitor);
-        return packingVisitor.getPackedEntryCount();
+    private static void packMetadata(ByteArrayOutputStream metadata, TarArchiveOutputStream tarOutput) throws IOException {
+        createTarEntry(METADATA_PATH, metadata.size(), UnixPermissions.FILE_FLAG | UnixPermissions.DEFAULT_FILE_PERM, tarOutput);
+        metadata.writeTo(tarOutput);
+        tarOutput.closeArchiveEntry();
     }
 
     private static void createTarEntry(String path, long size, int mode, TarArchiveOutputStream tarOutput) throws IOException {
@@ -264,15 +310,33 @@ private TarArchiveEntry unpackTree(String treeName, TreeType treeType, File tree
     }
 
     private RegularFileSnapshot unpackFile(TarArchiveInputStream input, TarArchiveEntry entry, File file, String fileName) throws IOException {
+        String contentHash = entry.getExtraPaxHeader(CONTENT_HASH_HEADER);
+        if (contentHash != null) {
+            return unpackStoredFile(entry, contentHash, file, fileName);
+        }
         try (CountingOutputStream output = new CountingOutputStream(new FileOutputStream(file))) {
             HashCode hash = streamHasher.hashCopy(input, output);
             chmodUnpackedFile(entry, file);
             String internedAbsolutePath = stringInterner.intern(file.getAbsolutePath());
             String internedFileName = stringInterner.intern(fileName);
-            return new RegularFileSnapshot(internedAbsolutePath, internedFileName, hash, DefaultFileMetadata.file(output.getCount(), file.lastModified(), DIRECT));
+            return new RegularFileSnapshot(internedAbsolutePath, internedFileName, hash, DefaultFileMetadata.file(file.lastModified(), output.getCount(), DIRECT));
         }
     }
 
+    private RegularFileSnapshot unpackStoredFile(TarArchiveEntry entry, String contentHash, File file, String fileName) throws IOException {
+        if (contentStore == null) {
+            throw new IllegalStateException("Cached entry format error, the content of " + entry.getName() + " is not available");
+        }
+        HashCode hash = HashCode.fromString(contentHash);
+        long length = Long.parseLong(entry.getExtraPaxHeader(CONTENT_LENGTH_HEADER));
+        if (!contentStore.materialize(hash, entry.getMode() & UnixPermissions.PERM_MASK, file)) {
+            chmodUnpackedFile(entry, file);
+        }
+        String internedAbsolutePath = stringInterner.intern(file.getAbsolutePath());
+        String internedFileName = stringInterner.intern(fileName);
+        return new RegularFileSnapshot(internedAbsolutePath, internedFileName, hash, DefaultFileMetadata.file(file.lastModified(), length, DIRECT));
+    }
+
     @Nullable
     private TarArchiveEntry unpackDirectoryTree(TarArchiveInputStream input, TarArchiveEntry rootEntry, Map<String, FileSystemLocationSnapshot> snapshots, AtomicLong entries, File treeRoot, String treeName) throws IOException {
         RelativePathParser parser = new RelativePathParser(rootEntry.getName());
@@ -332,19 +396,30 @@ private static String unescape(String name) {
 
     private static class PackingVisitor implements RelativePathTrackingFileSystemSnapshotHierarchyVisitor {
         private final TarArchiveOutputStream tarOutput;
+        private final TarArchiveOutputStream referencingTarOutput;
         private final String treePath;
         private final String treeRoot;
         private final FilePermissionAccess filePermissionAccess;
         private final TreeType type;
+        private final FileContentStore contentStore;
 
         private long packedEntryCount;
 
-        public PackingVisitor(TarArchiveOutputStream tarOutput, String treeName, TreeType type, FilePermissionAccess filePermissionAccess) {
+        public PackingVisitor(
+            @Nullable TarArchiveOutputStream tarOutput,
+            @Nullable TarArchiveOutputStream referencingTarOutput,
+            String treeName,
+            TreeType type,
+            FilePermissionAccess filePermissionAccess,
+            @Nullable FileContentStore contentStore
+        ) {
             this.tarOutput = tarOutput;
+            this.referencingTarOutput = referencingTarOutput;
             this.treePath = "tree-" + escape(treeName);
             this.treeRoot = treePath + "/";
             this.type = type;
             this.filePermissionAccess = filePermissionAccess;
+            this.contentStore = contentStore;
         }
 
         @Override
@@ -357,7 +432,12 @@ public void visitDirectory(DirectorySnapshot directorySnapshot) {
                     assertCorrectType(isRoot, snapshot);
                     File dir = new File(snapshot.getAbsolutePath());
                     int dirMode = isRoot ? UnixPermissions.DEFAULT_DIR_PERM : filePermissionAccess.getUnixMode(dir);
-                    storeDirectoryEntry(targetPath, dirMode, tarOutput);
+                    if (tarOutput != null) {
+                        storeDirectoryEntry(targetPath, dirMode, tarOutput);
+                    }
+                    if (referencingTarOutput != null) {
+                        storeDirectoryEntry(targetPath, dirMode, referencingTarOutput);
+                    }
                 }
 
                 @Override
@@ -365,7 +445,12 @@ public void visitRegularFile(RegularFileSnapshot fileSnapshot) {
                     assertCorrectType(isRoot, snapshot);
                     File file = new File(snapshot.getAbsolutePath());
                     int fileMode = filePermissionAccess.getUnixMode(file);
-                    storeFileEntry(file, targetPath, file.length(), fileMode, tarOutput);
+                    if (tarOutput != null) {
+                        storeFileEntry(file, targetPath, file.length(), fileMode, tarOutput);
+                    }
+                    if (referencingTarOutput != null) {
+                        storeFileReference(file, fileSnapshot.getHash(), targetPath, fileMode, referencingTarOutput);
+                    }
                 }
 
                 @Override
@@ -373,7 +458,12 @@ public void visitMissing(MissingFileSnapshot missingSnapshot) {
                     if (!isRoot) {
                         throw new RuntimeException(String.format("Couldn't read content of file '%s'", snapshot.getAbsolutePath()));
                     }
-                    storeMissingTree(targetPath, tarOutput);
+                    if (tarOutput != null) {
+                        storeMissingTree(targetPath, tarOutput);
+                    }
+                    if (referencingTarOutput != null) {
+                        storeMissingTree(targetPath, referencingTarOutput);
+                    }
                 }
             });
             packedEntryCount++;
@@ -427,6 +517,21 @@ private void storeDirectoryEntry(String path, int mode, TarArchiveOutputStream t
             }
         }
 
+        private void storeFileReference(File inputFile, HashCode contentHash, String path, int mode, TarArchiveOutputStream tarOutput) {
+            try {
+                contentStore.store(contentHash, inputFile);
+                TarArchiveEntry entry = new TarArchiveEntry(path, true);
+                entry.setSize(0);
+                entry.setMode(UnixPermissions.FILE_FLAG | mode);
+                entry.addPaxHeader(CONTENT_HASH_HEADER, contentHash.toString());
+                entry.addPaxHeader(CONTENT_LENGTH_HEADER, Long.toString(inputFile.length()));
+                tarOutput.putArchiveEntry(entry);
+                tarOutput.closeArchiveEntry();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
         private void storeFileEntry(File inputFile, String path, long size, int mode, TarArchiveOutputStream tarOutput) {
             try {
                 createTarEntry(path, size, UnixPermissions.FILE_FLAG | mode, tarOutput);
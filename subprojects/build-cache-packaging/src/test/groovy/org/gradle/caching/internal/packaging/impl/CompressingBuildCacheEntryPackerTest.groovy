@@ -0,0 +1,88 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.packaging.impl
+
+import org.gradle.caching.internal.CacheableEntity
+import org.gradle.caching.internal.origin.OriginReader
+import org.gradle.caching.internal.origin.OriginWriter
+import org.gradle.caching.internal.packaging.BuildCacheEntryPacker
+import spock.lang.Specification
+
+import java.util.zip.ZipException
+
+import static org.gradle.caching.internal.packaging.impl.CompressingBuildCacheEntryPacker.Compression.GZIP
+import static org.gradle.caching.internal.packaging.impl.CompressingBuildCacheEntryPacker.Compression.LZ4
+
+class CompressingBuildCacheEntryPackerTest extends Specification {
+    def content = (1..1000).collect { "line $it" }.join("\n").bytes
+    def entity = Stub(CacheableEntity)
+    def delegate = Stub(BuildCacheEntryPacker) {
+        pack(_, _, _, _) >> { entity, snapshots, OutputStream output, writeOrigin ->
+            output.write(content)
+            new BuildCacheEntryPacker.PackResult(1)
+        }
+        unpack(_, _, _) >> { entity, InputStream input, readOrigin ->
+            assert input.bytes == content
+            new BuildCacheEntryPacker.UnpackResult(null, 1, [:])
+        }
+    }
+
+    def "entry packed with #packCompression can be unpacked when configured with #unpackCompression"() {
+        def output = new ByteArrayOutputStream()
+
+        when:
+        new CompressingBuildCacheEntryPacker(delegate, packCompression).pack(entity, [:], output, Stub(OriginWriter))
+        def result = new CompressingBuildCacheEntryPacker(delegate, unpackCompression).unpack(entity, new ByteArrayInputStream(output.toByteArray()), Stub(OriginReader))
+
+        then:
+        output.size() < content.length
+        result.entries == 1
+
+        where:
+        packCompression | unpackCompression
+        GZIP            | GZIP
+        GZIP            | LZ4
+        LZ4             | LZ4
+        LZ4             | GZIP
+    }
+
+    def "reports entries in an unknown format"() {
+        when:
+        new CompressingBuildCacheEntryPacker(delegate, LZ4).unpack(entity, new ByteArrayInputStream(input as byte[]), Stub(OriginReader))
+
+        then:
+        thrown(exception)
+
+        where:
+        input        | exception
+        []           | EOFException
+        [1, 2, 3, 4] | ZipException
+    }
+
+    def "compression can be selected by name"() {
+        expect:
+        CompressingBuildCacheEntryPacker.Compression.forName("gzip") == GZIP
+        CompressingBuildCacheEntryPacker.Compression.forName("LZ4") == LZ4
+
+        when:
+        CompressingBuildCacheEntryPacker.Compression.forName("zstd")
+
+        then:
+        def e = thrown(IllegalArgumentException)
+        e.message == "Unknown build cache entry compression 'zstd'. Supported compressions are gzip and lz4."
+    }
+}
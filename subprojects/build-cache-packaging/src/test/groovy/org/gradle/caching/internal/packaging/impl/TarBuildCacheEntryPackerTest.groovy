@@ -17,8 +17,11 @@
 package org.gradle.caching.internal.packaging.impl
 
 import org.gradle.api.internal.file.TestFiles
+import org.gradle.caching.internal.packaging.FileContentStore
+import org.gradle.internal.hash.HashCode
 import org.gradle.internal.file.Deleter
 import org.gradle.internal.nativeintegration.filesystem.FileSystem
+import org.gradle.internal.snapshot.SnapshotUtil
 import org.gradle.util.Requires
 import org.gradle.util.TestPrecondition
 
@@ -237,4 +240,128 @@ class TarBuildCacheEntryPackerTest extends AbstractTarBuildCacheEntryPackerSpec
         then:
         targetDir.assertIsEmptyDir()
     }
+
+    def "can pack directory with file contents in content store"() {
+        def sourceOutputDir = temporaryFolder.file("source").createDir()
+        sourceOutputDir.file("data.txt") << "output"
+        sourceOutputDir.file("subdir/copy.txt") << "output"
+        sourceOutputDir.file("subdir/other.txt") << "other"
+        def targetOutputDir = temporaryFolder.file("target").createDir()
+        def contents = [:]
+        def contentStore = new FileContentStore() {
+            @Override
+            void store(HashCode contentHash, File file) {
+                contents.putIfAbsent(contentHash, file.bytes)
+            }
+
+            @Override
+            boolean materialize(HashCode contentHash, int unixMode, File target) {
+                target.bytes = contents[contentHash] as byte[]
+                false
+            }
+        }
+        packer = packer.withContentStore(contentStore)
+        def output = new ByteArrayOutputStream()
+
+        when:
+        def packResult = pack output, prop(DIRECTORY, sourceOutputDir)
+
+        then:
+        packResult.entries == 5
+        contents.size() == 2
+        !new String(output.toByteArray(), "UTF-8").contains("output")
+
+        when:
+        def input = new ByteArrayInputStream(output.toByteArray())
+        def result = unpack input, prop(DIRECTORY, targetOutputDir)
+
+        then:
+        result.entries == 5
+        targetOutputDir.file("data.txt").text == "output"
+        targetOutputDir.file("subdir/copy.txt").text == "output"
+        targetOutputDir.file("subdir/other.txt").text == "other"
+    }
+
+    def "snapshots unpacked files with their length and modification time (content store: #withContentStore)"() {
+        def sourceOutputDir = temporaryFolder.file("source").createDir()
+        sourceOutputDir.file("data.txt") << "some output"
+        def targetOutputDir = temporaryFolder.file("target").createDir()
+        def targetDataFile = targetOutputDir.file("data.txt")
+        if (withContentStore) {
+            def contents = [:]
+            packer = packer.withContentStore(new FileContentStore() {
+                @Override
+                void store(HashCode contentHash, File file) {
+                    contents.putIfAbsent(contentHash, file.bytes)
+                }
+
+                @Override
+                boolean materialize(HashCode contentHash, int unixMode, File target) {
+                    target.bytes = contents[contentHash] as byte[]
+                    false
+                }
+            })
+        }
+        def output = new ByteArrayOutputStream()
+        pack output, prop(DIRECTORY, sourceOutputDir)
+
+        when:
+        def result = unpack new ByteArrayInputStream(output.toByteArray()), prop(DIRECTORY, targetOutputDir)
+        def metadata = SnapshotUtil.indexByAbsolutePath(result.snapshots["test"])[targetDataFile.absolutePath].metadata
+
+        then:
+        metadata.length == targetDataFile.length()
+        metadata.lastModified == targetDataFile.lastModified()
+
+        where:
+        withContentStore << [false, true]
+    }
+
+    def "can pack directory with and without file contents in content store at once"() {
+        def sourceOutputDir = temporaryFolder.file("source").createDir()
+        sourceOutputDir.file("data.txt") << "output"
+        sourceOutputDir.file("subdir/other.txt") << "other"
+        def contents = [:]
+        def contentStore = new FileContentStore() {
+            @Override
+            void store(HashCode contentHash, File file) {
+                contents.putIfAbsent(contentHash, file.bytes)
+            }
+
+            @Override
+            boolean materialize(HashCode contentHash, int unixMode, File target) {
+                target.bytes = contents[contentHash] as byte[]
+                false
+            }
+        }
+        def output = new ByteArrayOutputStream()
+        def referencingOutput = new ByteArrayOutputStream()
+        def tree = prop(DIRECTORY, sourceOutputDir)
+
+        when:
+        def packResult = packer.packWithContentReferences(entity(tree), [(tree.name): fileSystemAccess.read(sourceOutputDir.absolutePath)], output, referencingOutput, contentStore, writeOrigin)
+
+        then:
+        packResult.entries == 5
+        contents.size() == 2
+        new String(output.toByteArray(), "UTF-8").contains("output")
+        !new String(referencingOutput.toByteArray(), "UTF-8").contains("output")
+
+        when:
+        def targetOutputDir = temporaryFolder.file("target").createDir()
+        unpack new ByteArrayInputStream(output.toByteArray()), prop(DIRECTORY, targetOutputDir)
+
+        then:
+        targetOutputDir.file("data.txt").text == "output"
+        targetOutputDir.file("subdir/other.txt").text == "other"
+
+        when:
+        def referencingTargetOutputDir = temporaryFolder.file("referencing-target").createDir()
+        packer = packer.withContentStore(contentStore)
+        unpack new ByteArrayInputStream(referencingOutput.toByteArray()), prop(DIRECTORY, referencingTargetOutputDir)
+
+        then:
+        referencingTargetOutputDir.file("data.txt").text == "output"
+        referencingTargetOutputDir.file("subdir/other.txt").text == "other"
+    }
 }
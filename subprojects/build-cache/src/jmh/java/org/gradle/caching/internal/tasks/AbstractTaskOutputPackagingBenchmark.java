@@ -30,11 +30,13 @@
 import org.openjdk.jmh.annotations.Warmup;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.stream.Stream;
 
 @Fork(1)
 @Warmup(iterations = 3)
@@ -55,9 +57,14 @@ public abstract class AbstractTaskOutputPackagingBenchmark {
         .put("tar.small", new CommonsTarPacker(2))
         .put("tar.large", new CommonsTarPacker(64))
         .put("tar.gz", new GzipPacker(new CommonsTarPacker(4)))
+        .put("tar.lz4", new Lz4Packer(new CommonsTarPacker(4)))
         .put("zip", new ZipPacker(4))
         .build();
 
+    private static final byte[][] WORDS = Stream.of("public ", "class ", "void ", "return ", "import ", "org.gradle.", "String ", "{\n", "}\n", "    ", "(", ") ", "; ", "= ", "new ", "final ", "static ", "int ", "if ", "else ")
+        .map(word -> word.getBytes(StandardCharsets.UTF_8))
+        .toArray(byte[][]::new);
+
     private static final Map<String, DataAccessor> ACCESSORS = ImmutableMap.<String, DataAccessor>builder()
         .put("direct", new DirectFileFileAccessor(DIRECTORY_PROVIDER))
         .put("buffered", new BufferedFileAccessor(8, DIRECTORY_PROVIDER))
@@ -77,15 +84,23 @@ public abstract class AbstractTaskOutputPackagingBenchmark {
 
     protected abstract String getAccessorName();
 
+    /**
+     * The content of the input files, either {@code random} bytes, which don't compress, or {@code text}, which does.
+     */
+    protected String getContentName() {
+        return "random";
+    }
+
     @Setup(Level.Trial)
     public void setupTrial() throws IOException {
         DIRECTORY_PROVIDER.setupTrial();
         String packerName = getPackerName();
         String accessorName = getAccessorName();
-        System.out.println(">>> Measuring format: " + packerName + " with accessor " + accessorName);
+        String contentName = getContentName();
+        System.out.println(">>> Measuring format: " + packerName + " with accessor " + accessorName + " and " + contentName + " content");
         Packer packer = PACKERS.get(packerName);
         DataAccessor accessor = ACCESSORS.get(accessorName);
-        this.inputs = createInputFiles(fileCount, minFileSize, maxFileSize, accessor);
+        this.inputs = createInputFiles(fileCount, minFileSize, maxFileSize, "text".equals(contentName), accessor);
         this.sample = packSample("sample." + packerName, inputs, packer, accessor);
     }
 
@@ -104,20 +119,34 @@ public void tearDownIteration() throws IOException {
         DIRECTORY_PROVIDER.tearDownIteration();
     }
 
-    private static ImmutableList<DataSource> createInputFiles(int fileCount, int minFileSize, int maxFileSize, DataAccessor accessor) throws IOException {
+    private static ImmutableList<DataSource> createInputFiles(int fileCount, int minFileSize, int maxFileSize, boolean text, DataAccessor accessor) throws IOException {
         Random random = new Random(1234L);
         ImmutableList.Builder<DataSource> inputs = ImmutableList.builder();
         for (int idx = 0; idx < fileCount; idx++) {
             String name = "input-" + idx + ".bin";
             int fileSize = minFileSize + random.nextInt(maxFileSize - minFileSize);
             byte[] buffer = new byte[fileSize];
-            random.nextBytes(buffer);
+            if (text) {
+                fillWithText(buffer, random);
+            } else {
+                random.nextBytes(buffer);
+            }
             DataSource input = accessor.createSource(name, buffer, Level.Trial);
             inputs.add(input);
         }
         return inputs.build();
     }
 
+    private static void fillWithText(byte[] buffer, Random random) {
+        int offset = 0;
+        while (offset < buffer.length) {
+            byte[] word = WORDS[random.nextInt(WORDS.length)];
+            int length = Math.min(word.length, buffer.length - offset);
+            System.arraycopy(word, 0, buffer, offset, length);
+            offset += length;
+        }
+    }
+
     private static DataSource packSample(String name, List<DataSource> inputs, Packer packer, DataAccessor accessor) throws IOException {
         long sumLength = 0;
         for (DataSource input : inputs) {
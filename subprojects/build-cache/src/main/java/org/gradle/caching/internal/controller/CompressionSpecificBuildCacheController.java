@@ -0,0 +1,109 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.controller;
+
+import org.gradle.caching.BuildCacheKey;
+import org.gradle.caching.internal.CacheableEntity;
+import org.gradle.caching.internal.controller.service.BuildCacheLoadResult;
+import org.gradle.caching.internal.packaging.impl.CompressingBuildCacheEntryPacker.Compression;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.snapshot.FileSystemSnapshot;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Loads and stores entries under keys that are specific to the compression entries are stored with.
+ *
+ * <p>Caches are shared between builds that store their entries with different compressions, including builds run with Gradle versions that can only read GZIP entries.
+ * Storing entries with another compression under the same keys would make such builds load entries they cannot unpack.
+ * Only use this controller for compressions other than {@link Compression#GZIP}, so the keys of GZIP entries stay the same.</p>
+ */
+public class CompressionSpecificBuildCacheController implements BuildCacheController {
+
+    private final BuildCacheController delegate;
+    private final Compression compression;
+
+    public CompressionSpecificBuildCacheController(BuildCacheController delegate, Compression compression) {
+        this.delegate = delegate;
+        this.compression = compression;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return delegate.isEnabled();
+    }
+
+    @Override
+    public boolean isEmitDebugLogging() {
+        return delegate.isEmitDebugLogging();
+    }
+
+    @Override
+    public Optional<BuildCacheLoadResult> load(BuildCacheKey cacheKey, CacheableEntity cacheableEntity) {
+        return delegate.load(compressionSpecificKey(cacheKey), cacheableEntity);
+    }
+
+    @Override
+    public void store(BuildCacheKey cacheKey, CacheableEntity entity, Map<String, FileSystemSnapshot> snapshots, Duration executionTime) {
+        delegate.store(compressionSpecificKey(cacheKey), entity, snapshots, executionTime);
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+
+    private BuildCacheKey compressionSpecificKey(BuildCacheKey cacheKey) {
+        Hasher hasher = Hashing.newHasher();
+        hasher.putBytes(cacheKey.toByteArray());
+        hasher.putString(compression.name());
+        return new CompressionSpecificBuildCacheKey(hasher.hash());
+    }
+
+    private static class CompressionSpecificBuildCacheKey implements BuildCacheKey {
+        private final HashCode hashCode;
+
+        public CompressionSpecificBuildCacheKey(HashCode hashCode) {
+            this.hashCode = hashCode;
+        }
+
+        @Override
+        public String getHashCode() {
+            return hashCode.toString();
+        }
+
+        @Override
+        public byte[] toByteArray() {
+            return hashCode.toByteArray();
+        }
+
+        @Override
+        public String getDisplayName() {
+            return getHashCode();
+        }
+
+        @Override
+        public String toString() {
+            return getHashCode();
+        }
+    }
+}
@@ -42,21 +42,36 @@
 import org.gradle.caching.internal.origin.OriginMetadata;
 import org.gradle.caching.internal.origin.OriginMetadataFactory;
 import org.gradle.caching.internal.packaging.BuildCacheEntryPacker;
+import org.gradle.caching.internal.packaging.FileContentStore;
 import org.gradle.caching.local.internal.BuildCacheTempFileStore;
+import org.gradle.caching.local.internal.ContentAddressedLocalBuildCacheService;
 import org.gradle.caching.local.internal.DefaultBuildCacheTempFileStore;
 import org.gradle.caching.local.internal.LocalBuildCacheService;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
 import org.gradle.internal.file.FileMetadata;
 import org.gradle.internal.file.FileType;
 import org.gradle.internal.file.TreeType;
 import org.gradle.internal.operations.BuildOperationContext;
 import org.gradle.internal.operations.BuildOperationDescriptor;
 import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.BuildOperationIdFactory;
+import org.gradle.internal.operations.BuildOperationListener;
+import org.gradle.internal.operations.BuildOperationListenerManager;
+import org.gradle.internal.operations.BuildOperationState;
 import org.gradle.internal.operations.CallableBuildOperation;
+import org.gradle.internal.operations.CurrentBuildOperationRef;
+import org.gradle.internal.operations.OperationFinishEvent;
+import org.gradle.internal.operations.OperationIdentifier;
+import org.gradle.internal.operations.OperationStartEvent;
 import org.gradle.internal.operations.RunnableBuildOperation;
 import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
 import org.gradle.internal.snapshot.FileSystemSnapshot;
 import org.gradle.internal.snapshot.MissingFileSnapshot;
+import org.gradle.internal.time.Clock;
 import org.gradle.internal.vfs.FileSystemAccess;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
 import java.io.File;
@@ -64,12 +79,20 @@
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.time.Duration;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 public class DefaultBuildCacheController implements BuildCacheController {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DefaultBuildCacheController.class);
+    private static final int MAX_CONCURRENT_REMOTE_STORES = 4;
 
     @VisibleForTesting
     final RemoteBuildCacheServiceHandle remote;
@@ -78,9 +101,35 @@ public class DefaultBuildCacheController implements BuildCacheController {
     final LocalBuildCacheServiceHandle local;
 
     private final BuildCacheTempFileStore tmp;
+    private final TemporaryFileProvider temporaryFileProvider;
     private final boolean emitDebugLogging;
     private final PackOperationExecutor packExecutor;
 
+    /**
+     * Packs and unpacks the entries of the local cache, which may refer to the file contents stored in a content-addressed local cache.
+     */
+    private final PackOperationExecutor localPackExecutor;
+
+    /**
+     * The store of the file contents the entries of a content-addressed local cache refer to, or {@code null} if the local cache contains the contents.
+     */
+    @Nullable
+    private final FileContentStore localContentStore;
+
+    /**
+     * Loads entries from the remote cache while looking them up in the local cache, or {@code null} if loads are sequential.
+     */
+    @Nullable
+    private final ManagedExecutor remoteLoadExecutor;
+
+    /**
+     * Uploads entries to the remote cache after the work completed, or {@code null} if stores are synchronous.
+     */
+    @Nullable
+    private final BackgroundRemoteStores backgroundRemoteStores;
+    private final AtomicInteger localHits = new AtomicInteger();
+    private final AtomicInteger localMisses = new AtomicInteger();
+
     private boolean closed;
 
     public DefaultBuildCacheController(
@@ -94,8 +143,28 @@ public DefaultBuildCacheController(
         BuildCacheEntryPacker packer,
         OriginMetadataFactory originMetadataFactory,
         StringInterner stringInterner
+    ) {
+        this(config, buildOperationExecutor, temporaryFileProvider, logStackTraces, emitDebugLogging, disableRemoteOnError, fileSystemAccess, packer, originMetadataFactory, stringInterner, null, null, false, false);
+    }
+
+    public DefaultBuildCacheController(
+        BuildCacheServicesConfiguration config,
+        BuildOperationExecutor buildOperationExecutor,
+        TemporaryFileProvider temporaryFileProvider,
+        boolean logStackTraces,
+        boolean emitDebugLogging,
+        boolean disableRemoteOnError,
+        FileSystemAccess fileSystemAccess,
+        BuildCacheEntryPacker packer,
+        OriginMetadataFactory originMetadataFactory,
+        StringInterner stringInterner,
+        @Nullable ExecutorFactory executorFactory,
+        @Nullable BackgroundOperationServices backgroundOperationServices,
+        boolean loadRemoteConcurrently,
+        boolean storeRemoteAsynchronously
     ) {
         this.emitDebugLogging = emitDebugLogging;
+        this.temporaryFileProvider = temporaryFileProvider;
         this.local = toLocalHandle(config.getLocal(), config.isLocalPush());
         this.remote = toRemoteHandle(config.getRemote(), config.isRemotePush(), buildOperationExecutor, logStackTraces, disableRemoteOnError);
         this.tmp = toTempFileStore(config.getLocal(), temporaryFileProvider);
@@ -106,6 +175,19 @@ public DefaultBuildCacheController(
             originMetadataFactory,
             stringInterner
         );
+        this.localContentStore = config.getLocal() instanceof ContentAddressedLocalBuildCacheService
+            ? ((ContentAddressedLocalBuildCacheService) config.getLocal()).getContentStore()
+            : null;
+        this.localPackExecutor = localContentStore != null
+            ? packExecutor.withPacker(packer.withContentStore(localContentStore))
+            : packExecutor;
+        boolean remoteEnabled = config.getRemote() != null;
+        this.remoteLoadExecutor = executorFactory != null && remoteEnabled && loadRemoteConcurrently
+            ? executorFactory.create("Build cache remote load")
+            : null;
+        this.backgroundRemoteStores = executorFactory != null && backgroundOperationServices != null && remoteEnabled && storeRemoteAsynchronously
+            ? new BackgroundRemoteStores(backgroundOperationServices, executorFactory)
+            : null;
     }
 
     @Override
@@ -120,6 +202,9 @@ public boolean isEmitDebugLogging() {
 
     @Override
     public Optional<BuildCacheLoadResult> load(BuildCacheKey key, CacheableEntity entity) {
+        if (remoteLoadExecutor != null && remote.canLoad() && isLocalMissLikely()) {
+            return loadLocalAndRemoteConcurrently(key, entity);
+        }
         Optional<BuildCacheLoadResult> result = loadLocal(key, entity);
         if (result.isPresent()) {
             return result;
@@ -127,12 +212,77 @@ public Optional<BuildCacheLoadResult> load(BuildCacheKey key, CacheableEntity en
         return loadRemoteAndStoreResultLocally(key, entity);
     }
 
+    /**
+     * Loading from the remote cache concurrently only pays off when the local cache misses,
+     * so it is only done as long as the local cache did not hit for most of the entries.
+     */
+    private boolean isLocalMissLikely() {
+        return localMisses.get() >= localHits.get();
+    }
+
     private Optional<BuildCacheLoadResult> loadLocal(BuildCacheKey key, CacheableEntity entity) {
+        Optional<BuildCacheLoadResult> result;
         try {
-            return local.maybeLoad(key, file -> packExecutor.unpack(key, entity, file));
+            result = local.maybeLoad(key, file -> localPackExecutor.unpack(key, entity, file, BuildCacheServiceRole.LOCAL, Duration.ZERO));
         } catch (Exception e) {
             throw new GradleException("Could not load from local cache: " + e.getMessage(), e);
         }
+        if (result.isPresent()) {
+            localHits.incrementAndGet();
+        } else {
+            localMisses.incrementAndGet();
+        }
+        return result;
+    }
+
+    /**
+     * Downloads the entry from the remote cache while looking it up in the local cache.
+     *
+     * After a local hit, the download is cancelled without waiting for it, and its file is deleted in the background once it stopped.
+     * After a local miss, the worker waits for the download and unpacks the entry itself, so only one of the caches ever unpacks into the outputs,
+     * and both the remote load and the unpacking are reported as part of the operation of the work.
+     */
+    private Optional<BuildCacheLoadResult> loadLocalAndRemoteConcurrently(BuildCacheKey key, CacheableEntity entity) {
+        long startTime = System.nanoTime();
+        AtomicLong downloadedAt = new AtomicLong();
+        File downloadFile = temporaryFileProvider.createTemporaryFile("build-cache-", ".download");
+        RemoteBuildCacheServiceHandle.PendingLoad remoteLoad = remote.startLoad(key, downloadFile, download -> remoteLoadExecutor.execute(() -> {
+            download.run();
+            downloadedAt.set(System.nanoTime());
+        }));
+        Optional<BuildCacheLoadResult> localResult = null;
+        try {
+            localResult = loadLocal(key, entity);
+        } finally {
+            if (localResult == null || localResult.isPresent()) {
+                remoteLoad.cancel(() -> deleteTemporaryFile(downloadFile));
+            }
+        }
+        if (localResult.isPresent()) {
+            return localResult;
+        }
+        long localLookupFinishedAt = System.nanoTime();
+        AtomicReference<Optional<BuildCacheLoadResult>> result = new AtomicReference<>(Optional.empty());
+        try {
+            tmp.withTempFile(key, file -> result.set(remoteLoad.maybeAwait(downloaded -> {
+                // The download may have completed just before its time was recorded, in which case it completed after the local lookup
+                long loadedAt = downloadedAt.get();
+                Duration hiddenLatency = Duration.ofNanos((loadedAt == 0 ? localLookupFinishedAt : Math.min(loadedAt, localLookupFinishedAt)) - startTime);
+                try {
+                    Files.move(downloaded.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                BuildCacheLoadResult loadResult = packExecutor.unpack(key, entity, file, BuildCacheServiceRole.REMOTE, hiddenLatency);
+                local.maybeStore(key, file);
+                return loadResult;
+            })));
+        } catch (Exception e) {
+            throw new GradleException("Could not load from remote cache: " + e.getMessage(), e);
+        } finally {
+            deleteTemporaryFile(downloadFile);
+        }
+        return result.get();
     }
 
     private Optional<BuildCacheLoadResult> loadRemoteAndStoreResultLocally(BuildCacheKey key, CacheableEntity entity) {
@@ -143,7 +293,7 @@ private Optional<BuildCacheLoadResult> loadRemoteAndStoreResultLocally(BuildCach
         tmp.withTempFile(key, file -> {
             Optional<BuildCacheLoadResult> remoteResult;
             try {
-                remoteResult = remote.maybeLoad(key, file, f -> packExecutor.unpack(key, entity, f));
+                remoteResult = remote.maybeLoad(key, file, f -> packExecutor.unpack(key, entity, f, BuildCacheServiceRole.REMOTE, Duration.ZERO));
             } catch (Exception e) {
                 throw new GradleException("Could not load from remote cache: " + e.getMessage(), e);
             }
@@ -160,13 +310,84 @@ public void store(BuildCacheKey key, CacheableEntity entity, Map<String, FileSys
         if (!local.canStore() && !remote.canStore()) {
             return;
         }
+        if (localContentStore != null) {
+            storeSeparately(key, entity, snapshots, executionTime, localContentStore);
+            return;
+        }
         tmp.withTempFile(key, file -> {
             packExecutor.pack(file, key, entity, snapshots, executionTime);
-            remote.maybeStore(key, file);
+            storeRemote(key, file);
             local.maybeStore(key, file);
         });
     }
 
+    /**
+     * Packs the entry for the remote cache with the file contents, and for the local cache with references to the contents in its content store.
+     * When both caches store the entry, both are packed at once.
+     */
+    private void storeSeparately(BuildCacheKey key, CacheableEntity entity, Map<String, FileSystemSnapshot> snapshots, Duration executionTime, FileContentStore contentStore) {
+        if (!local.canStore()) {
+            tmp.withTempFile(key, file -> {
+                packExecutor.pack(file, key, entity, snapshots, executionTime);
+                storeRemote(key, file);
+            });
+        } else if (!remote.canStore()) {
+            tmp.withTempFile(key, file -> {
+                localPackExecutor.pack(file, key, entity, snapshots, executionTime);
+                local.maybeStore(key, file);
+            });
+        } else {
+            tmp.withTempFile(key, localFile -> {
+                File remoteFile = temporaryFileProvider.createTemporaryFile("build-cache-", ".remote");
+                try {
+                    packExecutor.packWithContentReferences(remoteFile, localFile, contentStore, key, entity, snapshots, executionTime);
+                    storeRemote(key, remoteFile);
+                    local.maybeStore(key, localFile);
+                } finally {
+                    if (!remoteFile.delete()) {
+                        remoteFile.deleteOnExit();
+                    }
+                }
+            });
+        }
+    }
+
+    private void storeRemote(BuildCacheKey key, File file) {
+        if (backgroundRemoteStores != null && remote.canStore()) {
+            storeRemoteAsynchronously(key, file);
+        } else {
+            remote.maybeStore(key, file);
+        }
+    }
+
+    /**
+     * Uploads a copy of the packed entry, since the local cache takes ownership of the packed file.
+     */
+    private void storeRemoteAsynchronously(BuildCacheKey key, File file) {
+        File uploadFile;
+        try {
+            uploadFile = temporaryFileProvider.createTemporaryFile("build-cache-", ".upload");
+            Files.copy(file.toPath(), uploadFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | UncheckedIOException e) {
+            LOGGER.debug("Could not prepare entry {} for asynchronous upload, uploading it synchronously", key.getDisplayName(), e);
+            remote.maybeStore(key, file);
+            return;
+        }
+        backgroundRemoteStores.submit(() -> {
+            try {
+                long startTime = System.nanoTime();
+                if (remote.maybeStore(key, uploadFile) && LOGGER.isInfoEnabled()) {
+                    LOGGER.info("Stored entry {} in remote build cache without blocking the work for {} ms",
+                        key.getDisplayName(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+                }
+            } finally {
+                if (!uploadFile.delete()) {
+                    uploadFile.deleteOnExit();
+                }
+            }
+        });
+    }
+
     @Override
     public void close() throws IOException {
         if (!closed) {
@@ -174,10 +395,101 @@ public void close() throws IOException {
             Closer closer = Closer.create();
             closer.register(local);
             closer.register(remote);
+            // Registered last, so pending remote loads and stores finish before the services are closed
+            if (remoteLoadExecutor != null) {
+                closer.register(remoteLoadExecutor::stop);
+            }
+            if (backgroundRemoteStores != null) {
+                closer.register(backgroundRemoteStores::stop);
+            }
             closer.close();
         }
     }
 
+    private static void deleteTemporaryFile(File file) {
+        try {
+            Files.deleteIfExists(file.toPath());
+        } catch (IOException e) {
+            file.deleteOnExit();
+        }
+    }
+
+    /**
+     * The services used to report the operation that asynchronous uploads to the remote cache run in.
+     */
+    public static class BackgroundOperationServices {
+        private final BuildOperationListener listener;
+        private final BuildOperationIdFactory idFactory;
+        private final Clock clock;
+
+        public BackgroundOperationServices(BuildOperationListenerManager listenerManager, BuildOperationIdFactory idFactory, Clock clock) {
+            this.listener = listenerManager.getBroadcaster();
+            this.idFactory = idFactory;
+            this.clock = clock;
+        }
+    }
+
+    /**
+     * Uploads entries to the remote cache in the background.
+     *
+     * The work that produced an entry may complete before its upload does, so the uploads run as children of a separate operation instead.
+     * That operation is a child of the parent of the work that submitted the first upload, and completes once no uploads are pending anymore.
+     * As it may still complete after its parent, it is reported to the build operation listeners directly.
+     */
+    private static class BackgroundRemoteStores {
+        private final BackgroundOperationServices services;
+        private final ManagedExecutor storeExecutor;
+        private BuildOperationState operation;
+        private int pendingStores;
+
+        BackgroundRemoteStores(BackgroundOperationServices services, ExecutorFactory executorFactory) {
+            this.services = services;
+            this.storeExecutor = executorFactory.create("Build cache remote store", MAX_CONCURRENT_REMOTE_STORES);
+        }
+
+        public synchronized void submit(Runnable store) {
+            if (operation == null) {
+                operation = start(CurrentBuildOperationRef.instance().getParentId());
+            }
+            pendingStores++;
+            BuildOperationState parent = operation;
+            storeExecutor.execute(() -> {
+                CurrentBuildOperationRef.instance().set(parent);
+                try {
+                    store.run();
+                } finally {
+                    CurrentBuildOperationRef.instance().clear();
+                    storeFinished();
+                }
+            });
+        }
+
+        private synchronized void storeFinished() {
+            if (--pendingStores == 0) {
+                finish(operation);
+                operation = null;
+            }
+        }
+
+        private BuildOperationState start(@Nullable OperationIdentifier parentId) {
+            BuildOperationDescriptor descriptor = BuildOperationDescriptor.displayName("Store entries in remote build cache in the background")
+                .build(new OperationIdentifier(services.idFactory.nextId()), parentId);
+            BuildOperationState state = new BuildOperationState(descriptor, services.clock.getCurrentTime());
+            state.setRunning(true);
+            services.listener.started(descriptor, new OperationStartEvent(state.getStartTime()));
+            return state;
+        }
+
+        private void finish(BuildOperationState state) {
+            state.setRunning(false);
+            services.listener.finished(state.getDescription(), new OperationFinishEvent(state.getStartTime(), services.clock.getCurrentTime(), null, null));
+        }
+
+        public void stop() {
+            storeExecutor.stop();
+        }
+    }
+
     @VisibleForTesting
     static class PackOperationExecutor {
         private final BuildOperationExecutor buildOperationExecutor;
@@ -194,13 +506,17 @@ static class PackOperationExecutor {
             this.stringInterner = stringInterner;
         }
 
+        PackOperationExecutor withPacker(BuildCacheEntryPacker packer) {
+            return new PackOperationExecutor(buildOperationExecutor, fileSystemAccess, packer, originMetadataFactory, stringInterner);
+        }
+
         @VisibleForTesting
-        BuildCacheLoadResult unpack(BuildCacheKey key, CacheableEntity entity, File file) {
+        BuildCacheLoadResult unpack(BuildCacheKey key, CacheableEntity entity, File file, BuildCacheServiceRole source, Duration hiddenRemoteLatency) {
             return buildOperationExecutor.call(new CallableBuildOperation<BuildCacheLoadResult>() {
                 @Override
                 public BuildCacheLoadResult call(BuildOperationContext context) throws IOException {
                     try (InputStream input = new FileInputStream(file)) {
-                        BuildCacheLoadResult metadata = doUnpack(entity, input);
+                        BuildCacheLoadResult metadata = doUnpack(entity, input, source, hiddenRemoteLatency);
                         context.setResult(new UnpackOperationResult(metadata.getArtifactEntryCount()));
                         return metadata;
                     }
@@ -215,7 +531,7 @@ public BuildOperationDescriptor.Builder description() {
             });
         }
 
-        private BuildCacheLoadResult doUnpack(CacheableEntity entity, InputStream input) throws IOException {
+        private BuildCacheLoadResult doUnpack(CacheableEntity entity, InputStream input, BuildCacheServiceRole source, Duration hiddenRemoteLatency) throws IOException {
             ImmutableList.Builder<String> roots = ImmutableList.builder();
             entity.visitOutputTrees((name, type, root) -> roots.add(root.getAbsolutePath()));
             // TODO: Actually unpack the roots inside of the action
@@ -236,6 +552,14 @@ public OriginMetadata getOriginMetadata() {
                 public ImmutableSortedMap<String, FileSystemSnapshot> getResultingSnapshots() {
                     return resultingSnapshots;
                 }
+                @Override
+                public BuildCacheServiceRole getSource() {
+                    return source;
+                }
+                @Override
+                public Duration getHiddenRemoteLatency() {
+                    return hiddenRemoteLatency;
+                }
             };
         }
 
@@ -279,6 +603,29 @@ public BuildOperationDescriptor.Builder description() {
                 }
             });
         }
+
+        /**
+         * Packs the entry with the file contents into {@code file}, and with references to the contents in the given store into {@code referencingFile}.
+         */
+        void packWithContentReferences(File file, File referencingFile, FileContentStore contentStore, BuildCacheKey key, CacheableEntity entity, Map<String, FileSystemSnapshot> snapshots, Duration executionTime) {
+            buildOperationExecutor.run(new RunnableBuildOperation() {
+                @Override
+                public void run(BuildOperationContext context) throws IOException {
+                    try (FileOutputStream fileOutputStream = new FileOutputStream(file); FileOutputStream referencingOutputStream = new FileOutputStream(referencingFile)) {
+                        BuildCacheEntryPacker.PackResult packResult = packer.packWithContentReferences(entity, snapshots, fileOutputStream, referencingOutputStream, contentStore, originMetadataFactory.createWriter(entity, executionTime));
+                        long entryCount = packResult.getEntries();
+                        context.setResult(new PackOperationResult(entryCount, file.length()));
+                    }
+                }
+
+                @Override
+                public BuildOperationDescriptor.Builder description() {
+                    return BuildOperationDescriptor.displayName("Pack build cache entry " + key)
+                        .details(new PackOperationDetails(key))
+                        .progressDisplayName("Packing build cache entry");
+                }
+            });
+        }
     }
 
     private static RemoteBuildCacheServiceHandle toRemoteHandle(@Nullable BuildCacheService service, boolean push, BuildOperationExecutor buildOperationExecutor, boolean logStackTraces, boolean disableOnError) {
@@ -19,12 +19,16 @@
 import org.gradle.caching.BuildCacheEntryReader;
 import org.gradle.caching.BuildCacheKey;
 import org.gradle.caching.BuildCacheService;
+import org.gradle.internal.UncheckedException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
 import java.io.File;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.function.Function;
 
 public class BaseRemoteBuildCacheServiceHandle implements RemoteBuildCacheServiceHandle {
@@ -38,7 +42,7 @@ public class BaseRemoteBuildCacheServiceHandle implements RemoteBuildCacheServic
     private final boolean logStackTraces;
     private final boolean disableOnError;
 
-    private boolean disabled;
+    private volatile boolean disabled;
 
     public BaseRemoteBuildCacheServiceHandle(
         BuildCacheService service,
@@ -89,6 +93,23 @@ protected void loadInner(BuildCacheKey key, BuildCacheEntryReader entryReader) {
         service.load(key, entryReader);
     }
 
+    @Override
+    public final PendingLoad startLoad(BuildCacheKey key, File toFile, Executor executor) {
+        if (!canLoad()) {
+            return NullRemoteBuildCacheServiceHandle.INSTANCE.startLoad(key, toFile, executor);
+        }
+        DefaultPendingLoad pendingLoad = new DefaultPendingLoad(key, toFile);
+        executor.execute(pendingLoad);
+        return pendingLoad;
+    }
+
+    /**
+     * Waits for a load started by {@link #startLoad(BuildCacheKey, File, Executor)}.
+     */
+    protected void awaitInner(String description, BuildCacheKey key, LoadTarget loadTarget, Runnable await) {
+        await.run();
+    }
+
     private Optional<BuildCacheLoadResult> maybeUnpack(LoadTarget loadTarget, Function<File, BuildCacheLoadResult> unpackFunction) {
         if (loadTarget.isLoaded()) {
             return Optional.ofNullable(unpackFunction.apply(loadTarget.getFile()));
@@ -136,6 +157,63 @@ private void failure(String verb, String preposition, BuildCacheKey key, Throwab
         }
     }
 
+    private class DefaultPendingLoad implements PendingLoad, Runnable {
+        private final BuildCacheKey key;
+        private final LoadTarget loadTarget;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private volatile boolean cancelled;
+
+        DefaultPendingLoad(BuildCacheKey key, File file) {
+            this.key = key;
+            this.loadTarget = new LoadTarget(file, () -> cancelled);
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (!cancelled) {
+                    loadInner(key, loadTarget);
+                }
+                done.complete(null);
+            } catch (Throwable e) {
+                done.completeExceptionally(e);
+            }
+        }
+
+        @Override
+        public Optional<BuildCacheLoadResult> maybeAwait(Function<File, BuildCacheLoadResult> unpackFunction) {
+            String description = "Load entry " + key.getDisplayName() + " from " + role.getDisplayName() + " build cache";
+            LOGGER.debug(description);
+            try {
+                awaitInner(description, key, loadTarget, this::await);
+            } catch (Exception e) {
+                failure("load", "from", key, e);
+            }
+            return maybeUnpack(loadTarget, unpackFunction);
+        }
+
+        private void await() {
+            try {
+                done.get();
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            } catch (ExecutionException e) {
+                throw UncheckedException.throwAsUncheckedException(e.getCause());
+            }
+        }
+
+        @Override
+        public void cancel(Runnable cleanup) {
+            cancelled = true;
+            done.whenComplete((ignored, failure) -> {
+                if (failure != null) {
+                    LOGGER.debug("Ignoring failure of cancelled load of entry {} from {} build cache", key.getDisplayName(), role.getDisplayName(), failure);
+                }
+                cleanup.run();
+            });
+        }
+    }
+
     @Override
     public void close() {
         LOGGER.debug("Closing {} build cache", role.getDisplayName());
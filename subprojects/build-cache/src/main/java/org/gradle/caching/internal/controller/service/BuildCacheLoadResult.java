@@ -20,10 +20,24 @@
 import org.gradle.caching.internal.origin.OriginMetadata;
 import org.gradle.internal.snapshot.FileSystemSnapshot;
 
+import java.time.Duration;
+
 public interface BuildCacheLoadResult {
     long getArtifactEntryCount();
 
     OriginMetadata getOriginMetadata();
 
     ImmutableSortedMap<String, FileSystemSnapshot> getResultingSnapshots();
+
+    /**
+     * The build cache the entry has been loaded from.
+     */
+    BuildCacheServiceRole getSource();
+
+    /**
+     * The time the entry was already being loaded from the remote build cache while looking it up in the local build cache.
+     *
+     * This is the part of the remote latency that did not delay the work.
+     */
+    Duration getHiddenRemoteLatency();
 }
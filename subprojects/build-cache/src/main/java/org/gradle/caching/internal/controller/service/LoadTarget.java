@@ -17,20 +17,31 @@
 package org.gradle.caching.internal.controller.service;
 
 import com.google.common.io.Closer;
-import com.google.common.io.Files;
 import org.gradle.caching.BuildCacheEntryReader;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.function.BooleanSupplier;
 
 public class LoadTarget implements BuildCacheEntryReader {
 
     private final File file;
+    private final BooleanSupplier cancelled;
     private boolean loaded;
 
     public LoadTarget(File file) {
+        this(file, () -> false);
+    }
+
+    /**
+     * Creates a target that stops reading the entry once {@code cancelled} returns true, leaving the entry not loaded.
+     */
+    public LoadTarget(File file, BooleanSupplier cancelled) {
         this.file = file;
+        this.cancelled = cancelled;
     }
 
     @Override
@@ -41,7 +52,16 @@ public void readFrom(InputStream input) throws IOException {
             if (loaded) {
                 throw new IllegalStateException("Build cache entry has already been read");
             }
-            Files.asByteSink(file).writeFrom(input);
+            try (OutputStream output = new FileOutputStream(file)) {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = input.read(buffer)) >= 0) {
+                    if (cancelled.getAsBoolean()) {
+                        return;
+                    }
+                    output.write(buffer, 0, read);
+                }
+            }
             loaded = true;
         } catch (Exception e) {
             throw closer.rethrow(e);
@@ -22,12 +22,25 @@
 import javax.annotation.Nullable;
 import java.io.File;
 import java.util.Optional;
+import java.util.concurrent.Executor;
 import java.util.function.Function;
 
 public class NullRemoteBuildCacheServiceHandle implements RemoteBuildCacheServiceHandle {
 
     public static final RemoteBuildCacheServiceHandle INSTANCE = new NullRemoteBuildCacheServiceHandle();
 
+    private static final PendingLoad NO_LOAD = new PendingLoad() {
+        @Override
+        public Optional<BuildCacheLoadResult> maybeAwait(Function<File, BuildCacheLoadResult> unpackFunction) {
+            return Optional.empty();
+        }
+
+        @Override
+        public void cancel(Runnable cleanup) {
+            cleanup.run();
+        }
+    };
+
     @Nullable
     @Override
     public BuildCacheService getService() {
@@ -44,6 +57,11 @@ public Optional<BuildCacheLoadResult> maybeLoad(BuildCacheKey key, File toFile,
         return Optional.empty();
     }
 
+    @Override
+    public PendingLoad startLoad(BuildCacheKey key, File toFile, Executor executor) {
+        return NO_LOAD;
+    }
+
     @Override
     public boolean canStore() {
         return false;
@@ -43,10 +43,19 @@ public OpFiringRemoteBuildCacheServiceHandle(BuildCacheService service, boolean
 
     @Override
     protected void loadInner(final String description, final BuildCacheKey key, final LoadTarget loadTarget) {
+        runLoadOperation(description, key, loadTarget, () -> loadInner(key, new OpFiringEntryReader(loadTarget)));
+    }
+
+    @Override
+    protected void awaitInner(String description, BuildCacheKey key, LoadTarget loadTarget, Runnable await) {
+        runLoadOperation(description, key, loadTarget, await);
+    }
+
+    private void runLoadOperation(final String description, final BuildCacheKey key, final LoadTarget loadTarget, final Runnable load) {
         buildOperationExecutor.run(new RunnableBuildOperation() {
             @Override
             public void run(BuildOperationContext context) {
-                loadInner(key, new OpFiringEntryReader(loadTarget));
+                load.run();
                 context.setResult(
                     loadTarget.isLoaded()
                         ? new LoadOperationHitResult(loadTarget.getLoadedSize())
@@ -24,6 +24,7 @@
 import java.io.Closeable;
 import java.io.File;
 import java.util.Optional;
+import java.util.concurrent.Executor;
 import java.util.function.Function;
 
 public interface RemoteBuildCacheServiceHandle extends Closeable {
@@ -41,6 +42,14 @@ public interface RemoteBuildCacheServiceHandle extends Closeable {
      */
     Optional<BuildCacheLoadResult> maybeLoad(BuildCacheKey key, File toFile, Function<File, BuildCacheLoadResult> unpackFunction);
 
+    /**
+     * Starts loading the cached entry corresponding to the given cache key to the given target file on the given executor, without waiting for it.
+     *
+     * The load is only reported once it is awaited, so a load that is cancelled instead does not outlive the operation that started it.
+     * If canLoad() returns false, then the pending load will do nothing and will return empty result.
+     */
+    PendingLoad startLoad(BuildCacheKey key, File toFile, Executor executor);
+
     boolean canStore();
 
     /**
@@ -54,4 +63,21 @@ public interface RemoteBuildCacheServiceHandle extends Closeable {
 
     @Override
     void close();
+
+    /**
+     * A load started by {@link #startLoad(BuildCacheKey, File, Executor)}.
+     */
+    interface PendingLoad {
+        /**
+         * Waits for the load to finish and unpacks the loaded entry, like {@link #maybeLoad(BuildCacheKey, File, Function)}.
+         */
+        Optional<BuildCacheLoadResult> maybeAwait(Function<File, BuildCacheLoadResult> unpackFunction);
+
+        /**
+         * Stops reading the entry without waiting for the load. Failures of the load are ignored.
+         *
+         * @param cleanup runs once the load has stopped, in the background if it is still running.
+         */
+        void cancel(Runnable cleanup);
+    }
 }
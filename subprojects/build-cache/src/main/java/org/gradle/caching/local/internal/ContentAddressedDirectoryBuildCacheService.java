@@ -0,0 +1,37 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.local.internal;
+
+import org.gradle.cache.PersistentCache;
+import org.gradle.caching.internal.packaging.FileContentStore;
+import org.gradle.internal.file.FileAccessTracker;
+import org.gradle.internal.resource.local.PathKeyFileStore;
+
+public class ContentAddressedDirectoryBuildCacheService extends DirectoryBuildCacheService implements ContentAddressedLocalBuildCacheService {
+
+    private final FileContentStore contentStore;
+
+    public ContentAddressedDirectoryBuildCacheService(PathKeyFileStore fileStore, FileContentStore contentStore, PersistentCache persistentCache, BuildCacheTempFileStore tempFileStore, FileAccessTracker fileAccessTracker, String failedFileSuffix) {
+        super(fileStore, persistentCache, tempFileStore, fileAccessTracker, failedFileSuffix);
+        this.contentStore = contentStore;
+    }
+
+    @Override
+    public FileContentStore getContentStore() {
+        return contentStore;
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.local.internal;
+
+import org.gradle.caching.internal.packaging.FileContentStore;
+
+/**
+ * A local build cache service that stores the contents of output files separately from the cache entries, so that each distinct content is only stored once.
+ *
+ * Cache entries stored in this service may refer to contents in its {@link #getContentStore() content store}.
+ */
+public interface ContentAddressedLocalBuildCacheService extends LocalBuildCacheService {
+
+    /**
+     * The store holding the file contents the cache entries refer to.
+     */
+    FileContentStore getContentStore();
+}
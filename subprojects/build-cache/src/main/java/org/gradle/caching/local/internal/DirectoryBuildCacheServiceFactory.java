@@ -34,6 +34,7 @@
 import org.gradle.internal.file.FileAccessTracker;
 import org.gradle.internal.file.PathToFileResolver;
 import org.gradle.internal.file.impl.SingleDepthFileAccessTracker;
+import org.gradle.internal.hash.StreamHasher;
 import org.gradle.internal.resource.local.PathKeyFileStore;
 import org.gradle.internal.time.TimestampSuppliers;
 
@@ -52,6 +53,16 @@ public class DirectoryBuildCacheServiceFactory implements BuildCacheServiceFacto
     private static final String DIRECTORY_BUILD_CACHE_TYPE = "directory";
     private static final int FILE_TREE_DEPTH_TO_TRACK_AND_CLEANUP = 1;
 
+    /**
+     * Enables the content-addressed layout, which stores each distinct output file content only once.
+     * Supported values are {@code copy}, which copies the contents into the outputs, and {@code hardlink}, which links them read-only.
+     */
+    public static final String CONTENT_ADDRESSED_PROPERTY = "org.gradle.unsafe.build-cache.content-addressed";
+    private static final String CONTENT_ADDRESSED_BUILD_CACHE_KEY = "build-cache-cas-" + BUILD_CACHE_VERSION;
+    private static final String ENTRIES_DIR = "entries";
+    private static final String CONTENT_DIR = "content";
+    private static final int CONTENT_ADDRESSED_FILE_TREE_DEPTH_TO_TRACK_AND_CLEANUP = 2;
+
     private final UnscopedCacheBuilderFactory unscopedCacheBuilderFactory;
     private final GlobalScopedCacheBuilderFactory cacheBuilderFactory;
     private final PathToFileResolver resolver;
@@ -59,11 +70,12 @@ public class DirectoryBuildCacheServiceFactory implements BuildCacheServiceFacto
     private final CleanupActionDecorator cleanupActionDecorator;
     private final FileAccessTimeJournal fileAccessTimeJournal;
     private final TemporaryFileProvider temporaryFileProvider;
+    private final StreamHasher streamHasher;
 
     @Inject
     public DirectoryBuildCacheServiceFactory(
             UnscopedCacheBuilderFactory unscopedCacheBuilderFactory, GlobalScopedCacheBuilderFactory cacheBuilderFactory, PathToFileResolver resolver, DirectoryBuildCacheFileStoreFactory fileStoreFactory,
-            CleanupActionDecorator cleanupActionDecorator, FileAccessTimeJournal fileAccessTimeJournal, TemporaryFileProvider temporaryFileProvider) {
+            CleanupActionDecorator cleanupActionDecorator, FileAccessTimeJournal fileAccessTimeJournal, TemporaryFileProvider temporaryFileProvider, StreamHasher streamHasher) {
         this.unscopedCacheBuilderFactory = unscopedCacheBuilderFactory;
         this.cacheBuilderFactory = cacheBuilderFactory;
         this.resolver = resolver;
@@ -71,17 +83,16 @@ public DirectoryBuildCacheServiceFactory(
         this.cleanupActionDecorator = cleanupActionDecorator;
         this.fileAccessTimeJournal = fileAccessTimeJournal;
         this.temporaryFileProvider = temporaryFileProvider;
+        this.streamHasher = streamHasher;
     }
 
     @Override
     public BuildCacheService createBuildCacheService(DirectoryBuildCache configuration, Describer describer) {
-        Object cacheDirectory = configuration.getDirectory();
-        File target;
-        if (cacheDirectory != null) {
-            target = resolver.resolve(cacheDirectory);
-        } else {
-            target = cacheBuilderFactory.baseDirForCrossVersionCache(BUILD_CACHE_KEY);
+        String contentAddressed = System.getProperty(CONTENT_ADDRESSED_PROPERTY);
+        if (contentAddressed != null) {
+            return createContentAddressedBuildCacheService(configuration, describer, contentAddressed);
         }
+        File target = resolveCacheDirectory(configuration, BUILD_CACHE_KEY);
         checkDirectory(target);
 
         int removeUnusedEntriesAfterDays = configuration.getRemoveUnusedEntriesAfterDays();
@@ -93,7 +104,7 @@ public BuildCacheService createBuildCacheService(DirectoryBuildCache configurati
         PathKeyFileStore fileStore = fileStoreFactory.createFileStore(target);
         PersistentCache persistentCache = unscopedCacheBuilderFactory
             .cache(target)
-            .withCleanupStrategy(createCacheCleanupStrategy(removeUnusedEntriesOlderThan))
+            .withCleanupStrategy(createCacheCleanupStrategy(removeUnusedEntriesOlderThan, FILE_TREE_DEPTH_TO_TRACK_AND_CLEANUP))
             .withDisplayName("Build cache")
             .withLockOptions(mode(OnDemand))
             .withCrossVersionCache(CacheBuilder.LockTarget.DefaultTarget)
@@ -104,12 +115,58 @@ public BuildCacheService createBuildCacheService(DirectoryBuildCache configurati
         return new DirectoryBuildCacheService(fileStore, persistentCache, tempFileStore, fileAccessTracker, FAILED_READ_SUFFIX);
     }
 
-    private CacheCleanupStrategy createCacheCleanupStrategy(Supplier<Long> removeUnusedEntriesTimestamp) {
-        return DefaultCacheCleanupStrategy.from(cleanupActionDecorator.decorate(createCleanupAction(removeUnusedEntriesTimestamp)));
+    /**
+     * Creates a cache keeping the entries and the file contents they refer to in separate directories, which are cleaned up alike.
+     * The contents are marked as used whenever an entry referring to them is stored or loaded, so they are not removed before the entries.
+     */
+    private BuildCacheService createContentAddressedBuildCacheService(DirectoryBuildCache configuration, Describer describer, String mode) {
+        boolean hardLinks;
+        if (mode.equals("hardlink")) {
+            hardLinks = true;
+        } else if (mode.isEmpty() || mode.equals("copy") || mode.equals("true")) {
+            hardLinks = false;
+        } else {
+            throw new IllegalArgumentException(String.format("Unknown content-addressed build cache mode '%s'. Supported modes are copy and hardlink.", mode));
+        }
+        File target = resolveCacheDirectory(configuration, CONTENT_ADDRESSED_BUILD_CACHE_KEY);
+        checkDirectory(target);
+
+        int removeUnusedEntriesAfterDays = configuration.getRemoveUnusedEntriesAfterDays();
+        Supplier<Long> removeUnusedEntriesOlderThan = TimestampSuppliers.daysAgo(removeUnusedEntriesAfterDays);
+        describer.type(DIRECTORY_BUILD_CACHE_TYPE).
+            config("location", target.getAbsolutePath()).
+            config("removeUnusedEntriesAfter", String.valueOf(removeUnusedEntriesAfterDays) + " days").
+            config("contentAddressed", hardLinks ? "hardlink" : "copy");
+
+        PathKeyFileStore fileStore = fileStoreFactory.createFileStore(new File(target, ENTRIES_DIR));
+        PersistentCache persistentCache = unscopedCacheBuilderFactory
+            .cache(target)
+            .withCleanupStrategy(createCacheCleanupStrategy(removeUnusedEntriesOlderThan, CONTENT_ADDRESSED_FILE_TREE_DEPTH_TO_TRACK_AND_CLEANUP))
+            .withDisplayName("Build cache")
+            .withLockOptions(mode(OnDemand))
+            .withCrossVersionCache(CacheBuilder.LockTarget.DefaultTarget)
+            .open();
+        BuildCacheTempFileStore tempFileStore = new DefaultBuildCacheTempFileStore(temporaryFileProvider);
+        FileAccessTracker fileAccessTracker = new SingleDepthFileAccessTracker(fileAccessTimeJournal, target, CONTENT_ADDRESSED_FILE_TREE_DEPTH_TO_TRACK_AND_CLEANUP);
+        DirectoryFileContentStore contentStore = new DirectoryFileContentStore(new File(target, CONTENT_DIR), persistentCache, fileAccessTracker, streamHasher, hardLinks);
+
+        return new ContentAddressedDirectoryBuildCacheService(fileStore, contentStore, persistentCache, tempFileStore, fileAccessTracker, FAILED_READ_SUFFIX);
+    }
+
+    private File resolveCacheDirectory(DirectoryBuildCache configuration, String defaultCacheKey) {
+        Object cacheDirectory = configuration.getDirectory();
+        if (cacheDirectory != null) {
+            return resolver.resolve(cacheDirectory);
+        }
+        return cacheBuilderFactory.baseDirForCrossVersionCache(defaultCacheKey);
+    }
+
+    private CacheCleanupStrategy createCacheCleanupStrategy(Supplier<Long> removeUnusedEntriesTimestamp, int fileTreeDepth) {
+        return DefaultCacheCleanupStrategy.from(cleanupActionDecorator.decorate(createCleanupAction(removeUnusedEntriesTimestamp, fileTreeDepth)));
     }
 
-    private LeastRecentlyUsedCacheCleanup createCleanupAction(Supplier<Long> removeUnusedEntriesTimestamp) {
-        return new LeastRecentlyUsedCacheCleanup(new SingleDepthFilesFinder(FILE_TREE_DEPTH_TO_TRACK_AND_CLEANUP), fileAccessTimeJournal, removeUnusedEntriesTimestamp);
+    private LeastRecentlyUsedCacheCleanup createCleanupAction(Supplier<Long> removeUnusedEntriesTimestamp, int fileTreeDepth) {
+        return new LeastRecentlyUsedCacheCleanup(new SingleDepthFilesFinder(fileTreeDepth), fileAccessTimeJournal, removeUnusedEntriesTimestamp);
     }
 
     private static void checkDirectory(File directory) {
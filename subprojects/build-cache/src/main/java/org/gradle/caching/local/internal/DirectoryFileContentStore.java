@@ -0,0 +1,249 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.local.internal;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.gradle.cache.PersistentCache;
+import org.gradle.caching.internal.packaging.FileContentStore;
+import org.gradle.internal.file.FileAccessTracker;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.StreamHasher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Stores file contents in a directory, in a file named after the hash of the content.
+ *
+ * <p>Contents are materialized by copying them, which lets the file system share the blocks where it supports copy-on-write clones.
+ * When hard links are enabled, contents are stored read-only and linked instead, as long as the stored file has the requested permissions without the write permissions.
+ * Hard-linked outputs share the stored file, so they are left read-only, and the stored content is verified before it is linked or copied again.
+ * The content is only hashed again when its length or modification time differ from when it was stored or last verified.
+ * Content that does not match its hash is removed, which fails the load like a missing content does.</p>
+ */
+public class DirectoryFileContentStore implements FileContentStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DirectoryFileContentStore.class);
+    private static final int WRITE_PERMISSIONS = 0222;
+    private static final int VERIFIED_CONTENTS_CACHE_SIZE = 100_000;
+    private static final PosixFilePermission[] PERMISSIONS_BY_BIT = {
+        PosixFilePermission.OTHERS_EXECUTE, PosixFilePermission.OTHERS_WRITE, PosixFilePermission.OTHERS_READ,
+        PosixFilePermission.GROUP_EXECUTE, PosixFilePermission.GROUP_WRITE, PosixFilePermission.GROUP_READ,
+        PosixFilePermission.OWNER_EXECUTE, PosixFilePermission.OWNER_WRITE, PosixFilePermission.OWNER_READ
+    };
+
+    private final File contentDir;
+    private final PersistentCache persistentCache;
+    private final FileAccessTracker fileAccessTracker;
+    private final StreamHasher streamHasher;
+    private final boolean hardLinks;
+    private final Cache<HashCode, ContentStamp> verifiedContents = CacheBuilder.newBuilder()
+        .maximumSize(VERIFIED_CONTENTS_CACHE_SIZE)
+        .build();
+
+    public DirectoryFileContentStore(File contentDir, PersistentCache persistentCache, FileAccessTracker fileAccessTracker, StreamHasher streamHasher, boolean hardLinks) {
+        this.contentDir = contentDir;
+        this.persistentCache = persistentCache;
+        this.fileAccessTracker = fileAccessTracker;
+        this.streamHasher = streamHasher;
+        this.hardLinks = hardLinks;
+    }
+
+    @Override
+    public void store(HashCode contentHash, File file) throws IOException {
+        File storedFile = getStoredFile(contentHash);
+        withFileLock(() -> {
+            if (!storedFile.isFile()) {
+                storeInsideLock(contentHash, file, storedFile);
+            }
+            // Marked on every store, so the content is kept at least as long as the entries referring to it
+            fileAccessTracker.markAccessed(storedFile);
+        });
+    }
+
+    private void storeInsideLock(HashCode contentHash, File file, File storedFile) throws IOException {
+        Files.createDirectories(contentDir.toPath());
+        Path tempFile = contentDir.toPath().resolve(storedFile.getName() + "." + UUID.randomUUID() + ".part");
+        try {
+            Files.copy(file.toPath(), tempFile);
+            if (hardLinks) {
+                makeReadOnly(file.toPath(), tempFile);
+            }
+            Files.move(tempFile, storedFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            if (hardLinks) {
+                // The content was hashed when it was packed
+                verifiedContents.put(contentHash, ContentStamp.of(storedFile.toPath()));
+            }
+        } catch (FileAlreadyExistsException e) {
+            // Stored concurrently by another thread
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    @Override
+    public boolean materialize(HashCode contentHash, int unixMode, File target) throws IOException {
+        File storedFile = getStoredFile(contentHash);
+        AtomicBoolean linked = new AtomicBoolean();
+        withFileLock(() -> {
+            linked.set(materializeInsideLock(contentHash, storedFile, unixMode, target));
+            fileAccessTracker.markAccessed(storedFile);
+        });
+        return linked.get();
+    }
+
+    private boolean materializeInsideLock(HashCode contentHash, File storedFile, int unixMode, File target) throws IOException {
+        if (!storedFile.isFile()) {
+            throw new FileNotFoundException("Content " + storedFile.getName() + " is missing from the build cache");
+        }
+        if (hardLinks) {
+            // Content may have been modified through a link, whether it is linked or copied now
+            verifyContent(contentHash, storedFile);
+        }
+        if (hardLinks && hasPermissions(storedFile.toPath(), unixMode & ~WRITE_PERMISSIONS)) {
+            try {
+                Files.createLink(target.toPath(), storedFile.toPath());
+                return true;
+            } catch (IOException | UnsupportedOperationException e) {
+                LOGGER.debug("Could not link {} to {}, copying it instead", target, storedFile, e);
+            }
+        }
+        Files.copy(storedFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        return false;
+    }
+
+    /**
+     * Checks that the stored content was not modified through one of the files linked to it.
+     */
+    private void verifyContent(HashCode contentHash, File storedFile) throws IOException {
+        ContentStamp stamp = ContentStamp.of(storedFile.toPath());
+        if (stamp.equals(verifiedContents.getIfPresent(contentHash))) {
+            return;
+        }
+        HashCode actualHash;
+        try (InputStream input = new FileInputStream(storedFile)) {
+            actualHash = streamHasher.hash(input);
+        }
+        if (!actualHash.equals(contentHash)) {
+            verifiedContents.invalidate(contentHash);
+            Files.delete(storedFile.toPath());
+            throw new FileNotFoundException("Content " + storedFile.getName() + " in the build cache was modified, it has been removed");
+        }
+        verifiedContents.put(contentHash, stamp);
+    }
+
+    private static void makeReadOnly(Path source, Path file) {
+        try {
+            Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(source);
+            permissions.removeAll(EnumSet.of(PosixFilePermission.OWNER_WRITE, PosixFilePermission.GROUP_WRITE, PosixFilePermission.OTHERS_WRITE));
+            Files.setPosixFilePermissions(file, permissions);
+        } catch (IOException | UnsupportedOperationException e) {
+            // Contents without POSIX permissions are never linked
+            LOGGER.debug("Could not make {} read-only", file, e);
+        }
+    }
+
+    private static boolean hasPermissions(Path file, int unixMode) {
+        try {
+            return Files.getPosixFilePermissions(file).equals(toPermissions(unixMode));
+        } catch (IOException | UnsupportedOperationException e) {
+            return false;
+        }
+    }
+
+    private static Set<PosixFilePermission> toPermissions(int unixMode) {
+        Set<PosixFilePermission> permissions = EnumSet.noneOf(PosixFilePermission.class);
+        for (int bit = 0; bit < PERMISSIONS_BY_BIT.length; bit++) {
+            if ((unixMode & (1 << bit)) != 0) {
+                permissions.add(PERMISSIONS_BY_BIT[bit]);
+            }
+        }
+        return permissions;
+    }
+
+    private void withFileLock(IOAction action) throws IOException {
+        try {
+            persistentCache.withFileLock(() -> {
+                try {
+                    action.run();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private interface IOAction {
+        void run() throws IOException;
+    }
+
+    private File getStoredFile(HashCode contentHash) {
+        return new File(contentDir, contentHash.toString());
+    }
+
+    private static final class ContentStamp {
+        private final long length;
+        private final FileTime lastModified;
+
+        private ContentStamp(long length, FileTime lastModified) {
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+
+        static ContentStamp of(Path file) throws IOException {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            return new ContentStamp(attributes.size(), attributes.lastModifiedTime());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            ContentStamp that = (ContentStamp) o;
+            return length == that.length && lastModified.equals(that.lastModified);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(length, lastModified);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.controller
+
+import org.gradle.caching.BuildCacheKey
+import org.gradle.caching.internal.CacheableEntity
+import org.gradle.caching.internal.controller.service.BuildCacheLoadResult
+import org.gradle.internal.hash.Hashing
+import spock.lang.Specification
+
+import java.time.Duration
+
+import static org.gradle.caching.internal.packaging.impl.CompressingBuildCacheEntryPacker.Compression.LZ4
+
+class CompressionSpecificBuildCacheControllerTest extends Specification {
+    def delegate = Mock(BuildCacheController)
+    def entity = Stub(CacheableEntity)
+    def key = Stub(BuildCacheKey) {
+        getHashCode() >> Hashing.hashString("key").toString()
+        toByteArray() >> Hashing.hashString("key").toByteArray()
+    }
+    def controller = new CompressionSpecificBuildCacheController(delegate, LZ4)
+
+    def "loads and stores entries under the same key that differs from the original key"() {
+        def loadResult = Stub(BuildCacheLoadResult)
+        BuildCacheKey storedKey = null
+        BuildCacheKey loadedKey = null
+
+        when:
+        controller.store(key, entity, [:], Duration.ZERO)
+        then:
+        1 * delegate.store(_, entity, [:], Duration.ZERO) >> { BuildCacheKey k, CacheableEntity e, Map s, Duration d -> storedKey = k }
+
+        when:
+        def result = controller.load(key, entity)
+        then:
+        1 * delegate.load(_, entity) >> { BuildCacheKey k, CacheableEntity e -> loadedKey = k; Optional.of(loadResult) }
+        result.get() == loadResult
+
+        and:
+        storedKey.hashCode != key.hashCode
+        storedKey.toByteArray() != key.toByteArray()
+        loadedKey.hashCode == storedKey.hashCode
+        loadedKey.toByteArray() == storedKey.toByteArray()
+    }
+
+    def "uses different keys for different original keys"() {
+        def otherKey = Stub(BuildCacheKey) {
+            toByteArray() >> Hashing.hashString("other key").toByteArray()
+        }
+        def keys = []
+
+        when:
+        controller.load(key, entity)
+        controller.load(otherKey, entity)
+        then:
+        2 * delegate.load(_, entity) >> { BuildCacheKey k, CacheableEntity e -> keys << k.hashCode; Optional.empty() }
+        keys[0] != keys[1]
+    }
+}
@@ -22,6 +22,7 @@ import org.gradle.caching.BuildCacheKey
 import org.gradle.caching.internal.CacheableEntity
 import org.gradle.caching.internal.controller.operations.PackOperationResult
 import org.gradle.caching.internal.controller.operations.UnpackOperationResult
+import org.gradle.caching.internal.controller.service.BuildCacheServiceRole
 import org.gradle.caching.internal.origin.OriginMetadata
 import org.gradle.caching.internal.origin.OriginMetadataFactory
 import org.gradle.caching.internal.origin.OriginReader
@@ -88,7 +89,7 @@ class DefaultBuildCacheControllerPackOperationExecutorTest extends Specification
         ]
 
         when:
-        def result = packOperationExecutor.unpack(key, entity, input)
+        def result = packOperationExecutor.unpack(key, entity, input, BuildCacheServiceRole.LOCAL, Duration.ZERO)
 
         then:
         1 * buildOperationExecutor.call(_) >> { CallableBuildOperation action -> action.call(buildOperationContext)}
@@ -129,7 +130,7 @@ class DefaultBuildCacheControllerPackOperationExecutorTest extends Specification
         def entity = this.entity(prop("output", FILE, outputFile))
 
         when:
-        packOperationExecutor.unpack(key, entity, input)
+        packOperationExecutor.unpack(key, entity, input, BuildCacheServiceRole.LOCAL, Duration.ZERO)
 
         then:
         1 * buildOperationExecutor.call(_) >> { CallableBuildOperation action -> action.call(buildOperationContext)}
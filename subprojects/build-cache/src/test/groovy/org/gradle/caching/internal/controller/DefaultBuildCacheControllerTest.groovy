@@ -24,18 +24,38 @@ import org.gradle.caching.BuildCacheEntryWriter
 import org.gradle.caching.BuildCacheKey
 import org.gradle.caching.BuildCacheService
 import org.gradle.caching.internal.CacheableEntity
+import org.gradle.caching.internal.controller.service.BuildCacheServiceRole
 import org.gradle.caching.internal.controller.service.BuildCacheServicesConfiguration
 import org.gradle.caching.internal.origin.OriginMetadataFactory
 import org.gradle.caching.internal.packaging.BuildCacheEntryPacker
 import org.gradle.caching.local.internal.LocalBuildCacheService
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.concurrent.DefaultParallelismConfiguration
+import org.gradle.internal.operations.BuildOperationContext
+import org.gradle.internal.operations.BuildOperationDescriptor
+import org.gradle.internal.operations.BuildOperationExecutor
+import org.gradle.internal.operations.BuildOperationListener
+import org.gradle.internal.operations.DefaultBuildOperationExecutor
+import org.gradle.internal.operations.DefaultBuildOperationIdFactory
+import org.gradle.internal.operations.DefaultBuildOperationListenerManager
+import org.gradle.internal.operations.DefaultBuildOperationQueueFactory
+import org.gradle.internal.operations.OperationFinishEvent
+import org.gradle.internal.operations.OperationIdentifier
+import org.gradle.internal.operations.OperationProgressEvent
+import org.gradle.internal.operations.OperationStartEvent
+import org.gradle.internal.operations.RunnableBuildOperation
 import org.gradle.internal.operations.TestBuildOperationExecutor
+import org.gradle.internal.progress.NoOpProgressLoggerFactory
 import org.gradle.internal.snapshot.FileSystemSnapshot
 import org.gradle.internal.vfs.FileSystemAccess
+import org.gradle.internal.time.Clock
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.test.fixtures.work.TestWorkerLeaseService
 import org.junit.Rule
 import spock.lang.Specification
 
 import java.time.Duration
+import java.util.concurrent.CountDownLatch
 
 class DefaultBuildCacheControllerTest extends Specification {
 
@@ -63,13 +83,18 @@ class DefaultBuildCacheControllerTest extends Specification {
     OriginMetadataFactory originMetadataFactory = Stub(OriginMetadataFactory)
     StringInterner stringInterner = Stub(StringInterner)
 
-    def operations = new TestBuildOperationExecutor()
+    BuildOperationExecutor operations = new TestBuildOperationExecutor()
+    def operationListenerManager = new DefaultBuildOperationListenerManager()
+    def operationIdFactory = new DefaultBuildOperationIdFactory()
 
     @Rule
     final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
 
     interface Local extends BuildCacheService, LocalBuildCacheService {}
 
+    boolean loadRemoteConcurrently
+    boolean storeRemoteAsynchronously
+
     BuildCacheController getController(boolean disableRemoteOnError = true) {
         new DefaultBuildCacheController(
             new BuildCacheServicesConfiguration(
@@ -86,7 +111,11 @@ class DefaultBuildCacheControllerTest extends Specification {
             fileSystemAccess,
             packer,
             originMetadataFactory,
-            stringInterner
+            stringInterner,
+            new DefaultExecutorFactory(),
+            new DefaultBuildCacheController.BackgroundOperationServices(operationListenerManager, operationIdFactory, Stub(Clock)),
+            loadRemoteConcurrently,
+            storeRemoteAsynchronously
         )
     }
 
@@ -265,6 +294,157 @@ class DefaultBuildCacheControllerTest extends Specification {
         1 * remote.store(key, _)
     }
 
+    def "concurrent remote load is used after local miss"() {
+        given:
+        loadRemoteConcurrently = true
+        1 * local.loadLocally(key, _) // miss
+        1 * remote.load(key, _) >> { BuildCacheKey key, BuildCacheEntryReader reader ->
+            reader.readFrom(new ByteArrayInputStream("foo".bytes))
+            true
+        }
+
+        when:
+        def controller = getController()
+        def result = controller.load(key, cacheableEntity)
+        controller.close()
+
+        then:
+        result.get().source == BuildCacheServiceRole.REMOTE
+        1 * local.storeLocally(key, _)
+    }
+
+    def "concurrent remote load is discarded after local hit"() {
+        given:
+        loadRemoteConcurrently = true
+        1 * local.loadLocally(key, _) >> { BuildCacheKey key, Action<File> action ->
+            def file = tmpDir.file("local-entry")
+            file.text = "alma"
+            action.execute(file)
+        }
+        (0..1) * remote.load(key, _) >> { BuildCacheKey key, BuildCacheEntryReader reader ->
+            reader.readFrom(new ByteArrayInputStream("foo".bytes))
+            true
+        }
+
+        when:
+        def controller = getController()
+        def result = controller.load(key, cacheableEntity)
+        controller.close()
+
+        then:
+        result.get().source == BuildCacheServiceRole.LOCAL
+        0 * local.storeLocally(key, _)
+        tmpDir.testDirectory.listFiles().findAll { it.name.endsWith(".download") }.empty
+    }
+
+    def "stores to remote asynchronously"() {
+        given:
+        storeRemoteAsynchronously = true
+
+        when:
+        def controller = getController()
+        controller.store(key, cacheableEntity, snapshots, executionTime)
+        controller.close()
+
+        then:
+        1 * local.storeLocally(key, _)
+        1 * remote.store(key, _)
+    }
+
+    def "local hit does not wait for concurrent remote load"() {
+        given:
+        loadRemoteConcurrently = true
+        operations = realBuildOperationExecutor()
+        def loadStarted = new CountDownLatch(1)
+        def workCompleted = new CountDownLatch(1)
+        def remainingEntry = new InputStream() {
+            @Override
+            int read() {
+                workCompleted.await()
+                return 1
+            }
+        }
+        1 * local.loadLocally(key, _) >> { BuildCacheKey key, Action<File> action ->
+            loadStarted.await()
+            def file = tmpDir.file("local-entry")
+            file.text = "alma"
+            action.execute(file)
+        }
+        1 * remote.load(key, _) >> { BuildCacheKey key, BuildCacheEntryReader reader ->
+            loadStarted.countDown()
+            reader.readFrom(remainingEntry)
+            true
+        }
+
+        when:
+        def controller = getController()
+        def result = null
+        runWork { result = controller.load(key, cacheableEntity) }
+        workCompleted.countDown()
+        controller.close()
+
+        then:
+        result.get().source == BuildCacheServiceRole.LOCAL
+        0 * local.storeLocally(key, _)
+        controller.remote.canLoad()
+        tmpDir.testDirectory.listFiles().findAll { it.name.endsWith(".download") }.empty
+    }
+
+    def "stores to remote asynchronously after the operation of the work completed"() {
+        given:
+        storeRemoteAsynchronously = true
+        operations = realBuildOperationExecutor()
+        def workCompleted = new CountDownLatch(1)
+
+        when:
+        def controller = getController()
+        runWork { controller.store(key, cacheableEntity, snapshots, executionTime) }
+        workCompleted.countDown()
+        controller.close()
+
+        then:
+        1 * local.storeLocally(key, _)
+        1 * remote.store(key, _) >> { workCompleted.await() }
+        controller.remote.canStore()
+    }
+
+    def "stores to remote asynchronously as a child of the parent of the work"() {
+        given:
+        storeRemoteAsynchronously = true
+        operations = realBuildOperationExecutor()
+        def started = Collections.synchronizedList([])
+        operationListenerManager.addListener(new BuildOperationListener() {
+            @Override
+            void started(BuildOperationDescriptor buildOperation, OperationStartEvent startEvent) {
+                started << buildOperation
+            }
+
+            @Override
+            void progress(OperationIdentifier operationIdentifier, OperationProgressEvent progressEvent) {
+            }
+
+            @Override
+            void finished(BuildOperationDescriptor buildOperation, OperationFinishEvent finishEvent) {
+            }
+        })
+
+        when:
+        def controller = getController()
+        runWork("Run tasks") {
+            runWork { controller.store(key, cacheableEntity, snapshots, executionTime) }
+        }
+        controller.close()
+
+        then:
+        1 * local.storeLocally(key, _)
+        1 * remote.store(key, _)
+        def runTasks = started.find { it.displayName == "Run tasks" }
+        def background = started.find { it.displayName == "Store entries in remote build cache in the background" }
+        def upload = started.find { it.displayName.startsWith("Store entry") }
+        background.parentId == runTasks.id
+        upload.parentId == background.id
+    }
+
     def "close only closes once"() {
         when:
         def controller = getController()
@@ -276,4 +456,28 @@ class DefaultBuildCacheControllerTest extends Specification {
         1 * local.close()
         1 * remote.close()
     }
+
+    private BuildOperationExecutor realBuildOperationExecutor() {
+        new DefaultBuildOperationExecutor(
+            operationListenerManager.broadcaster, Stub(Clock), new NoOpProgressLoggerFactory(),
+            new DefaultBuildOperationQueueFactory(new TestWorkerLeaseService()), new DefaultExecutorFactory(), new DefaultParallelismConfiguration(false, 1), operationIdFactory)
+    }
+
+    private void runWork(Runnable work) {
+        runWork("Execute work", work)
+    }
+
+    private void runWork(String displayName, Runnable work) {
+        operations.run(new RunnableBuildOperation() {
+            @Override
+            void run(BuildOperationContext context) {
+                work.run()
+            }
+
+            @Override
+            BuildOperationDescriptor.Builder description() {
+                BuildOperationDescriptor.displayName(displayName)
+            }
+        })
+    }
 }
@@ -20,6 +20,8 @@ import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import spock.lang.Specification
 import org.junit.Rule
 
+import java.util.concurrent.atomic.AtomicBoolean
+
 class LoadTargetTest extends Specification {
 
     @Rule
@@ -83,4 +85,23 @@ class LoadTargetTest extends Specification {
         input.closed
     }
 
+    def "stops reading when cancelled"() {
+        given:
+        def cancelled = new AtomicBoolean()
+        def target = new LoadTarget(temporaryFolder.file("file"), { cancelled.get() })
+        def input = new TestInputStream() {
+            @Override
+            int read() throws IOException {
+                cancelled.set(true)
+                return 1
+            }
+        }
+
+        when:
+        target.readFrom(input)
+
+        then:
+        !target.loaded
+        input.closed
+    }
 }
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.local.internal
+
+import org.gradle.cache.PersistentCache
+import org.gradle.internal.file.FileAccessTracker
+import org.gradle.internal.hash.DefaultStreamHasher
+import org.gradle.internal.hash.HashCode
+import org.gradle.test.fixtures.file.CleanupTestDirectory
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.Requires
+import org.gradle.util.TestPrecondition
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.nio.file.Files
+
+@CleanupTestDirectory
+class DirectoryFileContentStoreTest extends Specification {
+    @Rule TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider(getClass())
+    def contentDir = temporaryFolder.file("cache/content")
+    def persistentCache = Mock(PersistentCache) {
+        withFileLock(_) >> { Runnable r -> r.run() }
+    }
+    def fileAccessTracker = Mock(FileAccessTracker)
+    def streamHasher = new DefaultStreamHasher()
+    def hash = HashCode.fromString("1234abcd")
+
+    def "stores each content once"() {
+        def store = new DirectoryFileContentStore(contentDir, persistentCache, fileAccessTracker, streamHasher, false)
+        def first = temporaryFolder.createFile("first") << "content"
+        def second = temporaryFolder.createFile("second") << "changed"
+
+        when:
+        store.store(hash, first)
+        store.store(hash, second)
+
+        then:
+        2 * fileAccessTracker.markAccessed(new File(contentDir, hash.toString()))
+        contentDir.listFiles()*.name == [hash.toString()]
+        new File(contentDir, hash.toString()).text == "content"
+    }
+
+    def "materializes a copy of the stored content"() {
+        def store = new DirectoryFileContentStore(contentDir, persistentCache, fileAccessTracker, streamHasher, false)
+        def source = temporaryFolder.createFile("source") << "content"
+        def target = temporaryFolder.file("target")
+        store.store(hash, source)
+
+        when:
+        store.materialize(hash, 0644, target)
+
+        then:
+        1 * fileAccessTracker.markAccessed(new File(contentDir, hash.toString()))
+        target.text == "content"
+        !Files.isSameFile(target.toPath(), new File(contentDir, hash.toString()).toPath())
+    }
+
+    @Requires(TestPrecondition.UNIX_DERIVATIVE)
+    def "links the read-only stored content when it has the requested permissions"() {
+        def store = new DirectoryFileContentStore(contentDir, persistentCache, fileAccessTracker, streamHasher, true)
+        def source = temporaryFolder.createFile("source") << "content"
+        source.mode = 0644
+        def contentHash = streamHasher.hash(new ByteArrayInputStream("content".bytes))
+        def storedFile = contentDir.file(contentHash.toString())
+        store.store(contentHash, source)
+
+        when:
+        def linked = store.materialize(contentHash, 0644, temporaryFolder.file("linked"))
+        def copied = store.materialize(contentHash, 0755, temporaryFolder.file("copied"))
+
+        then:
+        storedFile.mode == 0444
+        linked
+        Files.isSameFile(temporaryFolder.file("linked").toPath(), storedFile.toPath())
+        !copied
+        !Files.isSameFile(temporaryFolder.file("copied").toPath(), storedFile.toPath())
+        temporaryFolder.file("copied").text == "content"
+    }
+
+    @Requires(TestPrecondition.UNIX_DERIVATIVE)
+    def "removes stored content that was modified through a link"() {
+        def store = new DirectoryFileContentStore(contentDir, persistentCache, fileAccessTracker, streamHasher, true)
+        def source = temporaryFolder.createFile("source") << "content"
+        source.mode = 0644
+        def contentHash = streamHasher.hash(new ByteArrayInputStream("content".bytes))
+        def storedFile = contentDir.file(contentHash.toString())
+        store.store(contentHash, source)
+        def linked = temporaryFolder.file("linked")
+        store.materialize(contentHash, 0644, linked)
+        linked.mode = 0644
+        linked.text = "modified"
+
+        when:
+        store.materialize(contentHash, 0644, temporaryFolder.file("target"))
+
+        then:
+        thrown(FileNotFoundException)
+        !storedFile.exists()
+        !temporaryFolder.file("target").exists()
+    }
+
+    @Requires(TestPrecondition.UNIX_DERIVATIVE)
+    def "only hashes the stored content again when its length or modification time changed"() {
+        def streamHasher = Spy(DefaultStreamHasher)
+        def store = new DirectoryFileContentStore(contentDir, persistentCache, fileAccessTracker, streamHasher, true)
+        def source = temporaryFolder.createFile("source") << "content"
+        source.mode = 0644
+        def contentHash = new DefaultStreamHasher().hash(new ByteArrayInputStream("content".bytes))
+        def storedFile = contentDir.file(contentHash.toString())
+        store.store(contentHash, source)
+
+        when:
+        store.materialize(contentHash, 0644, temporaryFolder.file("first"))
+        store.materialize(contentHash, 0644, temporaryFolder.file("second"))
+
+        then:
+        0 * streamHasher.hash(_)
+
+        when:
+        storedFile.setLastModified(storedFile.lastModified() - 5_000)
+        store.materialize(contentHash, 0644, temporaryFolder.file("third"))
+        store.materialize(contentHash, 0644, temporaryFolder.file("fourth"))
+
+        then:
+        1 * streamHasher.hash(_)
+        storedFile.exists()
+    }
+
+    def "fails when the content is missing"() {
+        def store = new DirectoryFileContentStore(contentDir, persistentCache, fileAccessTracker, streamHasher, false)
+
+        when:
+        store.materialize(hash, 0644, temporaryFolder.file("target"))
+
+        then:
+        thrown(FileNotFoundException)
+    }
+}
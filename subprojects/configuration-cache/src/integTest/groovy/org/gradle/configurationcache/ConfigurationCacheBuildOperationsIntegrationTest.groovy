@@ -536,13 +536,13 @@ class ConfigurationCacheBuildOperationsIntegrationTest extends AbstractConfigura
     }
 
     private void hasOperationsForLoad() {
-        operations.only(ConfigurationCacheLoadBuildOperationType)
+        assert operations.only(ConfigurationCacheLoadBuildOperationType).result.stateSize > 0
         operations.none(ConfigurationCacheStoreBuildOperationType)
     }
 
     private void hasOperationsForStoreAndLoad() {
-        operations.only(ConfigurationCacheLoadBuildOperationType)
-        operations.only(ConfigurationCacheStoreBuildOperationType)
+        assert operations.only(ConfigurationCacheLoadBuildOperationType).result.stateSize > 0
+        assert operations.only(ConfigurationCacheStoreBuildOperationType).result.stateSize > 0
     }
 
     void withBuildSrc() {
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configurationcache
+
+class ConfigurationCacheParallelLoadIntegrationTest extends AbstractConfigurationCacheIntegrationTest {
+
+    def setup() {
+        settingsFile << """
+            include 'a', 'b', 'c'
+        """
+        file('shared.txt') << 'shared'
+        buildFile << """
+            def sharedInputs = files('shared.txt')
+            subprojects {
+                def compile = tasks.register('compile') {
+                    inputs.files(sharedInputs)
+                    def message = "compile " + path
+                    doLast { println(message) }
+                }
+                def report = tasks.register('report') {
+                    def message = "report " + path
+                    doLast { println(message) }
+                }
+                tasks.register('check') {
+                    dependsOn compile
+                    finalizedBy report
+                    def message = "check " + path
+                    doLast { println(message) }
+                }
+            }
+            project(':b') {
+                tasks.named('compile') { dependsOn(':a:compile') }
+            }
+            project(':c') {
+                tasks.named('compile') { dependsOn(':b:compile') }
+                tasks.named('check') {
+                    dependsOn(':a:check')
+                    finalizedBy(':b:report')
+                }
+            }
+        """
+    }
+
+    def "loads work graph with cross-project dependencies and finalizers from per-project shards"() {
+        given:
+        def configurationCache = newConfigurationCacheFixture()
+
+        when:
+        run ':c:check'
+
+        then:
+        assertWorkGraphExecuted()
+
+        when:
+        configurationCacheRun ':c:check', '-Dorg.gradle.configuration-cache.internal.parallel-load=true'
+
+        then:
+        configurationCache.assertStateStored()
+        assertWorkGraphExecuted()
+
+        when:
+        configurationCacheRun ':c:check', '-Dorg.gradle.configuration-cache.internal.parallel-load=true'
+
+        then:
+        configurationCache.assertStateLoaded()
+        assertWorkGraphExecuted()
+    }
+
+    def "loads work graph stored in per-project shards when running tasks of several projects"() {
+        given:
+        def configurationCache = newConfigurationCacheFixture()
+
+        when:
+        configurationCacheRun ':b:check', ':c:compile', '-Dorg.gradle.configuration-cache.internal.parallel-load=true'
+
+        then:
+        configurationCache.assertStateStored()
+        result.assertTasksExecuted(':a:compile', ':b:compile', ':c:compile', ':b:check', ':b:report')
+
+        when:
+        configurationCacheRun ':b:check', ':c:compile', '-Dorg.gradle.configuration-cache.internal.parallel-load=true'
+
+        then:
+        configurationCache.assertStateLoaded()
+        result.assertTasksExecuted(':a:compile', ':b:compile', ':c:compile', ':b:check', ':b:report')
+        result.assertTaskOrder(':a:compile', ':b:compile', ':c:compile')
+        result.assertTaskOrder(':b:compile', ':b:check', ':b:report')
+    }
+
+    private void assertWorkGraphExecuted() {
+        result.assertTasksExecuted(':a:compile', ':b:compile', ':c:compile', ':a:check', ':a:report', ':c:check', ':c:report', ':b:report')
+        result.assertTaskOrder(':a:compile', ':b:compile', ':c:compile', ':c:check')
+        result.assertTaskOrder(':a:compile', ':a:check', ':a:report')
+        result.assertTaskOrder(':a:check', ':c:check', ':c:report')
+        result.assertTaskOrder(':c:check', ':b:report')
+        outputContains("check :c:check")
+        outputContains("report :b:report")
+    }
+}
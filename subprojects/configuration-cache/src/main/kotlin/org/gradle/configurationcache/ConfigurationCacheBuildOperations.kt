@@ -25,13 +25,13 @@ import org.gradle.internal.operations.CallableBuildOperation
 
 
 internal
-fun <T : Any> BuildOperationExecutor.withLoadOperation(block: () -> T) =
-    withOperation("Load configuration cache state", block, LoadDetails, LoadResult)
+fun <T : Any> BuildOperationExecutor.withLoadOperation(stateSize: ConfigurationCacheStateSize, block: () -> T) =
+    withOperation("Load configuration cache state", block, stateSize, LoadDetails, ::LoadResult)
 
 
 internal
-fun BuildOperationExecutor.withStoreOperation(@Suppress("UNUSED_PARAMETER") cacheKey: String, block: () -> Unit) =
-    withOperation("Store configuration cache state", block, StoreDetails, StoreResult)
+fun BuildOperationExecutor.withStoreOperation(@Suppress("UNUSED_PARAMETER") cacheKey: String, stateSize: ConfigurationCacheStateSize, block: () -> Unit) =
+    withOperation("Store configuration cache state", block, stateSize, StoreDetails, ::StoreResult)
 
 
 private
@@ -39,7 +39,9 @@ object LoadDetails : ConfigurationCacheLoadBuildOperationType.Details
 
 
 private
-object LoadResult : ConfigurationCacheLoadBuildOperationType.Result
+class LoadResult(private val size: Long) : ConfigurationCacheLoadBuildOperationType.Result {
+    override fun getStateSize(): Long = size
+}
 
 
 private
@@ -47,15 +49,25 @@ object StoreDetails : ConfigurationCacheStoreBuildOperationType.Details
 
 
 private
-object StoreResult : ConfigurationCacheStoreBuildOperationType.Result
+class StoreResult(private val size: Long) : ConfigurationCacheStoreBuildOperationType.Result {
+    override fun getStateSize(): Long = size
+}
 
 
 private
-fun <T : Any, D : Any, R : Any> BuildOperationExecutor.withOperation(displayName: String, block: () -> T, details: D, result: R): T =
+fun <T : Any, D : Any, R : Any> BuildOperationExecutor.withOperation(
+    displayName: String,
+    block: () -> T,
+    stateSize: ConfigurationCacheStateSize,
+    details: D,
+    result: (Long) -> R
+): T =
     call(object : CallableBuildOperation<T> {
         override fun description(): BuildOperationDescriptor.Builder =
             BuildOperationDescriptor.displayName(displayName).details(details)
 
-        override fun call(context: BuildOperationContext): T =
-            block().also { context.setResult(result) }
+        override fun call(context: BuildOperationContext): T {
+            stateSize.reset()
+            return block().also { context.setResult(result(stateSize.reset())) }
+        }
     })
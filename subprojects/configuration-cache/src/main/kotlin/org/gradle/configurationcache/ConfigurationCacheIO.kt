@@ -27,10 +27,18 @@ import org.gradle.configurationcache.problems.ConfigurationCacheProblems
 import org.gradle.configurationcache.serialization.DefaultReadContext
 import org.gradle.configurationcache.serialization.DefaultWriteContext
 import org.gradle.configurationcache.serialization.LoggingTracer
+import org.gradle.configurationcache.serialization.MappedFileInputStream
+import org.gradle.configurationcache.serialization.ReadContext
+import org.gradle.configurationcache.serialization.ReadIdentities
+import org.gradle.configurationcache.serialization.SharedClassTable
 import org.gradle.configurationcache.serialization.Tracer
+import org.gradle.configurationcache.serialization.WriteIdentities
 import org.gradle.configurationcache.serialization.beans.BeanStateReaderLookup
 import org.gradle.configurationcache.serialization.beans.BeanStateWriterLookup
 import org.gradle.configurationcache.serialization.codecs.Codecs
+import org.gradle.configurationcache.serialization.codecs.WorkGraphShardContexts
+import org.gradle.configurationcache.serialization.deflaterOutputStreamFor
+import org.gradle.configurationcache.serialization.inflaterInputStreamFor
 import org.gradle.configurationcache.serialization.readCollection
 import org.gradle.configurationcache.serialization.readFile
 import org.gradle.configurationcache.serialization.readList
@@ -53,6 +61,7 @@ import org.gradle.util.Path
 import java.io.File
 import java.io.InputStream
 import java.io.OutputStream
+import java.util.concurrent.TimeUnit
 
 
 @ServiceScope(Scopes.Gradle::class)
@@ -63,11 +72,58 @@ class ConfigurationCacheIO internal constructor(
     private val scopeRegistryListener: ConfigurationCacheClassLoaderScopeRegistryListener,
     private val beanStateReaderLookup: BeanStateReaderLookup,
     private val beanStateWriterLookup: BeanStateWriterLookup,
-    private val eventEmitter: BuildOperationProgressEventEmitter
+    private val eventEmitter: BuildOperationProgressEventEmitter,
+    private val stateSize: ConfigurationCacheStateSize
 ) {
     private
     val codecs = codecs()
 
+    private
+    val shardContexts = ShardContexts()
+
+    private
+    open inner class ShardContexts : WorkGraphShardContexts {
+        override fun writeContextFor(encoder: Encoder, sharedIdentities: WriteIdentities, sharedClasses: SharedClassTable) =
+            DefaultWriteContext(
+                codecs.userTypesCodec(),
+                encoder,
+                scopeRegistryListener,
+                beanStateWriterLookup,
+                logger,
+                null,
+                problems,
+                sharedIdentities,
+                sharedClasses
+            )
+
+        override fun readContextFor(decoder: Decoder, sharedIdentities: ReadIdentities, sharedClasses: List<Class<*>>) =
+            DefaultReadContext(
+                codecs.userTypesCodec(),
+                decoder,
+                beanStateReaderLookup,
+                logger,
+                problems,
+                sharedIdentities,
+                sharedClasses
+            )
+    }
+
+    /**
+     * Decodes the shards of the work graph directly from the memory mapped state file read by the given [decoder].
+     */
+    private
+    inner class MappedShardContexts(
+        private val input: MappedFileInputStream,
+        private val decoder: KryoBackedDecoder
+    ) : ShardContexts() {
+        override fun readShardContents(context: ReadContext): InputStream {
+            val length = context.readSmallInt()
+            val position = decoder.readPosition
+            context.skipBytes(length.toLong())
+            return input.region(position, length)
+        }
+    }
+
     internal
     fun writeCacheEntryDetailsTo(
         buildStateRegistry: BuildStateRegistry,
@@ -167,10 +223,27 @@ class ConfigurationCacheIO internal constructor(
         stateFile: ConfigurationCacheStateFile,
         action: suspend DefaultReadContext.(ConfigurationCacheState) -> T
     ): T {
-        return withReadContextFor(stateFile.inputStream()) { codecs ->
-            ConfigurationCacheState(codecs, stateFile, eventEmitter, host).run {
+        val startTime = System.nanoTime()
+        val decoder: KryoBackedDecoder
+        val contexts: ShardContexts
+        if (startParameter.compressState) {
+            decoder = KryoBackedDecoder(inflaterInputStreamFor(stateFile.inputStream()))
+            contexts = shardContexts
+        } else if (startParameter.mappedLoad) {
+            val input = stateFile.mappedInputStream()
+            decoder = KryoBackedDecoder(input)
+            contexts = MappedShardContexts(input, decoder)
+        } else {
+            decoder = KryoBackedDecoder(stateFile.inputStream())
+            contexts = shardContexts
+        }
+        return withReadContextFor(decoder) { codecs ->
+            ConfigurationCacheState(codecs, stateFile, eventEmitter, host, contexts, startParameter.parallelLoad).run {
                 action(this)
             }
+        }.also {
+            stateSize.add(decoder.readPosition)
+            logger.debug("Loaded configuration cache state ({} bytes) in {} ms.", decoder.readPosition, elapsedMillisSince(startTime))
         }
     }
 
@@ -180,14 +253,31 @@ class ConfigurationCacheIO internal constructor(
         action: suspend DefaultWriteContext.(ConfigurationCacheState) -> T
     ): T {
         val build = host.currentBuild
-        val (context, codecs) = writerContextFor(stateFile.outputStream(), build.gradle.owner.displayName.displayName + " state")
+        val profile = build.gradle.owner.displayName.displayName + " state"
+        val startTime = System.nanoTime()
+        val encoder = KryoBackedEncoder(stateOutputStreamFor(stateFile))
+        val context = writeContextFor(encoder, loggingTracerFor(profile, encoder), codecs)
         return context.useToRun {
             runWriteOperation {
-                action(ConfigurationCacheState(codecs, stateFile, eventEmitter, host))
+                action(ConfigurationCacheState(codecs, stateFile, eventEmitter, host, shardContexts, startParameter.parallelLoad))
             }
+        }.also {
+            stateSize.add(encoder.writePosition)
+            logger.debug("Stored {} ({} bytes) in {} ms.", profile, encoder.writePosition, elapsedMillisSince(startTime))
         }
     }
 
+    private
+    fun stateOutputStreamFor(stateFile: ConfigurationCacheStateFile): OutputStream =
+        stateFile.outputStream().let { outputStream ->
+            if (startParameter.compressState) deflaterOutputStreamFor(outputStream)
+            else outputStream
+        }
+
+    private
+    fun elapsedMillisSince(startTime: Long) =
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime)
+
     internal
     fun writeModelTo(model: Any, stateFile: ConfigurationCacheStateFile) {
         writeConfigurationCacheState(stateFile) {
@@ -242,7 +332,14 @@ class ConfigurationCacheIO internal constructor(
         inputStream: InputStream,
         readOperation: suspend DefaultReadContext.(Codecs) -> R
     ): R =
-        readerContextFor(inputStream).let { (context, codecs) ->
+        withReadContextFor(KryoBackedDecoder(inputStream), readOperation)
+
+    private
+    fun <R> withReadContextFor(
+        decoder: Decoder,
+        readOperation: suspend DefaultReadContext.(Codecs) -> R
+    ): R =
+        readerContextFor(decoder).let { (context, codecs) ->
             context.use {
                 context.run {
                     initClassLoader(javaClass.classLoader)
@@ -255,11 +352,6 @@ class ConfigurationCacheIO internal constructor(
             }
         }
 
-    private
-    fun readerContextFor(
-        inputStream: InputStream,
-    ) = readerContextFor(KryoBackedDecoder(inputStream))
-
     internal
     fun readerContextFor(
         decoder: Decoder,
@@ -71,6 +71,7 @@ class ConfigurationCacheKey(
         }
 
         putBoolean(startParameter.isOffline)
+        putBoolean(startParameter.compressState)
     }
 
     private
@@ -24,14 +24,18 @@ import org.gradle.cache.FileLockManager
 import org.gradle.cache.PersistentCache
 import org.gradle.api.internal.cache.CacheConfigurationsInternal
 import org.gradle.api.internal.cache.DefaultCacheCleanupStrategy
+import org.gradle.cache.internal.CompositeCleanupAction
 import org.gradle.cache.internal.LeastRecentlyUsedCacheCleanup
 import org.gradle.cache.internal.SingleDepthFilesFinder
+import org.gradle.cache.internal.SizeBudgetCacheCleanup
 import org.gradle.cache.internal.filelock.LockOptionsBuilder
 import org.gradle.cache.internal.streams.DefaultValueStore
 import org.gradle.cache.internal.streams.ValueStore
 import org.gradle.cache.scopes.BuildTreeScopedCacheBuilderFactory
 import org.gradle.configurationcache.extensions.toDefaultLowerCase
 import org.gradle.configurationcache.extensions.unsafeLazy
+import org.gradle.configurationcache.initialization.ConfigurationCacheStartParameter
+import org.gradle.configurationcache.serialization.MappedFileInputStream
 import org.gradle.internal.Factory
 import org.gradle.internal.concurrent.Stoppable
 import org.gradle.internal.file.FileAccessTimeJournal
@@ -52,7 +56,8 @@ class ConfigurationCacheRepository(
     cacheBuilderFactory: BuildTreeScopedCacheBuilderFactory,
     cleanupActionDecorator: CleanupActionDecorator,
     private val fileAccessTimeJournal: FileAccessTimeJournal,
-    private val fileSystem: FileSystem
+    private val fileSystem: FileSystem,
+    private val startParameter: ConfigurationCacheStartParameter
 ) : Stoppable {
     fun forKey(cacheKey: String): ConfigurationCacheStateStore {
         return StoreImpl(cache.baseDirFor(cacheKey))
@@ -100,6 +105,9 @@ class ConfigurationCacheRepository(
         override fun inputStream(): InputStream =
             file.also(::markAccessed).inputStream()
 
+        override fun mappedInputStream(): MappedFileInputStream =
+            MappedFileInputStream.map(file.also(::markAccessed))
+
         override fun delete() {
             throw UnsupportedOperationException()
         }
@@ -128,6 +136,9 @@ class ConfigurationCacheRepository(
         override fun inputStream(): InputStream =
             throw UnsupportedOperationException()
 
+        override fun mappedInputStream(): MappedFileInputStream =
+            throw UnsupportedOperationException()
+
         override fun delete() {
             if (file.exists()) {
                 Files.delete(file.toPath())
@@ -185,6 +196,7 @@ class ConfigurationCacheRepository(
                             chmod(it, 384) // octal 0600
                         }
                 }
+                logger.info("Configuration cache entry {} uses {} bytes on disk.", cacheDir.name, sizeOf(cacheDir))
             }
         }
     }
@@ -201,6 +213,9 @@ class ConfigurationCacheRepository(
     private
     val cleanupMaxAgeDays = CacheConfigurationsInternal.DEFAULT_MAX_AGE_IN_DAYS_FOR_CREATED_CACHE_ENTRIES
 
+    private
+    val cleanupMaxSizeInBytes = startParameter.maxSizeInMegabytes * 1024L * 1024L
+
     private
     val cache = cacheBuilderFactory
         .createCrossVersionCacheBuilder("configuration-cache")
@@ -218,15 +233,31 @@ class ConfigurationCacheRepository(
         withCleanupStrategy(
             DefaultCacheCleanupStrategy.from(
                 cleanupActionDecorator.decorate(
-                    LeastRecentlyUsedCacheCleanup(
-                        SingleDepthFilesFinder(cleanupDepth),
-                        fileAccessTimeJournal,
-                        TimestampSuppliers.daysAgo(cleanupMaxAgeDays)
-                    )
+                    CompositeCleanupAction.builder().apply {
+                        add(
+                            LeastRecentlyUsedCacheCleanup(
+                                SingleDepthFilesFinder(cleanupDepth),
+                                fileAccessTimeJournal,
+                                TimestampSuppliers.daysAgo(cleanupMaxAgeDays)
+                            )
+                        )
+                        if (cleanupMaxSizeInBytes > 0) {
+                            add(
+                                SizeBudgetCacheCleanup(
+                                    SingleDepthFilesFinder(cleanupDepth),
+                                    fileAccessTimeJournal
+                                ) { cleanupMaxSizeInBytes }
+                            )
+                        }
+                    }.build()
                 )
             )
         )
 
+    private
+    fun sizeOf(cacheDir: File) =
+        cacheDir.walk().filter(File::isFile).sumOf(File::length)
+
     private
     val fileAccessTracker by unsafeLazy {
         SingleDepthFileAccessTracker(fileAccessTimeJournal, cache.baseDir, cleanupDepth)
@@ -58,6 +58,7 @@ class ConfigurationCacheServices : AbstractPluginServiceRegistry() {
             add(DefaultBuildToolingModelControllerFactory::class.java)
             add(ConfigurationCacheRepository::class.java)
             add(InputTrackingState::class.java)
+            add(ConfigurationCacheStateSize::class.java)
             add(InstrumentedInputAccessListener::class.java)
             add(ConfigurationCacheFingerprintController::class.java)
             addProvider(RemoteScriptUpToDateCheckerProvider)
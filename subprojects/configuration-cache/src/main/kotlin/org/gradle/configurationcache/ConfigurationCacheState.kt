@@ -38,9 +38,11 @@ import org.gradle.configurationcache.flow.BuildFlowScope
 import org.gradle.configurationcache.problems.DocumentationSection.NotYetImplementedSourceDependencies
 import org.gradle.configurationcache.serialization.DefaultReadContext
 import org.gradle.configurationcache.serialization.DefaultWriteContext
+import org.gradle.configurationcache.serialization.MappedFileInputStream
 import org.gradle.configurationcache.serialization.ReadContext
 import org.gradle.configurationcache.serialization.WriteContext
 import org.gradle.configurationcache.serialization.codecs.Codecs
+import org.gradle.configurationcache.serialization.codecs.WorkGraphShardContexts
 import org.gradle.configurationcache.serialization.logNotImplemented
 import org.gradle.configurationcache.serialization.readCollection
 import org.gradle.configurationcache.serialization.readEnum
@@ -94,6 +96,7 @@ interface ConfigurationCacheStateFile {
     val exists: Boolean
     fun outputStream(): OutputStream
     fun inputStream(): InputStream
+    fun mappedInputStream(): MappedFileInputStream
     fun delete()
 
     // Replace the contents of this state file, by moving the given file to the location of this state file
@@ -107,7 +110,9 @@ class ConfigurationCacheState(
     private val codecs: Codecs,
     private val stateFile: ConfigurationCacheStateFile,
     private val eventEmitter: BuildOperationProgressEventEmitter,
-    private val host: DefaultConfigurationCache.Host
+    private val host: DefaultConfigurationCache.Host,
+    private val shardContexts: WorkGraphShardContexts,
+    private val shardWorkGraph: Boolean
 ) {
     /**
      * Writes the state for the whole build starting from the given root [build] and returns the set
@@ -406,14 +411,14 @@ class ConfigurationCacheState(
     private
     suspend fun DefaultWriteContext.writeWorkGraphOf(gradle: GradleInternal, scheduledNodes: List<Node>) {
         workNodeCodec(gradle).run {
-            writeWork(scheduledNodes)
+            writeWork(scheduledNodes, shardContexts.takeIf { shardWorkGraph })
         }
     }
 
     private
     suspend fun DefaultReadContext.readWorkGraph(gradle: GradleInternal) =
         workNodeCodec(gradle).run {
-            readWork()
+            readWork(shardContexts)
         }
 
     private
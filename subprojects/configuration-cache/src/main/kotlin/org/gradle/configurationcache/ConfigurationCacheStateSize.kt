@@ -0,0 +1,42 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configurationcache
+
+import org.gradle.internal.service.scopes.Scopes
+import org.gradle.internal.service.scopes.ServiceScope
+import java.util.concurrent.atomic.AtomicLong
+
+
+/**
+ * Counts the bytes of configuration cache state written or read by the current store or load operation,
+ * across the state files of all the builds in the tree.
+ */
+@ServiceScope(Scopes.BuildTree::class)
+class ConfigurationCacheStateSize {
+    private
+    val bytes = AtomicLong()
+
+    fun add(byteCount: Long) {
+        bytes.addAndGet(byteCount)
+    }
+
+    /**
+     * Returns the bytes counted since the last call.
+     */
+    fun reset(): Long =
+        bytes.getAndSet(0)
+}
@@ -105,6 +105,9 @@ class DefaultConfigurationCache internal constructor(
     private
     val cacheIO by lazy { host.service<ConfigurationCacheIO>() }
 
+    private
+    val stateSize by lazy { host.service<ConfigurationCacheStateSize>() }
+
     private
     val gradlePropertiesController: GradlePropertiesController
         get() = host.service()
@@ -181,7 +184,8 @@ class DefaultConfigurationCache internal constructor(
                 writeConfigurationCacheFingerprint(layout, reusedProjects)
                 cacheIO.writeCacheEntryDetailsTo(buildStateRegistry, intermediateModels.value.values, projectMetadata.value.values, layout.fileFor(StateType.Entry))
             }
-            problems.projectStateStats(reusedProjects.size, updatedProjects.size)
+            // A project with both reused and updated values has been configured by this build
+            problems.projectStateStats(reusedProjects.count { it !in updatedProjects }, updatedProjects.size)
             cacheEntryRequiresCommit = false
             // Can reuse the cache entry for the rest of this build invocation
             cacheAction = ConfigurationCacheAction.LOAD
@@ -339,7 +343,7 @@ class DefaultConfigurationCache internal constructor(
 
         cacheEntryRequiresCommit = true
 
-        buildOperationExecutor.withStoreOperation(cacheKey.string) {
+        buildOperationExecutor.withStoreOperation(cacheKey.string, stateSize) {
             store.useForStore { layout ->
                 try {
                     action(layout.fileFor(stateType))
@@ -378,7 +382,7 @@ class DefaultConfigurationCache internal constructor(
         // when loading the task graph.
         scopeRegistryListener.dispose()
 
-        val result = buildOperationExecutor.withLoadOperation {
+        val result = buildOperationExecutor.withLoadOperation(stateSize) {
             store.useForStateLoad(stateType, action)
         }
         crossConfigurationTimeBarrier()
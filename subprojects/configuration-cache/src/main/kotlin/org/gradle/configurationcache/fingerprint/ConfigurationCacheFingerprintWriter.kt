@@ -141,6 +141,14 @@ class ConfigurationCacheFingerprintWriter(
     private
     val projectDependencies = newConcurrentHashSet<ProjectSpecificFingerprint>()
 
+    /**
+     * The project specific inputs written by this build, when intermediate models are cached.
+     * A project whose state is reused from the previous entry may also be configured by this build,
+     * in which case its inputs copied from the previous entry are only written when they differ from the ones collected by this build.
+     */
+    private
+    val projectFingerprints = newConcurrentHashSet<ProjectSpecificFingerprint.ProjectFingerprint>()
+
     private
     val undeclaredSystemProperties = newConcurrentHashSet<String>()
 
@@ -485,7 +493,7 @@ class ConfigurationCacheFingerprintWriter(
 
     fun <T> collectFingerprintForProject(identityPath: Path, action: () -> T): T {
         val previous = projectForThread.get()
-        val projectSink = sinksForProject.computeIfAbsent(identityPath) { ProjectScopedSink(host, identityPath, projectScopedWriter) }
+        val projectSink = sinksForProject.computeIfAbsent(identityPath) { ProjectScopedSink(host, identityPath, ::writeProjectFingerprint) }
         projectForThread.set(projectSink)
         try {
             return action()
@@ -523,7 +531,20 @@ class ConfigurationCacheFingerprintWriter(
 
     fun append(fingerprint: ProjectSpecificFingerprint) {
         // TODO - should add to report as an input
-        projectScopedWriter.write(fingerprint)
+        val isNew = when (fingerprint) {
+            is ProjectSpecificFingerprint.ProjectFingerprint -> projectFingerprints.add(fingerprint)
+            else -> projectDependencies.add(fingerprint)
+        }
+        if (isNew) {
+            projectScopedWriter.write(fingerprint)
+        }
+    }
+
+    private
+    fun writeProjectFingerprint(fingerprint: ProjectSpecificFingerprint.ProjectFingerprint) {
+        if (!host.cacheIntermediateModels || projectFingerprints.add(fingerprint)) {
+            projectScopedWriter.write(fingerprint)
+        }
     }
 
     private
@@ -808,10 +829,10 @@ class ConfigurationCacheFingerprintWriter(
     class ProjectScopedSink(
         host: Host,
         private val project: Path,
-        private val writer: ScopedFingerprintWriter<ProjectSpecificFingerprint>
+        private val writer: (ProjectSpecificFingerprint.ProjectFingerprint) -> Unit
     ) : Sink(host) {
         override fun write(value: ConfigurationCacheFingerprint) {
-            writer.write(ProjectSpecificFingerprint.ProjectFingerprint(project, value))
+            writer(ProjectSpecificFingerprint.ProjectFingerprint(project, value))
         }
     }
 
@@ -21,6 +21,7 @@ import org.gradle.api.internal.StartParameterInternal
 import org.gradle.configurationcache.extensions.unsafeLazy
 import org.gradle.initialization.StartParameterBuildOptions.ConfigurationCacheProblemsOption
 import org.gradle.initialization.layout.BuildLayout
+import org.gradle.internal.buildoption.IntegerInternalOption
 import org.gradle.internal.buildoption.InternalFlag
 import org.gradle.internal.buildoption.InternalOptions
 import org.gradle.internal.buildtree.BuildModelParameters
@@ -40,6 +41,32 @@ class ConfigurationCacheStartParameter(
 
     val taskExecutionAccessPreStable: Boolean = options.getOption(InternalFlag("org.gradle.configuration-cache.internal.task-execution-access-pre-stable")).get()
 
+    /**
+     * Whether to store the tasks of the work graph in one shard per project, so they can be loaded concurrently.
+     */
+    val parallelLoad: Boolean = options.getOption(InternalFlag("org.gradle.configuration-cache.internal.parallel-load")).get()
+
+    /**
+     * Whether to read state files by mapping them into memory, decoding the shards of the work graph directly from the mapped file.
+     *
+     * A mapped file cannot be replaced or deleted on Windows until the mapping is garbage collected.
+     */
+    val mappedLoad: Boolean = options.getOption(InternalFlag("org.gradle.configuration-cache.internal.mapped-load")).get()
+
+    /**
+     * Whether to compress state files, trading some CPU time for less disk space.
+     *
+     * Compressed state files cannot be read by [mappedLoad], which is ignored in that case.
+     */
+    val compressState: Boolean = options.getOption(InternalFlag("org.gradle.configuration-cache.internal.compress")).get()
+
+    /**
+     * The maximum size of the configuration cache directory in megabytes, `0` for no limit.
+     *
+     * When exceeded, the least recently used entries are deleted by the next cache cleanup.
+     */
+    val maxSizeInMegabytes: Int = options.getOption(IntegerInternalOption("org.gradle.configuration-cache.internal.max-size-mb", 0)).get()
+
     val gradleProperties: Map<String, Any?>
         get() = startParameter.projectProperties
 
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configurationcache.serialization
+
+import java.io.InputStream
+import java.io.OutputStream
+import java.util.zip.Deflater
+import java.util.zip.DeflaterOutputStream
+import java.util.zip.Inflater
+import java.util.zip.InflaterInputStream
+
+
+private
+const val bufferSize = 64 * 1024
+
+
+/**
+ * Compresses the written bytes favouring speed over compression ratio, to be read back by [inflaterInputStreamFor].
+ */
+internal
+fun deflaterOutputStreamFor(outputStream: OutputStream): OutputStream =
+    object : DeflaterOutputStream(outputStream, Deflater(Deflater.BEST_SPEED), bufferSize) {
+        override fun close() {
+            try {
+                super.close()
+            } finally {
+                def.end()
+            }
+        }
+    }
+
+
+/**
+ * Decompresses the bytes written by [deflaterOutputStreamFor].
+ */
+internal
+fun inflaterInputStreamFor(inputStream: InputStream): InputStream =
+    object : InflaterInputStream(inputStream, Inflater(), bufferSize) {
+        override fun close() {
+            try {
+                super.close()
+            } finally {
+                inf.end()
+            }
+        }
+    }
@@ -16,6 +16,7 @@
 
 package org.gradle.configurationcache.serialization
 
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap
 import it.unimi.dsi.fastutil.objects.ReferenceArrayList
 import org.gradle.api.internal.initialization.ClassLoaderScope
 import org.gradle.api.internal.project.ProjectInternal
@@ -36,6 +37,7 @@ import org.gradle.internal.Describables
 import org.gradle.internal.hash.HashCode
 import org.gradle.internal.serialize.Decoder
 import org.gradle.internal.serialize.Encoder
+import java.io.File
 
 
 internal
@@ -55,11 +57,17 @@ class DefaultWriteContext(
 
     override val tracer: Tracer?,
 
-    problemsListener: ProblemsListener
+    problemsListener: ProblemsListener,
 
-) : AbstractIsolateContext<WriteIsolate>(codec, problemsListener), WriteContext, Encoder by encoder, AutoCloseable {
+    override val sharedIdentities: WriteIdentities = WriteIdentities(),
+
+    /**
+     * When not null, classes are only written as ids assigned by the given table, which must be written separately.
+     */
+    private
+    val sharedClasses: SharedClassTable? = null
 
-    override val sharedIdentities = WriteIdentities()
+) : AbstractIsolateContext<WriteIsolate>(codec, problemsListener), WriteContext, Encoder by encoder, AutoCloseable {
 
     override val circularReferences = CircularReferences()
 
@@ -69,6 +77,12 @@ class DefaultWriteContext(
     private
     val scopes = WriteIdentities()
 
+    private
+    val strings = Object2IntOpenHashMap<String>().apply { defaultReturnValue(-1) }
+
+    private
+    val files = Object2IntOpenHashMap<String>().apply { defaultReturnValue(-1) }
+
     /**
      * Closes the given [encoder] if it is [AutoCloseable].
      */
@@ -89,6 +103,10 @@ class DefaultWriteContext(
     }
 
     override fun writeClass(type: Class<*>) {
+        if (sharedClasses != null) {
+            writeSmallInt(sharedClasses.idOf(type))
+            return
+        }
         val id = classes.getId(type)
         if (id != null) {
             writeSmallInt(id)
@@ -146,15 +164,71 @@ class DefaultWriteContext(
         }
     }
 
-    // TODO: consider interning strings
-    override fun writeString(string: CharSequence) =
-        encoder.writeString(string)
+    /**
+     * Writes each distinct string once, and refers to it by id afterwards.
+     */
+    override fun writeString(string: CharSequence) {
+        val value = string.toString()
+        val id = strings.getInt(value)
+        if (id != -1) {
+            writeSmallInt(id)
+        } else {
+            val newId = strings.size
+            strings.put(value, newId)
+            writeSmallInt(newId)
+            encoder.writeString(value)
+        }
+    }
+
+    /**
+     * Writes each distinct file once, as its parent directory followed by its name, and refers to it by id afterwards.
+     * This way, files sharing parent directories only write the names that differ.
+     */
+    fun writeFilePath(file: File) {
+        // Keyed by path, as `File.equals` ignores case on Windows and would merge files differing only in case
+        val id = files.getInt(file.path)
+        if (id != -1) {
+            writeSmallInt(id)
+            return
+        }
+        val newId = files.size
+        files.put(file.path, newId)
+        writeSmallInt(newId)
+        val parent = file.parentFile
+        if (parent != null && File(parent, file.name).path == file.path) {
+            writeBoolean(true)
+            writeFilePath(parent)
+            writeString(file.name)
+        } else {
+            writeBoolean(false)
+            writeString(file.path)
+        }
+    }
 
     override fun newIsolate(owner: IsolateOwner): WriteIsolate =
         DefaultWriteIsolate(owner)
 }
 
 
+/**
+ * Assigns ids to the classes written by a number of [DefaultWriteContext] instances,
+ * so that the [classes] can be written once by another context, ahead of the contents of the contexts sharing the table.
+ */
+internal
+class SharedClassTable {
+
+    private
+    val ids = WriteIdentities()
+
+    val classes = ArrayList<Class<*>>()
+
+    fun idOf(type: Class<*>): Int =
+        ids.getId(type) ?: ids.putInstance(type).also {
+            classes.add(type)
+        }
+}
+
+
 internal
 class LoggingTracer(
     private val profile: String,
@@ -217,11 +291,17 @@ class DefaultReadContext(
 
     override val logger: Logger,
 
-    problemsListener: ProblemsListener
+    problemsListener: ProblemsListener,
 
-) : AbstractIsolateContext<ReadIsolate>(codec, problemsListener), ReadContext, Decoder by decoder, AutoCloseable {
+    override val sharedIdentities: ReadIdentities = ReadIdentities(),
+
+    /**
+     * When not null, classes are read as indexes into the given list, see [SharedClassTable].
+     */
+    private
+    val sharedClasses: List<Class<*>>? = null
 
-    override val sharedIdentities = ReadIdentities()
+) : AbstractIsolateContext<ReadIsolate>(codec, problemsListener), ReadContext, Decoder by decoder, AutoCloseable {
 
     private
     val classes = ReadIdentities()
@@ -229,6 +309,12 @@ class DefaultReadContext(
     private
     val scopes = ReadIdentities()
 
+    private
+    val strings = ArrayList<String>()
+
+    private
+    val files = ArrayList<File?>()
+
     private
     lateinit var projectProvider: ProjectProvider
 
@@ -277,6 +363,9 @@ class DefaultReadContext(
 
     override fun readClass(): Class<*> {
         val id = readSmallInt()
+        if (sharedClasses != null) {
+            return sharedClasses[id]
+        }
         val type = classes.getInstance(id)
         if (type != null) {
             return type as Class<*>
@@ -338,6 +427,36 @@ class DefaultReadContext(
         null
     }
 
+    override fun readString(): String {
+        val id = readSmallInt()
+        if (id < strings.size) {
+            return strings[id]
+        }
+        val string = decoder.readString()
+        strings.add(string)
+        return string
+    }
+
+    /**
+     * Reads a file written by [DefaultWriteContext.writeFilePath].
+     */
+    fun readFilePath(): File {
+        val id = readSmallInt()
+        if (id < files.size) {
+            return files[id]!!
+        }
+        // Reserve the id before reading the parent directory, as the writer assigns it before writing the parent directory
+        files.add(null)
+        val file = if (readBoolean()) {
+            val parent = readFilePath()
+            File(parent, readString())
+        } else {
+            File(readString())
+        }
+        files[id] = file
+        return file
+    }
+
     override fun getProject(path: String): ProjectInternal =
         projectProvider(path)
 
@@ -20,31 +20,43 @@ import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet
 import java.util.IdentityHashMap
 
 
-class WriteIdentities {
+open class WriteIdentities {
 
     private
     val instanceIds = IdentityHashMap<Any, Int>()
 
-    fun getId(instance: Any) = instanceIds[instance]
+    open fun getId(instance: Any) = instanceIds[instance]
 
-    fun putInstance(instance: Any): Int {
+    open fun putInstance(instance: Any): Int {
         val id = instanceIds.size
         instanceIds[instance] = id
         return id
     }
+
+    val size: Int
+        get() = instanceIds.size
 }
 
 
-class ReadIdentities {
+/**
+ * Identities of decoded instances, falling back to the given [parent] identities for instances not decoded by this table.
+ */
+class ReadIdentities(
+    private val parent: ReadIdentities? = null
+) {
 
     private
     val instanceIds = HashMap<Int, Any>()
 
-    fun getInstance(id: Int) = instanceIds[id]
+    fun getInstance(id: Int): Any? = instanceIds[id] ?: parent?.getInstance(id)
 
     fun putInstance(id: Int, instance: Any) {
         instanceIds[id] = instance
     }
+
+    fun putAll(identities: ReadIdentities) {
+        instanceIds.putAll(identities.instanceIds)
+    }
 }
 
 
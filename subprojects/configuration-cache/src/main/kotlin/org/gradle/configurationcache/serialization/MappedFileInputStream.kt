@@ -0,0 +1,89 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configurationcache.serialization
+
+import java.io.File
+import java.io.InputStream
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.StandardOpenOption
+
+
+/**
+ * An [InputStream] over a region of a file that is mapped into memory.
+ *
+ * Streams over parts of the region can be created with [region] without copying their contents to the heap.
+ * The mapping is released once the stream and all the streams created from it are garbage collected.
+ */
+internal
+class MappedFileInputStream private constructor(
+    private val buffer: ByteBuffer
+) : InputStream() {
+
+    companion object {
+
+        /**
+         * Maps the given file into memory, the file must not be larger than 2 GiB.
+         */
+        fun map(file: File): MappedFileInputStream =
+            FileChannel.open(file.toPath(), StandardOpenOption.READ).use { channel ->
+                val size = channel.size()
+                require(size <= Int.MAX_VALUE) {
+                    "Cannot map '$file' as it is larger than 2 GiB."
+                }
+                MappedFileInputStream(channel.map(FileChannel.MapMode.READ_ONLY, 0, size))
+            }
+    }
+
+    /**
+     * Returns a stream over the given part of this region, independently of the position of this stream.
+     */
+    fun region(position: Long, length: Int): MappedFileInputStream {
+        val region = buffer.duplicate()
+        region.position(Math.toIntExact(position))
+        region.limit(region.position() + length)
+        return MappedFileInputStream(region.slice())
+    }
+
+    override fun read(): Int =
+        if (buffer.hasRemaining()) buffer.get().toInt() and 0xff
+        else -1
+
+    override fun read(bytes: ByteArray, offset: Int, length: Int): Int {
+        if (length == 0) {
+            return 0
+        }
+        if (!buffer.hasRemaining()) {
+            return -1
+        }
+        val count = minOf(length, buffer.remaining())
+        buffer.get(bytes, offset, count)
+        return count
+    }
+
+    override fun skip(count: Long): Long {
+        if (count <= 0) {
+            return 0
+        }
+        val skipped = minOf(count, buffer.remaining().toLong()).toInt()
+        buffer.position(buffer.position() + skipped)
+        return skipped.toLong()
+    }
+
+    override fun available(): Int =
+        buffer.remaining()
+}
@@ -73,7 +73,6 @@ import org.gradle.internal.serialize.BaseSerializerFactory.BYTE_ARRAY_SERIALIZER
 import org.gradle.internal.serialize.BaseSerializerFactory.BYTE_SERIALIZER
 import org.gradle.internal.serialize.BaseSerializerFactory.CHAR_SERIALIZER
 import org.gradle.internal.serialize.BaseSerializerFactory.DOUBLE_SERIALIZER
-import org.gradle.internal.serialize.BaseSerializerFactory.FILE_SERIALIZER
 import org.gradle.internal.serialize.BaseSerializerFactory.FLOAT_SERIALIZER
 import org.gradle.internal.serialize.BaseSerializerFactory.HASHCODE_SERIALIZER
 import org.gradle.internal.serialize.BaseSerializerFactory.INTEGER_SERIALIZER
@@ -99,7 +98,7 @@ class Codecs(
     val taskNodeFactory: TaskNodeFactory,
     val ordinalGroupFactory: OrdinalGroupFactory,
     inputFingerprinter: InputFingerprinter,
-    buildOperationExecutor: BuildOperationExecutor,
+    private val buildOperationExecutor: BuildOperationExecutor,
     classLoaderHierarchyHasher: ClassLoaderHierarchyHasher,
     isolatableFactory: IsolatableFactory,
     managedFactoryRegistry: ManagedFactoryRegistry,
@@ -281,7 +280,7 @@ class Codecs(
         bind(BYTE_SERIALIZER)
         bind(FLOAT_SERIALIZER)
         bind(DOUBLE_SERIALIZER)
-        bind(FILE_SERIALIZER)
+        bind(FileCodec)
         bind(PATH_SERIALIZER)
         bind(BIG_INTEGER_SERIALIZER)
         bind(BIG_DECIMAL_SERIALIZER)
@@ -329,5 +328,5 @@ class Codecs(
     }
 
     fun workNodeCodecFor(gradle: GradleInternal) =
-        WorkNodeCodec(gradle, internalTypesCodec(), ordinalGroupFactory)
+        WorkNodeCodec(gradle, internalTypesCodec(), ordinalGroupFactory, TaskNodeCodec(userTypesCodec(), taskNodeFactory), buildOperationExecutor)
 }
@@ -24,6 +24,21 @@ import org.gradle.configurationcache.serialization.ReadContext
 import org.gradle.configurationcache.serialization.WriteContext
 import org.gradle.configurationcache.serialization.readFile
 import org.gradle.configurationcache.serialization.writeFile
+import java.io.File
+
+
+/**
+ * Encodes files with [writeFile], which shares the parent directories of the files written by the same context.
+ */
+object FileCodec : Codec<File> {
+    override suspend fun WriteContext.encode(value: File) {
+        writeFile(value)
+    }
+
+    override suspend fun ReadContext.decode(): File {
+        return readFile()
+    }
+}
 
 
 class DirectoryCodec(private val fileFactory: FileFactory) : Codec<Directory> {
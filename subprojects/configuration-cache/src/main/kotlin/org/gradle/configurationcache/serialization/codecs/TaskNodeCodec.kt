@@ -74,14 +74,20 @@ class TaskNodeCodec(
         writeTask(task)
     }
 
-    override suspend fun ReadContext.decode(): LocalTaskNode {
-        val task = readTask()
+    override suspend fun ReadContext.decode(): LocalTaskNode =
+        nodeFor(readTask())
+
+    /**
+     * Returns the node for a task decoded by [readTask].
+     *
+     * Unlike decoding the task, this must not be done concurrently.
+     */
+    fun nodeFor(task: TaskInternal): LocalTaskNode {
         val node = taskNodeFactory.getOrCreateNode(task) as LocalTaskNode
         node.isolated()
         return node
     }
 
-    private
     suspend fun WriteContext.writeTask(task: TaskInternal) {
         withDebugFrame({ task.path }) {
             val taskType = GeneratedSubclasses.unpackType(task)
@@ -113,8 +119,7 @@ class TaskNodeCodec(
         }
     }
 
-    private
-    suspend fun ReadContext.readTask(): Task {
+    suspend fun ReadContext.readTask(): TaskInternal {
         val taskType = readClassOf<Task>()
         val projectPath = readString()
         val taskName = readString()
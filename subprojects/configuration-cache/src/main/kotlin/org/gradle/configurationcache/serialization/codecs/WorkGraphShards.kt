@@ -0,0 +1,269 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configurationcache.serialization.codecs
+
+import org.gradle.api.internal.TaskInternal
+import org.gradle.configurationcache.serialization.DefaultReadContext
+import org.gradle.configurationcache.serialization.DefaultWriteContext
+import org.gradle.configurationcache.serialization.ReadContext
+import org.gradle.configurationcache.serialization.ReadIdentities
+import org.gradle.configurationcache.serialization.SharedClassTable
+import org.gradle.configurationcache.serialization.WriteContext
+import org.gradle.configurationcache.serialization.WriteIdentities
+import org.gradle.configurationcache.serialization.readCollection
+import org.gradle.configurationcache.serialization.readList
+import org.gradle.configurationcache.serialization.runReadOperation
+import org.gradle.configurationcache.serialization.writeCollection
+import org.gradle.execution.plan.LocalTaskNode
+import org.gradle.internal.operations.BuildOperationContext
+import org.gradle.internal.operations.BuildOperationDescriptor
+import org.gradle.internal.operations.BuildOperationExecutor
+import org.gradle.internal.operations.RunnableBuildOperation
+import org.gradle.internal.serialize.Decoder
+import org.gradle.internal.serialize.Encoder
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.InputStream
+
+
+/**
+ * Creates the contexts that encode and decode the per-project shards of a work graph, see [WorkNodeCodec].
+ */
+internal
+interface WorkGraphShardContexts {
+
+    fun writeContextFor(encoder: Encoder, sharedIdentities: WriteIdentities, sharedClasses: SharedClassTable): DefaultWriteContext
+
+    fun readContextFor(decoder: Decoder, sharedIdentities: ReadIdentities, sharedClasses: List<Class<*>>): DefaultReadContext
+
+    /**
+     * Reads the contents of a shard from the context reading the work graph.
+     */
+    fun readShardContents(context: ReadContext): InputStream =
+        ByteArrayInputStream(context.readBinary())
+}
+
+
+/**
+ * Writes the tasks of a work graph into one shard per project.
+ *
+ * The shards share the identities of the context writing the work graph, so an instance referenced by tasks of different projects is still written once.
+ * Shards referencing an instance written by another shard end up in the same group, which is decoded in the order it was written.
+ * Different groups have no instances in common, so they can be decoded concurrently.
+ */
+internal
+class WorkGraphShardWriter(
+    private val contexts: WorkGraphShardContexts,
+    private val sharedIdentities: WriteIdentities
+) {
+    private
+    val classes = SharedClassTable()
+
+    private
+    val shardsByProject = LinkedHashMap<String, Shard>()
+
+    private
+    val firstShardedId = sharedIdentities.size
+
+    /**
+     * The shard that wrote each instance, indexed by the id of the instance minus [firstShardedId].
+     */
+    private
+    val shardOfInstance = ArrayList<Int>()
+
+    /**
+     * The parent of each shard in the forest of shard groups, the root of a group being its first shard.
+     */
+    private
+    val groupParents = ArrayList<Int>()
+
+    /**
+     * Writes the task of the given node to the shard of its project, and returns the index of the shard.
+     */
+    suspend fun writeTo(node: LocalTaskNode, writeTask: suspend DefaultWriteContext.() -> Unit): Int {
+        val shard = shardsByProject.getOrPut(node.task.project.path) { newShard() }
+        shard.context.writeTask()
+        return shard.index
+    }
+
+    /**
+     * Writes the classes used by the shards, followed by the group and the contents of each shard.
+     */
+    fun WriteContext.writeShards() {
+        writeCollection(classes.classes) { writeClass(it) }
+        writeCollection(shardsByProject.values) { shard ->
+            writeSmallInt(groupOf(shard.index))
+            writeBinary(shard.toByteArray())
+        }
+    }
+
+    private
+    fun newShard(): Shard {
+        val index = shardsByProject.size
+        groupParents.add(index)
+        val output = ByteArrayOutputStream()
+        val context = contexts.writeContextFor(KryoBackedEncoder(output), ShardIdentities(index), classes)
+        return Shard(index, output, context)
+    }
+
+    private
+    fun groupOf(shard: Int): Int {
+        var root = shard
+        while (groupParents[root] != root) {
+            root = groupParents[root]
+        }
+        return root
+    }
+
+    private
+    fun mergeGroups(shard: Int, otherShard: Int) {
+        val root = groupOf(shard)
+        val otherRoot = groupOf(otherShard)
+        if (root != otherRoot) {
+            groupParents[maxOf(root, otherRoot)] = minOf(root, otherRoot)
+        }
+    }
+
+    private
+    inner class ShardIdentities(private val shard: Int) : WriteIdentities() {
+
+        override fun getId(instance: Any): Int? =
+            sharedIdentities.getId(instance)?.also { id ->
+                if (id >= firstShardedId) {
+                    mergeGroups(shard, shardOfInstance[id - firstShardedId])
+                }
+            }
+
+        override fun putInstance(instance: Any): Int =
+            sharedIdentities.putInstance(instance).also {
+                shardOfInstance.add(shard)
+            }
+    }
+
+    private
+    class Shard(
+        val index: Int,
+        private val output: ByteArrayOutputStream,
+        val context: DefaultWriteContext
+    ) {
+        fun toByteArray(): ByteArray {
+            context.close()
+            return output.toByteArray()
+        }
+    }
+}
+
+
+/**
+ * Reads the tasks written by [WorkGraphShardWriter], decoding the groups of shards concurrently.
+ */
+internal
+class WorkGraphShardReader(
+    private val contexts: WorkGraphShardContexts,
+    private val buildOperationExecutor: BuildOperationExecutor
+) {
+    /**
+     * Reads the shards and decodes their tasks with the given function.
+     *
+     * @param shardOfNode the shard of each node of the work graph, or `-1` for nodes that are not in a shard.
+     * @return the task of each node of the work graph, or `null` for nodes that are not in a shard.
+     */
+    fun ReadContext.readTasks(shardOfNode: IntArray, readTask: suspend DefaultReadContext.() -> TaskInternal): Array<TaskInternal?> {
+        val classes = readList { readClass() }
+        val groupOfShard = ArrayList<Int>()
+        val shardContents = ArrayList<InputStream>()
+        readCollection {
+            groupOfShard.add(readSmallInt())
+            shardContents.add(contexts.readShardContents(this))
+        }
+
+        val groupsByRoot = LinkedHashMap<Int, ShardGroup>()
+        val groups = groupOfShard.indices.map { shard ->
+            groupsByRoot.getOrPut(groupOfShard[shard]) { ShardGroup(ReadIdentities(sharedIdentities)) }
+        }
+        val classLoader = classLoader
+        val projectProvider = { path: String -> getProject(path) }
+        for (shard in groups.indices) {
+            val group = groups[shard]
+            val context = contexts.readContextFor(KryoBackedDecoder(shardContents[shard]), group.identities, classes)
+            context.initClassLoader(classLoader)
+            context.initProjectProvider(projectProvider)
+            group.contexts[shard] = context
+        }
+        for (node in shardOfNode.indices) {
+            val shard = shardOfNode[node]
+            if (shard >= 0) {
+                groups[shard].nodes.add(node)
+            }
+        }
+
+        val tasks = arrayOfNulls<TaskInternal>(shardOfNode.size)
+        val groupsToDecode = groupsByRoot.values
+        if (groupsToDecode.size > 1) {
+            buildOperationExecutor.runAllWithAccessToProjectState<RunnableBuildOperation> { queue ->
+                for (group in groupsToDecode) {
+                    queue.add(DecodeShardGroup(group, shardOfNode, tasks, readTask))
+                }
+            }
+        } else {
+            groupsToDecode.forEach { it.decode(shardOfNode, tasks, readTask) }
+        }
+
+        // The decoded instances are only visible to the rest of the work graph once all groups are decoded
+        for (group in groupsToDecode) {
+            sharedIdentities.putAll(group.identities)
+            for (context in group.contexts.values) {
+                onFinish { context.finish() }
+            }
+        }
+        return tasks
+    }
+
+    private
+    class ShardGroup(val identities: ReadIdentities) {
+
+        val contexts = LinkedHashMap<Int, DefaultReadContext>()
+
+        val nodes = ArrayList<Int>()
+
+        fun decode(shardOfNode: IntArray, tasks: Array<TaskInternal?>, readTask: suspend DefaultReadContext.() -> TaskInternal) {
+            contexts.values.first().runReadOperation {
+                for (node in nodes) {
+                    tasks[node] = contexts.getValue(shardOfNode[node]).readTask()
+                }
+            }
+            contexts.values.forEach { it.close() }
+        }
+    }
+
+    private
+    class DecodeShardGroup(
+        private val group: ShardGroup,
+        private val shardOfNode: IntArray,
+        private val tasks: Array<TaskInternal?>,
+        private val readTask: suspend DefaultReadContext.() -> TaskInternal
+    ) : RunnableBuildOperation {
+
+        override fun run(context: BuildOperationContext) =
+            group.decode(shardOfNode, tasks, readTask)
+
+        override fun description(): BuildOperationDescriptor.Builder =
+            BuildOperationDescriptor.displayName("Load configuration cache work graph shard")
+    }
+}
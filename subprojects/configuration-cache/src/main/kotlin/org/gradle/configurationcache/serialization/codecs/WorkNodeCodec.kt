@@ -17,6 +17,7 @@
 package org.gradle.configurationcache.serialization.codecs
 
 import org.gradle.api.internal.GradleInternal
+import org.gradle.api.internal.TaskInternal
 import org.gradle.api.internal.artifacts.transform.DefaultTransformUpstreamDependenciesResolver
 import org.gradle.api.internal.tasks.NodeExecutionContext
 import org.gradle.configurationcache.serialization.Codec
@@ -38,34 +39,53 @@ import org.gradle.execution.plan.NodeGroup
 import org.gradle.execution.plan.OrdinalGroup
 import org.gradle.execution.plan.OrdinalGroupFactory
 import org.gradle.execution.plan.TaskNode
+import org.gradle.internal.operations.BuildOperationExecutor
 
 
 internal
 class WorkNodeCodec(
     private val owner: GradleInternal,
     private val internalTypesCodec: Codec<Any?>,
-    private val ordinalGroups: OrdinalGroupFactory
+    private val ordinalGroups: OrdinalGroupFactory,
+    private val taskNodeCodec: TaskNodeCodec,
+    private val buildOperationExecutor: BuildOperationExecutor
 ) {
 
-    suspend fun WriteContext.writeWork(nodes: List<Node>) {
+    /**
+     * Writes the given nodes.
+     *
+     * @param shardContexts When not null, the tasks are written into one shard per project, which can be decoded concurrently.
+     */
+    suspend fun WriteContext.writeWork(nodes: List<Node>, shardContexts: WorkGraphShardContexts?) {
         // Share bean instances across all nodes (except tasks, which have their own isolate)
         withGradleIsolate(owner, internalTypesCodec) {
-            writeNodes(nodes)
+            writeNodes(nodes, shardContexts)
         }
     }
 
-    suspend fun ReadContext.readWork(): List<Node> =
+    /**
+     * Reads the nodes written by [writeWork], using the given contexts to decode shards, if any.
+     */
+    suspend fun ReadContext.readWork(shardContexts: WorkGraphShardContexts): List<Node> =
         withGradleIsolate(owner, internalTypesCodec) {
-            readNodes()
+            readNodes(shardContexts)
         }
 
     private
-    suspend fun WriteContext.writeNodes(nodes: List<Node>) {
+    suspend fun WriteContext.writeNodes(nodes: List<Node>, shardContexts: WorkGraphShardContexts?) {
         val nodeCount = nodes.size
         writeSmallInt(nodeCount)
+        if (shardContexts == null) {
+            writeBoolean(false)
+            nodes.forEach { node ->
+                write(node)
+            }
+        } else {
+            writeBoolean(true)
+            writeShardedNodes(nodes, shardContexts)
+        }
         val scheduledNodeIds = HashMap<Node, Int>(nodeCount)
         nodes.forEach { node ->
-            write(node)
             scheduledNodeIds[node] = scheduledNodeIds.size
             if (node is LocalTaskNode) {
                 scheduledNodeIds[node.prepareNode] = scheduledNodeIds.size
@@ -77,13 +97,44 @@ class WorkNodeCodec(
         }
     }
 
+    /**
+     * Writes the shard of each node, followed by the shards and the nodes that are not in a shard.
+     */
+    private
+    suspend fun WriteContext.writeShardedNodes(nodes: List<Node>, shardContexts: WorkGraphShardContexts) {
+        val shards = WorkGraphShardWriter(shardContexts, sharedIdentities)
+        for (node in nodes) {
+            if (node is LocalTaskNode) {
+                val shard = shards.writeTo(node) {
+                    withGradleIsolate(owner, internalTypesCodec) {
+                        taskNodeCodec.run {
+                            writeTask(node.task)
+                        }
+                    }
+                }
+                writeSmallInt(shard)
+            } else {
+                writeSmallInt(-1)
+            }
+        }
+        shards.run {
+            writeShards()
+        }
+        for (node in nodes) {
+            if (node !is LocalTaskNode) {
+                write(node)
+            }
+        }
+    }
+
     private
-    suspend fun ReadContext.readNodes(): List<Node> {
+    suspend fun ReadContext.readNodes(shardContexts: WorkGraphShardContexts): List<Node> {
         val nodeCount = readSmallInt()
+        val shardedTasks = if (readBoolean()) readShardedTasks(nodeCount, shardContexts) else null
         val nodes = ArrayList<Node>(nodeCount)
         val nodesById = HashMap<Int, Node>(nodeCount)
         for (i in 0 until nodeCount) {
-            val node = readNode()
+            val node = readNode(shardedTasks?.get(i))
             nodesById[nodesById.size] = node
             if (node is LocalTaskNode) {
                 node.prepareNode.require()
@@ -99,8 +150,25 @@ class WorkNodeCodec(
     }
 
     private
-    suspend fun ReadContext.readNode(): Node {
-        val node = readNonNull<Node>()
+    fun ReadContext.readShardedTasks(nodeCount: Int, shardContexts: WorkGraphShardContexts): Array<TaskInternal?> {
+        val shardOfNode = IntArray(nodeCount) { readSmallInt() }
+        return WorkGraphShardReader(shardContexts, buildOperationExecutor).run {
+            readTasks(shardOfNode) {
+                withGradleIsolate(owner, internalTypesCodec) {
+                    taskNodeCodec.run {
+                        readTask()
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the next node, unless the task of the node was already decoded from a shard.
+     */
+    private
+    suspend fun ReadContext.readNode(shardedTask: TaskInternal?): Node {
+        val node = if (shardedTask != null) taskNodeCodec.nodeFor(shardedTask) else readNonNull<Node>()
         node.require()
         node.dependenciesProcessed()
         return node
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configurationcache.fingerprint
+
+import com.nhaarman.mockitokotlin2.any
+import com.nhaarman.mockitokotlin2.doReturn
+import com.nhaarman.mockitokotlin2.mock
+import org.gradle.configurationcache.CheckedFingerprint
+import org.gradle.configurationcache.InputTrackingState
+import org.gradle.configurationcache.fingerprint.ConfigurationCacheFingerprintCheckerTest.PlaybackReadContext
+import org.gradle.configurationcache.fingerprint.ProjectSpecificFingerprint.ProjectDependency
+import org.gradle.configurationcache.fingerprint.ProjectSpecificFingerprint.ProjectFingerprint
+import org.gradle.configurationcache.serialization.Codec
+import org.gradle.configurationcache.serialization.DefaultWriteContext
+import org.gradle.configurationcache.serialization.ReadContext
+import org.gradle.configurationcache.serialization.WriteContext
+import org.gradle.configurationcache.serialization.beans.BeanStateWriterLookup
+import org.gradle.configurationcache.serialization.runReadOperation
+import org.gradle.configurationcache.services.EnvironmentChangeTracker
+import org.gradle.internal.hash.HashCode
+import org.gradle.internal.hash.TestHashCodes
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder
+import org.gradle.util.Path
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.instanceOf
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+import java.io.ByteArrayOutputStream
+import java.io.File
+
+
+class ConfigurationCacheFingerprintWriterTest {
+
+    private
+    val directory = File("dir")
+
+    private
+    val projectA = Path.path(":a")
+
+    private
+    val projectB = Path.path(":b")
+
+    @Test
+    fun `project input collected by this build and copied from the previous entry is written once`() {
+        val written = projectScopedFingerprintWrittenBy { writer ->
+            writer.collectFingerprintForProject(projectA) {
+                writer.directoryChildrenObserved(directory)
+            }
+            // Inputs of reused projects, copied from the previous entry
+            writer.append(ProjectFingerprint(projectA, directoryChildren(1)))
+            writer.append(ProjectFingerprint(projectB, directoryChildren(1)))
+            writer.append(ProjectDependency(projectB, projectA))
+            writer.append(ProjectDependency(projectB, projectA))
+        }
+
+        assertThat(
+            written,
+            equalTo(
+                listOf(
+                    ProjectFingerprint(projectA, directoryChildren(1)),
+                    ProjectFingerprint(projectB, directoryChildren(1)),
+                    ProjectDependency(projectB, projectA),
+                    null
+                )
+            )
+        )
+    }
+
+    @Test
+    fun `project input copied from the previous entry is written when it differs from the input collected by this build`() {
+        val written = projectScopedFingerprintWrittenBy { writer ->
+            writer.collectFingerprintForProject(projectA) {
+                writer.directoryChildrenObserved(directory)
+            }
+            writer.append(ProjectFingerprint(projectA, directoryChildren(2)))
+        }
+
+        assertThat(
+            written,
+            equalTo(
+                listOf(
+                    ProjectFingerprint(projectA, directoryChildren(1)),
+                    ProjectFingerprint(projectA, directoryChildren(2)),
+                    null
+                )
+            )
+        )
+    }
+
+    @Test
+    fun `change to an input of a project written once invalidates the project and its consumers`() {
+        val written = projectScopedFingerprintWrittenBy { writer ->
+            writer.collectFingerprintForProject(projectA) {
+                writer.directoryChildrenObserved(directory)
+            }
+            writer.append(ProjectFingerprint(projectA, directoryChildren(1)))
+            writer.append(ProjectDependency(projectB, projectA))
+        }
+
+        assertThat(
+            checkProjectScopedFingerprint(written, currentHash = TestHashCodes.hashCodeFrom(1)),
+            instanceOf(CheckedFingerprint.Valid::class.java)
+        )
+
+        val checked = checkProjectScopedFingerprint(written, currentHash = TestHashCodes.hashCodeFrom(2))
+        assertThat(checked, instanceOf(CheckedFingerprint.ProjectsInvalid::class.java))
+        checked as CheckedFingerprint.ProjectsInvalid
+        assertThat(checked.invalidProjects, equalTo(setOf(projectA, projectB)))
+        assertThat(checked.reason, equalTo("directory 'dir' has changed"))
+    }
+
+    private
+    fun directoryChildren(hash: Long) =
+        ConfigurationCacheFingerprint.DirectoryChildren(directory, TestHashCodes.hashCodeFrom(hash))
+
+    private
+    fun projectScopedFingerprintWrittenBy(action: (ConfigurationCacheFingerprintWriter) -> Unit): List<Any?> {
+        val projectScopedValues = mutableListOf<Any?>()
+        val writer = ConfigurationCacheFingerprintWriter(
+            writerHost(),
+            writeContextRecordingTo(mutableListOf()),
+            writeContextRecordingTo(projectScopedValues),
+            fileCollectionFactory = mock(),
+            directoryFileTreeFactory = mock(),
+            taskExecutionTracker = mock(),
+            environmentChangeTracker = EnvironmentChangeTracker(mock()),
+            inputTrackingState = InputTrackingState()
+        )
+        try {
+            action(writer)
+        } finally {
+            writer.close()
+        }
+        return projectScopedValues
+    }
+
+    private
+    fun checkProjectScopedFingerprint(values: List<Any?>, currentHash: HashCode): CheckedFingerprint {
+        val host = mock<ConfigurationCacheFingerprintChecker.Host> {
+            on { hashCodeOfDirectoryContent(any()) } doReturn currentHash
+            on { displayNameOf(any()) }.then { invocation ->
+                invocation.getArgument<File>(0).name
+            }
+        }
+        return PlaybackReadContext(values).runReadOperation {
+            ConfigurationCacheFingerprintChecker(host).run {
+                checkProjectScopedFingerprint()
+            }
+        }
+    }
+
+    private
+    fun writerHost() = mock<ConfigurationCacheFingerprintWriter.Host> {
+        on { gradleUserHomeDir } doReturn File("gradle-user-home")
+        on { allInitScripts } doReturn emptyList()
+        on { startParameterProperties } doReturn emptyMap()
+        on { cacheIntermediateModels } doReturn true
+        on { hashCodeOfDirectoryContent(any()) } doReturn TestHashCodes.hashCodeFrom(1)
+    }
+
+    private
+    fun writeContextRecordingTo(values: MutableList<Any?>) =
+        DefaultWriteContext(
+            codec = RecordingCodec(values),
+            encoder = KryoBackedEncoder(ByteArrayOutputStream()),
+            scopeLookup = mock(),
+            beanStateWriterLookup = BeanStateWriterLookup(),
+            logger = mock(),
+            tracer = null,
+            problemsListener = mock()
+        )
+
+    private
+    class RecordingCodec(private val values: MutableList<Any?>) : Codec<Any?> {
+
+        override suspend fun WriteContext.encode(value: Any?) {
+            values.add(value)
+        }
+
+        override suspend fun ReadContext.decode(): Any? =
+            throw UnsupportedOperationException()
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configurationcache.serialization.codecs
+
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.sameInstance
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+import java.io.File
+
+
+class FileCodecTest : AbstractUserTypeCodecTest() {
+
+    @Test
+    fun `can handle files sharing parent directories`() {
+        val root = File("").absoluteFile
+        val files = arrayListOf(
+            File(root, "build/classes/java/main/A.class"),
+            File(root, "build/classes/java/main/B.class"),
+            File(root, "build/classes/java/test/ATest.class"),
+            File(root, "src/main/java"),
+            root,
+            File(root, "build/classes/java/main/A.class"),
+            File("relative/path.txt"),
+            File("name"),
+            File("")
+        )
+
+        val read = configurationCacheRoundtripOf(files)
+
+        assertThat(read, equalTo(files))
+        assertThat(read[5], sameInstance(read[0]))
+    }
+
+    @Test
+    fun `keeps files differing only in case apart`() {
+        val root = File("").absoluteFile
+        val files = arrayListOf(
+            File(root, "src/main/java/Foo.java"),
+            File(root, "src/main/java/foo.java"),
+            File(root, "SRC/main/java/Foo.java")
+        )
+
+        val read = configurationCacheRoundtripOf(files)
+
+        assertThat(read.map { it.path }, equalTo(files.map { it.path }))
+    }
+
+    @Test
+    fun `can handle repeated strings`() {
+        val strings = arrayListOf("main", "test", "main", "", "main", "test")
+
+        val read = configurationCacheRoundtripOf(strings)
+
+        assertThat(read, equalTo(strings))
+    }
+}
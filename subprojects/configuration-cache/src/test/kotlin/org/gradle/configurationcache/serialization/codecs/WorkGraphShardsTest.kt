@@ -0,0 +1,278 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.configurationcache.serialization.codecs
+
+import com.nhaarman.mockitokotlin2.doReturn
+import com.nhaarman.mockitokotlin2.mock
+import org.gradle.api.internal.TaskInternal
+import org.gradle.api.internal.project.ProjectInternal
+import org.gradle.cache.internal.TestCrossBuildInMemoryCacheFactory
+import org.gradle.configurationcache.extensions.useToRun
+import org.gradle.configurationcache.serialization.DefaultReadContext
+import org.gradle.configurationcache.serialization.DefaultWriteContext
+import org.gradle.configurationcache.serialization.ReadIdentities
+import org.gradle.configurationcache.serialization.SharedClassTable
+import org.gradle.configurationcache.serialization.WriteIdentities
+import org.gradle.configurationcache.serialization.beans.BeanConstructors
+import org.gradle.configurationcache.serialization.beans.BeanStateReaderLookup
+import org.gradle.configurationcache.serialization.beans.BeanStateWriterLookup
+import org.gradle.configurationcache.serialization.decodePreservingSharedIdentity
+import org.gradle.configurationcache.serialization.encodePreservingSharedIdentityOf
+import org.gradle.configurationcache.serialization.runReadOperation
+import org.gradle.configurationcache.serialization.runWriteOperation
+import org.gradle.execution.plan.LocalTaskNode
+import org.gradle.internal.operations.TestBuildOperationExecutor
+import org.gradle.internal.serialize.Decoder
+import org.gradle.internal.serialize.Encoder
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder
+import org.gradle.util.TestUtil
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.sameInstance
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Test
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.util.concurrent.ConcurrentHashMap
+
+
+class WorkGraphShardsTest {
+
+    private
+    val buildOperationExecutor = TestBuildOperationExecutor()
+
+    private
+    val decodedBeans = ConcurrentHashMap<TaskInternal, Bean>()
+
+    private
+    val shared = Bean(":shared")
+
+    /**
+     * The tasks of the work graph, `null` standing for a node that is not in a shard.
+     */
+    private
+    val tasks = listOf(
+        TaskSpec(":a", shared),
+        TaskSpec(":b", Bean(":b:compile")),
+        null,
+        TaskSpec(":a", Bean(":a:test")),
+        TaskSpec(":c", shared),
+        null,
+        TaskSpec(":b", Bean(":b:test")),
+        TaskSpec(":d", Bean(":d:compile")),
+        TaskSpec(":d", shared)
+    )
+
+    @Test
+    fun `sharded load decodes the same tasks in the same order as a sequential load`() {
+        val sequential = sequentialRoundtrip()
+        val sharded = shardedRoundtrip()
+
+        assertThat(sharded.describe(), equalTo(sequential.describe()))
+        assertThat(sharded.describe(), equalTo(tasks.map { it?.let { "${it.project} ${it.bean.name}" } }))
+        assertThat(sharded.sharedInstances(), equalTo(sequential.sharedInstances()))
+    }
+
+    @Test
+    fun `instances shared by tasks of different projects are decoded once`() {
+        val sharded = shardedRoundtrip()
+
+        val sharedBean = decodedBeans.getValue(sharded.tasks[0]!!)
+        assertThat(decodedBeans.getValue(sharded.tasks[4]!!), sameInstance(sharedBean))
+        assertThat(decodedBeans.getValue(sharded.tasks[8]!!), sameInstance(sharedBean))
+        assertThat(sharded.trailingReference, sameInstance(sharedBean))
+    }
+
+    @Test
+    fun `shards referencing the same instances are decoded in the same group`() {
+        shardedRoundtrip()
+
+        // :a, :c and :d share an instance, :b does not
+        assertThat(
+            buildOperationExecutor.log.descriptors.map { it.displayName },
+            equalTo(listOf("Load configuration cache work graph shard", "Load configuration cache work graph shard"))
+        )
+    }
+
+    @Test
+    fun `shards of a single group are decoded without a build operation`() {
+        val sharded = shardedRoundtrip(tasks.map { it?.copy(project = ":a") })
+
+        assertThat(sharded.tasks.count { it != null }, equalTo(tasks.count { it != null }))
+        assertThat(buildOperationExecutor.log.descriptors, equalTo(emptyList()))
+    }
+
+    private
+    fun sequentialRoundtrip(): Decoded {
+        val output = ByteArrayOutputStream()
+        writeContextFor(KryoBackedEncoder(output)).useToRun {
+            runWriteOperation {
+                for (task in tasks) {
+                    if (task != null) {
+                        writeTaskSpec(task)
+                    }
+                }
+                writeTrailingReference()
+            }
+        }
+        return readContextFor(KryoBackedDecoder(ByteArrayInputStream(output.toByteArray()))).run {
+            initClassLoader(javaClass.classLoader)
+            runReadOperation {
+                val decoded = tasks.map { task -> task?.let { readTaskSpec() } }
+                Decoded(decoded, readTrailingReference())
+            }
+        }
+    }
+
+    private
+    fun shardedRoundtrip(tasks: List<TaskSpec?> = this.tasks): Decoded {
+        val output = ByteArrayOutputStream()
+        val shardOfNode = IntArray(tasks.size)
+        writeContextFor(KryoBackedEncoder(output)).useToRun {
+            runWriteOperation {
+                val writer = WorkGraphShardWriter(shardContexts, sharedIdentities)
+                tasks.forEachIndexed { index, task ->
+                    shardOfNode[index] = if (task != null) writer.writeTo(nodeFor(task)) { writeTaskSpec(task) } else -1
+                }
+                writer.run {
+                    writeShards()
+                }
+                writeTrailingReference()
+            }
+        }
+        return readContextFor(KryoBackedDecoder(ByteArrayInputStream(output.toByteArray()))).run {
+            initClassLoader(javaClass.classLoader)
+            val decoded = WorkGraphShardReader(shardContexts, buildOperationExecutor).run {
+                readTasks(shardOfNode) { readTaskSpec() }
+            }
+            finish()
+            runReadOperation {
+                Decoded(decoded.toList(), readTrailingReference())
+            }
+        }
+    }
+
+    private
+    fun DefaultWriteContext.writeTaskSpec(task: TaskSpec) {
+        writeString(task.project)
+        writeClass(task.bean.javaClass)
+        encodePreservingSharedIdentityOf(task.bean) {
+            writeString(task.bean.name)
+        }
+    }
+
+    private
+    fun DefaultReadContext.readTaskSpec(): TaskInternal {
+        val project = readString()
+        assertThat(readClass(), equalTo(Bean::class.java))
+        val bean = decodePreservingSharedIdentity { Bean(readString()) }
+        val task = taskFor(project)
+        decodedBeans[task] = bean
+        return task
+    }
+
+    private
+    fun DefaultWriteContext.writeTrailingReference() {
+        encodePreservingSharedIdentityOf(shared) {
+            throw IllegalStateException("The shared instance should have been written by a task.")
+        }
+    }
+
+    private
+    fun DefaultReadContext.readTrailingReference(): Bean =
+        decodePreservingSharedIdentity<Bean> {
+            throw IllegalStateException("The shared instance should have been read with a task.")
+        }
+
+    private
+    fun Decoded.describe() =
+        tasks.map { task -> task?.let { "${it.project.path} ${decodedBeans.getValue(it).name}" } }
+
+    /**
+     * The pairs of tasks that reference the same decoded instance.
+     */
+    private
+    fun Decoded.sharedInstances(): List<Pair<Int, Int>> {
+        val beans = tasks.map { task -> task?.let { decodedBeans.getValue(it) } }
+        return beans.indices.flatMap { i ->
+            (i + 1 until beans.size).filter { j -> beans[i] != null && beans[i] === beans[j] }.map { j -> i to j }
+        }
+    }
+
+    private
+    fun nodeFor(task: TaskSpec): LocalTaskNode {
+        val taskInternal = taskFor(task.project)
+        return mock<LocalTaskNode> {
+            on { this.task } doReturn taskInternal
+        }
+    }
+
+    private
+    fun taskFor(projectPath: String): TaskInternal {
+        val project = mock<ProjectInternal> {
+            on { path } doReturn projectPath
+        }
+        return mock<TaskInternal> {
+            on { this.project } doReturn project
+        }
+    }
+
+    private
+    val shardContexts = object : WorkGraphShardContexts {
+
+        override fun writeContextFor(encoder: Encoder, sharedIdentities: WriteIdentities, sharedClasses: SharedClassTable): DefaultWriteContext =
+            this@WorkGraphShardsTest.writeContextFor(encoder, sharedIdentities, sharedClasses)
+
+        override fun readContextFor(decoder: Decoder, sharedIdentities: ReadIdentities, sharedClasses: List<Class<*>>): DefaultReadContext =
+            this@WorkGraphShardsTest.readContextFor(decoder, sharedIdentities, sharedClasses)
+    }
+
+    private
+    fun writeContextFor(encoder: Encoder, sharedIdentities: WriteIdentities = WriteIdentities(), sharedClasses: SharedClassTable? = null) =
+        DefaultWriteContext(
+            codec = mock(),
+            encoder = encoder,
+            scopeLookup = mock(),
+            beanStateWriterLookup = BeanStateWriterLookup(),
+            logger = mock(),
+            tracer = null,
+            problemsListener = mock(),
+            sharedIdentities = sharedIdentities,
+            sharedClasses = sharedClasses
+        )
+
+    private
+    fun readContextFor(decoder: Decoder, sharedIdentities: ReadIdentities = ReadIdentities(), sharedClasses: List<Class<*>>? = null) =
+        DefaultReadContext(
+            codec = mock(),
+            decoder = decoder,
+            beanStateReaderLookup = BeanStateReaderLookup(BeanConstructors(TestCrossBuildInMemoryCacheFactory()), TestUtil.instantiatorFactory()),
+            logger = mock(),
+            problemsListener = mock(),
+            sharedIdentities = sharedIdentities,
+            sharedClasses = sharedClasses
+        )
+
+    private
+    data class TaskSpec(val project: String, val bean: Bean)
+
+    private
+    class Bean(val name: String)
+
+    private
+    class Decoded(val tasks: List<TaskInternal?>, val trailingReference: Bean)
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import com.google.common.collect.ImmutableMap;
+import org.gradle.initialization.DefaultBuildCancellationToken;
+import org.gradle.internal.buildoption.DefaultInternalOptions;
+import org.gradle.internal.concurrent.DefaultExecutorFactory;
+import org.gradle.internal.concurrent.DefaultParallelismConfiguration;
+import org.gradle.internal.resources.DefaultResourceLockCoordinationService;
+import org.gradle.internal.work.DefaultWorkerLeaseService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long {@link DefaultPlanExecutor} takes to run a plan of no-op items with an increasing number of workers,
+ * so that the overhead of coordinating the workers dominates.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class PlanExecutorBenchmark {
+
+    @Param({"1", "4", "16", "32", "64"})
+    int workers;
+
+    @Param({"5000"})
+    int items;
+
+    @Param({"false", "true"})
+    boolean handoffOnFinish;
+
+    DefaultResourceLockCoordinationService coordinationService;
+    DefaultWorkerLeaseService workerLeaseService;
+    DefaultPlanExecutor planExecutor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        DefaultParallelismConfiguration parallelismConfiguration = new DefaultParallelismConfiguration(true, workers);
+        coordinationService = new DefaultResourceLockCoordinationService();
+        workerLeaseService = new DefaultWorkerLeaseService(coordinationService, parallelismConfiguration);
+        planExecutor = new DefaultPlanExecutor(
+            parallelismConfiguration,
+            new DefaultExecutorFactory(),
+            workerLeaseService,
+            new DefaultBuildCancellationToken(),
+            coordinationService,
+            new DefaultInternalOptions(ImmutableMap.of(DefaultPlanExecutor.HANDOFF_ON_FINISH.getSystemPropertyName(), String.valueOf(handoffOnFinish)))
+        );
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        planExecutor.stop();
+        workerLeaseService.stop();
+    }
+
+    @Benchmark
+    public int processNoOpItems() {
+        NoOpWorkSource workSource = new NoOpWorkSource(items);
+        workerLeaseService.runAsWorkerThread(() -> planExecutor.process(workSource, item -> {
+        }).rethrow());
+        return workSource.finished;
+    }
+
+    /**
+     * A source of independent items. Like the execution plans, it is only accessed while holding the state lock.
+     */
+    private static class NoOpWorkSource implements WorkSource<Integer> {
+        private final int count;
+        private int started;
+        private int finished;
+
+        NoOpWorkSource(int count) {
+            this.count = count;
+        }
+
+        @Override
+        public State executionState() {
+            return started < count ? State.MaybeWorkReadyToStart : State.NoMoreWorkToStart;
+        }
+
+        @Override
+        public Selection<Integer> selectNext() {
+            return started < count ? Selection.of(started++) : Selection.noMoreWorkToStart();
+        }
+
+        @Override
+        public void finishedExecuting(Integer item, @Nullable Throwable failure) {
+            finished++;
+        }
+
+        @Override
+        public void abortAllAndFail(Throwable t) {
+            throw new IllegalStateException(t);
+        }
+
+        @Override
+        public void cancelExecution() {
+        }
+
+        @Override
+        public boolean allExecutionComplete() {
+            return finished == count;
+        }
+
+        @Override
+        public void collectFailures(Collection<? super Throwable> failures) {
+        }
+
+        @Override
+        public Diagnostics healthDiagnostics() {
+            return new Diagnostics("no-op items", Collections.emptyList(), Collections.emptyList(), Collections.emptyList(), Collections.emptyList(), Collections.emptyList());
+        }
+    }
+}
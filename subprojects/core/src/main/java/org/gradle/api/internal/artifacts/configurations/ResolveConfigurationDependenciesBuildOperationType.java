@@ -75,6 +75,18 @@ public interface Result {
          * @since 5.6
          */
         AttributeContainer getRequestedAttributes();
+
+        /**
+         * How many resolved variants were reused from the build wide resolved variant cache during this resolution.
+         * @since 8.1
+         */
+        int getResolvedVariantCacheHits();
+
+        /**
+         * How many resolved variants had to be created during this resolution because they were not in the build wide resolved variant cache.
+         * @since 8.1
+         */
+        int getResolvedVariantCacheMisses();
     }
 
     /**
@@ -53,7 +53,7 @@ public CachingFileHasher(
         this.delegate = delegate;
         this.fileSystem = fileSystem;
         this.cache = store.createIndexedCache(
-            IndexedCacheParameters.of(cacheName, new InterningStringSerializer(stringInterner), new FileInfoSerializer()),
+            IndexedCacheParameters.of(cacheName, new InterningStringSerializer(stringInterner), new FileInfoSerializer()).withMemoryMapping().withLockFreeReads(),
             inMemorySize,
             true);
         this.stringInterner = stringInterner;
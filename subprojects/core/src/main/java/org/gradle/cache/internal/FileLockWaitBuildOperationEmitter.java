@@ -0,0 +1,91 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal;
+
+import org.gradle.cache.FileLockManager;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.event.ListenerManager;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationIdFactory;
+import org.gradle.internal.operations.BuildOperationListener;
+import org.gradle.internal.operations.BuildOperationListenerManager;
+import org.gradle.internal.operations.CurrentBuildOperationRef;
+import org.gradle.internal.operations.OperationFinishEvent;
+import org.gradle.internal.operations.OperationIdentifier;
+import org.gradle.internal.operations.OperationStartEvent;
+
+/**
+ * Reports waiting for a file lock as a {@link FileLockWaitBuildOperationType} build operation, a child of the build operation that requested the lock.
+ *
+ * The wait is only known once it is over, so the operation is reported after the fact with the recorded start and end time.
+ * Waits that do not happen as part of a build operation are not reported.
+ */
+public class FileLockWaitBuildOperationEmitter implements FileLockWaitListener, Stoppable {
+    private static final FileLockWaitBuildOperationType.Result RESULT = new FileLockWaitBuildOperationType.Result() {
+    };
+
+    private final ListenerManager listenerManager;
+    private final BuildOperationListener buildOperationListener;
+    private final BuildOperationIdFactory buildOperationIdFactory;
+    private final CurrentBuildOperationRef currentBuildOperationRef;
+
+    public FileLockWaitBuildOperationEmitter(ListenerManager listenerManager, BuildOperationListenerManager buildOperationListenerManager, BuildOperationIdFactory buildOperationIdFactory, CurrentBuildOperationRef currentBuildOperationRef) {
+        this.listenerManager = listenerManager;
+        this.buildOperationListener = buildOperationListenerManager.getBroadcaster();
+        this.buildOperationIdFactory = buildOperationIdFactory;
+        this.currentBuildOperationRef = currentBuildOperationRef;
+        listenerManager.addListener(this);
+    }
+
+    @Override
+    public void lockWaited(String lockDisplayName, FileLockManager.LockMode mode, long startTime, long endTime) {
+        OperationIdentifier parentId = currentBuildOperationRef.getId();
+        if (parentId == null) {
+            return;
+        }
+        BuildOperationDescriptor descriptor = BuildOperationDescriptor.displayName("Wait for lock on " + lockDisplayName)
+            .details(new DetailsImpl(lockDisplayName, mode))
+            .build(new OperationIdentifier(buildOperationIdFactory.nextId()), parentId);
+        buildOperationListener.started(descriptor, new OperationStartEvent(startTime));
+        buildOperationListener.finished(descriptor, new OperationFinishEvent(startTime, endTime, null, RESULT));
+    }
+
+    @Override
+    public void stop() {
+        listenerManager.removeListener(this);
+    }
+
+    private static class DetailsImpl implements FileLockWaitBuildOperationType.Details {
+        private final String lockDisplayName;
+        private final FileLockManager.LockMode mode;
+
+        DetailsImpl(String lockDisplayName, FileLockManager.LockMode mode) {
+            this.lockDisplayName = lockDisplayName;
+            this.mode = mode;
+        }
+
+        @Override
+        public String getLockDisplayName() {
+            return lockDisplayName;
+        }
+
+        @Override
+        public String getLockMode() {
+            return mode.name();
+        }
+    }
+}
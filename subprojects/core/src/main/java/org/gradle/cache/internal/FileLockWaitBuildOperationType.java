@@ -0,0 +1,46 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal;
+
+import org.gradle.internal.operations.BuildOperationType;
+
+/**
+ * Waiting for a file lock that is held by another process or by another lock in this process, usually the lock of a cache.
+ *
+ * The operation is only reported when a lock could not be acquired immediately.
+ */
+public final class FileLockWaitBuildOperationType implements BuildOperationType<FileLockWaitBuildOperationType.Details, FileLockWaitBuildOperationType.Result> {
+
+    public interface Details {
+
+        /**
+         * The display name of the locked target, usually a cache.
+         */
+        String getLockDisplayName();
+
+        /**
+         * The requested lock mode, either {@code Shared} or {@code Exclusive}.
+         */
+        String getLockMode();
+    }
+
+    public interface Result {
+    }
+
+    private FileLockWaitBuildOperationType() {
+    }
+}
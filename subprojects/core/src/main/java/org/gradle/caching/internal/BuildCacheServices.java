@@ -26,12 +26,14 @@
 import org.gradle.caching.configuration.internal.DefaultBuildCacheConfiguration;
 import org.gradle.caching.configuration.internal.DefaultBuildCacheServiceRegistration;
 import org.gradle.caching.internal.controller.BuildCacheController;
+import org.gradle.caching.internal.controller.CompressionSpecificBuildCacheController;
+import org.gradle.caching.internal.controller.DefaultBuildCacheController;
 import org.gradle.caching.internal.controller.RootBuildCacheControllerRef;
 import org.gradle.caching.internal.origin.OriginMetadataFactory;
 import org.gradle.caching.internal.packaging.BuildCacheEntryPacker;
+import org.gradle.caching.internal.packaging.impl.CompressingBuildCacheEntryPacker;
 import org.gradle.caching.internal.packaging.impl.DefaultTarPackerFileSystemSupport;
 import org.gradle.caching.internal.packaging.impl.FilePermissionAccess;
-import org.gradle.caching.internal.packaging.impl.GZipBuildCacheEntryPacker;
 import org.gradle.caching.internal.packaging.impl.TarBuildCacheEntryPacker;
 import org.gradle.caching.internal.packaging.impl.TarPackerFileSystemSupport;
 import org.gradle.caching.internal.services.BuildCacheControllerFactory;
@@ -39,6 +41,7 @@
 import org.gradle.caching.local.internal.DirectoryBuildCacheFileStoreFactory;
 import org.gradle.caching.local.internal.DirectoryBuildCacheServiceFactory;
 import org.gradle.internal.SystemProperties;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.file.Deleter;
 import org.gradle.internal.file.FileException;
 import org.gradle.internal.hash.ChecksumService;
@@ -47,6 +50,8 @@
 import org.gradle.internal.nativeintegration.filesystem.FileSystem;
 import org.gradle.internal.nativeintegration.network.HostnameLookup;
 import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.BuildOperationIdFactory;
+import org.gradle.internal.operations.BuildOperationListenerManager;
 import org.gradle.internal.os.OperatingSystem;
 import org.gradle.internal.reflect.Instantiator;
 import org.gradle.internal.resource.local.DefaultPathKeyFileStore;
@@ -55,6 +60,7 @@
 import org.gradle.internal.service.ServiceRegistration;
 import org.gradle.internal.service.ServiceRegistry;
 import org.gradle.internal.service.scopes.AbstractPluginServiceRegistry;
+import org.gradle.internal.time.Clock;
 import org.gradle.internal.vfs.FileSystemAccess;
 import org.gradle.util.GradleVersion;
 import org.gradle.util.Path;
@@ -67,6 +73,11 @@
  */
 public final class BuildCacheServices extends AbstractPluginServiceRegistry {
 
+    /**
+     * The compression of build cache entries when they are stored, either {@code gzip} or {@code lz4}. Entries are loaded with whichever compression they were stored with, and entries not compressed with {@code gzip} are stored under keys specific to their compression.
+     */
+    public static final String ENTRY_COMPRESSION_PROPERTY = "org.gradle.unsafe.build-cache.entry-compression";
+
     @Override
     public void registerBuildTreeServices(ServiceRegistration registration) {
         registration.addProvider(new Object() {
@@ -119,8 +130,9 @@ BuildCacheEntryPacker createResultPacker(
                 StreamHasher fileHasher,
                 StringInterner stringInterner
             ) {
-                return new GZipBuildCacheEntryPacker(
-                    new TarBuildCacheEntryPacker(fileSystemSupport, new FilePermissionsAccessAdapter(fileSystem), fileHasher, stringInterner));
+                return new CompressingBuildCacheEntryPacker(
+                    new TarBuildCacheEntryPacker(fileSystemSupport, new FilePermissionsAccessAdapter(fileSystem), fileHasher, stringInterner),
+                    entryCompression());
             }
 
             OriginMetadataFactory createOriginMetadataFactory(
@@ -183,7 +195,7 @@ private BuildCacheController doCreateBuildCacheController(
                 boolean logStackTraces = startParameter.getShowStacktrace() != ShowStacktrace.INTERNAL_EXCEPTIONS;
                 boolean emitDebugLogging = startParameter.isBuildCacheDebugLogging();
 
-                return BuildCacheControllerFactory.create(
+                BuildCacheController controller = BuildCacheControllerFactory.create(
                     buildOperationExecutor,
                     buildIdentityPath,
                     temporaryFileProvider,
@@ -196,12 +208,27 @@ private BuildCacheController doCreateBuildCacheController(
                     fileSystemAccess,
                     packer,
                     originMetadataFactory,
-                    stringInterner
+                    stringInterner,
+                    serviceRegistry.get(ExecutorFactory.class),
+                    new DefaultBuildCacheController.BackgroundOperationServices(
+                        serviceRegistry.get(BuildOperationListenerManager.class),
+                        serviceRegistry.get(BuildOperationIdFactory.class),
+                        serviceRegistry.get(Clock.class)
+                    )
                 );
+                CompressingBuildCacheEntryPacker.Compression compression = entryCompression();
+                // Entries compressed with anything but GZIP must not be found by builds that can only unpack GZIP entries
+                return compression == CompressingBuildCacheEntryPacker.Compression.GZIP
+                    ? controller
+                    : new CompressionSpecificBuildCacheController(controller, compression);
             }
         });
     }
 
+    private static CompressingBuildCacheEntryPacker.Compression entryCompression() {
+        return CompressingBuildCacheEntryPacker.Compression.forName(System.getProperty(ENTRY_COMPRESSION_PROPERTY, "gzip"));
+    }
+
     private static final class FilePermissionsAccessAdapter implements FilePermissionAccess {
 
         private final FileSystem fileSystem;
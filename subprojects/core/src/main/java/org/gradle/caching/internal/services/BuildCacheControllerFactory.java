@@ -36,6 +36,7 @@
 import org.gradle.caching.local.DirectoryBuildCache;
 import org.gradle.caching.local.internal.DirectoryBuildCacheService;
 import org.gradle.internal.Cast;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.operations.BuildOperationContext;
 import org.gradle.internal.operations.BuildOperationDescriptor;
 import org.gradle.internal.operations.BuildOperationExecutor;
@@ -56,6 +57,16 @@ public final class BuildCacheControllerFactory {
 
     public static final String REMOTE_CONTINUE_ON_ERROR_PROPERTY = "org.gradle.unsafe.build-cache.remote-continue-on-error";
 
+    /**
+     * Loads entries from the remote build cache while looking them up in the local build cache, instead of only after a local miss.
+     */
+    public static final String REMOTE_CONCURRENT_LOAD_PROPERTY = "org.gradle.unsafe.build-cache.remote-concurrent-load";
+
+    /**
+     * Stores entries in the remote build cache in the background, instead of blocking the completion of the work.
+     */
+    public static final String REMOTE_ASYNC_STORE_PROPERTY = "org.gradle.unsafe.build-cache.remote-async-store";
+
     private static final Logger LOGGER = LoggerFactory.getLogger(BuildCacheControllerFactory.class);
 
     public enum BuildCacheMode {
@@ -79,7 +90,9 @@ public static BuildCacheController create(
         final FileSystemAccess fileSystemAccess,
         final BuildCacheEntryPacker packer,
         final OriginMetadataFactory originMetadataFactory,
-        final StringInterner stringInterner
+        final StringInterner stringInterner,
+        final ExecutorFactory executorFactory,
+        final DefaultBuildCacheController.BackgroundOperationServices backgroundOperationServices
     ) {
         return buildOperationExecutor.call(new CallableBuildOperation<BuildCacheController>() {
             @Override
@@ -135,7 +148,11 @@ public BuildCacheController call(BuildOperationContext context) {
                         fileSystemAccess,
                         packer,
                         originMetadataFactory,
-                        stringInterner
+                        stringInterner,
+                        executorFactory,
+                        backgroundOperationServices,
+                        Boolean.getBoolean(REMOTE_CONCURRENT_LOAD_PROPERTY),
+                        Boolean.getBoolean(REMOTE_ASYNC_STORE_PROPERTY)
                     );
                 }
             }
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import org.gradle.internal.operations.BuildOperationType;
+
+/**
+ * Reports how long the execution of a plan scheduled by remaining critical path was predicted to take, and how long it actually took.
+ *
+ * The prediction is the longest chain of dependent nodes, based on the durations of the nodes in previous builds.
+ */
+public final class CriticalPathScheduleBuildOperationType implements BuildOperationType<CriticalPathScheduleBuildOperationType.Details, CriticalPathScheduleBuildOperationType.Result> {
+
+    public interface Details {
+
+        String getPlanDisplayName();
+
+        /**
+         * The predicted time from starting the first node to finishing the last node, in milliseconds.
+         */
+        long getPredictedMakespanMillis();
+
+        int getExecutedNodeCount();
+    }
+
+    public interface Result {
+
+        /**
+         * The actual time from starting the first node to finishing the last node, in milliseconds.
+         */
+        long getActualMakespanMillis();
+    }
+
+    private CriticalPathScheduleBuildOperationType() {
+    }
+}
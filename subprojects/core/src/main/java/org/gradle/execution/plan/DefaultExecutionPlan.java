@@ -26,6 +26,7 @@
 import org.gradle.api.specs.Specs;
 import org.gradle.internal.resources.ResourceLockCoordinationService;
 
+import javax.annotation.Nullable;
 import java.util.AbstractCollection;
 import java.util.Collection;
 import java.util.Collections;
@@ -63,6 +64,10 @@ public class DefaultExecutionPlan implements ExecutionPlan, QueryableExecutionPl
     private final Set<Node> filteredNodes = newIdentityHashSet();
     private final Set<Node> finalizers = new LinkedHashSet<>();
     private final OrdinalNodeAccess ordinalNodeAccess;
+    @Nullable
+    private final NodeDurationHistory durationHistory;
+    @Nullable
+    private final ExecutionPlanOrderCache orderCache;
     private Consumer<LocalTaskNode> completionHandler = localTaskNode -> {
     };
 
@@ -78,8 +83,44 @@ public DefaultExecutionPlan(
         ExecutionNodeAccessHierarchy outputHierarchy,
         ExecutionNodeAccessHierarchy destroyableHierarchy,
         ResourceLockCoordinationService lockCoordinator
+    ) {
+        this(displayName, taskNodeFactory, ordinalGroupFactory, dependencyResolver, outputHierarchy, destroyableHierarchy, lockCoordinator, null);
+    }
+
+    /**
+     * @param durationHistory When not null, the plan starts ready nodes in order of their remaining critical path.
+     */
+    public DefaultExecutionPlan(
+        String displayName,
+        TaskNodeFactory taskNodeFactory,
+        OrdinalGroupFactory ordinalGroupFactory,
+        TaskDependencyResolver dependencyResolver,
+        ExecutionNodeAccessHierarchy outputHierarchy,
+        ExecutionNodeAccessHierarchy destroyableHierarchy,
+        ResourceLockCoordinationService lockCoordinator,
+        @Nullable NodeDurationHistory durationHistory
+    ) {
+        this(displayName, taskNodeFactory, ordinalGroupFactory, dependencyResolver, outputHierarchy, destroyableHierarchy, lockCoordinator, durationHistory, null);
+    }
+
+    /**
+     * @param durationHistory When not null, the plan starts ready nodes in order of their remaining critical path.
+     * @param orderCache When not null, the plan reuses the order of its nodes from a previous build with the same task graph.
+     */
+    public DefaultExecutionPlan(
+        String displayName,
+        TaskNodeFactory taskNodeFactory,
+        OrdinalGroupFactory ordinalGroupFactory,
+        TaskDependencyResolver dependencyResolver,
+        ExecutionNodeAccessHierarchy outputHierarchy,
+        ExecutionNodeAccessHierarchy destroyableHierarchy,
+        ResourceLockCoordinationService lockCoordinator,
+        @Nullable NodeDurationHistory durationHistory,
+        @Nullable ExecutionPlanOrderCache orderCache
     ) {
         this.displayName = displayName;
+        this.durationHistory = durationHistory;
+        this.orderCache = orderCache;
         this.taskNodeFactory = taskNodeFactory;
         this.dependencyResolver = dependencyResolver;
         this.outputHierarchy = outputHierarchy;
@@ -221,7 +262,8 @@ public void determineExecutionPlan() {
                 nodeMapping,
                 ordinalNodeAccess,
                 entryNodes,
-                finalizers
+                finalizers,
+                orderCache
             ).run();
             finalizers.clear();
         }
@@ -235,7 +277,7 @@ public FinalizedExecutionPlan finalizePlan() {
         if (finalizedPlan == null) {
             dependencyResolver.clear();
             // Should make an immutable copy of the contents to pass to the finalized plan and also to use in this instance
-            finalizedPlan = new DefaultFinalizedExecutionPlan(displayName, ordinalNodeAccess, outputHierarchy, destroyableHierarchy, lockCoordinator, scheduledNodes, continueOnFailure, this, completionHandler);
+            finalizedPlan = new DefaultFinalizedExecutionPlan(displayName, ordinalNodeAccess, outputHierarchy, destroyableHierarchy, lockCoordinator, scheduledNodes, continueOnFailure, this, completionHandler, durationHistory);
         }
         return finalizedPlan;
     }
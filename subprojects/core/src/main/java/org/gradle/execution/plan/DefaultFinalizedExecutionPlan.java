@@ -22,7 +22,6 @@
 import org.gradle.api.BuildCancelledException;
 import org.gradle.api.NonNullApi;
 import org.gradle.internal.MutableBoolean;
-import org.gradle.internal.Pair;
 import org.gradle.internal.resources.ResourceLock;
 import org.gradle.internal.resources.ResourceLockCoordinationService;
 import org.gradle.internal.work.WorkerLeaseRegistry;
@@ -33,15 +32,15 @@
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
-import java.util.function.BiFunction;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 import static com.google.common.collect.Sets.newIdentityHashSet;
 import static java.lang.String.format;
@@ -67,7 +66,7 @@ public int compare(Node node1, Node node2) {
     };
 
     private final Set<Node> waitingToStartNodes = new HashSet<>();
-    private final ExecutionQueue readyNodes = new ExecutionQueue();
+    private final ExecutionQueue readyNodes;
     private final List<Throwable> failures = new ArrayList<>();
     private final List<DiagnosticEvent> diagnosticEvents = new ArrayList<>();
     private final String displayName;
@@ -81,9 +80,18 @@ public int compare(Node node1, Node node2) {
     private final QueryableExecutionPlan contents;
 
     private final Set<Node> runningNodes = newIdentityHashSet();
-    private final Map<Pair<Node, Node>, Boolean> reachableCache = new HashMap<>();
+    private final ReachabilityIndex reachabilityIndex;
     private final OrdinalNodeAccess ordinalNodeAccess;
     private final Consumer<LocalTaskNode> completionHandler;
+    @Nullable
+    private final NodeDurationHistory durationHistory;
+    // Only used when scheduling by remaining critical path
+    private final Map<Node, Long> remainingCriticalPath = new IdentityHashMap<>();
+    private final Map<Node, Long> startTimes = new IdentityHashMap<>();
+    private final Map<Node, Long> durations = new IdentityHashMap<>();
+    private long predictedMakespan;
+    private long firstStartTime = -1;
+    private long lastFinishTime = -1;
 
     // When true, there may be nodes that are both ready and "selectable", which means their project and resources are able to be locked
     // When false, there are definitely no nodes that are "selectable"
@@ -101,6 +109,24 @@ public DefaultFinalizedExecutionPlan(
         boolean continueOnFailure,
         QueryableExecutionPlan contents,
         Consumer<LocalTaskNode> completionHandler
+    ) {
+        this(displayName, ordinalNodeAccess, outputHierarchy, destroyableHierarchy, lockCoordinator, scheduledNodes, continueOnFailure, contents, completionHandler, null);
+    }
+
+    /**
+     * @param durationHistory When not null, ready nodes are started in order of their remaining critical path, as predicted from the durations of previous executions.
+     */
+    public DefaultFinalizedExecutionPlan(
+        String displayName,
+        OrdinalNodeAccess ordinalNodeAccess,
+        ExecutionNodeAccessHierarchy outputHierarchy,
+        ExecutionNodeAccessHierarchy destroyableHierarchy,
+        ResourceLockCoordinationService lockCoordinator,
+        List<Node> scheduledNodes,
+        boolean continueOnFailure,
+        QueryableExecutionPlan contents,
+        Consumer<LocalTaskNode> completionHandler,
+        @Nullable NodeDurationHistory durationHistory
     ) {
         this.displayName = displayName;
         this.outputHierarchy = outputHierarchy;
@@ -110,6 +136,14 @@ public DefaultFinalizedExecutionPlan(
         this.continueOnFailure = continueOnFailure;
         this.contents = contents;
         this.completionHandler = completionHandler;
+        this.durationHistory = durationHistory;
+        this.reachabilityIndex = new ReachabilityIndex(scheduledNodes);
+        if (durationHistory != null) {
+            predictedMakespan = calculateRemainingCriticalPaths(scheduledNodes, durationHistory.getPreviousDurations(scheduledNodes));
+            readyNodes = new ExecutionQueue(this::compareByRemainingCriticalPath);
+        } else {
+            readyNodes = new ExecutionQueue(NODE_EXECUTION_ORDER);
+        }
 
         SetMultimap<FinalizerGroup, FinalizerGroup> reachableGroups = LinkedHashMultimap.create();
         for (Node node : scheduledNodes) {
@@ -129,6 +163,47 @@ public DefaultFinalizedExecutionPlan(
         lockCoordinator.addLockReleaseListener(resourceUnlockListener);
     }
 
+    /**
+     * Calculates for each node the longest chain of durations from the start of the node to the end of any node that depends on it.
+     * The nodes are scheduled in execution order, so the nodes that depend on a node come after it.
+     *
+     * @return the longest remaining critical path of all nodes, which is the predicted execution time with unlimited workers.
+     */
+    private long calculateRemainingCriticalPaths(List<Node> scheduledNodes, Map<Node, Long> previousDurations) {
+        long longestPath = 0;
+        for (int i = scheduledNodes.size() - 1; i >= 0; i--) {
+            Node node = scheduledNodes.get(i);
+            long longestDependentPath = 0;
+            for (Node dependent : node.getDependencyPredecessors()) {
+                longestDependentPath = Math.max(longestDependentPath, remainingCriticalPath.getOrDefault(dependent, 0L));
+            }
+            long path = previousDurations.getOrDefault(node, 0L) + longestDependentPath;
+            remainingCriticalPath.put(node, path);
+            longestPath = Math.max(longestPath, path);
+        }
+        return longestPath;
+    }
+
+    private int compareByRemainingCriticalPath(Node node1, Node node2) {
+        if (node1.isPriority() == node2.isPriority()) {
+            int result = Long.compare(remainingCriticalPath.getOrDefault(node2, 0L), remainingCriticalPath.getOrDefault(node1, 0L));
+            if (result != 0) {
+                return result;
+            }
+        }
+        return NODE_EXECUTION_ORDER.compare(node1, node2);
+    }
+
+    /**
+     * Nodes added to the plan while it executes are scheduled like the node that added them.
+     */
+    private void inheritSchedule(Node node, Node from) {
+        node.setIndex(from.getIndex());
+        if (durationHistory != null) {
+            remainingCriticalPath.put(node, remainingCriticalPath.getOrDefault(from, 0L));
+        }
+    }
+
     @Override
     public String getDisplayName() {
         return displayName;
@@ -147,10 +222,16 @@ public WorkSource<Node> asWorkSource() {
     @Override
     public void close() {
         lockCoordinator.removeLockReleaseListener(resourceUnlockListener);
+        if (durationHistory != null && !durations.isEmpty()) {
+            durationHistory.recordExecution(displayName, durations, predictedMakespan, lastFinishTime - firstStartTime);
+        }
+        remainingCriticalPath.clear();
+        startTimes.clear();
+        durations.clear();
         waitingToStartNodes.clear();
         readyNodes.clear();
         runningNodes.clear();
-        reachableCache.clear();
+        reachabilityIndex.clear();
     }
 
     private void resourceUnlocked(ResourceLock resourceLock) {
@@ -261,10 +342,11 @@ public Selection<Node> selectNext() {
                 if (node.hasPendingPreExecutionNodes()) {
                     // The node is ready to execute and its pre-execution nodes have not been scheduled, so do this now
                     node.visitPreExecutionNodes(prepareNode -> {
-                        prepareNode.setIndex(node.getIndex());
+                        inheritSchedule(prepareNode, node);
                         prepareNode.require();
                         prepareNode.updateAllDependenciesComplete();
                         node.addDependencySuccessor(prepareNode);
+                        reachabilityIndex.successorAdded(node, prepareNode);
                         addNodeToPlan(prepareNode);
                     });
                     node.forceAllDependenciesCompleteUpdate();
@@ -415,33 +497,33 @@ private boolean mutationConflictsWithOtherNodes(Node node, MutationInfo mutation
             return false;
         }
 
-        BiFunction<Boolean, Node, Boolean> conflictsWithRunning = (current, candidate) -> current || candidate.isExecuting();
+        Predicate<Node> conflictsWithRunning = Node::isExecuting;
 
         OrdinalGroup nodeOrdinal = node.getOrdinal();
-        BiFunction<Boolean, Node, Boolean> conflictsWithNodeInEarlierOrdinal = (current, candidate) -> {
-            if (current || candidate.isComplete()) {
-                return current;
+        Predicate<Node> conflictsWithNodeInEarlierOrdinal = candidate -> {
+            if (candidate.isComplete()) {
+                return false;
             }
             OrdinalGroup otherOrdinal = candidate.getOrdinal();
             return otherOrdinal != null && otherOrdinal.getOrdinal() < nodeOrdinal.getOrdinal();
         };
 
         for (String path : nodeOutputPaths) {
-            if (outputHierarchy.visitNodesAccessing(path, false, conflictsWithRunning)) {
+            if (outputHierarchy.hasNodeAccessing(path, conflictsWithRunning)) {
                 return true;
             }
             if (nodeOrdinal != null) {
-                if (destroyableHierarchy.visitNodesAccessing(path, false, conflictsWithNodeInEarlierOrdinal)) {
+                if (destroyableHierarchy.hasNodeAccessing(path, conflictsWithNodeInEarlierOrdinal)) {
                     return true;
                 }
             }
         }
         for (String path : nodeDestroysPaths) {
-            if (destroyableHierarchy.visitNodesAccessing(path, false, conflictsWithRunning)) {
+            if (destroyableHierarchy.hasNodeAccessing(path, conflictsWithRunning)) {
                 return true;
             }
             if (nodeOrdinal != null) {
-                if (outputHierarchy.visitNodesAccessing(path, false, conflictsWithNodeInEarlierOrdinal)) {
+                if (outputHierarchy.hasNodeAccessing(path, conflictsWithNodeInEarlierOrdinal)) {
                     return true;
                 }
             }
@@ -454,16 +536,13 @@ private boolean destroysNotYetConsumedOutputOfAnotherNode(Node destroyer, Set<St
             return false;
         }
 
-        BiFunction<Boolean, Node, Boolean> conflicts = (current, producingNode) -> {
-            if (current) {
-                return current;
-            }
+        Predicate<Node> conflicts = producingNode -> {
             if (!producingNode.getMutationInfo().isOutputProducedButNotYetConsumed()) {
                 return false;
             }
             MutationInfo producingNodeMutations = producingNode.getMutationInfo();
             for (Node consumer : producingNodeMutations.getNodesYetToConsumeOutput()) {
-                if (doesConsumerDependOnDestroyer(consumer, destroyer)) {
+                if (reachabilityIndex.dependsOn(consumer, destroyer)) {
                     // If there's an explicit dependency from consuming node to destroyer,
                     // then we accept that as the will of the user
                     continue;
@@ -475,37 +554,33 @@ private boolean destroysNotYetConsumedOutputOfAnotherNode(Node destroyer, Set<St
         };
 
         for (String destroyablePath : destroyablePaths) {
-            if (outputHierarchy.visitNodesAccessing(destroyablePath, false, conflicts)) {
+            if (outputHierarchy.hasNodeAccessing(destroyablePath, conflicts)) {
                 return true;
             }
         }
         return false;
     }
 
-    private boolean doesConsumerDependOnDestroyer(Node consumer, Node destroyer) {
-        if (consumer == destroyer) {
-            return true;
-        }
-        Pair<Node, Node> nodePair = Pair.of(consumer, destroyer);
-        if (reachableCache.get(nodePair) != null) {
-            return reachableCache.get(nodePair);
-        }
-
-        boolean reachable = false;
-        for (Node dependency : consumer.getAllSuccessors()) {
-            if (!dependency.isComplete()) {
-                if (doesConsumerDependOnDestroyer(dependency, destroyer)) {
-                    reachable = true;
-                }
+    private void recordNodeExecutionStarted(Node node) {
+        runningNodes.add(node);
+        if (durationHistory != null) {
+            long now = System.currentTimeMillis();
+            startTimes.put(node, now);
+            if (firstStartTime < 0) {
+                firstStartTime = now;
             }
         }
-
-        reachableCache.put(nodePair, reachable);
-        return reachable;
     }
 
-    private void recordNodeExecutionStarted(Node node) {
-        runningNodes.add(node);
+    private void recordNodeExecutionFinished(Node node) {
+        Long startTime = startTimes.remove(node);
+        if (startTime != null) {
+            long now = System.currentTimeMillis();
+            lastFinishTime = now;
+            if (node.isSuccessful()) {
+                durations.put(node, now - startTime);
+            }
+        }
     }
 
     private void recordNodeCompleted(Node node) {
@@ -560,18 +635,20 @@ public void finishedExecuting(Node node, @Nullable Throwable failure) {
             }
 
             node.finishExecution(this::recordNodeCompleted);
+            recordNodeExecutionFinished(node);
             if (node.isFailed()) {
                 LOGGER.debug("Node {} failed", node);
                 handleFailure(node);
             } else {
                 LOGGER.debug("Node {} finished executing", node);
                 node.visitPostExecutionNodes(postNode -> {
-                    postNode.setIndex(node.getIndex());
+                    inheritSchedule(postNode, node);
                     postNode.require();
                     postNode.updateAllDependenciesComplete();
                     addNodeToPlan(postNode);
                     for (Node predecessor : node.getDependencyPredecessors()) {
                         predecessor.addDependencySuccessor(postNode);
+                        reachabilityIndex.successorAdded(predecessor, postNode);
                         predecessor.forceAllDependenciesCompleteUpdate();
                         if (!predecessor.allDependenciesComplete()) {
                             readyNodes.removeAndRestart(predecessor);
@@ -679,12 +756,16 @@ public boolean allExecutionComplete() {
     }
 
     /**
-     * An ordered queue of nodes, sorted by {@link #NODE_EXECUTION_ORDER}.
+     * An ordered queue of nodes, sorted by {@link #NODE_EXECUTION_ORDER} or by remaining critical path.
      */
     static class ExecutionQueue {
-        private final Set<Node> nodes = new TreeSet<>(NODE_EXECUTION_ORDER);
+        private final Set<Node> nodes;
         private Iterator<Node> current;
 
+        public ExecutionQueue(Comparator<Node> order) {
+            this.nodes = new TreeSet<>(order);
+        }
+
         public void clear() {
             nodes.clear();
             current = null;
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import org.gradle.cache.FileLockManager;
+import org.gradle.cache.IndexedCache;
+import org.gradle.cache.IndexedCacheParameters;
+import org.gradle.cache.PersistentCache;
+import org.gradle.cache.scopes.BuildTreeScopedCacheBuilderFactory;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.RunnableBuildOperation;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
+
+/**
+ * Keeps the durations of tasks in the project cache directory, keyed by the identity path of the task.
+ *
+ * A recorded duration is the average of the previous recorded duration and the latest duration, so that a single unusually fast or slow execution,
+ * such as an up-to-date check, does not completely change the schedule of the next build.
+ */
+public class DefaultNodeDurationHistory implements NodeDurationHistory, Closeable {
+    private final BuildTreeScopedCacheBuilderFactory cacheBuilderFactory;
+    private final BuildOperationExecutor buildOperationExecutor;
+    private PersistentCache cache;
+    private IndexedCache<String, Long> durations;
+
+    public DefaultNodeDurationHistory(BuildTreeScopedCacheBuilderFactory cacheBuilderFactory, BuildOperationExecutor buildOperationExecutor) {
+        this.cacheBuilderFactory = cacheBuilderFactory;
+        this.buildOperationExecutor = buildOperationExecutor;
+    }
+
+    @Override
+    public synchronized Map<Node, Long> getPreviousDurations(Collection<? extends Node> nodes) {
+        Map<Node, Long> result = new IdentityHashMap<>();
+        IndexedCache<String, Long> durations = getDurations();
+        cache.useCache(() -> {
+            for (Node node : nodes) {
+                String key = keyOf(node);
+                if (key != null) {
+                    Long duration = durations.getIfPresent(key);
+                    if (duration != null) {
+                        result.put(node, duration);
+                    }
+                }
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public synchronized void recordExecution(String planDisplayName, Map<Node, Long> nodeDurations, long predictedMakespan, long actualMakespan) {
+        IndexedCache<String, Long> durations = getDurations();
+        cache.useCache(() -> {
+            for (Map.Entry<Node, Long> entry : nodeDurations.entrySet()) {
+                String key = keyOf(entry.getKey());
+                if (key != null) {
+                    Long previous = durations.getIfPresent(key);
+                    long duration = entry.getValue();
+                    durations.put(key, previous == null ? duration : (previous + duration) / 2);
+                }
+            }
+        });
+        buildOperationExecutor.run(new RunnableBuildOperation() {
+            @Override
+            public void run(BuildOperationContext context) {
+                context.setResult(new CriticalPathScheduleBuildOperationType.Result() {
+                    @Override
+                    public long getActualMakespanMillis() {
+                        return actualMakespan;
+                    }
+                });
+            }
+
+            @Override
+            public BuildOperationDescriptor.Builder description() {
+                return BuildOperationDescriptor.displayName("Critical path schedule of " + planDisplayName)
+                    .details(new CriticalPathScheduleBuildOperationType.Details() {
+                        @Override
+                        public String getPlanDisplayName() {
+                            return planDisplayName;
+                        }
+
+                        @Override
+                        public long getPredictedMakespanMillis() {
+                            return predictedMakespan;
+                        }
+
+                        @Override
+                        public int getExecutedNodeCount() {
+                            return nodeDurations.size();
+                        }
+                    });
+            }
+        });
+    }
+
+    @Nullable
+    private static String keyOf(Node node) {
+        if (node instanceof LocalTaskNode) {
+            return ((LocalTaskNode) node).getTask().getIdentityPath().getPath();
+        }
+        return null;
+    }
+
+    private IndexedCache<String, Long> getDurations() {
+        if (durations == null) {
+            cache = cacheBuilderFactory.createCacheBuilder("taskDurations")
+                .withDisplayName("task durations cache")
+                .withLockOptions(mode(FileLockManager.LockMode.OnDemand))
+                .open();
+            durations = cache.createIndexedCache(IndexedCacheParameters.of("taskDurations", String.class, Long.class));
+        }
+        return durations;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (cache != null) {
+            cache.close();
+        }
+    }
+}
@@ -34,6 +34,7 @@
 import org.gradle.internal.concurrent.Stoppable;
 import org.gradle.internal.logging.text.TreeFormatter;
 import org.gradle.internal.resources.ResourceLockCoordinationService;
+import org.gradle.internal.resources.ResourceLockState;
 import org.gradle.internal.work.WorkerLeaseRegistry.WorkerLease;
 import org.gradle.internal.work.WorkerLeaseService;
 
@@ -61,6 +62,10 @@
 @NonNullApi
 public class DefaultPlanExecutor implements PlanExecutor, Stoppable {
     public static final InternalFlag STATS = new InternalFlag("org.gradle.internal.executor.stats");
+    /**
+     * When enabled, a worker that finishes an item selects its next item while it still holds the state lock, instead of releasing the state lock and acquiring it again.
+     */
+    public static final InternalFlag HANDOFF_ON_FINISH = new InternalFlag("org.gradle.internal.executor.handoff-on-finish");
     private static final Logger LOGGER = Logging.getLogger(DefaultPlanExecutor.class);
     private final int executorCount;
     private final WorkerLeaseService workerLeaseService;
@@ -70,6 +75,7 @@ public class DefaultPlanExecutor implements PlanExecutor, Stoppable {
     private final MergedQueues queue;
     private final ExecutorState state = new ExecutorState();
     private final ExecutorStats stats;
+    private final boolean handoffOnFinish;
 
     public DefaultPlanExecutor(
         ParallelismConfiguration parallelismConfiguration,
@@ -89,6 +95,7 @@ public DefaultPlanExecutor(
         this.executorCount = numberOfParallelExecutors;
         this.workerLeaseService = workerLeaseService;
         this.stats = internalOptions.getOption(STATS).get() ? new CollectingExecutorStats(state) : state;
+        this.handoffOnFinish = internalOptions.getOption(HANDOFF_ON_FINISH).get();
         this.queue = new MergedQueues(coordinationService, false);
         this.executor = executorFactory.create("Execution worker");
     }
@@ -113,7 +120,7 @@ public <T> ExecutionResult<Void> process(WorkSource<T> workSource, Action<T> wor
         WorkerLease currentWorkerLease = workerLeaseService.getCurrentWorkerLease();
         MergedQueues thisPlanOnly = new MergedQueues(coordinationService, true);
         thisPlanOnly.add(planDetails);
-        new ExecutorWorker(thisPlanOnly, currentWorkerLease, cancellationToken, coordinationService, workerLeaseService, stats).run();
+        new ExecutorWorker(thisPlanOnly, currentWorkerLease, cancellationToken, coordinationService, workerLeaseService, stats, handoffOnFinish).run();
 
         List<Throwable> failures = new ArrayList<>();
         awaitCompletion(workSource, currentWorkerLease, failures);
@@ -182,7 +189,7 @@ private void maybeStartWorkers(MergedQueues queue, Executor executor) {
         state.maybeStartWorkers(() -> {
             LOGGER.debug("Using {} parallel executor threads", executorCount);
             for (int i = 1; i < executorCount; i++) {
-                executor.execute(new ExecutorWorker(queue, null, cancellationToken, coordinationService, workerLeaseService, stats));
+                executor.execute(new ExecutorWorker(queue, null, cancellationToken, coordinationService, workerLeaseService, stats, handoffOnFinish));
             }
         });
     }
@@ -342,6 +349,9 @@ private static class ExecutorWorker implements Runnable {
         private final ResourceLockCoordinationService coordinationService;
         private final WorkerLeaseService workerLeaseService;
         private final WorkerStats stats;
+        private final boolean handoffOnFinish;
+        @Nullable
+        private WorkItem handoff;
 
         private ExecutorWorker(
             MergedQueues queue,
@@ -349,7 +359,8 @@ private ExecutorWorker(
             BuildCancellationToken cancellationToken,
             ResourceLockCoordinationService coordinationService,
             WorkerLeaseService workerLeaseService,
-            ExecutorStats executorStats
+            ExecutorStats executorStats,
+            boolean handoffOnFinish
         ) {
             this.queue = queue;
             this.workerLease = workerLease;
@@ -357,6 +368,7 @@ private ExecutorWorker(
             this.coordinationService = coordinationService;
             this.workerLeaseService = workerLeaseService;
             this.stats = executorStats.startWorker();
+            this.handoffOnFinish = handoffOnFinish;
         }
 
         @Override
@@ -396,6 +408,13 @@ public void run() {
          */
         @Nullable
         private WorkItem getNextItem(final WorkerLease workerLease) {
+            if (handoff != null) {
+                // Already selected when the previous item finished
+                WorkItem next = handoff;
+                handoff = null;
+                return next;
+            }
+
             final MutableReference<WorkItem> selected;
             stats.startSelect();
             try {
@@ -474,20 +493,54 @@ private void execute(Object selected, WorkSource<Object> executionPlan, Action<O
         private void markFinished(Object selected, WorkSource<Object> executionPlan, @Nullable Throwable failure) {
             stats.startMarkFinished();
             try {
-                coordinationService.withStateLock(() -> {
+                coordinationService.withStateLock(resourceLockState -> {
+                    boolean finished = false;
                     try {
                         executionPlan.finishedExecuting(selected, failure);
+                        finished = true;
                     } catch (Throwable t) {
                         queue.abortAllAndFail(t);
                     }
+                    if (finished && handoffOnFinish) {
+                        handoff = selectNextWhileFinishing(resourceLockState);
+                    }
                     // Notify other threads that the item is finished as this may unblock further work
                     // or this might be the last item in the queue
                     coordinationService.notifyStateChange();
+                    return FINISHED;
                 });
             } finally {
                 stats.finishMarkFinished();
             }
         }
+
+        /**
+         * Attempts to select the next item to execute as part of finishing the previous item, so that a busy worker only needs to acquire the state lock once per item.
+         * Does not block and leaves any other outcome, such as waiting for work or handling cancellation, to {@link #getNextItem(WorkerLease)}.
+         *
+         * @return The next item to execute or {@code null} when no item could be selected
+         */
+        @Nullable
+        private WorkItem selectNextWhileFinishing(ResourceLockState resourceLockState) {
+            if (cancellationToken.isCancellationRequested() || !workerLease.isLockedByCurrentThread()) {
+                return null;
+            }
+            if (queue.executionState() != WorkSource.State.MaybeWorkReadyToStart) {
+                return null;
+            }
+            WorkSource.Selection<WorkItem> workItem;
+            try {
+                workItem = queue.selectNext();
+            } catch (Throwable t) {
+                resourceLockState.releaseLocks();
+                queue.abortAllAndFail(t);
+                return null;
+            }
+            if (workItem.isNoMoreWorkToStart() || workItem.isNoWorkReadyToStart()) {
+                return null;
+            }
+            return workItem.getItem();
+        }
     }
 
     /**
@@ -26,6 +26,7 @@
 import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.api.internal.tasks.TaskDestroyablesInternal;
 import org.gradle.api.internal.tasks.TaskLocalStateInternal;
+import org.gradle.internal.Pair;
 import org.gradle.internal.graph.CachingDirectedGraphWalker;
 import org.gradle.internal.graph.DirectedGraphRenderer;
 import org.gradle.internal.logging.text.StyledTextOutput;
@@ -35,8 +36,10 @@
 import org.gradle.internal.properties.bean.PropertyWalker;
 import org.gradle.internal.reflect.validation.TypeValidationContext;
 
+import javax.annotation.Nullable;
 import java.io.StringWriter;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -69,12 +72,15 @@ class DetermineExecutionPlanAction {
     private final OrdinalNodeAccess ordinalNodeAccess;
     private final Set<Node> entryNodes;
     private final Set<Node> finalizers;
+    @Nullable
+    private final ExecutionPlanOrderCache orderCache;
 
     private final LinkedList<NodeInVisitingSegment> nodeQueue = newLinkedList();
     private final HashMultimap<Node, Integer> visitingNodes = HashMultimap.create();
     private final Deque<GraphEdge> walkedShouldRunAfterEdges = new ArrayDeque<>();
     private final Deque<Node> path = new ArrayDeque<>();
     private final Map<Node, Integer> planBeforeVisiting = new HashMap<>();
+    private final List<Pair<Node, Node>> removedShouldRunAfterEdges = new ArrayList<>();
 
     private int visitingSegmentCounter = 0;
 
@@ -82,16 +88,35 @@ class DetermineExecutionPlanAction {
      * See {@link DetermineExecutionPlanAction}
      */
     public DetermineExecutionPlanAction(DefaultExecutionPlan.NodeMapping nodeMapping, OrdinalNodeAccess ordinalNodeAccess, Set<Node> entryNodes, Set<Node> finalizers) {
+        this(nodeMapping, ordinalNodeAccess, entryNodes, finalizers, null);
+    }
+
+    /**
+     * See {@link DetermineExecutionPlanAction}
+     *
+     * @param orderCache When not null, the order of the nodes is reused from a previous build with the same graph.
+     */
+    public DetermineExecutionPlanAction(DefaultExecutionPlan.NodeMapping nodeMapping, OrdinalNodeAccess ordinalNodeAccess, Set<Node> entryNodes, Set<Node> finalizers, @Nullable ExecutionPlanOrderCache orderCache) {
         this.entryNodes = entryNodes;
         this.nodeMapping = nodeMapping;
         this.ordinalNodeAccess = ordinalNodeAccess;
         this.finalizers = finalizers;
+        this.orderCache = orderCache;
     }
 
     public ImmutableList<Node> run() {
         updateFinalizerGroups();
-        processEntryNodes();
-        processNodeQueue();
+        // Only plans that are determined from scratch can be cached, as the walk depends on the nodes already in the plan otherwise
+        ExecutionPlanOrderCache.GraphShape shape = orderCache != null && nodeMapping.isEmpty()
+            ? orderCache.captureShape(entryNodes)
+            : null;
+        if (shape == null || !orderCache.restoreOrder(shape, nodeMapping::add)) {
+            processEntryNodes();
+            processNodeQueue();
+            if (shape != null) {
+                orderCache.storeOrder(shape, nodeMapping, removedShouldRunAfterEdges);
+            }
+        }
         return createOrdinalRelationshipsAndCollectNodes();
     }
 
@@ -180,6 +205,7 @@ private void processNodeQueue() {
                             TaskNode sourceTask = (TaskNode) toBeRemoved.from;
                             TaskNode targetTask = (TaskNode) toBeRemoved.to;
                             sourceTask.removeShouldSuccessor(targetTask);
+                            removedShouldRunAfterEdges.add(Pair.of(sourceTask, targetTask));
                             restorePath(path, toBeRemoved);
                             restoreQueue(toBeRemoved);
                             restoreExecutionPlan(planBeforeVisiting, toBeRemoved);
@@ -264,7 +290,13 @@ private void restorePath(Deque<Node> path, GraphEdge toBeRemoved) {
     private void removeShouldRunAfterSuccessorsIfTheyImposeACycle(TaskNode node, int visitingSegment) {
         Iterables.removeIf(
             node.getShouldSuccessors(),
-            input -> visitingNodes.containsEntry(input, visitingSegment)
+            input -> {
+                if (visitingNodes.containsEntry(input, visitingSegment)) {
+                    removedShouldRunAfterEdges.add(Pair.of(node, input));
+                    return true;
+                }
+                return false;
+            }
         );
     }
 
@@ -27,7 +27,7 @@
 
 import javax.annotation.concurrent.ThreadSafe;
 import java.io.File;
-import java.util.function.BiFunction;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 
 
@@ -51,22 +51,28 @@ public ImmutableSet<Node> getNodesAccessing(String location) {
     }
 
     /**
-     * Visits all nodes which access the location.
+     * Returns whether any of the nodes which access the location matches the predicate.
      *
      * That includes node which access ancestors or children of the location.
+     * Once a matching node has been found, the remaining nodes are neither matched against the predicate nor checked for accessing the location.
      */
-    public <T> T visitNodesAccessing(String location, T initialValue, BiFunction<T, ? super Node, T> visitor) {
-        return visitValues(location, new AbstractNodeAccessVisitor<T>() {
-            T currentValue = initialValue;
+    public boolean hasNodeAccessing(String location, Predicate<? super Node> predicate) {
+        return visitValues(location, new AbstractNodeAccessVisitor<Boolean>() {
+            boolean found;
+
+            @Override
+            boolean isDone() {
+                return found;
+            }
 
             @Override
             void visit(NodeAccess value) {
-                currentValue = visitor.apply(currentValue, value.getNode());
+                found = predicate.test(value.getNode());
             }
 
             @Override
-            T getResult() {
-                return currentValue;
+            Boolean getResult() {
+                return found;
             }
         });
     }
@@ -123,23 +129,32 @@ private <T> T visitValues(String location, AbstractNodeAccessVisitor<T> visitor)
     private abstract static class AbstractNodeAccessVisitor<T> implements ValueVisitor<NodeAccess> {
         @Override
         public void visitExact(NodeAccess value) {
-            visit(value);
+            if (!isDone()) {
+                visit(value);
+            }
         }
 
         @Override
         public void visitAncestor(NodeAccess value, VfsRelativePath pathToVisitedLocation) {
-            if (value.accessesChild(pathToVisitedLocation)) {
+            if (!isDone() && value.accessesChild(pathToVisitedLocation)) {
                 visit(value);
             }
         }
 
         @Override
         public void visitChildren(PersistentList<NodeAccess> values, Supplier<String> relativePathSupplier) {
-            if (acceptChildren(relativePathSupplier)) {
-                values.forEach(this::visit);
+            if (!isDone() && acceptChildren(relativePathSupplier)) {
+                values.forEach(this::visitExact);
             }
         }
 
+        /**
+         * Whether the result is known, so that the remaining values can be skipped.
+         */
+        boolean isDone() {
+            return false;
+        }
+
         boolean acceptChildren(Supplier<String> relativePathSupplier) {
             return true;
         }
@@ -16,12 +16,25 @@
 
 package org.gradle.execution.plan;
 
+import org.gradle.internal.buildoption.InternalFlag;
 import org.gradle.internal.resources.ResourceLockCoordinationService;
 import org.gradle.internal.service.scopes.Scopes;
 import org.gradle.internal.service.scopes.ServiceScope;
 
+import javax.annotation.Nullable;
+
 @ServiceScope(Scopes.Build.class)
 public class ExecutionPlanFactory {
+    /**
+     * Starts the ready nodes on the longest remaining critical path first, based on the durations of tasks in previous builds.
+     */
+    public static final InternalFlag CRITICAL_PATH_SCHEDULING = new InternalFlag("org.gradle.internal.executor.critical-path-scheduling");
+
+    /**
+     * Reuses the order of the nodes of a plan from a previous build in the same daemon, when the task graph has not changed.
+     */
+    public static final InternalFlag CACHE_PLAN_ORDER = new InternalFlag("org.gradle.internal.executor.cache-plan-order");
+
     private final String displayName;
     private final TaskNodeFactory taskNodeFactory;
     private final OrdinalGroupFactory ordinalGroupFactory;
@@ -29,6 +42,10 @@ public class ExecutionPlanFactory {
     private final ExecutionNodeAccessHierarchy outputHierarchy;
     private final ExecutionNodeAccessHierarchy destroyableHierarchy;
     private final ResourceLockCoordinationService lockCoordinationService;
+    @Nullable
+    private final NodeDurationHistory durationHistory;
+    @Nullable
+    private final ExecutionPlanOrderCache orderCache;
 
     public ExecutionPlanFactory(
         String displayName,
@@ -38,8 +55,44 @@ public ExecutionPlanFactory(
         ExecutionNodeAccessHierarchy outputHierarchy,
         ExecutionNodeAccessHierarchy destroyableHierarchy,
         ResourceLockCoordinationService lockCoordinationService
+    ) {
+        this(displayName, taskNodeFactory, ordinalGroupFactory, dependencyResolver, outputHierarchy, destroyableHierarchy, lockCoordinationService, null);
+    }
+
+    /**
+     * @param durationHistory When not null, plans start ready nodes in order of their remaining critical path.
+     */
+    public ExecutionPlanFactory(
+        String displayName,
+        TaskNodeFactory taskNodeFactory,
+        OrdinalGroupFactory ordinalGroupFactory,
+        TaskDependencyResolver dependencyResolver,
+        ExecutionNodeAccessHierarchy outputHierarchy,
+        ExecutionNodeAccessHierarchy destroyableHierarchy,
+        ResourceLockCoordinationService lockCoordinationService,
+        @Nullable NodeDurationHistory durationHistory
+    ) {
+        this(displayName, taskNodeFactory, ordinalGroupFactory, dependencyResolver, outputHierarchy, destroyableHierarchy, lockCoordinationService, durationHistory, null);
+    }
+
+    /**
+     * @param durationHistory When not null, plans start ready nodes in order of their remaining critical path.
+     * @param orderCache When not null, plans reuse the order of their nodes from a previous build with the same task graph.
+     */
+    public ExecutionPlanFactory(
+        String displayName,
+        TaskNodeFactory taskNodeFactory,
+        OrdinalGroupFactory ordinalGroupFactory,
+        TaskDependencyResolver dependencyResolver,
+        ExecutionNodeAccessHierarchy outputHierarchy,
+        ExecutionNodeAccessHierarchy destroyableHierarchy,
+        ResourceLockCoordinationService lockCoordinationService,
+        @Nullable NodeDurationHistory durationHistory,
+        @Nullable ExecutionPlanOrderCache orderCache
     ) {
         this.displayName = displayName;
+        this.durationHistory = durationHistory;
+        this.orderCache = orderCache;
         this.taskNodeFactory = taskNodeFactory;
         this.ordinalGroupFactory = ordinalGroupFactory;
         this.dependencyResolver = dependencyResolver;
@@ -49,6 +102,6 @@ public ExecutionPlanFactory(
     }
 
     public ExecutionPlan createPlan() {
-        return new DefaultExecutionPlan(displayName, taskNodeFactory, ordinalGroupFactory, dependencyResolver, outputHierarchy, destroyableHierarchy, lockCoordinationService);
+        return new DefaultExecutionPlan(displayName, taskNodeFactory, ordinalGroupFactory, dependencyResolver, outputHierarchy, destroyableHierarchy, lockCoordinationService, durationHistory, orderCache);
     }
 }
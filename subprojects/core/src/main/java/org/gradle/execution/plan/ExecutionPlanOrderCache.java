@@ -0,0 +1,166 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import org.gradle.internal.Pair;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.service.scopes.Scopes;
+import org.gradle.internal.service.scopes.ServiceScope;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Remembers the order in which {@link DetermineExecutionPlanAction} schedules the nodes of a task graph across builds in the same daemon.
+ *
+ * <p>The nodes and their relationships are discovered by every build, as they come from the build logic.
+ * Only the result of walking them is reused, when a later build discovers a graph with the same shape.
+ * The shape covers the entry nodes, the identity of all nodes reachable from them, the relationships between them in order,
+ * and whether a node is to be included in the plan.
+ * Only graphs consisting of tasks of the build tree are cached, since other nodes have no identity that is stable across builds.</p>
+ */
+@ServiceScope(Scopes.UserHome.class)
+public class ExecutionPlanOrderCache {
+    private static final int MAX_ENTRIES = 16;
+
+    private final Cache<HashCode, CachedOrder> cache = CacheBuilder.newBuilder()
+        .maximumSize(MAX_ENTRIES)
+        .build();
+
+    /**
+     * Captures the shape of the graph reachable from the given entry nodes.
+     *
+     * @return the shape, or {@code null} when the graph cannot be cached.
+     */
+    @Nullable
+    public GraphShape captureShape(Collection<? extends Node> entryNodes) {
+        Hasher hasher = Hashing.newHasher();
+        Map<String, Node> nodesByKey = new HashMap<>();
+        Deque<Node> queue = new ArrayDeque<>();
+        hasher.putInt(entryNodes.size());
+        if (!visitRelated(entryNodes, hasher, nodesByKey, queue)) {
+            return null;
+        }
+        while (!queue.isEmpty()) {
+            Node node = queue.removeFirst();
+            boolean excluded = node.isDoNotIncludeInPlan();
+            hasher.putString(keyOf(node));
+            hasher.putBoolean(excluded);
+            if (excluded) {
+                // The relationships of nodes that are not included are not walked either
+                continue;
+            }
+            if (!visitRelated(node.getAllSuccessors(), hasher, nodesByKey, queue)
+                || !visitRelated(((TaskNode) node).getShouldSuccessors(), hasher, nodesByKey, queue)
+                || !visitRelated(node.getFinalizers(), hasher, nodesByKey, queue)) {
+                return null;
+            }
+        }
+        return new GraphShape(hasher.hash(), nodesByKey);
+    }
+
+    /**
+     * Restores the order for a graph of the given shape, when known.
+     *
+     * @return whether the order was restored.
+     */
+    public boolean restoreOrder(GraphShape shape, Consumer<? super Node> scheduleNode) {
+        CachedOrder cachedOrder = cache.getIfPresent(shape.hash);
+        if (cachedOrder == null) {
+            return false;
+        }
+        for (Pair<String, String> edge : cachedOrder.removedShouldRunAfterEdges) {
+            ((TaskNode) shape.nodesByKey.get(edge.getLeft())).removeShouldSuccessor((TaskNode) shape.nodesByKey.get(edge.getRight()));
+        }
+        for (String key : cachedOrder.scheduledNodes) {
+            scheduleNode.accept(shape.nodesByKey.get(key));
+        }
+        return true;
+    }
+
+    /**
+     * Remembers the order for a graph of the given shape.
+     *
+     * @param removedShouldRunAfterEdges the should-run-after relationships that were dropped to avoid cycles, in the order they were dropped.
+     */
+    public void storeOrder(GraphShape shape, Iterable<Node> scheduledNodes, List<Pair<Node, Node>> removedShouldRunAfterEdges) {
+        ImmutableList.Builder<String> scheduledNodeKeys = ImmutableList.builder();
+        for (Node node : scheduledNodes) {
+            scheduledNodeKeys.add(keyOf(node));
+        }
+        ImmutableList.Builder<Pair<String, String>> removedEdgeKeys = ImmutableList.builder();
+        for (Pair<Node, Node> edge : removedShouldRunAfterEdges) {
+            removedEdgeKeys.add(Pair.of(keyOf(edge.getLeft()), keyOf(edge.getRight())));
+        }
+        cache.put(shape.hash, new CachedOrder(scheduledNodeKeys.build(), removedEdgeKeys.build()));
+    }
+
+    private static boolean visitRelated(Iterable<? extends Node> related, Hasher hasher, Map<String, Node> nodesByKey, Deque<Node> queue) {
+        int count = 0;
+        for (Node node : related) {
+            if (!(node instanceof LocalTaskNode)) {
+                return false;
+            }
+            String key = keyOf(node);
+            Node previous = nodesByKey.putIfAbsent(key, node);
+            if (previous == null) {
+                queue.addLast(node);
+            } else if (previous != node) {
+                return false;
+            }
+            hasher.putString(key);
+            count++;
+        }
+        hasher.putInt(count);
+        return true;
+    }
+
+    private static String keyOf(Node node) {
+        return ((LocalTaskNode) node).getTask().getIdentityPath().getPath();
+    }
+
+    public static class GraphShape {
+        private final HashCode hash;
+        private final Map<String, Node> nodesByKey;
+
+        private GraphShape(HashCode hash, Map<String, Node> nodesByKey) {
+            this.hash = hash;
+            this.nodesByKey = nodesByKey;
+        }
+    }
+
+    private static class CachedOrder {
+        private final ImmutableList<String> scheduledNodes;
+        private final ImmutableList<Pair<String, String>> removedShouldRunAfterEdges;
+
+        private CachedOrder(ImmutableList<String> scheduledNodes, ImmutableList<Pair<String, String>> removedShouldRunAfterEdges) {
+            this.scheduledNodes = scheduledNodes;
+            this.removedShouldRunAfterEdges = removedShouldRunAfterEdges;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import org.gradle.internal.service.scopes.Scopes;
+import org.gradle.internal.service.scopes.ServiceScope;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Remembers how long nodes took to execute in previous builds, so that a plan can start the nodes on the longest remaining critical path first.
+ */
+@ServiceScope(Scopes.BuildTree.class)
+public interface NodeDurationHistory {
+
+    /**
+     * Returns how long the given nodes took to execute in previous builds, in milliseconds.
+     * Nodes without a known duration are not included in the result.
+     */
+    Map<Node, Long> getPreviousDurations(Collection<? extends Node> nodes);
+
+    /**
+     * Records how long the nodes of a plan took to execute, together with how long the execution of the plan was predicted to take and actually took.
+     *
+     * @param durations The durations of the executed nodes, in milliseconds.
+     * @param predictedMakespan The predicted time from starting the first node to finishing the last node, in milliseconds.
+     * @param actualMakespan The actual time from starting the first node to finishing the last node, in milliseconds.
+     */
+    void recordExecution(String planDisplayName, Map<Node, Long> durations, long predictedMakespan, long actualMakespan);
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Answers whether a node depends on another node, directly or via nodes that have not completed yet, in a finalized execution plan.
+ *
+ * <p>The first time a node is asked about as a dependency, all the nodes that depend on it are collected into a bit set
+ * with a single walk over the reversed successor relationships. Further queries for the same dependency are a lookup in that bit set.
+ * The results are not updated when further nodes complete or successors are added later on.</p>
+ *
+ * <p>Not thread-safe, the plan only uses it while holding the state lock.</p>
+ */
+class ReachabilityIndex {
+    private final Iterable<? extends Node> nodes;
+    private final Map<Node, Integer> nodeIds = new IdentityHashMap<>();
+    private final List<List<Node>> predecessors = new ArrayList<>();
+    private final Map<Node, BitSet> dependentsByNode = new IdentityHashMap<>();
+    private boolean indexed;
+
+    public ReachabilityIndex(Iterable<? extends Node> nodes) {
+        this.nodes = nodes;
+    }
+
+    /**
+     * Returns whether the node is the dependency or depends on the dependency via nodes that are not complete.
+     */
+    public boolean dependsOn(Node node, Node dependency) {
+        if (node == dependency) {
+            return true;
+        }
+        if (!indexed) {
+            indexNodes(nodes);
+            indexed = true;
+        }
+        BitSet dependents = dependentsByNode.computeIfAbsent(dependency, this::collectDependents);
+        Integer id = nodeIds.get(node);
+        return id != null && dependents.get(id);
+    }
+
+    /**
+     * Records a successor that was added to a node after the plan has been finalized.
+     */
+    public void successorAdded(Node node, Node successor) {
+        if (!indexed) {
+            // Picked up when the index is built
+            return;
+        }
+        if (!nodeIds.containsKey(node)) {
+            indexNodes(Collections.singleton(node));
+            return;
+        }
+        if (!nodeIds.containsKey(successor)) {
+            indexNodes(Collections.singleton(successor));
+        }
+        predecessorsOf(successor).add(node);
+    }
+
+    public void clear() {
+        nodeIds.clear();
+        predecessors.clear();
+        dependentsByNode.clear();
+        indexed = false;
+    }
+
+    private BitSet collectDependents(Node dependency) {
+        BitSet dependents = new BitSet(nodeIds.size());
+        Integer dependencyId = nodeIds.get(dependency);
+        if (dependencyId == null) {
+            return dependents;
+        }
+        Deque<Node> queue = new ArrayDeque<>();
+        queue.add(dependency);
+        while (!queue.isEmpty()) {
+            Node current = queue.removeFirst();
+            for (Node predecessor : predecessors.get(nodeIds.get(current))) {
+                int predecessorId = nodeIds.get(predecessor);
+                if (!dependents.get(predecessorId)) {
+                    dependents.set(predecessorId);
+                    // Only nodes that are not complete yet connect their dependents to the dependency
+                    if (!predecessor.isComplete()) {
+                        queue.add(predecessor);
+                    }
+                }
+            }
+        }
+        return dependents;
+    }
+
+    private void indexNodes(Iterable<? extends Node> roots) {
+        Deque<Node> queue = new ArrayDeque<>();
+        for (Node root : roots) {
+            if (!nodeIds.containsKey(root)) {
+                idOf(root);
+                queue.add(root);
+            }
+        }
+        while (!queue.isEmpty()) {
+            Node node = queue.removeFirst();
+            for (Node successor : node.getAllSuccessors()) {
+                if (!nodeIds.containsKey(successor)) {
+                    queue.add(successor);
+                }
+                predecessorsOf(successor).add(node);
+            }
+        }
+    }
+
+    private List<Node> predecessorsOf(Node node) {
+        return predecessors.get(idOf(node));
+    }
+
+    private int idOf(Node node) {
+        Integer id = nodeIds.get(node);
+        if (id == null) {
+            id = predecessors.size();
+            nodeIds.put(node, id);
+            predecessors.add(new ArrayList<>());
+        }
+        return id;
+    }
+}
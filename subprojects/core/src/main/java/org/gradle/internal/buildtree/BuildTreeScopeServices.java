@@ -31,6 +31,7 @@
 import org.gradle.execution.TaskNameResolver;
 import org.gradle.execution.TaskPathProjectEvaluator;
 import org.gradle.execution.TaskSelector;
+import org.gradle.execution.plan.DefaultNodeDurationHistory;
 import org.gradle.execution.selection.DefaultBuildTaskSelector;
 import org.gradle.initialization.BuildOptionBuildOperationProgressEventsEmitter;
 import org.gradle.initialization.exception.DefaultExceptionAnalyser;
@@ -83,6 +84,7 @@ protected void configure(ServiceRegistration registration, List<PluginServiceReg
         registration.add(DefaultProblemLocationAnalyzer.class);
         registration.add(DefaultExceptionAnalyser.class);
         registration.add(ScriptUsageLocationReporter.class);
+        registration.add(DefaultNodeDurationHistory.class);
         modelServices.applyServicesTo(registration);
     }
 
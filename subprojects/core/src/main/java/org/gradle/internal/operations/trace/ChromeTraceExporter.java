@@ -0,0 +1,232 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.operations.trace;
+
+import org.gradle.StartParameter;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationListener;
+import org.gradle.internal.operations.BuildOperationListenerManager;
+import org.gradle.internal.operations.BuildOperationMetadata;
+import org.gradle.internal.operations.OperationFinishEvent;
+import org.gradle.internal.operations.OperationIdentifier;
+import org.gradle.internal.operations.OperationProgressEvent;
+import org.gradle.internal.operations.OperationStartEvent;
+import org.gradle.util.internal.GFileUtils;
+
+import javax.annotation.Nullable;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Writes the build operations of a build as a timeline in the Chrome trace event format,
+ * which can be loaded into trace viewers such as Perfetto or {@code chrome://tracing}.
+ * Can be enabled for any build with `-Dorg.gradle.internal.operations.chrome-trace=«path»`.
+ *
+ * Imposes no overhead when not enabled.
+ *
+ * Each build operation is written as a complete event on the thread that started it.
+ * This way, the timeline shows what each worker thread was executing, and gaps on a worker thread show when it was idle.
+ * Waiting for locks, file system snapshotting and build cache access show up as nested operations, as long as they are covered by build operations.
+ *
+ * The «path» param is optional.
+ * If invoked as `-Dorg.gradle.internal.operations.chrome-trace`, the trace is written to "operations-trace.json".
+ *
+ * In contrast to {@link BuildOperationTrace}, which is about the information structure of build operations,
+ * the focus here is analyzing the performance profile of a build.
+ */
+public class ChromeTraceExporter implements Stoppable {
+
+    public static final String SYSPROP = "org.gradle.internal.operations.chrome-trace";
+
+    private static final int PROCESS_ID = 1;
+
+    private final BuildOperationListenerManager buildOperationListenerManager;
+    private final Writer writer;
+    private final Map<OperationIdentifier, Long> startThreads = new ConcurrentHashMap<>();
+    private final Set<Long> namedThreads = ConcurrentHashMap.newKeySet();
+    private boolean firstEvent = true;
+
+    private final BuildOperationListener listener = new BuildOperationListener() {
+        @Override
+        public void started(BuildOperationDescriptor buildOperation, OperationStartEvent startEvent) {
+            Thread thread = Thread.currentThread();
+            startThreads.put(buildOperation.getId(), thread.getId());
+            maybeWriteThreadName(thread);
+        }
+
+        @Override
+        public void progress(OperationIdentifier buildOperationId, OperationProgressEvent progressEvent) {
+        }
+
+        @Override
+        public void finished(BuildOperationDescriptor buildOperation, OperationFinishEvent finishEvent) {
+            Long threadId = startThreads.remove(buildOperation.getId());
+            if (threadId == null) {
+                threadId = Thread.currentThread().getId();
+            }
+            writeCompleteEvent(buildOperation, finishEvent, threadId);
+        }
+    };
+
+    public ChromeTraceExporter(StartParameter startParameter, BuildOperationListenerManager buildOperationListenerManager) {
+        this.buildOperationListenerManager = buildOperationListenerManager;
+
+        String path = startParameter.getSystemPropertiesArgs().get(SYSPROP);
+        if (path == null) {
+            path = System.getProperty(SYSPROP);
+        }
+        if (path == null || path.equals(Boolean.FALSE.toString())) {
+            this.writer = null;
+            return;
+        }
+
+        File traceFile = traceFile(path);
+        try {
+            GFileUtils.mkdirs(traceFile.getParentFile());
+            this.writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(traceFile), StandardCharsets.UTF_8));
+            writer.write("[");
+            writeEvent("{\"name\":\"process_name\",\"ph\":\"M\",\"pid\":" + PROCESS_ID + ",\"args\":{\"name\":\"Gradle build\"}}");
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+
+        buildOperationListenerManager.addListener(listener);
+    }
+
+    @Override
+    public void stop() {
+        buildOperationListenerManager.removeListener(listener);
+        if (writer != null) {
+            try {
+                synchronized (writer) {
+                    writer.write("\n]\n");
+                    writer.close();
+                }
+            } catch (IOException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+    }
+
+    private void maybeWriteThreadName(Thread thread) {
+        if (namedThreads.add(thread.getId())) {
+            synchronized (writer) {
+                writeEvent("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":" + PROCESS_ID + ",\"tid\":" + thread.getId() + ",\"args\":{\"name\":" + quote(thread.getName()) + "}}");
+            }
+        }
+    }
+
+    private void writeCompleteEvent(BuildOperationDescriptor buildOperation, OperationFinishEvent finishEvent, long threadId) {
+        StringBuilder event = new StringBuilder(256);
+        event.append("{\"name\":").append(quote(buildOperation.getDisplayName()));
+        event.append(",\"cat\":").append(quote(category(buildOperation)));
+        event.append(",\"ph\":\"X\"");
+        // Timestamps and durations are in microseconds
+        event.append(",\"ts\":").append(finishEvent.getStartTime() * 1000);
+        event.append(",\"dur\":").append(Math.max(0, finishEvent.getEndTime() - finishEvent.getStartTime()) * 1000);
+        event.append(",\"pid\":").append(PROCESS_ID);
+        event.append(",\"tid\":").append(threadId);
+        event.append(",\"args\":{\"id\":").append(buildOperation.getId().getId());
+        OperationIdentifier parentId = buildOperation.getParentId();
+        if (parentId != null) {
+            event.append(",\"parentId\":").append(parentId.getId());
+        }
+        Object details = buildOperation.getDetails();
+        if (details != null) {
+            event.append(",\"details\":").append(quote(details.getClass().getName()));
+        }
+        if (finishEvent.getFailure() != null) {
+            event.append(",\"failure\":").append(quote(String.valueOf(finishEvent.getFailure().getMessage())));
+        }
+        event.append("}}");
+        synchronized (writer) {
+            writeEvent(event.toString());
+        }
+    }
+
+    private void writeEvent(String event) {
+        try {
+            if (firstEvent) {
+                firstEvent = false;
+            } else {
+                writer.write(",");
+            }
+            writer.write("\n");
+            writer.write(event);
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    private static String category(BuildOperationDescriptor buildOperation) {
+        BuildOperationMetadata metadata = buildOperation.getMetadata();
+        return metadata == null ? "UNCATEGORIZED" : metadata.toString();
+    }
+
+    private static String quote(@Nullable String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder quoted = new StringBuilder(value.length() + 2);
+        quoted.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    quoted.append("\\\"");
+                    break;
+                case '\\':
+                    quoted.append("\\\\");
+                    break;
+                case '\n':
+                    quoted.append("\\n");
+                    break;
+                case '\r':
+                    quoted.append("\\r");
+                    break;
+                case '\t':
+                    quoted.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+            }
+        }
+        quoted.append('"');
+        return quoted.toString();
+    }
+
+    private static File traceFile(String path) {
+        if (path.trim().isEmpty() || path.equals(Boolean.TRUE.toString())) {
+            return new File("operations-trace.json").getAbsoluteFile();
+        }
+        return new File(path).getAbsoluteFile();
+    }
+}
@@ -33,6 +33,7 @@
 import org.gradle.cache.FileLockManager;
 import org.gradle.cache.internal.DefaultFileLockManager;
 import org.gradle.cache.internal.DefaultProcessMetaDataProvider;
+import org.gradle.cache.internal.FileLockWaitListener;
 import org.gradle.cache.internal.locklistener.DefaultFileLockContentionHandler;
 import org.gradle.cache.internal.locklistener.FileLockContentionHandler;
 import org.gradle.internal.Factory;
@@ -69,11 +70,12 @@ void configure(ServiceRegistration serviceRegistration) {
         serviceRegistration.addProvider(new MessagingServices());
     }
 
-    FileLockManager createFileLockManager(ProcessEnvironment processEnvironment, FileLockContentionHandler fileLockContentionHandler) {
+    FileLockManager createFileLockManager(ProcessEnvironment processEnvironment, FileLockContentionHandler fileLockContentionHandler, ListenerManager listenerManager) {
         return new DefaultFileLockManager(
             new DefaultProcessMetaDataProvider(
                 processEnvironment),
-            fileLockContentionHandler);
+            fileLockContentionHandler,
+            listenerManager.getBroadcaster(FileLockWaitListener.class));
     }
 
 
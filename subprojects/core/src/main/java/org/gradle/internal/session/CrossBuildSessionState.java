@@ -19,6 +19,7 @@
 import org.gradle.StartParameter;
 import org.gradle.api.internal.CollectionCallbackActionDecorator;
 import org.gradle.api.internal.DefaultCollectionCallbackActionDecorator;
+import org.gradle.cache.internal.FileLockWaitBuildOperationEmitter;
 import org.gradle.concurrent.ParallelismConfiguration;
 import org.gradle.configuration.internal.DefaultDynamicCallContextTracker;
 import org.gradle.configuration.internal.DefaultListenerBuildOperationDecorator;
@@ -35,12 +36,14 @@
 import org.gradle.internal.operations.BuildOperationIdFactory;
 import org.gradle.internal.operations.BuildOperationListenerManager;
 import org.gradle.internal.operations.BuildOperationProgressEventEmitter;
+import org.gradle.internal.operations.CurrentBuildOperationRef;
 import org.gradle.internal.operations.DefaultBuildOperationExecutor;
 import org.gradle.internal.operations.DefaultBuildOperationQueueFactory;
 import org.gradle.internal.operations.logging.LoggingBuildOperationProgressBroadcaster;
 import org.gradle.internal.operations.notify.BuildOperationNotificationBridge;
 import org.gradle.internal.operations.notify.BuildOperationNotificationValve;
 import org.gradle.internal.operations.trace.BuildOperationTrace;
+import org.gradle.internal.operations.trace.ChromeTraceExporter;
 import org.gradle.internal.resources.DefaultResourceLockCoordinationService;
 import org.gradle.internal.service.ServiceRegistration;
 import org.gradle.internal.service.ServiceRegistry;
@@ -73,8 +76,10 @@ public CrossBuildSessionState(ServiceRegistry parent, StartParameter startParame
             .parent(parent)
             .provider(new Services(startParameter))
             .build();
-        // Trigger listener to wire itself in
+        // Trigger listeners to wire themselves in
         services.get(BuildOperationTrace.class);
+        services.get(ChromeTraceExporter.class);
+        services.get(FileLockWaitBuildOperationEmitter.class);
     }
 
     public ServiceRegistry getServices() {
@@ -148,6 +153,19 @@ BuildOperationTrace createBuildOperationTrace(BuildOperationListenerManager buil
             return new BuildOperationTrace(startParameter, buildOperationListenerManager);
         }
 
+        ChromeTraceExporter createChromeTraceExporter(BuildOperationListenerManager buildOperationListenerManager) {
+            return new ChromeTraceExporter(startParameter, buildOperationListenerManager);
+        }
+
+        FileLockWaitBuildOperationEmitter createFileLockWaitBuildOperationEmitter(
+            ListenerManager generalListenerManager,
+            BuildOperationListenerManager buildOperationListenerManager,
+            BuildOperationIdFactory buildOperationIdFactory,
+            CurrentBuildOperationRef currentBuildOperationRef
+        ) {
+            return new FileLockWaitBuildOperationEmitter(generalListenerManager, buildOperationListenerManager, buildOperationIdFactory, currentBuildOperationRef);
+        }
+
         BuildOperationNotificationBridge createBuildOperationNotificationBridge(BuildOperationListenerManager buildOperationListenerManager, ListenerManager generalListenerManager) {
             return new BuildOperationNotificationBridge(buildOperationListenerManager, generalListenerManager);
         }
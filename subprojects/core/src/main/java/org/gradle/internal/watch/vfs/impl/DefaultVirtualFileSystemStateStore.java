@@ -0,0 +1,140 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.watch.vfs.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Interner;
+import org.gradle.internal.execution.history.impl.FileSystemSnapshotSerializer;
+import org.gradle.internal.hash.HashFunction;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.gradle.internal.snapshot.CompositeFileSystemSnapshot;
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
+import org.gradle.internal.snapshot.SnapshotUtil;
+import org.gradle.internal.watch.vfs.VirtualFileSystemStateStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+
+/**
+ * Stores the state of the virtual file system in a single file.
+ *
+ * <p>The state is written to a temporary file first, which then replaces the previously stored state,
+ * so daemons finishing builds at the same time never leave a partially written state behind.</p>
+ */
+public class DefaultVirtualFileSystemStateStore implements VirtualFileSystemStateStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DefaultVirtualFileSystemStateStore.class);
+    private static final int FORMAT_VERSION = 1;
+
+    private final File stateFile;
+    private final Interner<String> stringInterner;
+    private final FileSystemSnapshotSerializer snapshotSerializer;
+
+    public DefaultVirtualFileSystemStateStore(File stateFile, Interner<String> stringInterner) {
+        this.stateFile = stateFile;
+        this.stringInterner = stringInterner;
+        this.snapshotSerializer = new FileSystemSnapshotSerializer(stringInterner);
+    }
+
+    /**
+     * Returns the file to store the state in.
+     *
+     * <p>The name includes the format version and the hash function used for the stored snapshots,
+     * so daemons using a different format or hash function never restore each other's state.</p>
+     */
+    public static File stateFileIn(File stateDir, HashFunction hashFunction) {
+        return new File(stateDir, "vfs-state-v" + FORMAT_VERSION + "-" + hashFunction.getAlgorithm().toLowerCase(Locale.ROOT) + ".bin");
+    }
+
+    @Nullable
+    @Override
+    public State load() {
+        if (!stateFile.isFile()) {
+            return null;
+        }
+        try (KryoBackedDecoder decoder = new KryoBackedDecoder(new FileInputStream(stateFile))) {
+            return read(decoder);
+        } catch (Exception e) {
+            LOGGER.info("Unable to load the virtual file system state from {}", stateFile, e);
+            return null;
+        }
+    }
+
+    @Nullable
+    private State read(Decoder decoder) throws Exception {
+        if (decoder.readSmallInt() != FORMAT_VERSION) {
+            return null;
+        }
+        long storedAt = decoder.readLong();
+        int watchableHierarchyCount = decoder.readSmallInt();
+        ImmutableList.Builder<File> watchableHierarchies = ImmutableList.builderWithExpectedSize(watchableHierarchyCount);
+        for (int i = 0; i < watchableHierarchyCount; i++) {
+            watchableHierarchies.add(new File(stringInterner.intern(decoder.readString())));
+        }
+        ImmutableList<FileSystemLocationSnapshot> snapshots = ImmutableList.copyOf(SnapshotUtil.rootIndex(snapshotSerializer.read(decoder)).values());
+        return new State(storedAt, watchableHierarchies.build(), snapshots);
+    }
+
+    @Override
+    public void store(State state) {
+        File tempFile = null;
+        try {
+            File stateDir = stateFile.getParentFile();
+            Files.createDirectories(stateDir.toPath());
+            tempFile = File.createTempFile(stateFile.getName(), ".tmp", stateDir);
+            try (KryoBackedEncoder encoder = new KryoBackedEncoder(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+                write(encoder, state);
+            }
+            moveIntoPlace(tempFile);
+        } catch (Exception e) {
+            LOGGER.info("Unable to store the virtual file system state to {}", stateFile, e);
+            if (tempFile != null && !tempFile.delete()) {
+                tempFile.deleteOnExit();
+            }
+        }
+    }
+
+    private void write(Encoder encoder, State state) throws Exception {
+        encoder.writeSmallInt(FORMAT_VERSION);
+        encoder.writeLong(state.getStoredAt());
+        encoder.writeSmallInt(state.getWatchableHierarchies().size());
+        for (File watchableHierarchy : state.getWatchableHierarchies()) {
+            encoder.writeString(watchableHierarchy.getAbsolutePath());
+        }
+        snapshotSerializer.write(encoder, CompositeFileSystemSnapshot.of(state.getSnapshots()));
+    }
+
+    private void moveIntoPlace(File tempFile) throws IOException {
+        try {
+            Files.move(tempFile.toPath(), stateFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile.toPath(), stateFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
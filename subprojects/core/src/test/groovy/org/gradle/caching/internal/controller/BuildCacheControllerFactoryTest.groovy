@@ -33,6 +33,7 @@ import org.gradle.caching.internal.packaging.BuildCacheEntryPacker
 import org.gradle.caching.internal.services.BuildCacheControllerFactory
 import org.gradle.caching.local.DirectoryBuildCache
 import org.gradle.caching.local.internal.LocalBuildCacheService
+import org.gradle.internal.concurrent.ExecutorFactory
 import org.gradle.internal.operations.TestBuildOperationExecutor
 import org.gradle.internal.vfs.FileSystemAccess
 import org.gradle.util.Path
@@ -74,7 +75,9 @@ class BuildCacheControllerFactoryTest extends Specification {
             Stub(FileSystemAccess),
             Stub(BuildCacheEntryPacker),
             Stub(OriginMetadataFactory),
-            Stub(StringInterner)
+            Stub(StringInterner),
+            Stub(ExecutorFactory),
+            null
         )
         assert controllerType.isInstance(controller)
         controllerType.cast(controller)
@@ -1830,6 +1830,46 @@ class DefaultExecutionPlanParallelTest extends AbstractExecutionPlanSpec {
         assertAllWorkComplete()
     }
 
+    def "runs nodes on the longest remaining critical path first when previous durations are known"() {
+        def durations = [a: 1500L, b: 1000L, c: 1000L]
+        def history = Stub(NodeDurationHistory) {
+            getPreviousDurations(_) >> { Collection<Node> nodes ->
+                nodes.findAll { it instanceof LocalTaskNode }.collectEntries { [it, durations[it.task.name]] }
+            }
+        }
+        def dependencyResolver = new TaskDependencyResolver([new TaskNodeDependencyResolver(taskNodeFactory)])
+        executionPlan = new DefaultExecutionPlan(Path.ROOT.toString(), taskNodeFactory, new OrdinalGroupFactory(), dependencyResolver, accessHierarchies.outputHierarchy, accessHierarchies.destroyableHierarchy, coordinator, history)
+
+        Task a = task("a", type: Async)
+        Task b = task("b", type: Async)
+        Task c = task("c", type: Async, dependsOn: [b])
+
+        when:
+        addToGraphAndPopulate(a, c)
+
+        def first = selectNextTaskNode()
+        def second = selectNextTaskNode()
+
+        then:
+        first.task == b
+        second.task == a
+        assertNoWorkReadyToStartAfterSelect()
+
+        when:
+        finishedExecuting(first)
+        def third = selectNextTaskNode()
+
+        then:
+        third.task == c
+
+        when:
+        finishedExecuting(second)
+        finishedExecuting(third)
+
+        then:
+        assertAllWorkComplete()
+    }
+
     @Issue("https://github.com/gradle/gradle/issues/20508")
     def "stops executing nodes after failure when priority node has already executed"() {
         def node = priorityNode()
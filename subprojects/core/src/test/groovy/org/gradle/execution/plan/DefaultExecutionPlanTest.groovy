@@ -55,6 +55,13 @@ class DefaultExecutionPlanTest extends AbstractExecutionPlanSpec {
         new DefaultExecutionPlan(Path.ROOT.toString(), taskNodeFactory, new OrdinalGroupFactory(), dependencyResolver, accessHierarchies.outputHierarchy, accessHierarchies.destroyableHierarchy, coordinator)
     }
 
+    private DefaultExecutionPlan newCachingExecutionPlan(ExecutionPlanOrderCache orderCache) {
+        // Use new nodes for each plan, as a later build would
+        def nodeFactory = new TaskNodeFactory(thisBuild, Stub(DocumentationRegistry), Stub(BuildTreeWorkGraphController), nodeValidator, new TestBuildOperationExecutor(), accessHierarchies)
+        def resolver = new TaskDependencyResolver([new TaskNodeDependencyResolver(nodeFactory)])
+        new DefaultExecutionPlan(Path.ROOT.toString(), nodeFactory, new OrdinalGroupFactory(), resolver, accessHierarchies.outputHierarchy, accessHierarchies.destroyableHierarchy, coordinator, null, orderCache)
+    }
+
     def "schedules tasks in dependency order"() {
         given:
         Task a = task("a")
@@ -236,6 +243,37 @@ class DefaultExecutionPlanTest extends AbstractExecutionPlanSpec {
         executes(e, x, a, b, c, f, d, build)
     }
 
+    def "reuses the order of an unchanged task graph from a previous plan"() {
+        given:
+        def orderCache = Spy(ExecutionPlanOrderCache)
+        Task e = task("e")
+        Task x = task("x", dependsOn: [e])
+        Task f = task("f", dependsOn: [x])
+        Task a = task("a", shouldRunAfter: [x])
+        Task b = task("b", shouldRunAfter: [a])
+        Task c = task("c", shouldRunAfter: [b])
+        Task d = task("d", dependsOn: [f], shouldRunAfter: [c])
+        relationships(e, shouldRunAfter: [d])
+        Task build = task("build", dependsOn: [x, a, b, c, d, e])
+
+        when:
+        def firstPlan = newCachingExecutionPlan(orderCache)
+        firstPlan.addEntryTasks([build])
+        firstPlan.determineExecutionPlan()
+        def secondPlan = newCachingExecutionPlan(orderCache)
+        secondPlan.addEntryTasks([build])
+        secondPlan.determineExecutionPlan()
+
+        then:
+        1 * orderCache.storeOrder(_, _, _)
+        firstPlan.tasks as List == [e, x, a, b, c, f, d, build]
+        secondPlan.tasks as List == [e, x, a, b, c, f, d, build]
+
+        cleanup:
+        firstPlan?.close()
+        secondPlan?.close()
+    }
+
     def "#orderingRule does not pull in tasks that are not in the graph"() {
         Task a = task("a")
         Task b = task("b", (orderingRule): [a])
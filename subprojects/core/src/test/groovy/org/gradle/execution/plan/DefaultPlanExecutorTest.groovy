@@ -113,4 +113,47 @@ class DefaultPlanExecutorTest extends Specification {
         1 * workSource.collectFailures([])
         0 * workSource._
     }
+
+    def "selects next item while finishing previous item when handoff is enabled"() {
+        def handoffExecutor = new DefaultPlanExecutor(new DefaultParallelismConfiguration(false, 1), executorFactory, workerLeaseService, cancellationHandler, coordinationService, new DefaultInternalOptions([(DefaultPlanExecutor.HANDOFF_ON_FINISH.systemPropertyName): "true"]))
+        def node1 = Mock(LocalTaskNode)
+        def node2 = Mock(LocalTaskNode)
+
+        when:
+        def result = handoffExecutor.process(workSource, worker)
+
+        then:
+        result.failures.empty
+        1 * workerLeaseService.currentWorkerLease >> workerLease
+
+        then:
+        1 * cancellationHandler.isCancellationRequested() >> false
+        1 * workerLease.tryLock() >> true
+        1 * workSource.executionState() >> WorkSource.State.MaybeWorkReadyToStart
+        1 * workSource.selectNext() >> WorkSource.Selection.of(node1)
+        1 * worker.execute(node1)
+        1 * workSource.finishedExecuting(node1, null)
+
+        then:
+        1 * cancellationHandler.isCancellationRequested() >> false
+        1 * workerLease.isLockedByCurrentThread() >> true
+        1 * workSource.executionState() >> WorkSource.State.MaybeWorkReadyToStart
+        1 * workSource.selectNext() >> WorkSource.Selection.of(node2)
+
+        then:
+        1 * worker.execute(node2)
+        1 * workSource.finishedExecuting(node2, null)
+
+        then:
+        1 * cancellationHandler.isCancellationRequested() >> false
+        1 * workerLease.isLockedByCurrentThread() >> true
+        1 * workSource.executionState() >> WorkSource.State.NoMoreWorkToStart
+
+        then:
+        _ * cancellationHandler.isCancellationRequested() >> false
+        _ * workerLease.isLockedByCurrentThread() >> true
+        _ * workSource.allExecutionComplete() >> true
+        1 * workSource.collectFailures([])
+        0 * workSource._
+    }
 }
@@ -201,6 +201,27 @@ class ExecutionNodeAccessHierarchyTest extends Specification {
         assertNodesAccessing("${root}/child/some/subdir", includingWithChildren)
     }
 
+    def "stops matching nodes once a matching node has been found"() {
+        def ancestor = Mock(Node)
+        def node = Mock(Node)
+        def child = Mock(Node)
+        def checkedNodes = []
+        hierarchy.recordNodeAccessingLocations(ancestor, ["/some"])
+        hierarchy.recordNodeAccessingLocations(node, ["/some/location"])
+        hierarchy.recordNodeAccessingLocations(child, ["/some/location/child"])
+
+        expect:
+        hierarchy.hasNodeAccessing("/some/location") { candidate ->
+            checkedNodes << candidate
+            candidate == ancestor
+        }
+        checkedNodes == [ancestor]
+
+        and:
+        !hierarchy.hasNodeAccessing("/some/location") { false }
+        !hierarchy.hasNodeAccessing("/other") { true }
+    }
+
     def nodesRelatedTo(TestFile location, String includePattern) {
         return hierarchy.getNodesAccessing(location.absolutePath, includes(includePattern))
     }
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan
+
+import spock.lang.Specification
+
+class ReachabilityIndexTest extends Specification {
+    def "node depends on itself"() {
+        def node = node()
+        def index = new ReachabilityIndex([node])
+
+        expect:
+        index.dependsOn(node, node)
+    }
+
+    def "node depends on direct and transitive successors"() {
+        def dependency = node()
+        def intermediate = node(dependency)
+        def consumer = node(intermediate)
+        def unrelated = node()
+        def index = new ReachabilityIndex([dependency, intermediate, consumer, unrelated])
+
+        expect:
+        index.dependsOn(intermediate, dependency)
+        index.dependsOn(consumer, dependency)
+        index.dependsOn(consumer, intermediate)
+        !index.dependsOn(dependency, consumer)
+        !index.dependsOn(unrelated, dependency)
+        !index.dependsOn(consumer, unrelated)
+    }
+
+    def "does not depend on successors via complete nodes"() {
+        def dependency = node()
+        def intermediate = node(dependency)
+        intermediate.isComplete() >> true
+        def consumer = node(intermediate)
+        def index = new ReachabilityIndex([dependency, intermediate, consumer])
+
+        expect:
+        index.dependsOn(intermediate, dependency)
+        !index.dependsOn(consumer, dependency)
+    }
+
+    def "indexes successors which are not part of the plan"() {
+        def dependency = node()
+        def outsideOfPlan = node(dependency)
+        def consumer = node(outsideOfPlan)
+        def index = new ReachabilityIndex([dependency, consumer])
+
+        expect:
+        index.dependsOn(consumer, dependency)
+    }
+
+    def "takes successors added after the index was built into account"() {
+        def dependency = node()
+        def consumer = node()
+        def other = node()
+        def index = new ReachabilityIndex([dependency, consumer, other])
+
+        expect:
+        !index.dependsOn(consumer, other)
+
+        when:
+        def added = node(dependency)
+        index.successorAdded(consumer, added)
+
+        then:
+        index.dependsOn(consumer, dependency)
+    }
+
+    Node node(Node... successors) {
+        def node = Stub(Node)
+        node.allSuccessors >> (successors as List)
+        return node
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.operations.trace
+
+import groovy.json.JsonSlurper
+import org.gradle.StartParameter
+import org.gradle.internal.operations.BuildOperationCategory
+import org.gradle.internal.operations.BuildOperationDescriptor
+import org.gradle.internal.operations.BuildOperationListenerManager
+import org.gradle.internal.operations.DefaultBuildOperationListenerManager
+import org.gradle.internal.operations.OperationFinishEvent
+import org.gradle.internal.operations.OperationIdentifier
+import org.gradle.internal.operations.OperationStartEvent
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class ChromeTraceExporterTest extends Specification {
+    @Rule
+    final TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider(getClass())
+
+    def listenerManager = new DefaultBuildOperationListenerManager()
+    def startParameter = new StartParameter()
+
+    def "does not listen to build operations when not enabled"() {
+        def listenerManager = Mock(BuildOperationListenerManager)
+
+        when:
+        def exporter = new ChromeTraceExporter(startParameter, listenerManager)
+        exporter.stop()
+
+        then:
+        0 * listenerManager.addListener(_)
+    }
+
+    def "writes build operations as complete events on the thread that started them"() {
+        def traceFile = temporaryFolder.file("trace.json")
+        startParameter.systemPropertiesArgs.put(ChromeTraceExporter.SYSPROP, traceFile.absolutePath)
+
+        when:
+        def exporter = new ChromeTraceExporter(startParameter, listenerManager)
+        def parent = BuildOperationDescriptor.displayName("Task :a").metadata(BuildOperationCategory.TASK).build(new OperationIdentifier(1), null)
+        listenerManager.broadcaster.started(parent, new OperationStartEvent(100))
+        def thread = new Thread({ runOperation(2, 1, "Snapshot \"inputs\"", 101, 105) }, "worker 1")
+        thread.start()
+        thread.join()
+        listenerManager.broadcaster.finished(parent, new OperationFinishEvent(100, 110, null, null))
+        exporter.stop()
+
+        then:
+        def events = new JsonSlurper().parse(traceFile) as List<Map>
+        def threadNames = events.findAll { it.name == "thread_name" }.collectEntries { [it.tid, it.args.name] }
+        def operations = events.findAll { it.ph == "X" }
+        operations.size() == 2
+
+        def task = operations.find { it.args.id == 1 }
+        task.name == "Task :a"
+        task.cat == "TASK"
+        task.ts == 100000
+        task.dur == 10000
+        threadNames[task.tid] == Thread.currentThread().name
+
+        def child = operations.find { it.args.id == 2 }
+        child.name == "Snapshot \"inputs\""
+        child.args.parentId == 1
+        child.ts == 101000
+        child.dur == 4000
+        threadNames[child.tid] == "worker 1"
+    }
+
+    private void runOperation(long id, Long parentId, String displayName, long startTime, long endTime) {
+        def descriptor = BuildOperationDescriptor.displayName(displayName).build(new OperationIdentifier(id), parentId == null ? null : new OperationIdentifier(parentId))
+        listenerManager.broadcaster.started(descriptor, new OperationStartEvent(startTime))
+        listenerManager.broadcaster.finished(descriptor, new OperationFinishEvent(startTime, endTime, null, null))
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.watch.vfs.impl
+
+import com.google.common.collect.ImmutableList
+import com.google.common.collect.Interners
+import org.gradle.internal.file.FileMetadata
+import org.gradle.internal.file.impl.DefaultFileMetadata
+import org.gradle.internal.hash.Hashing
+import org.gradle.internal.hash.TestHashCodes
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot
+import org.gradle.internal.snapshot.RegularFileSnapshot
+import org.gradle.internal.snapshot.SnapshotUtil
+import org.gradle.internal.snapshot.TestSnapshotFixture
+import org.gradle.internal.watch.vfs.VirtualFileSystemStateStore
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class DefaultVirtualFileSystemStateStoreTest extends Specification implements TestSnapshotFixture {
+
+    @Rule
+    TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider(getClass())
+
+    def stateFile = temporaryFolder.file("vfs-state/state.bin")
+    def store = new DefaultVirtualFileSystemStateStore(stateFile, Interners.newStrongInterner())
+    def storedAt = System.currentTimeMillis() + 10_000
+
+    def "restores the stored state"() {
+        def dir = temporaryFolder.createDir("dir")
+        def file = dir.file("file.txt") << "content"
+        def nestedFile = dir.file("nested/nested.txt") << "nested content"
+        def missingFile = temporaryFolder.file("missing.txt")
+        def snapshots = [
+            directory(dir.absolutePath, [
+                fileSnapshot(file),
+                directory(nestedFile.parentFile.absolutePath, [fileSnapshot(nestedFile)])
+            ]),
+            missing(missingFile.absolutePath)
+        ]
+
+        when:
+        store.store(new VirtualFileSystemStateStore.State(storedAt, ImmutableList.of(dir), ImmutableList.copyOf(snapshots)))
+        def restored = store.load()
+
+        then:
+        restored.storedAt == storedAt
+        restored.watchableHierarchies == [dir]
+        describe(restored.snapshots) == describe(snapshots)
+        RestoredStateValidator.validate(restored.snapshots, restored.storedAt).changedLocations.empty
+    }
+
+    def "files changed between storing and restoring the state are invalidated"() {
+        def dir = temporaryFolder.createDir("dir")
+        def resizedFile = dir.file("resized.txt") << "content"
+        def touchedFile = dir.file("touched.txt") << "content"
+        def unchangedFile = dir.file("unchanged.txt") << "content"
+        store.store(new VirtualFileSystemStateStore.State(storedAt, ImmutableList.of(dir), ImmutableList.of(
+            directory(dir.absolutePath, [fileSnapshot(resizedFile), fileSnapshot(touchedFile), fileSnapshot(unchangedFile)])
+        )))
+
+        given:
+        // Only the length of the file changes
+        def lastModified = resizedFile.lastModified()
+        resizedFile.text = "changed content"
+        resizedFile.setLastModified(lastModified)
+        // Only the modification time of the file changes
+        touchedFile.setLastModified(touchedFile.lastModified() - 5_000)
+
+        when:
+        def restored = store.load()
+        def validator = RestoredStateValidator.validate(restored.snapshots, restored.storedAt)
+
+        then:
+        validator.changedLocations as Set == [resizedFile.absolutePath, touchedFile.absolutePath] as Set
+        validator.unchangedRegularFiles == 1
+    }
+
+    def "discards a corrupt state"() {
+        stateFile.parentFile.mkdirs()
+        stateFile.bytes = [1, 2, 3, 4, 5, 6, 7, 8, 9] as byte[]
+
+        expect:
+        store.load() == null
+    }
+
+    def "discards a truncated state"() {
+        def dir = temporaryFolder.createDir("dir")
+        def files = (1..20).collect { dir.file("file${it}.txt") << "content $it" }
+        store.store(new VirtualFileSystemStateStore.State(storedAt, ImmutableList.of(dir), ImmutableList.of(
+            directory(dir.absolutePath, files.collect { fileSnapshot(it) })
+        )))
+
+        given:
+        new RandomAccessFile(stateFile, "rw").withCloseable { it.setLength(stateFile.length().intdiv(2)) }
+
+        expect:
+        store.load() == null
+    }
+
+    def "discards a state stored in a different format"() {
+        stateFile.parentFile.mkdirs()
+        new KryoBackedEncoder(new FileOutputStream(stateFile)).withCloseable {
+            it.writeSmallInt(1000)
+            it.writeLong(storedAt)
+        }
+
+        expect:
+        store.load() == null
+    }
+
+    def "replaces a corrupt state when storing"() {
+        def dir = temporaryFolder.createDir("dir")
+        stateFile.parentFile.mkdirs()
+        stateFile.bytes = [1, 2, 3] as byte[]
+
+        when:
+        store.store(new VirtualFileSystemStateStore.State(storedAt, ImmutableList.of(dir), ImmutableList.of()))
+        def restored = store.load()
+
+        then:
+        restored.storedAt == storedAt
+        restored.watchableHierarchies == [dir]
+        restored.snapshots.empty
+    }
+
+    def "state file depends on the hash function"() {
+        def stateDir = temporaryFolder.file("vfs-state")
+
+        expect:
+        DefaultVirtualFileSystemStateStore.stateFileIn(stateDir, Hashing.md5()).parentFile == stateDir
+        DefaultVirtualFileSystemStateStore.stateFileIn(stateDir, Hashing.md5()) == DefaultVirtualFileSystemStateStore.stateFileIn(stateDir, Hashing.md5())
+        DefaultVirtualFileSystemStateStore.stateFileIn(stateDir, Hashing.md5()) != DefaultVirtualFileSystemStateStore.stateFileIn(stateDir, Hashing.sha1())
+    }
+
+    private static FileSystemLocationSnapshot fileSnapshot(TestFile file) {
+        new RegularFileSnapshot(file.absolutePath, file.name, TestHashCodes.hashCodeFrom(file.text.hashCode()), DefaultFileMetadata.file(file.lastModified(), file.length(), FileMetadata.AccessType.DIRECT))
+    }
+
+    private static Map<String, List<Object>> describe(Collection<FileSystemLocationSnapshot> snapshots) {
+        snapshots.collectEntries { SnapshotUtil.indexByAbsolutePath(it) }.collectEntries { String path, FileSystemLocationSnapshot snapshot ->
+            def metadata = snapshot instanceof RegularFileSnapshot ? [snapshot.metadata.lastModified, snapshot.metadata.length] : []
+            [(path): [snapshot.type, snapshot.hash, snapshot.accessType] + metadata]
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes;
+
+import org.gradle.api.artifacts.ModuleIdentifier;
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ExcludeSpec;
+import org.gradle.internal.component.external.descriptor.DefaultExclude;
+import org.gradle.internal.component.model.ExcludeMetadata;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures merging exclude specs and evaluating them, the way the dependency graph builder does when computing the exclusions of nodes with many incoming edges.
+ *
+ * <p>Each node declares a few excludes on modules, groups or module names, and the specs of related nodes are combined with unions and intersections.</p>
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class ModuleExclusionsBenchmark {
+    private static final int GROUPS = 50;
+    private static final int MODULES_PER_GROUP = 40;
+
+    @Param({"100", "1000"})
+    int nodes;
+
+    @Param({"1", "5"})
+    int excludesPerNode;
+
+    List<ExcludeSpec> mergedSpecs;
+    List<ModuleIdentifier> modules;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        modules = new ArrayList<>(GROUPS * MODULES_PER_GROUP);
+        for (int group = 0; group < GROUPS; group++) {
+            for (int module = 0; module < MODULES_PER_GROUP; module++) {
+                modules.add(DefaultModuleIdentifier.newId("org.group" + group, "module" + module));
+            }
+        }
+        ModuleExclusions moduleExclusions = new ModuleExclusions();
+        List<ExcludeSpec> nodeSpecs = createNodeSpecs(moduleExclusions);
+        Random random = new Random(5678L);
+        mergedSpecs = new ArrayList<>(nodes);
+        for (int node = 0; node < nodes; node++) {
+            mergedSpecs.add(moduleExclusions.excludeAll(nodeSpecs.get(node), nodeSpecs.get(random.nextInt(nodes))));
+        }
+    }
+
+    List<ExcludeSpec> createNodeSpecs(ModuleExclusions moduleExclusions) {
+        Random random = new Random(1234L);
+        List<ExcludeSpec> nodeSpecs = new ArrayList<>(nodes);
+        for (int node = 0; node < nodes; node++) {
+            List<ExcludeMetadata> excludes = new ArrayList<>(excludesPerNode);
+            for (int i = 0; i < excludesPerNode; i++) {
+                excludes.add(new DefaultExclude(randomExcludedModule(random)));
+            }
+            nodeSpecs.add(moduleExclusions.excludeAny(excludes));
+        }
+        return nodeSpecs;
+    }
+
+    private ModuleIdentifier randomExcludedModule(Random random) {
+        String group = "org.group" + random.nextInt(GROUPS);
+        String module = "module" + random.nextInt(MODULES_PER_GROUP);
+        switch (random.nextInt(3)) {
+            case 0:
+                return DefaultModuleIdentifier.newId(group, "*");
+            case 1:
+                return DefaultModuleIdentifier.newId("*", module);
+            default:
+                return DefaultModuleIdentifier.newId(group, module);
+        }
+    }
+
+    /**
+     * Specs created by a new {@link ModuleExclusions} for each invocation, as it caches the results of merging specs.
+     * Otherwise, only the first iteration would merge the specs and the others would measure cache lookups.
+     */
+    @State(Scope.Thread)
+    public static class MergeState {
+        ModuleExclusions moduleExclusions;
+        List<ExcludeSpec> nodeSpecs;
+
+        @Setup(Level.Invocation)
+        public void setup(ModuleExclusionsBenchmark benchmark) {
+            moduleExclusions = new ModuleExclusions();
+            nodeSpecs = benchmark.createNodeSpecs(moduleExclusions);
+        }
+    }
+
+    @Benchmark
+    public void union(MergeState state, Blackhole blackhole) {
+        for (int node = 1; node < nodes; node++) {
+            blackhole.consume(state.moduleExclusions.excludeAny(state.nodeSpecs.get(node - 1), state.nodeSpecs.get(node)));
+        }
+    }
+
+    @Benchmark
+    public void intersection(MergeState state, Blackhole blackhole) {
+        for (int node = 1; node < nodes; node++) {
+            blackhole.consume(state.moduleExclusions.excludeAll(state.nodeSpecs.get(node - 1), state.nodeSpecs.get(node)));
+        }
+    }
+
+    @Benchmark
+    public void excludesModule(Blackhole blackhole) {
+        for (ExcludeSpec spec : mergedSpecs) {
+            for (int i = 0; i < modules.size(); i += 7) {
+                blackhole.consume(spec.excludes(modules.get(i)));
+            }
+        }
+    }
+}
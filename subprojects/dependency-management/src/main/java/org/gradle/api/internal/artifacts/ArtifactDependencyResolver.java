@@ -17,6 +17,7 @@
 
 import org.gradle.api.internal.artifacts.ivyservice.projectmodule.ProjectDependencyResolver;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DependencyArtifactsVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ResolvedVariantCache;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphVisitor;
 import org.gradle.api.internal.artifacts.repositories.ResolutionAwareRepository;
 import org.gradle.api.internal.artifacts.type.ArtifactTypeRegistry;
@@ -36,5 +37,6 @@ void resolve(ResolveContext resolveContext,
                  AttributesSchemaInternal consumerSchema,
                  ArtifactTypeRegistry artifactTypeRegistry,
                  ProjectDependencyResolver projectDependencyResolver,
+                 ResolvedVariantCache resolvedVariantCache,
                  boolean includeSyntheticDependencies);
 }
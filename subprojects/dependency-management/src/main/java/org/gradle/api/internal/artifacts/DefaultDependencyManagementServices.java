@@ -63,6 +63,7 @@
 import org.gradle.api.internal.artifacts.ivyservice.modulecache.FileStoreAndIndexProvider;
 import org.gradle.api.internal.artifacts.ivyservice.moduleconverter.DefaultRootComponentMetadataBuilder;
 import org.gradle.api.internal.artifacts.ivyservice.projectmodule.ProjectDependencyResolver;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ResolvedVariantCache;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.AttributeContainerSerializer;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ComponentSelectionDescriptorFactory;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.ResolutionResultsStoreFactory;
@@ -517,6 +518,7 @@ ConfigurationResolver createDependencyResolver(ArtifactDependencyResolver artifa
                                                        DependencyVerificationOverride dependencyVerificationOverride,
                                                        ProjectDependencyResolver projectDependencyResolver,
                                                        ComponentSelectionDescriptorFactory componentSelectionDescriptorFactory,
+                                                       ResolvedVariantCache resolvedVariantCache,
                                                        WorkerLeaseService workerLeaseService) {
             return new ErrorHandlingConfigurationResolver(
                     new ShortCircuitEmptyConfigurationResolver(
@@ -546,6 +548,7 @@ ConfigurationResolver createDependencyResolver(ArtifactDependencyResolver artifa
                                     dependencyVerificationOverride,
                                     projectDependencyResolver,
                                     componentSelectionDescriptorFactory,
+                                    resolvedVariantCache,
                                     workerLeaseService),
                             componentIdentifierFactory,
                             moduleIdentifierFactory,
@@ -31,6 +31,8 @@ public class DefaultResolverResults implements ResolverResults {
     private ResolvedLocalComponentsResult resolvedLocalComponentsResult;
     private Object artifactResolveState;
     private VisitedArtifactSet visitedArtifacts;
+    private int resolvedVariantCacheHits;
+    private int resolvedVariantCacheMisses;
 
     @Override
     public boolean hasError() {
@@ -120,6 +122,22 @@ private static boolean isNonFatalError(ResolveException failure) {
         return failure.getCause() instanceof GraphValidationException;
     }
 
+    @Override
+    public void resolvedVariantCacheUsed(int hits, int misses) {
+        this.resolvedVariantCacheHits = hits;
+        this.resolvedVariantCacheMisses = misses;
+    }
+
+    @Override
+    public int getResolvedVariantCacheHits() {
+        return resolvedVariantCacheHits;
+    }
+
+    @Override
+    public int getResolvedVariantCacheMisses() {
+        return resolvedVariantCacheMisses;
+    }
+
     @Override
     public void artifactsResolved(ResolvedConfiguration resolvedConfiguration, VisitedArtifactSet visitedArtifacts) {
         this.resolvedConfiguration = resolvedConfiguration;
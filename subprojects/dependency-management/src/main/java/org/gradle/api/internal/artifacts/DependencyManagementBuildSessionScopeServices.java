@@ -15,6 +15,7 @@
  */
 package org.gradle.api.internal.artifacts;
 
+import org.gradle.api.internal.artifacts.ivyservice.modulecache.DecodedModuleMetadataCache;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.CachingComponentSelectionDescriptorFactory;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ComponentSelectionDescriptorFactory;
 import org.gradle.api.internal.attributes.ImmutableAttributesFactory;
@@ -27,6 +28,7 @@ public class DependencyManagementBuildSessionScopeServices {
 
     void configure(ServiceRegistration registration) {
         registration.add(DependenciesAccessorsWorkspaceProvider.class);
+        registration.add(DecodedModuleMetadataCache.class);
     }
 
     ComponentSelectionDescriptorFactory createComponentSelectionDescriptorFactory() {
@@ -53,6 +53,15 @@ public interface ResolverResults {
 
     void failed(ResolveException failure);
 
+    /**
+     * Records how many of the variants selected by the dependency graph were found in the build wide cache of resolved variants, and how many had to be created.
+     */
+    void resolvedVariantCacheUsed(int hits, int misses);
+
+    int getResolvedVariantCacheHits();
+
+    int getResolvedVariantCacheMisses();
+
     /**
      * Attaches some opaque state calculated during dependency graph resolution that will later be required to resolve the artifacts.
      */
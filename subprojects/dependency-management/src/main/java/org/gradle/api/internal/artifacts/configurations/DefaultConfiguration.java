@@ -748,7 +748,7 @@ private void captureBuildOperationResult(BuildOperationContext context, Resolver
                 // 1. the `failed` method will have been called with the user facing error
                 // 2. such an error may still lead to a valid dependency graph
                 ResolutionResult resolutionResult = results.getResolutionResult();
-                context.setResult(ResolveConfigurationResolutionBuildOperationResult.create(resolutionResult, attributesFactory));
+                context.setResult(ResolveConfigurationResolutionBuildOperationResult.create(resolutionResult, attributesFactory, results.getResolvedVariantCacheHits(), results.getResolvedVariantCacheMisses()));
             }
 
             @Override
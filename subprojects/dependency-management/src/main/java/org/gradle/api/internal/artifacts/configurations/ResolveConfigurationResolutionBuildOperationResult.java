@@ -42,17 +42,23 @@
 class ResolveConfigurationResolutionBuildOperationResult implements ResolveConfigurationDependenciesBuildOperationType.Result, CustomOperationTraceSerialization {
     private final ResolutionResult resolutionResult;
     private final AttributeContainer requestedAttributes;
+    private final int resolvedVariantCacheHits;
+    private final int resolvedVariantCacheMisses;
 
-    static ResolveConfigurationResolutionBuildOperationResult create(ResolutionResult resolutionResult, ImmutableAttributesFactory attributesFactory) {
+    static ResolveConfigurationResolutionBuildOperationResult create(ResolutionResult resolutionResult, ImmutableAttributesFactory attributesFactory, int resolvedVariantCacheHits, int resolvedVariantCacheMisses) {
         return new ResolveConfigurationResolutionBuildOperationResult(
                 resolutionResult,
-                new LazyDesugaringAttributeContainer(resolutionResult.getRequestedAttributes(), attributesFactory)
+                new LazyDesugaringAttributeContainer(resolutionResult.getRequestedAttributes(), attributesFactory),
+                resolvedVariantCacheHits,
+                resolvedVariantCacheMisses
         );
     }
 
-    private ResolveConfigurationResolutionBuildOperationResult(ResolutionResult resolutionResult, AttributeContainer requestedAttributes) {
+    private ResolveConfigurationResolutionBuildOperationResult(ResolutionResult resolutionResult, AttributeContainer requestedAttributes, int resolvedVariantCacheHits, int resolvedVariantCacheMisses) {
         this.resolutionResult = resolutionResult;
         this.requestedAttributes = requestedAttributes;
+        this.resolvedVariantCacheHits = resolvedVariantCacheHits;
+        this.resolvedVariantCacheMisses = resolvedVariantCacheMisses;
     }
 
     @Override
@@ -80,6 +86,8 @@ public Object getCustomOperationTraceSerializableModel() {
             requestedAttributesBuilder.add(ImmutableMap.of("name", att.getName(), "value", requestedAttributes.getAttribute(att).toString()));
         }
         model.put("requestedAttributes", requestedAttributesBuilder.build());
+        model.put("resolvedVariantCacheHits", getResolvedVariantCacheHits());
+        model.put("resolvedVariantCacheMisses", getResolvedVariantCacheMisses());
         return model;
     }
 
@@ -88,6 +96,16 @@ public AttributeContainer getRequestedAttributes() {
         return requestedAttributes;
     }
 
+    @Override
+    public int getResolvedVariantCacheHits() {
+        return resolvedVariantCacheHits;
+    }
+
+    @Override
+    public int getResolvedVariantCacheMisses() {
+        return resolvedVariantCacheMisses;
+    }
+
     // This does almost the same thing as passing through DesugaredAttributeContainerSerializer / DesugaringAttributeContainerSerializer.
     // Those make some assumptions about allowed attribute value types that we can't - we serialize everything else to a string instead.
     private static final class LazyDesugaringAttributeContainer implements ImmutableAttributes {
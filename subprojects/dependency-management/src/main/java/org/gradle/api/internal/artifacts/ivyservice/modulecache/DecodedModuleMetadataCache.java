@@ -0,0 +1,102 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache;
+
+import org.gradle.internal.component.external.model.ModuleComponentResolveMetadata;
+import org.gradle.internal.service.scopes.Scopes;
+import org.gradle.internal.service.scopes.ServiceScope;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Retains the module metadata decoded from the persistent module metadata caches for the duration of a build session.
+ *
+ * <p>Every build of a session, including included builds, creates its own module metadata caches.
+ * Without this cache each of them would decode the same descriptors from the metadata store again.
+ * A decoded descriptor is only reused while the persistent cache entry it was decoded for has not been replaced.</p>
+ */
+@ServiceScope(Scopes.BuildSession.class)
+public class DecodedModuleMetadataCache {
+    private final Map<DescriptorKey, DecodedMetadata> decodedMetadata = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the metadata previously decoded for the given cache entry, or {@code null} when it was not decoded yet or the entry has been replaced since.
+     */
+    @Nullable
+    ModuleComponentResolveMetadata get(File metadataStoreDirectory, ModuleComponentAtRepositoryKey key, ModuleMetadataCacheEntry entry) {
+        DecodedMetadata decoded = decodedMetadata.get(new DescriptorKey(metadataStoreDirectory, key));
+        if (decoded == null || !decoded.isFor(entry)) {
+            return null;
+        }
+        return decoded.metadata;
+    }
+
+    void put(File metadataStoreDirectory, ModuleComponentAtRepositoryKey key, ModuleMetadataCacheEntry entry, ModuleComponentResolveMetadata metadata) {
+        decodedMetadata.put(new DescriptorKey(metadataStoreDirectory, key), new DecodedMetadata(entry.createTimestamp, entry.isChanging, metadata));
+    }
+
+    void invalidate(File metadataStoreDirectory, ModuleComponentAtRepositoryKey key) {
+        decodedMetadata.remove(new DescriptorKey(metadataStoreDirectory, key));
+    }
+
+    private static class DescriptorKey {
+        private final File metadataStoreDirectory;
+        private final ModuleComponentAtRepositoryKey key;
+
+        DescriptorKey(File metadataStoreDirectory, ModuleComponentAtRepositoryKey key) {
+            this.metadataStoreDirectory = metadataStoreDirectory;
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            DescriptorKey that = (DescriptorKey) o;
+            return key.equals(that.key) && metadataStoreDirectory.equals(that.metadataStoreDirectory);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(metadataStoreDirectory, key);
+        }
+    }
+
+    private static class DecodedMetadata {
+        private final long createTimestamp;
+        private final boolean isChanging;
+        private final ModuleComponentResolveMetadata metadata;
+
+        DecodedMetadata(long createTimestamp, boolean isChanging, ModuleComponentResolveMetadata metadata) {
+            this.createTimestamp = createTimestamp;
+            this.isChanging = isChanging;
+            this.metadata = metadata;
+        }
+
+        boolean isFor(ModuleMetadataCacheEntry entry) {
+            return createTimestamp == entry.createTimestamp && isChanging == entry.isChanging;
+        }
+    }
+}
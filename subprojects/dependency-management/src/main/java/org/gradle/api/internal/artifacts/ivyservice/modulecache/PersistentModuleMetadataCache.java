@@ -35,11 +35,15 @@
 import org.gradle.internal.serialize.Encoder;
 import org.gradle.util.internal.BuildCommencedTimeProvider;
 
+import java.io.File;
+
 public class PersistentModuleMetadataCache extends AbstractModuleMetadataCache {
 
     private IndexedCache<ModuleComponentAtRepositoryKey, ModuleMetadataCacheEntry> cache;
     private final ModuleMetadataStore moduleMetadataStore;
     private final ArtifactCacheLockingAccessCoordinator artifactCacheLockingManager;
+    private final DecodedModuleMetadataCache decodedMetadataCache;
+    private final File metadataStoreDirectory;
 
     public PersistentModuleMetadataCache(BuildCommencedTimeProvider timeProvider,
                                          ArtifactCacheLockingAccessCoordinator cacheAccessCoordinator,
@@ -50,10 +54,13 @@ public PersistentModuleMetadataCache(BuildCommencedTimeProvider timeProvider,
                                          IvyMutableModuleMetadataFactory ivyMetadataFactory,
                                          Interner<String> stringInterner,
                                          ModuleSourcesSerializer moduleSourcesSerializer,
-                                         ChecksumService checksumService) {
+                                         ChecksumService checksumService,
+                                         DecodedModuleMetadataCache decodedMetadataCache) {
         super(timeProvider);
         moduleMetadataStore = new ModuleMetadataStore(new DefaultPathKeyFileStore(checksumService, artifactCacheMetadata.getMetaDataStoreDirectory()), new ModuleMetadataSerializer(attributeContainerSerializer, mavenMetadataFactory, ivyMetadataFactory, moduleSourcesSerializer), moduleIdentifierFactory, stringInterner);
         this.artifactCacheLockingManager = cacheAccessCoordinator;
+        this.decodedMetadataCache = decodedMetadataCache;
+        this.metadataStoreDirectory = artifactCacheMetadata.getMetaDataStoreDirectory();
     }
 
     private IndexedCache<ModuleComponentAtRepositoryKey, ModuleMetadataCacheEntry> getCache() {
@@ -78,18 +85,25 @@ protected CachedMetadata get(ModuleComponentAtRepositoryKey key) {
             if (entry.isMissing()) {
                 return new DefaultCachedMetadata(entry, null, timeProvider);
             }
+            ModuleComponentResolveMetadata decoded = decodedMetadataCache.get(metadataStoreDirectory, key, entry);
+            if (decoded != null) {
+                return new DefaultCachedMetadata(entry, decoded, timeProvider);
+            }
             MutableModuleComponentResolveMetadata metadata = moduleMetadataStore.getModuleDescriptor(key);
             if (metadata == null) {
                 // Descriptor file has been deleted - ignore the entry
                 cache.remove(key);
                 return null;
             }
-            return new DefaultCachedMetadata(entry, entry.configure(metadata), timeProvider);
+            ModuleComponentResolveMetadata configured = entry.configure(metadata);
+            decodedMetadataCache.put(metadataStoreDirectory, key, entry, configured);
+            return new DefaultCachedMetadata(entry, configured, timeProvider);
         });
     }
 
     @Override
     protected CachedMetadata store(final ModuleComponentAtRepositoryKey key, final ModuleMetadataCacheEntry entry, final CachedMetadata cachedMetadata) {
+        decodedMetadataCache.invalidate(metadataStoreDirectory, key);
         if (entry.isMissing()) {
             getCache().put(key, entry);
         } else {
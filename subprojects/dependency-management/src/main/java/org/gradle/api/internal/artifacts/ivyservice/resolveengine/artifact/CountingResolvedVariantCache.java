@@ -0,0 +1,58 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.gradle.internal.component.model.VariantResolveMetadata.Identifier;
+
+/**
+ * A {@link ResolvedVariantCache} that counts how many of the variants requested by a single resolution are served by the cache it delegates to.
+ */
+public class CountingResolvedVariantCache implements ResolvedVariantCache {
+    private final ResolvedVariantCache delegate;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    public CountingResolvedVariantCache(ResolvedVariantCache delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public ResolvedVariant computeIfAbsent(Identifier key, Function<? super Identifier, ? extends ResolvedVariant> mappingFunction) {
+        requests.incrementAndGet();
+        return delegate.computeIfAbsent(key, id -> {
+            misses.incrementAndGet();
+            return mappingFunction.apply(id);
+        });
+    }
+
+    /**
+     * Returns the number of requested variants that were already cached, possibly by the resolution of another configuration.
+     */
+    public int getHits() {
+        return requests.get() - misses.get();
+    }
+
+    /**
+     * Returns the number of requested variants that were created and added to the cache.
+     */
+    public int getMisses() {
+        return misses.get();
+    }
+}
@@ -72,7 +72,7 @@ public boolean equals(Object o) {
 
     @Override
     public int hashCode() {
-        return moduleId.hashCode();
+        return hashCode;
     }
 
     @Override
@@ -48,9 +48,11 @@
 import org.gradle.internal.resolve.result.DefaultBuildableComponentResolveResult;
 
 import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
 import java.util.function.Consumer;
 import java.util.stream.StreamSupport;
@@ -63,7 +65,8 @@ public class ComponentState implements ComponentResolutionState, DependencyGraph
     private final ModuleVersionIdentifier id;
     private final ComponentMetaDataResolver resolver;
     private final AttributeDesugaring attributeDesugaring;
-    private final List<NodeState> nodes = Lists.newLinkedList();
+    // A component almost always has a single node
+    private final List<NodeState> nodes = new ArrayList<>(1);
     private final Long resultId;
     private final ModuleResolveState module;
     private final List<ComponentSelectionDescriptorInternal> selectionCauses = Lists.newArrayList();
@@ -73,7 +76,8 @@ public class ComponentState implements ComponentResolutionState, DependencyGraph
     private volatile ComponentGraphResolveState resolveState;
 
     private ComponentSelectionState state = ComponentSelectionState.Selectable;
-    private ModuleVersionResolveException metadataResolveFailure;
+    private volatile ModuleVersionResolveException metadataResolveFailure;
+    private MetadataPrefetch metadataPrefetch;
     private ModuleSelectors<SelectorState> selectors;
     private DependencyGraphBuilder.VisitState visitState = DependencyGraphBuilder.VisitState.NotSeen;
 
@@ -214,20 +218,16 @@ public void resolve() {
             return;
         }
 
-        ComponentOverrideMetadata componentOverrideMetadata;
-        if (selectors != null && selectors.size() > 0) {
-            // Taking the first selector here to determine the 'changing' status and 'client module' is our best bet to get the selector that will most likely be chosen in the end.
-            // As selectors are sorted accordingly (see ModuleSelectors.SELECTOR_COMPARATOR).
-            SelectorState firstSelector = selectors.first();
-            componentOverrideMetadata = DefaultComponentOverrideMetadata.forDependency(firstSelector.isChanging(), selectors.getFirstDependencyArtifact(), firstSelector.getClientModule());
-        } else {
-            componentOverrideMetadata = DefaultComponentOverrideMetadata.EMPTY;
-        }
+        ComponentOverrideMetadata componentOverrideMetadata = getComponentOverrideMetadata();
         if (tryResolveVirtualPlatform()) {
             return;
         }
-        DefaultBuildableComponentResolveResult result = new DefaultBuildableComponentResolveResult();
-        resolver.resolve(componentIdentifier, componentOverrideMetadata, result);
+        DefaultBuildableComponentResolveResult result = metadataPrefetch != null ? metadataPrefetch.getResultFor(componentOverrideMetadata) : null;
+        if (result == null) {
+            result = new DefaultBuildableComponentResolveResult();
+            resolver.resolve(componentIdentifier, componentOverrideMetadata, result);
+        }
+        metadataPrefetch = null;
 
         if (result.getFailure() != null) {
             metadataResolveFailure = result.getFailure();
@@ -236,6 +236,31 @@ public void resolve() {
         resolveState = result.getState();
     }
 
+    /**
+     * Creates an operation that resolves the metadata of this component ahead of time, so that it is available once the graph traversal needs it.
+     *
+     * @return the operation, or null if the metadata is already resolved or being resolved.
+     */
+    @Nullable
+    PrefetchMetadataOperation prefetchMetadata() {
+        if (alreadyResolved() || metadataPrefetch != null || module.isVirtualPlatform()) {
+            return null;
+        }
+        metadataPrefetch = new MetadataPrefetch(getComponentOverrideMetadata());
+        return new PrefetchMetadataOperation(this, metadataPrefetch::run);
+    }
+
+    private ComponentOverrideMetadata getComponentOverrideMetadata() {
+        if (selectors != null && selectors.size() > 0) {
+            // Taking the first selector here to determine the 'changing' status and 'client module' is our best bet to get the selector that will most likely be chosen in the end.
+            // As selectors are sorted accordingly (see ModuleSelectors.SELECTOR_COMPARATOR).
+            SelectorState firstSelector = selectors.first();
+            return DefaultComponentOverrideMetadata.forDependency(firstSelector.isChanging(), selectors.getFirstDependencyArtifact(), firstSelector.getClientModule());
+        } else {
+            return DefaultComponentOverrideMetadata.EMPTY;
+        }
+    }
+
     private boolean tryResolveVirtualPlatform() {
         if (module.isVirtualPlatform()) {
             for (ComponentState version : module.getAllVersions()) {
@@ -550,4 +575,49 @@ public boolean equals(Object o) {
     public int hashCode() {
         return hashCode;
     }
+
+    /**
+     * The metadata of this component, resolved by a worker thread while the graph traversal continues.
+     * The traversal uses the result only if the component is still requested with the same override metadata.
+     */
+    private class MetadataPrefetch {
+        private final ComponentOverrideMetadata componentOverrideMetadata;
+        private DefaultBuildableComponentResolveResult result;
+
+        MetadataPrefetch(ComponentOverrideMetadata componentOverrideMetadata) {
+            this.componentOverrideMetadata = componentOverrideMetadata;
+        }
+
+        void run() {
+            try {
+                getResult();
+            } catch (RuntimeException e) {
+                // Ignore: the metadata is resolved again when required by the traversal, which reports the failure
+            }
+        }
+
+        @Nullable
+        DefaultBuildableComponentResolveResult getResultFor(ComponentOverrideMetadata componentOverrideMetadata) {
+            if (this.componentOverrideMetadata.isChanging() != componentOverrideMetadata.isChanging()
+                || !Objects.equals(this.componentOverrideMetadata.getArtifact(), componentOverrideMetadata.getArtifact())
+                || this.componentOverrideMetadata.getClientModule() != componentOverrideMetadata.getClientModule()) {
+                return null;
+            }
+            try {
+                return getResult();
+            } catch (RuntimeException e) {
+                return null;
+            }
+        }
+
+        private synchronized DefaultBuildableComponentResolveResult getResult() {
+            // Either resolves the metadata in the calling thread, or waits for the thread that is already resolving it
+            if (result == null) {
+                DefaultBuildableComponentResolveResult result = new DefaultBuildableComponentResolveResult();
+                resolver.resolve(componentIdentifier, componentOverrideMetadata, result);
+                this.result = result;
+            }
+            return result;
+        }
+    }
 }
@@ -49,6 +49,7 @@
 import org.gradle.api.internal.attributes.ImmutableAttributes;
 import org.gradle.api.internal.attributes.ImmutableAttributesFactory;
 import org.gradle.api.specs.Spec;
+import org.gradle.internal.UncheckedException;
 import org.gradle.internal.component.IncompatibleVariantsSelectionException;
 import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier;
 import org.gradle.internal.component.local.model.LocalComponentMetadata;
@@ -59,6 +60,7 @@
 import org.gradle.internal.id.LongIdGenerator;
 import org.gradle.internal.operations.BuildOperationConstraint;
 import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.BuildOperationQueue;
 import org.gradle.internal.resolve.ModuleVersionResolveException;
 import org.gradle.internal.resolve.resolver.ComponentMetaDataResolver;
 import org.gradle.internal.resolve.resolver.DependencyToComponentIdResolver;
@@ -75,10 +77,18 @@
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 public class DependencyGraphBuilder {
     private static final Logger LOGGER = LoggerFactory.getLogger(DependencyGraphBuilder.class);
+
+    /**
+     * System property that enables resolving the metadata of selected components while the graph traversal continues,
+     * rather than only in parallel batches for the outgoing edges of the node being visited.
+     */
+    public static final String PREFETCH_METADATA_PROPERTY = "org.gradle.internal.dm.metadata.prefetch";
+
     private final ModuleConflictHandler moduleConflictHandler;
     private final Spec<? super DependencyMetadata> edgeFilter;
     private final DependencyToComponentIdResolver idResolver;
@@ -94,6 +104,7 @@ public class DependencyGraphBuilder {
     private final Comparator<Version> versionComparator;
     private final VersionParser versionParser;
     private final ResolutionConflictTracker conflictTracker;
+    private final boolean prefetchMetadata = Boolean.getBoolean(PREFETCH_METADATA_PROPERTY);
 
     final static Spec<EdgeState> ENDORSE_STRICT_VERSIONS_DEPENDENCY_SPEC = dependencyState -> dependencyState.getDependencyState().getDependency().isEndorsingStrictVersions();
     final static Spec<EdgeState> NOT_ENDORSE_STRICT_VERSIONS_DEPENDENCY_SPEC = dependencyState -> !dependencyState.getDependencyState().getDependency().isEndorsingStrictVersions();
@@ -167,6 +178,29 @@ private static int estimateSize(ResolveContext resolveContext) {
      * Traverses the dependency graph, resolving conflicts and building the paths from the root configuration.
      */
     private void traverseGraph(final ResolveState resolveState, final Map<ModuleVersionIdentifier, ComponentIdentifier> componentIdentifierCache) {
+        if (!prefetchMetadata) {
+            traverseGraph(resolveState, componentIdentifierCache, null);
+            return;
+        }
+        // The metadata of selected components is resolved by the queue workers while this thread traverses the graph.
+        // The number of concurrent downloads is bounded by the number of workers of the queue.
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        buildOperationExecutor.runAll((BuildOperationQueue<PrefetchMetadataOperation> metadataPrefetchQueue) -> {
+            try {
+                traverseGraph(resolveState, componentIdentifierCache, metadataPrefetchQueue);
+            } catch (Throwable t) {
+                failure.set(t);
+            } finally {
+                // Do not download the metadata of components that have not been needed by the traversal
+                metadataPrefetchQueue.cancel();
+            }
+        }, BuildOperationConstraint.UNCONSTRAINED);
+        if (failure.get() != null) {
+            throw UncheckedException.throwAsUncheckedException(failure.get());
+        }
+    }
+
+    private void traverseGraph(final ResolveState resolveState, final Map<ModuleVersionIdentifier, ComponentIdentifier> componentIdentifierCache, @Nullable BuildOperationQueue<PrefetchMetadataOperation> metadataPrefetchQueue) {
         resolveState.onMoreSelected(resolveState.getRoot());
         final List<EdgeState> dependencies = Lists.newArrayList();
 
@@ -181,9 +215,9 @@ private void traverseGraph(final ResolveState resolveState, final Map<ModuleVers
                 // Initialize and collect any new outgoing edges of this node
                 dependencies.clear();
                 node.visitOutgoingDependencies(dependencies);
-                boolean edgeWasProcessed = resolveEdges(node, dependencies, ENDORSE_STRICT_VERSIONS_DEPENDENCY_SPEC, false, resolveState, componentIdentifierCache);
+                boolean edgeWasProcessed = resolveEdges(node, dependencies, ENDORSE_STRICT_VERSIONS_DEPENDENCY_SPEC, false, resolveState, componentIdentifierCache, metadataPrefetchQueue);
                 node.collectEndorsedStrictVersions(dependencies);
-                resolveEdges(node, dependencies, NOT_ENDORSE_STRICT_VERSIONS_DEPENDENCY_SPEC, edgeWasProcessed, resolveState, componentIdentifierCache);
+                resolveEdges(node, dependencies, NOT_ENDORSE_STRICT_VERSIONS_DEPENDENCY_SPEC, edgeWasProcessed, resolveState, componentIdentifierCache, metadataPrefetchQueue);
             } else {
                 // We have some batched up conflicts. Resolve the first, and continue traversing the graph
                 if (moduleConflictHandler.hasConflicts()) {
@@ -240,12 +274,18 @@ private boolean resolveEdges(final NodeState node,
                                  final Spec<EdgeState> dependencyFilter,
                                  final boolean recomputeSelectors,
                                  final ResolveState resolveState,
-                                 final Map<ModuleVersionIdentifier, ComponentIdentifier> componentIdentifierCache) {
+                                 final Map<ModuleVersionIdentifier, ComponentIdentifier> componentIdentifierCache,
+                                 @Nullable final BuildOperationQueue<PrefetchMetadataOperation> metadataPrefetchQueue) {
         if (dependencies.isEmpty()) {
             return false;
         }
         if (performSelectionSerially(dependencies, dependencyFilter, resolveState, recomputeSelectors)) {
-            maybeDownloadMetadataInParallel(node, componentIdentifierCache, dependencies, dependencyFilter);
+            if (metadataPrefetchQueue != null) {
+                // Start downloading metadata as soon as the target components are selected, without waiting for the downloads to complete
+                maybePrefetchMetadata(componentIdentifierCache, dependencies, dependencyFilter, metadataPrefetchQueue);
+            } else {
+                maybeDownloadMetadataInParallel(node, componentIdentifierCache, dependencies, dependencyFilter);
+            }
             attachToTargetRevisionsSerially(dependencies, dependencyFilter);
             return true;
         } else {
@@ -348,6 +388,27 @@ private void maybeDownloadMetadataInParallel(NodeState node, Map<ModuleVersionId
         }
     }
 
+    /**
+     * Queues the download of the metadata of the target components of the given edges, for the components that are not cheap to resolve.
+     * The traversal waits for a download only when it requires the metadata of the component.
+     */
+    private void maybePrefetchMetadata(Map<ModuleVersionIdentifier, ComponentIdentifier> componentIdentifierCache, List<EdgeState> dependencies, Spec<EdgeState> dependencyFilter, BuildOperationQueue<PrefetchMetadataOperation> metadataPrefetchQueue) {
+        for (EdgeState dependency : dependencies) {
+            if (!dependencyFilter.isSatisfiedBy(dependency)) {
+                continue;
+            }
+            ComponentState targetComponent = dependency.getTargetComponent();
+            if (targetComponent != null && targetComponent.isSelected() && !targetComponent.alreadyResolved()) {
+                if (!metaDataResolver.isFetchingMetadataCheap(toComponentId(targetComponent.getId(), componentIdentifierCache))) {
+                    PrefetchMetadataOperation operation = targetComponent.prefetchMetadata();
+                    if (operation != null) {
+                        metadataPrefetchQueue.add(operation);
+                    }
+                }
+            }
+        }
+    }
+
     private ComponentIdentifier toComponentId(ModuleVersionIdentifier id, Map<ModuleVersionIdentifier, ComponentIdentifier> componentIdentifierCache) {
         ComponentIdentifier identifier = componentIdentifierCache.get(id);
         if (identifier == null) {
@@ -19,10 +19,8 @@
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
 import org.apache.commons.lang.StringUtils;
 import org.gradle.api.Action;
@@ -68,6 +66,8 @@
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -81,8 +81,10 @@ public class NodeState implements DependencyGraphNode {
     private static final Logger LOGGER = LoggerFactory.getLogger(NodeState.class);
     private final Long resultId;
     private final ComponentState component;
-    private final List<EdgeState> incomingEdges = Lists.newArrayList();
-    private final List<EdgeState> outgoingEdges = Lists.newArrayList();
+    // Most nodes only have a few incoming edges, and the outgoing edges are sized to the dependencies being visited,
+    // so both lists start without allocating an array of the default capacity
+    private final List<EdgeState> incomingEdges = new ArrayList<>(0);
+    private final ArrayList<EdgeState> outgoingEdges = new ArrayList<>(0);
     private final ResolvedConfigurationIdentifier id;
 
     private final VariantGraphResolveMetadata metadata;
@@ -104,11 +106,12 @@ public class NodeState implements DependencyGraphNode {
     private Set<ModuleIdentifier> upcomingNoLongerPendingConstraints;
     private boolean virtualPlatformNeedsRefresh;
     private Set<EdgeState> edgesToRecompute;
-    private Multimap<ModuleIdentifier, DependencyState> potentiallyActivatedConstraints;
+    // Most modules only have a single constraint per node, so a list per module is enough to keep them in declaration order
+    private Map<ModuleIdentifier, List<DependencyState>> potentiallyActivatedConstraints;
 
-    // caches
-    private final Map<DependencyMetadata, DependencyState> dependencyStateCache = Maps.newHashMap();
-    private final Map<DependencyState, EdgeState> edgesCache = Maps.newHashMap();
+    // caches, created when the dependencies of the node are first visited, as many nodes never have any
+    private Map<DependencyMetadata, DependencyState> dependencyStateCache;
+    private Map<DependencyState, EdgeState> edgesCache;
 
     // Caches the list of dependency states for dependencies
     private List<DependencyState> cachedDependencyStates;
@@ -440,7 +443,9 @@ private void visitDependencies(ExcludeSpec resolutionFilter, Collection<EdgeStat
         boolean shouldComputeOwnStrictVersions = ownStrictVersionConstraints == null;
         try {
             collectAncestorsStrictVersions(incomingEdges);
-            for (DependencyState dependencyState : dependencies(resolutionFilter)) {
+            List<DependencyState> dependencies = dependencies(resolutionFilter);
+            outgoingEdges.ensureCapacity(outgoingEdges.size() + dependencies.size());
+            for (DependencyState dependencyState : dependencies) {
                 PendingDependenciesVisitor.PendingState pendingState = pendingDepsVisitor.maybeAddAsPendingDependency(this, dependencyState);
                 if (dependencyState.getDependency().isConstraint()) {
                     registerActivatingConstraint(dependencyState);
@@ -466,9 +471,12 @@ private void visitDependencies(ExcludeSpec resolutionFilter, Collection<EdgeStat
 
     private void registerActivatingConstraint(DependencyState dependencyState) {
         if (potentiallyActivatedConstraints == null) {
-            potentiallyActivatedConstraints = LinkedHashMultimap.create();
+            potentiallyActivatedConstraints = new HashMap<>();
+        }
+        List<DependencyState> constraints = potentiallyActivatedConstraints.computeIfAbsent(dependencyState.getModuleIdentifier(), module -> new ArrayList<>(1));
+        if (!constraints.contains(dependencyState)) {
+            constraints.add(dependencyState);
         }
-        potentiallyActivatedConstraints.put(dependencyState.getModuleIdentifier(), dependencyState);
     }
 
     private List<? extends DependencyMetadata> dependencies() {
@@ -529,18 +537,20 @@ private List<DependencyState> cacheDependencyStates(List<? extends DependencyMet
         if (dependencies.isEmpty()) {
             return Collections.emptyList();
         }
+        if (dependencyStateCache == null) {
+            dependencyStateCache = Maps.newHashMapWithExpectedSize(dependencies.size());
+        }
         List<DependencyState> tmp = Lists.newArrayListWithCapacity(dependencies.size());
         for (DependencyMetadata dependency : dependencies) {
-            tmp.add(cachedDependencyStateFor(dependency));
+            tmp.add(dependencyStateCache.computeIfAbsent(dependency, this::createDependencyState));
         }
         return tmp;
     }
 
-    private DependencyState cachedDependencyStateFor(DependencyMetadata md) {
-        return dependencyStateCache.computeIfAbsent(md, this::createDependencyState);
-    }
-
     private void createAndLinkEdgeState(DependencyState dependencyState, Collection<EdgeState> discoveredEdges, ExcludeSpec resolutionFilter, boolean deferSelection) {
+        if (edgesCache == null) {
+            edgesCache = Maps.newHashMapWithExpectedSize(cachedDependencyStates != null ? cachedDependencyStates.size() : 1);
+        }
         EdgeState dependencyEdge = edgesCache.computeIfAbsent(dependencyState, ds -> new EdgeState(this, ds, resolutionFilter, resolveState));
         dependencyEdge.computeSelector(); // the selector changes, if the 'versionProvidedByAncestors' state changes
         outgoingEdges.add(dependencyEdge);
@@ -558,8 +568,8 @@ private void visitAdditionalConstraints(Collection<EdgeState> discoveredEdges) {
             return;
         }
         for (ModuleIdentifier module : upcomingNoLongerPendingConstraints) {
-            Collection<DependencyState> dependencyStates = potentiallyActivatedConstraints.get(module);
-            if (!dependencyStates.isEmpty()) {
+            List<DependencyState> dependencyStates = potentiallyActivatedConstraints.get(module);
+            if (dependencyStates != null) {
                 for (DependencyState dependencyState : dependencyStates) {
                     dependencyState = maybeSubstitute(dependencyState, resolveState.getDependencySubstitutionApplicator());
                     createAndLinkEdgeState(dependencyState, discoveredEdges, previousTraversalExclusions, false);
@@ -757,7 +767,8 @@ private ExcludeSpec computeModuleExclusionsManyEdges(List<EdgeState> incomingEdg
                         edgeExclusions = exclusions;
                     } else if (edgeExclusions != exclusions) {
                         if (excludedByBoth == null) {
-                            excludedByBoth = Sets.newHashSetWithExpectedSize(incomingEdgeCount);
+                            // Exclude specs are interned, so edges share a few distinct specs even when there are many of them
+                            excludedByBoth = new HashSet<>();
                         }
                         excludedByBoth.add(exclusions);
                     }
@@ -767,7 +778,7 @@ private ExcludeSpec computeModuleExclusionsManyEdges(List<EdgeState> incomingEdg
                     }
                 }
             } else if (isConstraint(dependencyEdge)) {
-                excludedByEither = collectEdgeConstraint(nodeExclusions, excludedByEither, dependencyEdge, nothing, incomingEdgeCount);
+                excludedByEither = collectEdgeConstraint(nodeExclusions, excludedByEither, dependencyEdge, nothing);
             }
         }
         edgeExclusions = intersectEdgeExclusions(edgeExclusions, excludedByBoth);
@@ -803,12 +814,12 @@ private ExcludeSpec joinEdgeAndNodeExclusionsThenCacheResult(ExcludeSpec nodeExc
     }
 
     @Nullable
-    private static Set<ExcludeSpec> collectEdgeConstraint(ExcludeSpec nodeExclusions, @Nullable Set<ExcludeSpec> excludedByEither, EdgeState dependencyEdge, ExcludeSpec nothing, int incomingEdgeCount) {
+    private static Set<ExcludeSpec> collectEdgeConstraint(ExcludeSpec nodeExclusions, @Nullable Set<ExcludeSpec> excludedByEither, EdgeState dependencyEdge, ExcludeSpec nothing) {
         // Constraint: only consider explicit exclusions declared for this constraint
         ExcludeSpec constraintExclusions = dependencyEdge.getEdgeExclusions();
         if (constraintExclusions != nothing && constraintExclusions != nodeExclusions) {
             if (excludedByEither == null) {
-                excludedByEither = Sets.newHashSetWithExpectedSize(incomingEdgeCount);
+                excludedByEither = new HashSet<>();
             }
             excludedByEither.add(constraintExclusions);
         }
@@ -1106,10 +1117,20 @@ private void reselectEndorsingNode() {
                 from.reselect();
             }
         } else {
-            for (EdgeState incoming : Lists.newArrayList(incomingEdges)) {
+            // Reselecting a node can remove incoming edges from this node, so only copy the edges when any of them is endorsing
+            List<NodeState> endorsingNodes = null;
+            for (EdgeState incoming : incomingEdges) {
                 if (incoming.getDependencyState().getDependency().isEndorsingStrictVersions()) {
+                    if (endorsingNodes == null) {
+                        endorsingNodes = new ArrayList<>(1);
+                    }
+                    endorsingNodes.add(incoming.getFrom());
+                }
+            }
+            if (endorsingNodes != null) {
+                for (NodeState endorsingNode : endorsingNodes) {
                     // pass my own component because we are already in the process of re-selecting it
-                    incoming.getFrom().reselect();
+                    endorsingNode.reselect();
                 }
             }
         }
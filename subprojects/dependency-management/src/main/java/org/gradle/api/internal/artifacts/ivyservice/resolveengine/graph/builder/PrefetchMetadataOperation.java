@@ -0,0 +1,46 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.builder;
+
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.RunnableBuildOperation;
+
+/**
+ * Resolves the metadata of a component while the dependency graph traversal continues.
+ *
+ * @see ComponentState#prefetchMetadata()
+ */
+class PrefetchMetadataOperation implements RunnableBuildOperation {
+    private final ComponentState state;
+    private final Runnable prefetch;
+
+    PrefetchMetadataOperation(ComponentState state, Runnable prefetch) {
+        this.state = state;
+        this.prefetch = prefetch;
+    }
+
+    @Override
+    public void run(BuildOperationContext context) {
+        prefetch.run();
+    }
+
+    @Override
+    public BuildOperationDescriptor.Builder description() {
+        return BuildOperationDescriptor.displayName("Resolve " + state);
+    }
+}
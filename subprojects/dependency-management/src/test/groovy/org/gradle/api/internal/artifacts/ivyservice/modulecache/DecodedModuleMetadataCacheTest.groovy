@@ -0,0 +1,67 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache
+
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
+import org.gradle.internal.component.external.model.ModuleComponentResolveMetadata
+import spock.lang.Specification
+import spock.lang.Subject
+
+class DecodedModuleMetadataCacheTest extends Specification {
+    def storeDir = new File("metadata-store")
+    def key = new ModuleComponentAtRepositoryKey("repo", DefaultModuleComponentIdentifier.newId(DefaultModuleIdentifier.newId("org", "foo"), "1.0"))
+    def entry = new ModuleMetadataCacheEntry(ModuleMetadataCacheEntry.TYPE_PRESENT, false, 100)
+    def metadata = Stub(ModuleComponentResolveMetadata)
+
+    @Subject
+    def cache = new DecodedModuleMetadataCache()
+
+    def "reuses metadata decoded for the same cache entry"() {
+        when:
+        cache.put(storeDir, key, entry, metadata)
+
+        then:
+        cache.get(storeDir, key, new ModuleMetadataCacheEntry(ModuleMetadataCacheEntry.TYPE_PRESENT, false, 100)) == metadata
+    }
+
+    def "does not reuse metadata when the cache entry has been replaced"() {
+        when:
+        cache.put(storeDir, key, entry, metadata)
+
+        then:
+        cache.get(storeDir, key, new ModuleMetadataCacheEntry(ModuleMetadataCacheEntry.TYPE_PRESENT, false, 200)) == null
+        cache.get(storeDir, key, new ModuleMetadataCacheEntry(ModuleMetadataCacheEntry.TYPE_PRESENT, true, 100)) == null
+    }
+
+    def "does not reuse metadata decoded from another metadata store"() {
+        when:
+        cache.put(storeDir, key, entry, metadata)
+
+        then:
+        cache.get(new File("other-metadata-store"), key, entry) == null
+    }
+
+    def "does not reuse metadata after it has been invalidated"() {
+        when:
+        cache.put(storeDir, key, entry, metadata)
+        cache.invalidate(storeDir, key)
+
+        then:
+        cache.get(storeDir, key, entry) == null
+    }
+}
@@ -74,6 +74,7 @@ import org.gradle.internal.resolve.result.BuildableComponentResolveResult
 import org.gradle.util.AttributeTestUtil
 import org.gradle.util.TestUtil
 import spock.lang.Specification
+import spock.util.environment.RestoreSystemProperties
 
 import static org.gradle.api.internal.artifacts.DefaultModuleVersionIdentifier.newId
 import static org.gradle.internal.component.external.model.DefaultModuleComponentSelector.newSelector
@@ -153,6 +154,37 @@ class DependencyGraphBuilderTest extends Specification {
         result.components == ids(root, a, b, c)
     }
 
+    @RestoreSystemProperties
+    def "resolves metadata of selected components ahead of the traversal when prefetching metadata"() {
+        given:
+        System.setProperty(DependencyGraphBuilder.PREFETCH_METADATA_PROPERTY, "true")
+        def queue = Mock(BuildOperationQueue)
+        def prefetchingBuildOperationProcessor = Mock(BuildOperationExecutor) {
+            runAll(_, _) >> { args ->
+                args[0].execute(queue)
+            }
+        }
+        builder = new DependencyGraphBuilder(idResolver, metaDataResolver, moduleConflictHandler, capabilitiesConflictHandler, Specs.satisfyAll(), attributesSchema, moduleExclusions, prefetchingBuildOperationProcessor, dependencySubstitutionApplicator, componentSelectorConverter, AttributeTestUtil.attributesFactory(), versionSelectorScheme, versionComparator.asVersionComparator(), new VersionParser())
+
+        def a = revision("a")
+        def b = revision("b")
+        def c = revision("c")
+        traverses root, a
+        traverses root, b
+        traverses a, c
+
+        when:
+        def result = resolve()
+        result.rethrowFailure()
+
+        then:
+        3 * queue.add(_) >> { args ->
+            args[0].run()
+        }
+        1 * queue.cancel()
+        result.components == ids(root, a, b, c)
+    }
+
     def "honors component replacements"() {
         given:
         def a = revision('a') // a->c
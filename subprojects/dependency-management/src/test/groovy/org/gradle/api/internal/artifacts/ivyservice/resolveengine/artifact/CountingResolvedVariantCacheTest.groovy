@@ -0,0 +1,67 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact
+
+import org.gradle.internal.component.model.VariantResolveMetadata
+import spock.lang.Specification
+
+import java.util.function.Function
+
+class CountingResolvedVariantCacheTest extends Specification {
+    def map = [:]
+    def delegate = new ResolvedVariantCache() {
+        @Override
+        ResolvedVariant computeIfAbsent(VariantResolveMetadata.Identifier key, Function<? super VariantResolveMetadata.Identifier, ? extends ResolvedVariant> mappingFunction) {
+            return map.computeIfAbsent(key, mappingFunction)
+        }
+    }
+
+    def "counts variants served by the delegate and variants created"() {
+        def id1 = Stub(VariantResolveMetadata.Identifier)
+        def id2 = Stub(VariantResolveMetadata.Identifier)
+        def variant1 = Stub(ResolvedVariant)
+        def variant2 = Stub(ResolvedVariant)
+        def cache = new CountingResolvedVariantCache(delegate)
+
+        when:
+        def first = cache.computeIfAbsent(id1, { variant1 })
+        def second = cache.computeIfAbsent(id1, { throw new IllegalStateException() })
+        def third = cache.computeIfAbsent(id2, { variant2 })
+
+        then:
+        first == variant1
+        second == variant1
+        third == variant2
+        cache.hits == 1
+        cache.misses == 2
+    }
+
+    def "counts variants cached by another resolution as hits"() {
+        def id = Stub(VariantResolveMetadata.Identifier)
+        def variant = Stub(ResolvedVariant)
+        new CountingResolvedVariantCache(delegate).computeIfAbsent(id, { variant })
+        def cache = new CountingResolvedVariantCache(delegate)
+
+        when:
+        def result = cache.computeIfAbsent(id, { throw new IllegalStateException() })
+
+        then:
+        result == variant
+        cache.hits == 1
+        cache.misses == 0
+    }
+}
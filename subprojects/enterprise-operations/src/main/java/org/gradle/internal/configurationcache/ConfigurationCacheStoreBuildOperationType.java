@@ -29,6 +29,13 @@ public interface Details {
     }
 
     public interface Result {
+
+        /**
+         * The number of bytes written to the configuration cache state files of all builds in the tree.
+         *
+         * @since 8.1
+         */
+        long getStateSize();
     }
 
 }
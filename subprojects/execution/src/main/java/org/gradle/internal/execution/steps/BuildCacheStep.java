@@ -80,8 +80,14 @@ private AfterExecutionResult executeWithCache(UnitOfWork work, IncrementalChange
             .map(successfulLoad -> successfulLoad
                 .map(cacheHit -> {
                     if (LOGGER.isInfoEnabled()) {
-                        LOGGER.info("Loaded cache entry for {} with cache key {}",
-                            work.getDisplayName(), cacheKey.getHashCode());
+                        Duration hiddenRemoteLatency = cacheHit.getHiddenRemoteLatency();
+                        if (hiddenRemoteLatency.isZero()) {
+                            LOGGER.info("Loaded cache entry for {} with cache key {} from {} build cache",
+                                work.getDisplayName(), cacheKey.getHashCode(), cacheHit.getSource().getDisplayName());
+                        } else {
+                            LOGGER.info("Loaded cache entry for {} with cache key {} from {} build cache, hiding {} ms of remote latency behind the local lookup",
+                                work.getDisplayName(), cacheKey.getHashCode(), cacheHit.getSource().getDisplayName(), hiddenRemoteLatency.toMillis());
+                        }
                     }
                     cleanLocalState(context.getWorkspace(), work);
                     OriginMetadata originMetadata = cacheHit.getOriginMetadata();
@@ -20,6 +20,7 @@ import org.gradle.caching.BuildCacheKey
 import org.gradle.caching.internal.CacheableEntity
 import org.gradle.caching.internal.controller.BuildCacheController
 import org.gradle.caching.internal.controller.service.BuildCacheLoadResult
+import org.gradle.caching.internal.controller.service.BuildCacheServiceRole
 import org.gradle.caching.internal.origin.OriginMetadata
 import org.gradle.internal.Try
 import org.gradle.internal.execution.OutputChangeListener
@@ -72,6 +73,8 @@ class BuildCacheStepTest extends StepSpec<IncrementalChangesContext> implements
         then:
         _ * work.allowedToLoadFromCache >> true
         1 * buildCacheController.load(cacheKey, _) >> Optional.of(loadMetadata)
+        _ * loadMetadata.source >> BuildCacheServiceRole.LOCAL
+        _ * loadMetadata.hiddenRemoteLatency >> Duration.ZERO
 
         then:
         _ * work.visitOutputs(_ as File, _ as UnitOfWork.OutputVisitor) >> { File workspace, UnitOfWork.OutputVisitor visitor ->
@@ -23,4 +23,14 @@ public interface FileSystemWatchingStatistics {
     int getRetainedRegularFiles();
     int getRetainedDirectories();
     int getRetainedMissingFiles();
+
+    /**
+     * The number of regular files restored from the state stored by a previous daemon, which were unchanged.
+     */
+    int getRestoredRegularFiles();
+
+    /**
+     * The number of locations restored from the state stored by a previous daemon, which were invalidated since they changed.
+     */
+    int getInvalidatedRestoredLocations();
 }
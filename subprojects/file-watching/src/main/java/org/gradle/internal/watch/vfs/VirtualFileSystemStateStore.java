@@ -0,0 +1,78 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.watch.vfs;
+
+import com.google.common.collect.ImmutableList;
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
+
+import javax.annotation.Nullable;
+import java.io.File;
+
+/**
+ * Stores the state of the virtual file system between daemons, so a new daemon does not need to start with an empty virtual file system.
+ *
+ * <p>The stored state can be outdated by the time it is loaded, since changes are not watched between daemons.
+ * It must be validated against the file system before it can be used.</p>
+ */
+public interface VirtualFileSystemStateStore {
+
+    /**
+     * Loads the state stored by a previous daemon.
+     *
+     * @return the stored state, or {@code null} if there is no usable state.
+     */
+    @Nullable
+    State load();
+
+    /**
+     * Stores the state, replacing any previously stored state.
+     */
+    void store(State state);
+
+    class State {
+        private final long storedAt;
+        private final ImmutableList<File> watchableHierarchies;
+        private final ImmutableList<FileSystemLocationSnapshot> snapshots;
+
+        public State(long storedAt, ImmutableList<File> watchableHierarchies, ImmutableList<FileSystemLocationSnapshot> snapshots) {
+            this.storedAt = storedAt;
+            this.watchableHierarchies = watchableHierarchies;
+            this.snapshots = snapshots;
+        }
+
+        /**
+         * The time in milliseconds since the epoch when the state has been stored.
+         */
+        public long getStoredAt() {
+            return storedAt;
+        }
+
+        /**
+         * The watchable hierarchies that have been registered when the state was stored.
+         */
+        public ImmutableList<File> getWatchableHierarchies() {
+            return watchableHierarchies;
+        }
+
+        /**
+         * The root snapshots of the virtual file system.
+         */
+        public ImmutableList<FileSystemLocationSnapshot> getSnapshots() {
+            return snapshots;
+        }
+    }
+}
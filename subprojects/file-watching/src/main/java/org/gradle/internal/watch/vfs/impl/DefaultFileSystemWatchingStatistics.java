@@ -28,13 +28,26 @@
 public class DefaultFileSystemWatchingStatistics implements FileSystemWatchingStatistics {
     private final FileWatcherRegistry.FileWatchingStatistics fileWatchingStatistics;
     private final VirtualFileSystemStatistics vfsStatistics;
+    private final int restoredRegularFiles;
+    private final int invalidatedRestoredLocations;
 
     public DefaultFileSystemWatchingStatistics(
         FileWatcherRegistry.FileWatchingStatistics fileWatchingStatistics,
         SnapshotHierarchy vfsRoot
+    ) {
+        this(fileWatchingStatistics, vfsRoot, 0, 0);
+    }
+
+    public DefaultFileSystemWatchingStatistics(
+        FileWatcherRegistry.FileWatchingStatistics fileWatchingStatistics,
+        SnapshotHierarchy vfsRoot,
+        int restoredRegularFiles,
+        int invalidatedRestoredLocations
     ) {
         this.fileWatchingStatistics = fileWatchingStatistics;
         this.vfsStatistics = getStatistics(vfsRoot);
+        this.restoredRegularFiles = restoredRegularFiles;
+        this.invalidatedRestoredLocations = invalidatedRestoredLocations;
     }
 
     @Override
@@ -62,6 +75,16 @@ public int getRetainedMissingFiles() {
         return vfsStatistics.getRetained(FileType.Missing);
     }
 
+    @Override
+    public int getRestoredRegularFiles() {
+        return restoredRegularFiles;
+    }
+
+    @Override
+    public int getInvalidatedRestoredLocations() {
+        return invalidatedRestoredLocations;
+    }
+
     private static VirtualFileSystemStatistics getStatistics(SnapshotHierarchy root) {
         EnumMultiset<FileType> retained = EnumMultiset.create(FileType.class);
         root.rootSnapshots()
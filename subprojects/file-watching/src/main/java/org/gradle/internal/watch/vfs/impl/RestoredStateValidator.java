@@ -0,0 +1,146 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.watch.vfs.impl;
+
+import org.gradle.internal.file.FileMetadata;
+import org.gradle.internal.snapshot.DirectorySnapshot;
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
+import org.gradle.internal.snapshot.MissingFileSnapshot;
+import org.gradle.internal.snapshot.RegularFileSnapshot;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Checks snapshots restored from a previous daemon against the file system, and finds the locations which changed since the snapshots have been stored.
+ *
+ * <p>Regular files are compared by their length and modification time.
+ * Since file systems only track modification times with limited precision, files modified shortly before the state has been stored are considered to have changed.
+ * Directories are compared by their entries, and locations accessed via symbolic links are always considered to have changed.</p>
+ */
+class RestoredStateValidator {
+    private static final long MODIFICATION_TIME_PRECISION_MILLIS = 2000;
+
+    private final long storedAt;
+    private final List<String> changedLocations = new ArrayList<>();
+    private int unchangedRegularFiles;
+
+    private RestoredStateValidator(long storedAt) {
+        this.storedAt = storedAt;
+    }
+
+    public static RestoredStateValidator validate(Collection<FileSystemLocationSnapshot> snapshots, long storedAt) {
+        RestoredStateValidator validator = new RestoredStateValidator(storedAt);
+        snapshots.forEach(validator::validate);
+        return validator;
+    }
+
+    /**
+     * The absolute paths of the locations that need to be invalidated.
+     */
+    public List<String> getChangedLocations() {
+        return changedLocations;
+    }
+
+    public int getUnchangedRegularFiles() {
+        return unchangedRegularFiles;
+    }
+
+    private void validate(FileSystemLocationSnapshot snapshot) {
+        if (snapshot.getAccessType() == FileMetadata.AccessType.VIA_SYMLINK) {
+            changedLocations.add(snapshot.getAbsolutePath());
+            return;
+        }
+        snapshot.accept(new FileSystemLocationSnapshot.FileSystemLocationSnapshotVisitor() {
+            @Override
+            public void visitDirectory(DirectorySnapshot directorySnapshot) {
+                validateDirectory(directorySnapshot);
+            }
+
+            @Override
+            public void visitRegularFile(RegularFileSnapshot fileSnapshot) {
+                validateRegularFile(fileSnapshot);
+            }
+
+            @Override
+            public void visitMissing(MissingFileSnapshot missingSnapshot) {
+                if (Files.exists(Paths.get(missingSnapshot.getAbsolutePath()), LinkOption.NOFOLLOW_LINKS)) {
+                    changedLocations.add(missingSnapshot.getAbsolutePath());
+                }
+            }
+        });
+    }
+
+    private void validateRegularFile(RegularFileSnapshot fileSnapshot) {
+        FileMetadata metadata = fileSnapshot.getMetadata();
+        BasicFileAttributes attributes = readAttributes(Paths.get(fileSnapshot.getAbsolutePath()));
+        if (attributes != null
+            && attributes.isRegularFile()
+            && attributes.size() == metadata.getLength()
+            && attributes.lastModifiedTime().toMillis() == metadata.getLastModified()
+            && metadata.getLastModified() < storedAt - MODIFICATION_TIME_PRECISION_MILLIS) {
+            unchangedRegularFiles++;
+        } else {
+            changedLocations.add(fileSnapshot.getAbsolutePath());
+        }
+    }
+
+    private void validateDirectory(DirectorySnapshot directorySnapshot) {
+        Path directory = Paths.get(directorySnapshot.getAbsolutePath());
+        BasicFileAttributes attributes = readAttributes(directory);
+        if (attributes == null || !attributes.isDirectory()) {
+            changedLocations.add(directorySnapshot.getAbsolutePath());
+            return;
+        }
+        Set<String> knownEntries = new HashSet<>();
+        directorySnapshot.getChildren().forEach(child -> knownEntries.add(child.getName()));
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+            for (Path entry : entries) {
+                // Entries which are not part of the snapshot have been added, or are excluded from snapshotting.
+                // Invalidating them turns the directory into a partially known one, while keeping the snapshots of the other entries.
+                if (!knownEntries.contains(entry.getFileName().toString())) {
+                    changedLocations.add(entry.toString());
+                }
+            }
+        } catch (IOException | DirectoryIteratorException e) {
+            changedLocations.add(directorySnapshot.getAbsolutePath());
+            return;
+        }
+        directorySnapshot.getChildren().forEach(this::validate);
+    }
+
+    @Nullable
+    private static BasicFileAttributes readAttributes(Path path) {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -24,6 +24,7 @@
 import org.gradle.internal.operations.BuildOperationDescriptor;
 import org.gradle.internal.operations.BuildOperationRunner;
 import org.gradle.internal.operations.CallableBuildOperation;
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
 import org.gradle.internal.snapshot.FileSystemNode;
 import org.gradle.internal.snapshot.SnapshotHierarchy;
 import org.gradle.internal.vfs.impl.AbstractVirtualFileSystem;
@@ -40,6 +41,7 @@
 import org.gradle.internal.watch.vfs.FileSystemWatchingInformation;
 import org.gradle.internal.watch.vfs.FileSystemWatchingStatistics;
 import org.gradle.internal.watch.vfs.VfsLogging;
+import org.gradle.internal.watch.vfs.VirtualFileSystemStateStore;
 import org.gradle.internal.watch.vfs.WatchLogging;
 import org.gradle.internal.watch.vfs.WatchableFileSystemDetector;
 import org.slf4j.Logger;
@@ -56,6 +58,7 @@
 import java.util.List;
 import java.util.Set;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 public class WatchingVirtualFileSystem extends AbstractVirtualFileSystem implements BuildLifecycleAwareVirtualFileSystem, FileSystemWatchingInformation, Closeable {
     private static final Logger LOGGER = LoggerFactory.getLogger(WatchingVirtualFileSystem.class);
@@ -67,6 +70,8 @@ public class WatchingVirtualFileSystem extends AbstractVirtualFileSystem impleme
     private final LocationsWrittenByCurrentBuild locationsWrittenByCurrentBuild;
     private final WatchableFileSystemDetector watchableFileSystemDetector;
     private final FileChangeListeners fileChangeListeners;
+    @Nullable
+    private final VirtualFileSystemStateStore stateStore;
     private final List<File> unsupportedFileSystems = new ArrayList<>();
     private Logger warningLogger = LOGGER;
 
@@ -75,9 +80,15 @@ public class WatchingVirtualFileSystem extends AbstractVirtualFileSystem impleme
      */
     private final Set<File> watchableHierarchiesRegisteredEarly = new LinkedHashSet<>();
 
+    /**
+     * Watchable hierarchies registered since the daemon started, stored together with the state of the virtual file system.
+     */
+    private final Set<File> registeredWatchableHierarchies = new LinkedHashSet<>();
+
     private FileWatcherRegistry watchRegistry;
     private Exception reasonForNotWatchingFiles;
     private boolean stateInvalidatedAtStartOfBuild;
+    private boolean storedStateLoaded;
 
     public WatchingVirtualFileSystem(
         FileWatcherRegistryFactory watcherRegistryFactory,
@@ -85,7 +96,8 @@ public WatchingVirtualFileSystem(
         DaemonDocumentationIndex daemonDocumentationIndex,
         LocationsWrittenByCurrentBuild locationsWrittenByCurrentBuild,
         WatchableFileSystemDetector watchableFileSystemDetector,
-        FileChangeListeners fileChangeListeners
+        FileChangeListeners fileChangeListeners,
+        @Nullable VirtualFileSystemStateStore stateStore
     ) {
         super(root);
         this.watcherRegistryFactory = watcherRegistryFactory;
@@ -93,6 +105,7 @@ public WatchingVirtualFileSystem(
         this.locationsWrittenByCurrentBuild = locationsWrittenByCurrentBuild;
         this.watchableFileSystemDetector = watchableFileSystemDetector;
         this.fileChangeListeners = fileChangeListeners;
+        this.stateStore = stateStore;
     }
 
     @Override
@@ -135,14 +148,37 @@ public SnapshotHierarchy call(BuildOperationContext context) {
                         LOGGER.info("Unable to list file systems to check whether they can be watched. Disabling watching. Reason: {}", e.getMessage());
                     }
                     FileSystemWatchingStatistics statisticsSinceLastBuild;
-                    if (watchRegistry == null) {
+                    boolean startedWatching = watchRegistry == null;
+                    if (startedWatching) {
+                        RestoredStateValidator restoredState = null;
                         if (couldDetectUnsupportedFileSystems) {
                             context.setStatus("Starting file system watching");
                             newRoot = startWatching(currentRoot, watchMode, unsupportedFileSystems);
+                            VirtualFileSystemStateStore.State storedState = loadStoredStateOnce();
+                            if (storedState != null) {
+                                context.setStatus("Restoring file system state");
+                                newRoot = restoreSnapshots(newRoot, storedState);
+                                restoredState = RestoredStateValidator.validate(newRoot.rootSnapshots().collect(Collectors.toList()), storedState.getStoredAt());
+                                newRoot = invalidateChangedLocations(newRoot, restoredState);
+                            }
                         } else {
                             newRoot = currentRoot.empty();
                         }
-                        statisticsSinceLastBuild = null;
+                        if (restoredState != null && watchRegistry != null) {
+                            statisticsSinceLastBuild = new DefaultFileSystemWatchingStatistics(
+                                watchRegistry.getAndResetStatistics(),
+                                newRoot,
+                                restoredState.getUnchangedRegularFiles(),
+                                restoredState.getChangedLocations().size()
+                            );
+                            if (vfsLogging == VfsLogging.VERBOSE) {
+                                LOGGER.warn("Virtual file system restored information about {} unchanged files from a previous daemon, and invalidated {} changed locations",
+                                    statisticsSinceLastBuild.getRestoredRegularFiles(),
+                                    statisticsSinceLastBuild.getInvalidatedRestoredLocations());
+                            }
+                        } else {
+                            statisticsSinceLastBuild = null;
+                        }
                     } else {
                         FileWatcherRegistry.FileWatchingStatistics statistics = watchRegistry.getAndResetStatistics();
                         if (hasDroppedStateBecauseOfErrorsReceivedWhileWatching(statistics) || !couldDetectUnsupportedFileSystems) {
@@ -177,7 +213,7 @@ public boolean isWatchingEnabled() {
 
                                           @Override
                                           public boolean isStartedWatching() {
-                                              return statisticsSinceLastBuild == null;
+                                              return startedWatching;
                                           }
 
                                           @Override
@@ -205,6 +241,9 @@ public BuildOperationDescriptor.Builder description() {
     @Override
     public void registerWatchableHierarchy(File watchableHierarchy) {
         updateRootUnderLock(currentRoot -> {
+            if (stateStore != null) {
+                registeredWatchableHierarchies.add(watchableHierarchy);
+            }
             if (watchRegistry == null) {
                 watchableHierarchiesRegisteredEarly.add(watchableHierarchy);
                 return currentRoot;
@@ -246,6 +285,14 @@ public SnapshotHierarchy call(BuildOperationContext context) {
                         } else {
                             newRoot = withWatcherChangeErrorHandling(currentRoot, () -> watchRegistry.updateVfsOnBuildFinished(currentRoot, watchMode, maximumNumberOfWatchedHierarchies, unsupportedFileSystems));
                         }
+                        if (stateStore != null && watchRegistry != null) {
+                            context.setStatus("Storing file system state");
+                            stateStore.store(new VirtualFileSystemStateStore.State(
+                                System.currentTimeMillis(),
+                                ImmutableList.copyOf(registeredWatchableHierarchies),
+                                newRoot.rootSnapshots().collect(ImmutableList.toImmutableList())
+                            ));
+                        }
                         statisticsDuringBuild = new DefaultFileSystemWatchingStatistics(statistics, newRoot);
                         if (vfsLogging == VfsLogging.VERBOSE) {
                             LOGGER.warn("Received {} file system events during the current build while watching {} locations",
@@ -324,6 +371,62 @@ private SnapshotHierarchy startWatching(SnapshotHierarchy currentRoot, WatchMode
         }
     }
 
+    @Nullable
+    private VirtualFileSystemStateStore.State loadStoredStateOnce() {
+        if (stateStore == null || storedStateLoaded || watchRegistry == null) {
+            return null;
+        }
+        storedStateLoaded = true;
+        return stateStore.load();
+    }
+
+    /**
+     * Adds the snapshots stored by a previous daemon to the virtual file system.
+     *
+     * The snapshots are only added after registering the watchable hierarchies they belong to,
+     * so the locations are already watched when they are compared with the file system afterwards.
+     */
+    @CheckReturnValue
+    private SnapshotHierarchy restoreSnapshots(SnapshotHierarchy currentRoot, VirtualFileSystemStateStore.State storedState) {
+        List<String> restoredHierarchies = new ArrayList<>();
+        SnapshotHierarchy newRoot = withWatcherChangeErrorHandling(currentRoot, () -> storedState.getWatchableHierarchies().stream()
+            .filter(File::isDirectory)
+            .forEach(watchableHierarchy -> {
+                registeredWatchableHierarchies.add(watchableHierarchy);
+                watchRegistry.registerWatchableHierarchy(watchableHierarchy, currentRoot);
+                restoredHierarchies.add(watchableHierarchy.getAbsolutePath());
+            }));
+        for (FileSystemLocationSnapshot snapshot : storedState.getSnapshots()) {
+            if (watchRegistry == null) {
+                return newRoot;
+            }
+            if (isWithinAnyOf(snapshot.getAbsolutePath(), restoredHierarchies)) {
+                SnapshotHierarchy root = newRoot;
+                newRoot = updateNotifyingListeners(diffListener -> root.store(snapshot.getAbsolutePath(), snapshot, diffListener));
+            }
+        }
+        return newRoot;
+    }
+
+    @CheckReturnValue
+    private SnapshotHierarchy invalidateChangedLocations(SnapshotHierarchy currentRoot, RestoredStateValidator restoredState) {
+        SnapshotHierarchy newRoot = currentRoot;
+        for (String changedLocation : restoredState.getChangedLocations()) {
+            SnapshotHierarchy root = newRoot;
+            newRoot = updateNotifyingListeners(diffListener -> root.invalidate(changedLocation, diffListener));
+        }
+        return newRoot;
+    }
+
+    private static boolean isWithinAnyOf(String path, List<String> hierarchies) {
+        for (String hierarchy : hierarchies) {
+            if (path.equals(hierarchy) || (path.startsWith(hierarchy) && path.charAt(hierarchy.length()) == File.separatorChar)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public boolean isWatchingAnyLocations() {
         FileWatcherRegistry watchRegistry = this.watchRegistry;
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.watch.vfs.impl
+
+import org.gradle.internal.file.FileMetadata
+import org.gradle.internal.file.impl.DefaultFileMetadata
+import org.gradle.internal.hash.TestHashCodes
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot
+import org.gradle.internal.snapshot.RegularFileSnapshot
+import org.gradle.internal.snapshot.TestSnapshotFixture
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class RestoredStateValidatorTest extends Specification implements TestSnapshotFixture {
+
+    @Rule
+    TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider(getClass())
+
+    def storedAt = System.currentTimeMillis() + 10_000
+
+    def "unchanged locations are kept"() {
+        def dir = temporaryFolder.createDir("dir")
+        def file = dir.createFile("file.txt")
+        def missingFile = dir.file("missing.txt")
+
+        when:
+        def validator = RestoredStateValidator.validate([
+            directory(dir.absolutePath, [unchangedFile(file)]),
+            missing(missingFile.absolutePath)
+        ], storedAt)
+
+        then:
+        validator.changedLocations.empty
+        validator.unchangedRegularFiles == 1
+    }
+
+    def "changed files are invalidated"() {
+        def dir = temporaryFolder.createDir("dir")
+        def changedFile = dir.file("changed.txt") << "content"
+        def unchangedFile = dir.file("unchanged.txt") << "content"
+        def snapshot = directory(dir.absolutePath, [unchangedFile(changedFile), unchangedFile(unchangedFile)])
+        changedFile << "more content"
+
+        when:
+        def validator = RestoredStateValidator.validate([snapshot], storedAt)
+
+        then:
+        validator.changedLocations == [changedFile.absolutePath]
+        validator.unchangedRegularFiles == 1
+    }
+
+    def "added and removed entries are invalidated"() {
+        def dir = temporaryFolder.createDir("dir")
+        def removedFile = dir.createFile("removed.txt")
+        def snapshot = directory(dir.absolutePath, [unchangedFile(removedFile)])
+        def addedFile = dir.createFile("added.txt")
+        removedFile.delete()
+
+        when:
+        def validator = RestoredStateValidator.validate([snapshot], storedAt)
+
+        then:
+        validator.changedLocations as Set == [addedFile.absolutePath, removedFile.absolutePath] as Set
+        validator.unchangedRegularFiles == 0
+    }
+
+    def "created files are invalidated"() {
+        def missingFile = temporaryFolder.file("missing.txt")
+        def snapshot = missing(missingFile.absolutePath)
+        missingFile.createFile()
+
+        when:
+        def validator = RestoredStateValidator.validate([snapshot], storedAt)
+
+        then:
+        validator.changedLocations == [missingFile.absolutePath]
+    }
+
+    def "files modified shortly before the state has been stored are invalidated"() {
+        def file = temporaryFolder.createFile("file.txt")
+        def snapshot = unchangedFile(file)
+
+        when:
+        def validator = RestoredStateValidator.validate([snapshot], file.lastModified() + 1000)
+
+        then:
+        validator.changedLocations == [file.absolutePath]
+        validator.unchangedRegularFiles == 0
+    }
+
+    def "locations accessed via symlinks are invalidated"() {
+        def file = temporaryFolder.createFile("file.txt")
+        def snapshot = regularFile(file.absolutePath, FileMetadata.AccessType.VIA_SYMLINK)
+
+        when:
+        def validator = RestoredStateValidator.validate([snapshot], storedAt)
+
+        then:
+        validator.changedLocations == [file.absolutePath]
+    }
+
+    private static FileSystemLocationSnapshot unchangedFile(TestFile file) {
+        new RegularFileSnapshot(file.absolutePath, file.name, TestHashCodes.hashCodeFrom(1234), DefaultFileMetadata.file(file.lastModified(), file.length(), FileMetadata.AccessType.DIRECT))
+    }
+}
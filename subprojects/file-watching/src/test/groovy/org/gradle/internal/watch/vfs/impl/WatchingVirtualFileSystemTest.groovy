@@ -16,22 +16,35 @@
 
 package org.gradle.internal.watch.vfs.impl
 
+import com.google.common.collect.ImmutableList
 import net.rubygrapefruit.platform.NativeException
+import org.gradle.internal.file.FileMetadata
+import org.gradle.internal.file.impl.DefaultFileMetadata
+import org.gradle.internal.hash.TestHashCodes
 import org.gradle.internal.operations.TestBuildOperationExecutor
 import org.gradle.internal.snapshot.CaseSensitivity
+import org.gradle.internal.snapshot.RegularFileSnapshot
 import org.gradle.internal.snapshot.SnapshotHierarchy
+import org.gradle.internal.snapshot.TestSnapshotFixture
 import org.gradle.internal.vfs.impl.DefaultSnapshotHierarchy
 import org.gradle.internal.watch.registry.FileWatcherRegistry
 import org.gradle.internal.watch.registry.FileWatcherRegistryFactory
 import org.gradle.internal.watch.registry.WatchMode
 import org.gradle.internal.watch.registry.impl.DaemonDocumentationIndex
 import org.gradle.internal.watch.vfs.FileChangeListeners
+import org.gradle.internal.watch.vfs.VirtualFileSystemStateStore
 import org.gradle.internal.watch.vfs.VfsLogging
 import org.gradle.internal.watch.vfs.WatchLogging
 import org.gradle.internal.watch.vfs.WatchableFileSystemDetector
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
 import spock.lang.Specification
 
-class WatchingVirtualFileSystemTest extends Specification {
+class WatchingVirtualFileSystemTest extends Specification implements TestSnapshotFixture {
+    @Rule
+    TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider(getClass())
+
     def watcherRegistryFactory = Mock(FileWatcherRegistryFactory)
     def watcherRegistry = Mock(FileWatcherRegistry)
     def emptySnapshotHierarchy = DefaultSnapshotHierarchy.empty(CaseSensitivity.CASE_SENSITIVE)
@@ -49,7 +62,8 @@ class WatchingVirtualFileSystemTest extends Specification {
         daemonDocumentationIndex,
         locationsUpdatedByCurrentBuild,
         watchableFileSystemDetector,
-        fileChangeListeners
+        fileChangeListeners,
+        null
     )
 
     def "invalidates the virtual file system before and after the build when watching is disabled"() {
@@ -228,4 +242,42 @@ class WatchingVirtualFileSystemTest extends Specification {
         1 * watcherRegistry.close()
         0 * _
     }
+
+    def "restores the stored state and invalidates locations changed since it was stored"() {
+        def dir = temporaryFolder.createDir("dir")
+        def changedFile = dir.file("changed.txt") << "content"
+        def unchangedFile = dir.file("unchanged.txt") << "content"
+        def stateStore = Stub(VirtualFileSystemStateStore) {
+            load() >> new VirtualFileSystemStateStore.State(
+                System.currentTimeMillis() + 10_000,
+                ImmutableList.of(dir),
+                ImmutableList.of(directory(dir.absolutePath, [fileSnapshot(changedFile), fileSnapshot(unchangedFile)]))
+            )
+        }
+        def restoringVirtualFileSystem = new WatchingVirtualFileSystem(
+            watcherRegistryFactory,
+            emptySnapshotHierarchy,
+            daemonDocumentationIndex,
+            locationsUpdatedByCurrentBuild,
+            watchableFileSystemDetector,
+            fileChangeListeners,
+            stateStore
+        )
+        changedFile << "more content"
+
+        when:
+        restoringVirtualFileSystem.afterBuildStarted(WatchMode.ENABLED, VfsLogging.NORMAL, WatchLogging.NORMAL, buildOperationRunner)
+        then:
+        1 * watcherRegistryFactory.createFileWatcherRegistry(_) >> watcherRegistry
+        1 * watcherRegistry.updateVfsOnBuildStarted(_, _, _) >> { SnapshotHierarchy root, watchMode, unsupportedFileSystems -> root }
+        1 * watcherRegistry.registerWatchableHierarchy(dir, _)
+        1 * watcherRegistry.getAndResetStatistics() >> Stub(FileWatcherRegistry.FileWatchingStatistics)
+
+        restoringVirtualFileSystem.root.findSnapshot(unchangedFile.absolutePath).present
+        !restoringVirtualFileSystem.root.findSnapshot(changedFile.absolutePath).present
+    }
+
+    private static RegularFileSnapshot fileSnapshot(TestFile file) {
+        new RegularFileSnapshot(file.absolutePath, file.name, TestHashCodes.hashCodeFrom(file.text.hashCode()), DefaultFileMetadata.file(file.lastModified(), file.length(), FileMetadata.AccessType.DIRECT))
+    }
 }
@@ -21,21 +21,62 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
 
 public class DefaultFileHasher implements FileHasher {
+    /**
+     * System property to set the file size in bytes from which file contents are hashed via memory mapped regions instead of being streamed through a heap buffer.
+     * Memory mapping is disabled when the property is not set.
+     */
+    public static final String MEMORY_MAPPING_THRESHOLD_PROPERTY = "org.gradle.internal.hash.mmap-threshold";
+
     private final StreamHasher streamHasher;
+    private final long memoryMappingThreshold;
 
     public DefaultFileHasher(StreamHasher streamHasher) {
+        this(streamHasher, Long.getLong(MEMORY_MAPPING_THRESHOLD_PROPERTY, Long.MAX_VALUE));
+    }
+
+    public DefaultFileHasher(StreamHasher streamHasher, long memoryMappingThreshold) {
         this.streamHasher = streamHasher;
+        this.memoryMappingThreshold = memoryMappingThreshold;
     }
 
     @Override
     public HashCode hash(File file) {
+        return hash(file, file.length());
+    }
+
+    @Override
+    public HashCode hash(File file, long length, long lastModified) {
+        return hash(file, length);
+    }
+
+    private HashCode hash(File file, long length) {
+        if (length >= memoryMappingThreshold) {
+            return hashMapped(file);
+        }
+        return hashStreamed(file);
+    }
+
+    private HashCode hashMapped(File file) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return streamHasher.hashMapped(channel);
+        } catch (NoSuchFileException e) {
+            throw new UncheckedIOException(String.format("Failed to create %s hash for file '%s' as it does not exist.", Hashing.defaultFunction().getAlgorithm(), file), e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Failed to create %s hash for file '%s'.", Hashing.defaultFunction().getAlgorithm(), file), e);
+        }
+    }
+
+    private HashCode hashStreamed(File file) {
         InputStream inputStream;
         try {
             inputStream = new FileInputStream(file);
         } catch (FileNotFoundException e) {
-            throw new UncheckedIOException(String.format("Failed to create MD5 hash for file '%s' as it does not exist.", file), e);
+            throw new UncheckedIOException(String.format("Failed to create %s hash for file '%s' as it does not exist.", Hashing.defaultFunction().getAlgorithm(), file), e);
         }
         try {
             return streamHasher.hash(inputStream);
@@ -47,9 +88,4 @@ public HashCode hash(File file) {
             }
         }
     }
-
-    @Override
-    public HashCode hash(File file, long length, long lastModified) {
-        return hash(file);
-    }
 }
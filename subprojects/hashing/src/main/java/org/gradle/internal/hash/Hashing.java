@@ -28,6 +28,7 @@
 import java.nio.ByteOrder;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
 
 import static org.gradle.internal.hash.HashCode.Usage.SAFE_TO_REUSE_BYTES;
 
@@ -47,7 +48,21 @@ private Hashing() {
 
     private static final HashFunction SHA512 = MessageDigestHashFunction.of("SHA-512");
 
-    private static final HashFunction DEFAULT = MD5;
+    private static final HashFunction MURMUR3_128 = new Murmur3HashFunction();
+
+    /**
+     * System property to select the default hash function by its algorithm name, e.g. {@code -Dorg.gradle.internal.hash.function=MURMUR3-128}.
+     * When not set, MD5 is used.
+     */
+    public static final String DEFAULT_FUNCTION_PROPERTY = "org.gradle.internal.hash.function";
+
+    private static final HashFunction DEFAULT = selectDefaultFunction(System.getProperty(DEFAULT_FUNCTION_PROPERTY));
+
+    private static HashFunction selectDefaultFunction(String algorithm) {
+        return algorithm == null || algorithm.isEmpty()
+            ? MD5
+            : forAlgorithm(algorithm);
+    }
 
     /**
      * Returns a new {@link Hasher} based on the default hashing implementation.
@@ -115,6 +130,20 @@ public static HashFunction defaultFunction() {
         return DEFAULT;
     }
 
+    /**
+     * Returns the hashing function for the given algorithm name, ignoring case.
+     *
+     * @throws IllegalArgumentException if no hashing function is known by the given name.
+     */
+    public static HashFunction forAlgorithm(String algorithm) {
+        for (HashFunction function : new HashFunction[]{MD5, SHA1, SHA256, SHA512, MURMUR3_128}) {
+            if (function.getAlgorithm().equalsIgnoreCase(algorithm)) {
+                return function;
+            }
+        }
+        throw new IllegalArgumentException("Unknown hash function: " + algorithm.toUpperCase(Locale.ROOT));
+    }
+
     /**
      * MD5 hashing function.
      */
@@ -143,33 +172,28 @@ public static HashFunction sha512() {
         return SHA512;
     }
 
-    private static abstract class MessageDigestHashFunction implements HashFunction {
-        private final int hexDigits;
+    /**
+     * Non-cryptographic 128-bit MurmurHash3 (x64 variant) hashing function.
+     * Considerably faster than the message digest based functions, but not suitable where collision resistance against malicious input matters.
+     */
+    public static HashFunction murmur3() {
+        return MURMUR3_128;
+    }
 
-        public MessageDigestHashFunction(int hashBits) {
-            this.hexDigits = hashBits / 4;
-        }
+    /**
+     * Without this cast, when the code compiled by Java 9+ is executed on Java 8, it will throw
+     * java.lang.NoSuchMethodError: Method flip()Ljava/nio/ByteBuffer; does not exist in class java.nio.ByteBuffer
+     */
+    @SuppressWarnings("RedundantCast")
+    private static <T extends Buffer> Buffer castBuffer(T byteBuffer) {
+        return (Buffer) byteBuffer;
+    }
 
-        public static MessageDigestHashFunction of(String algorithm) {
-            MessageDigest prototype;
-            try {
-                prototype = MessageDigest.getInstance(algorithm);
-            } catch (NoSuchAlgorithmException e) {
-                throw new IllegalArgumentException("Cannot instantiate digest algorithm: " + algorithm);
-            }
-            int hashBits = prototype.getDigestLength() * 8;
-            try {
-                prototype.clone();
-                return new CloningMessageDigestHashFunction(prototype, hashBits);
-            } catch (CloneNotSupportedException e) {
-                return new RegularMessageDigestHashFunction(algorithm, hashBits);
-            }
-        }
+    private static abstract class AbstractHashFunction implements HashFunction {
+        private final int hexDigits;
 
-        @Override
-        public PrimitiveHasher newPrimitiveHasher() {
-            MessageDigest digest = createDigest();
-            return new MessageDigestHasher(digest);
+        public AbstractHashFunction(int hashBits) {
+            this.hexDigits = hashBits / 4;
         }
 
         @Override
@@ -209,8 +233,6 @@ private HashingOutputStream primitiveStreamHasher() {
             return new HashingOutputStream(this, ByteStreams.nullOutputStream());
         }
 
-        protected abstract MessageDigest createDigest();
-
         @Override
         public int getHexDigits() {
             return hexDigits;
@@ -222,6 +244,52 @@ public String toString() {
         }
     }
 
+    private static abstract class MessageDigestHashFunction extends AbstractHashFunction {
+        public MessageDigestHashFunction(int hashBits) {
+            super(hashBits);
+        }
+
+        public static MessageDigestHashFunction of(String algorithm) {
+            MessageDigest prototype;
+            try {
+                prototype = MessageDigest.getInstance(algorithm);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalArgumentException("Cannot instantiate digest algorithm: " + algorithm);
+            }
+            int hashBits = prototype.getDigestLength() * 8;
+            try {
+                prototype.clone();
+                return new CloningMessageDigestHashFunction(prototype, hashBits);
+            } catch (CloneNotSupportedException e) {
+                return new RegularMessageDigestHashFunction(algorithm, hashBits);
+            }
+        }
+
+        @Override
+        public PrimitiveHasher newPrimitiveHasher() {
+            MessageDigest digest = createDigest();
+            return new MessageDigestHasher(digest);
+        }
+
+        protected abstract MessageDigest createDigest();
+    }
+
+    private static class Murmur3HashFunction extends AbstractHashFunction {
+        public Murmur3HashFunction() {
+            super(128);
+        }
+
+        @Override
+        public String getAlgorithm() {
+            return "MURMUR3-128";
+        }
+
+        @Override
+        public PrimitiveHasher newPrimitiveHasher() {
+            return new Murmur3Hasher();
+        }
+    }
+
     private static class CloningMessageDigestHashFunction extends MessageDigestHashFunction {
         private final MessageDigest prototype;
 
@@ -298,20 +366,16 @@ public void putBytes(byte[] bytes, int off, int len) {
             getDigest().update(bytes, off, len);
         }
 
+        @Override
+        public void putBytes(ByteBuffer bytes) {
+            getDigest().update(bytes);
+        }
+
         private void update(int length) {
             getDigest().update(buffer.array(), 0, length);
             castBuffer(buffer).clear();
         }
 
-        /**
-         * Without this cast, when the code compiled by Java 9+ is executed on Java 8, it will throw
-         * java.lang.NoSuchMethodError: Method flip()Ljava/nio/ByteBuffer; does not exist in class java.nio.ByteBuffer
-         */
-        @SuppressWarnings("RedundantCast")
-        private static <T extends Buffer> Buffer castBuffer(T byteBuffer) {
-            return (Buffer) byteBuffer;
-        }
-
         @Override
         public void putInt(int value) {
             buffer.putInt(value);
@@ -353,6 +417,224 @@ public HashCode hash() {
         }
     }
 
+    /**
+     * Streaming implementation of the x64 128-bit variant of MurmurHash3 with a seed of 0.
+     * Produces the same result as Guava's {@code Hashing.murmur3_128()}.
+     */
+    private static class Murmur3Hasher implements PrimitiveHasher {
+        private static final int BLOCK_SIZE = 16;
+        private static final long C1 = 0x87c37b91114253d5L;
+        private static final long C2 = 0x4cf5ad432745937fL;
+
+        private final byte[] buffer = new byte[BLOCK_SIZE];
+        private int buffered;
+        private long length;
+        private long h1;
+        private long h2;
+        private boolean done;
+
+        private void checkNotDone() {
+            if (done) {
+                throw new IllegalStateException("Cannot reuse hasher!");
+            }
+        }
+
+        @Override
+        public void putByte(byte b) {
+            checkNotDone();
+            buffer[buffered++] = b;
+            length++;
+            if (buffered == BLOCK_SIZE) {
+                processBlock(buffer, 0);
+                buffered = 0;
+            }
+        }
+
+        @Override
+        public void putBytes(byte[] bytes) {
+            putBytes(bytes, 0, bytes.length);
+        }
+
+        @Override
+        public void putBytes(byte[] bytes, int off, int len) {
+            checkNotDone();
+            length += len;
+            if (buffered > 0) {
+                int toCopy = Math.min(BLOCK_SIZE - buffered, len);
+                System.arraycopy(bytes, off, buffer, buffered, toCopy);
+                buffered += toCopy;
+                off += toCopy;
+                len -= toCopy;
+                if (buffered < BLOCK_SIZE) {
+                    return;
+                }
+                processBlock(buffer, 0);
+                buffered = 0;
+            }
+            while (len >= BLOCK_SIZE) {
+                processBlock(bytes, off);
+                off += BLOCK_SIZE;
+                len -= BLOCK_SIZE;
+            }
+            if (len > 0) {
+                System.arraycopy(bytes, off, buffer, 0, len);
+                buffered = len;
+            }
+        }
+
+        @Override
+        public void putBytes(ByteBuffer bytes) {
+            checkNotDone();
+            if (bytes.hasArray()) {
+                int remaining = bytes.remaining();
+                putBytes(bytes.array(), bytes.arrayOffset() + bytes.position(), remaining);
+                castBuffer(bytes).position(bytes.limit());
+                return;
+            }
+            length += bytes.remaining();
+            while (buffered > 0 && bytes.hasRemaining()) {
+                buffer[buffered++] = bytes.get();
+                if (buffered == BLOCK_SIZE) {
+                    processBlock(buffer, 0);
+                    buffered = 0;
+                }
+            }
+            ByteOrder originalOrder = bytes.order();
+            bytes.order(ByteOrder.LITTLE_ENDIAN);
+            try {
+                while (bytes.remaining() >= BLOCK_SIZE) {
+                    processBlock(bytes.getLong(), bytes.getLong());
+                }
+            } finally {
+                bytes.order(originalOrder);
+            }
+            int remaining = bytes.remaining();
+            if (remaining > 0) {
+                bytes.get(buffer, 0, remaining);
+                buffered = remaining;
+            }
+        }
+
+        private void processBlock(byte[] bytes, int off) {
+            processBlock(readLong(bytes, off), readLong(bytes, off + 8));
+        }
+
+        private void processBlock(long k1, long k2) {
+            h1 ^= mixK1(k1);
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52dce729;
+
+            h2 ^= mixK2(k2);
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        private static long readLong(byte[] bytes, int off) {
+            return (bytes[off] & 0xFFL)
+                | ((bytes[off + 1] & 0xFFL) << 8)
+                | ((bytes[off + 2] & 0xFFL) << 16)
+                | ((bytes[off + 3] & 0xFFL) << 24)
+                | ((bytes[off + 4] & 0xFFL) << 32)
+                | ((bytes[off + 5] & 0xFFL) << 40)
+                | ((bytes[off + 6] & 0xFFL) << 48)
+                | ((bytes[off + 7] & 0xFFL) << 56);
+        }
+
+        private static long mixK1(long k1) {
+            k1 *= C1;
+            k1 = Long.rotateLeft(k1, 31);
+            k1 *= C2;
+            return k1;
+        }
+
+        private static long mixK2(long k2) {
+            k2 *= C2;
+            k2 = Long.rotateLeft(k2, 33);
+            k2 *= C1;
+            return k2;
+        }
+
+        private static long fmix64(long k) {
+            k ^= k >>> 33;
+            k *= 0xff51afd7ed558ccdL;
+            k ^= k >>> 33;
+            k *= 0xc4ceb9fe1a85ec53L;
+            k ^= k >>> 33;
+            return k;
+        }
+
+        @Override
+        public void putInt(int value) {
+            putByte((byte) value);
+            putByte((byte) (value >>> 8));
+            putByte((byte) (value >>> 16));
+            putByte((byte) (value >>> 24));
+        }
+
+        @Override
+        public void putLong(long value) {
+            putInt((int) value);
+            putInt((int) (value >>> 32));
+        }
+
+        @Override
+        public void putDouble(double value) {
+            long longValue = Double.doubleToRawLongBits(value);
+            putLong(longValue);
+        }
+
+        @Override
+        public void putBoolean(boolean value) {
+            putByte((byte) (value ? 1 : 0));
+        }
+
+        @Override
+        public void putString(CharSequence value) {
+            putBytes(value.toString().getBytes(Charsets.UTF_8));
+        }
+
+        @Override
+        public void putHash(HashCode hashCode) {
+            hashCode.appendToHasher(this);
+        }
+
+        @Override
+        public HashCode hash() {
+            checkNotDone();
+            done = true;
+            long k1 = 0;
+            long k2 = 0;
+            for (int i = buffered - 1; i >= 8; i--) {
+                k2 ^= (buffer[i] & 0xFFL) << ((i - 8) * 8);
+            }
+            for (int i = Math.min(buffered, 8) - 1; i >= 0; i--) {
+                k1 ^= (buffer[i] & 0xFFL) << (i * 8);
+            }
+            if (buffered > 8) {
+                h2 ^= mixK2(k2);
+            }
+            if (buffered > 0) {
+                h1 ^= mixK1(k1);
+            }
+
+            h1 ^= length;
+            h2 ^= length;
+
+            h1 += h2;
+            h2 += h1;
+
+            h1 = fmix64(h1);
+            h2 = fmix64(h2);
+
+            h1 += h2;
+            h2 += h1;
+
+            return new HashCode.HashCode128(h1, h2);
+        }
+    }
+
     private static class DefaultHasher implements Hasher {
         private final PrimitiveHasher hasher;
 
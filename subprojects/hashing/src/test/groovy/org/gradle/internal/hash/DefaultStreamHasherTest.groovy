@@ -18,6 +18,9 @@ package org.gradle.internal.hash
 
 import spock.lang.Specification
 
+import java.nio.channels.FileChannel
+import java.nio.file.StandardOpenOption
+
 class DefaultStreamHasherTest extends Specification {
     def "can hash input"() {
         def input = new ByteArrayInputStream("hello".bytes)
@@ -36,4 +39,23 @@ class DefaultStreamHasherTest extends Specification {
         hash.toString() == "af67a92e9f73b51572e9b94e343d2840"
         output.toByteArray() == "hello".bytes
     }
+
+    def "hashing memory mapped content produces the same hash as streaming it"() {
+        def file = File.createTempFile("stream-hasher", ".bin")
+        file.deleteOnExit()
+        def content = new byte[size]
+        new Random(1234L).nextBytes(content)
+        file.bytes = content
+
+        when:
+        def mappedHash = FileChannel.open(file.toPath(), StandardOpenOption.READ).withCloseable {
+            new DefaultStreamHasher().hashMapped(it)
+        }
+
+        then:
+        mappedHash == new DefaultStreamHasher().hash(new ByteArrayInputStream(content))
+
+        where:
+        size << [0, 5, 8192, 100000]
+    }
 }
@@ -18,6 +18,8 @@ package org.gradle.internal.hash
 
 import spock.lang.Specification
 
+import java.nio.ByteBuffer
+
 import static java.lang.Thread.currentThread
 import static java.util.concurrent.CompletableFuture.supplyAsync
 import static java.util.concurrent.Executors.newFixedThreadPool
@@ -109,6 +111,81 @@ class HashingTest extends Specification {
         hashStrings(["abc", "de"]) != hashStrings(["ab", "cde"])
     }
 
+    def 'murmur3 hasher produces the same hashes as Guava when fed in arbitrary chunks'() {
+        given:
+        def random = new Random(1234L)
+        def bytes = new byte[size]
+        random.nextBytes(bytes)
+
+        when:
+        def hasher = Hashing.murmur3().newPrimitiveHasher()
+        int offset = 0
+        while (offset < bytes.length) {
+            int chunk = Math.min(bytes.length - offset, random.nextInt(40))
+            if (chunk == 1) {
+                hasher.putByte(bytes[offset])
+            } else {
+                hasher.putBytes(bytes, offset, chunk)
+            }
+            offset += chunk
+        }
+        hasher.putInt(42)
+        hasher.putLong(-7L)
+
+        then:
+        def expected = com.google.common.hash.Hashing.murmur3_128().newHasher()
+            .putBytes(bytes)
+            .putInt(42)
+            .putLong(-7L)
+            .hash()
+        hasher.hash().toString() == expected.toString()
+
+        where:
+        size << [0, 1, 7, 8, 9, 15, 16, 17, 31, 32, 33, 1000, 65536]
+    }
+
+    def 'feeding a direct buffer produces the same hash as feeding a byte array with #function'() {
+        given:
+        def bytes = new byte[1000]
+        new Random(1234L).nextBytes(bytes)
+        def direct = ByteBuffer.allocateDirect(bytes.length)
+        direct.put(bytes)
+        direct.flip()
+
+        when:
+        def bufferHasher = function.newPrimitiveHasher()
+        bufferHasher.putByte(1 as byte)
+        bufferHasher.putBytes(direct)
+        def arrayHasher = function.newPrimitiveHasher()
+        arrayHasher.putByte(1 as byte)
+        arrayHasher.putBytes(bytes)
+
+        then:
+        !direct.hasRemaining()
+        bufferHasher.hash() == arrayHasher.hash()
+
+        where:
+        function << [Hashing.md5(), Hashing.murmur3()]
+    }
+
+    def 'can look up hash function by algorithm name'() {
+        expect:
+        Hashing.forAlgorithm("md5").is(Hashing.md5())
+        Hashing.forAlgorithm("SHA-1").is(Hashing.sha1())
+        Hashing.forAlgorithm("murmur3-128").is(Hashing.murmur3())
+        Hashing.murmur3().hexDigits == 32
+        Hashing.murmur3().hashString("abc").length() == 16
+    }
+
+    def 'fails when looking up unknown hash function'() {
+        when:
+        Hashing.forAlgorithm("crc32")
+
+        then:
+        def e = thrown(IllegalArgumentException)
+        e.message == "Unknown hash function: CRC32"
+    }
+
     def hashStrings(List<String> strings) {
         def hasher = Hashing.newHasher()
         strings.each { hasher.putString(it) }
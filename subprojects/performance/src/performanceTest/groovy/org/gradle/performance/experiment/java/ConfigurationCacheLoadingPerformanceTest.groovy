@@ -0,0 +1,73 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.performance.experiment.java
+
+import org.gradle.initialization.StartParameterBuildOptions.ConfigurationCacheOption
+import org.gradle.performance.AbstractCrossBuildPerformanceTest
+import org.gradle.performance.annotations.RunFor
+import org.gradle.performance.annotations.Scenario
+import org.gradle.performance.fixture.GradleBuildExperimentSpec
+
+import static org.gradle.performance.annotations.ScenarioType.PER_WEEK
+import static org.gradle.performance.results.OperatingSystem.LINUX
+
+@RunFor(
+    @Scenario(type = PER_WEEK, operatingSystems = [LINUX], testProjects = ["largeJavaMultiProjectNoBuildSrc"])
+)
+class ConfigurationCacheLoadingPerformanceTest extends AbstractCrossBuildPerformanceTest {
+
+    def "assemble loading configuration cache state"() {
+        given:
+        runner.testGroup = "configuration cache loading"
+        runner.buildSpec {
+            displayName("mapped parallel load")
+            invocation {
+                args(
+                    "-Dorg.gradle.configuration-cache.internal.parallel-load=true",
+                    "-Dorg.gradle.configuration-cache.internal.mapped-load=true"
+                )
+            }
+        }
+        runner.buildSpec {
+            displayName("parallel load")
+            invocation {
+                args("-Dorg.gradle.configuration-cache.internal.parallel-load=true")
+            }
+        }
+        runner.baseline {
+            displayName("sequential load")
+        }
+
+        when:
+        def results = runner.run()
+
+        then:
+        results
+    }
+
+    @Override
+    protected void defaultSpec(GradleBuildExperimentSpec.GradleBuilder builder) {
+        super.defaultSpec(builder)
+        // The first warm-up build stores the configuration cache state, the following builds load it
+        builder.warmUpCount = 5
+        builder.invocationCount = 20
+        builder.invocation {
+            tasksToRun("assemble")
+            args("-D${ConfigurationCacheOption.PROPERTY_NAME}=true")
+        }
+    }
+}
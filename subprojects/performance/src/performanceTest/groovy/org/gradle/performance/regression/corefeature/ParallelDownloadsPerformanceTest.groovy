@@ -103,6 +103,22 @@ class ParallelDownloadsPerformanceTest extends AbstractCrossVersionPerformanceTe
         stopServer()
     }
 
+    def "resolves dependencies from external repository (metadata prefetch)"() {
+        startServer()
+
+        given:
+        runner.tasksToRun = ['resolveDependencies']
+        runner.args = ['-I', 'init.gradle', "-PmirrorPath=${repoDir.absolutePath}", "-PmavenRepoURL=http://127.0.0.1:${serverPort}/", "-Dorg.gradle.parallel=false", "-Dorg.gradle.internal.dm.metadata.prefetch=true"]
+
+        when:
+        def result = runner.run()
+
+        then:
+        result.assertCurrentVersionHasNotRegressed()
+
+        cleanup:
+        stopServer()
+    }
 
     @Override
     WebAppContext createContext() {
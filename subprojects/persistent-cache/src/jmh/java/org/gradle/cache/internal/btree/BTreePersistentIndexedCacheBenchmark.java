@@ -0,0 +1,94 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.btree;
+
+import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.gradle.internal.serialize.Serializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Compares random lookups and updates in a large {@link BTreePersistentIndexedCache} backed by buffered file I/O and by memory mapped regions.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class BTreePersistentIndexedCacheBenchmark {
+    private static final Serializer<Long> LONG_SERIALIZER = BaseSerializerFactory.LONG_SERIALIZER;
+
+    @Param({"1000000"})
+    int entries;
+
+    @Param({"file", "mmap"})
+    String store;
+
+    File cacheFile;
+    BTreePersistentIndexedCache<Long, Long> cache;
+    Random random;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        cacheFile = File.createTempFile("btree-benchmark", ".bin");
+        if (!cacheFile.delete()) {
+            throw new IOException("Could not delete " + cacheFile);
+        }
+        cache = createCache();
+        for (long key = 0; key < entries; key++) {
+            cache.put(key, key);
+        }
+        // Start from a cold store, as a new build would
+        cache.close();
+        cache = createCache();
+        random = new Random(1234L);
+    }
+
+    private BTreePersistentIndexedCache<Long, Long> createCache() {
+        return new BTreePersistentIndexedCache<Long, Long>(cacheFile, LONG_SERIALIZER, LONG_SERIALIZER, "mmap".equals(store));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        cache.close();
+        if (!cacheFile.delete()) {
+            cacheFile.deleteOnExit();
+        }
+    }
+
+    @Benchmark
+    public Long get() {
+        return cache.get((long) random.nextInt(entries));
+    }
+
+    @Benchmark
+    public void put() {
+        long key = random.nextInt(entries);
+        cache.put(key, key + 1);
+    }
+}
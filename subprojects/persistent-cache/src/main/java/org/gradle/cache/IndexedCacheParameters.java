@@ -27,24 +27,28 @@
     private final Serializer<K> keySerializer;
     private final Serializer<V> valueSerializer;
     private final CacheDecorator cacheDecorator;
+    private final boolean memoryMapped;
+    private final boolean lockFreeReads;
 
     public static <K, V> IndexedCacheParameters<K, V> of(String cacheName, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
-        return new IndexedCacheParameters<K, V>(cacheName, keySerializer, valueSerializer, null);
+        return new IndexedCacheParameters<K, V>(cacheName, keySerializer, valueSerializer, null, false, false);
     }
 
     public static <K, V> IndexedCacheParameters<K, V> of(String cacheName, Class<K> keyType, Serializer<V> valueSerializer) {
-        return new IndexedCacheParameters<K, V>(cacheName, SERIALIZER_FACTORY.getSerializerFor(keyType), valueSerializer, null);
+        return new IndexedCacheParameters<K, V>(cacheName, SERIALIZER_FACTORY.getSerializerFor(keyType), valueSerializer, null, false, false);
     }
 
     public static <K, V> IndexedCacheParameters<K, V> of(String cacheName, Class<K> keyType, Class<V> valueType) {
-        return new IndexedCacheParameters<K, V>(cacheName, SERIALIZER_FACTORY.getSerializerFor(keyType), SERIALIZER_FACTORY.getSerializerFor(valueType), null);
+        return new IndexedCacheParameters<K, V>(cacheName, SERIALIZER_FACTORY.getSerializerFor(keyType), SERIALIZER_FACTORY.getSerializerFor(valueType), null, false, false);
     }
 
-    private IndexedCacheParameters(String cacheName, Serializer<K> keySerializer, Serializer<V> valueSerializer, @Nullable CacheDecorator cacheDecorator) {
+    private IndexedCacheParameters(String cacheName, Serializer<K> keySerializer, Serializer<V> valueSerializer, @Nullable CacheDecorator cacheDecorator, boolean memoryMapped, boolean lockFreeReads) {
         this.cacheName = cacheName;
         this.keySerializer = keySerializer;
         this.valueSerializer = valueSerializer;
         this.cacheDecorator = cacheDecorator;
+        this.memoryMapped = memoryMapped;
+        this.lockFreeReads = lockFreeReads;
     }
 
     public String getCacheName() {
@@ -64,7 +68,39 @@ public CacheDecorator getCacheDecorator() {
         return cacheDecorator;
     }
 
+    /**
+     * Whether the cache file is accessed through memory mapped regions, rather than through buffered file I/O.
+     */
+    public boolean isMemoryMapped() {
+        return memoryMapped;
+    }
+
+    /**
+     * Whether entries can be read from the cache file without acquiring the file lock, while another process holds it.
+     */
+    public boolean isLockFreeReads() {
+        return lockFreeReads;
+    }
+
     public IndexedCacheParameters<K, V> withCacheDecorator(CacheDecorator cacheDecorator) {
-        return new IndexedCacheParameters<K, V>(cacheName, keySerializer, valueSerializer, cacheDecorator);
+        return new IndexedCacheParameters<K, V>(cacheName, keySerializer, valueSerializer, cacheDecorator, memoryMapped, lockFreeReads);
+    }
+
+    /**
+     * Accesses the cache file through memory mapped regions, which is faster for large caches with random lookups.
+     * The file format is the same, so the choice can change between builds.
+     * This only has an effect when the {@code org.gradle.cache.memory-mapped} system property is set to {@code true}, and not on Windows.
+     */
+    public IndexedCacheParameters<K, V> withMemoryMapping() {
+        return new IndexedCacheParameters<K, V>(cacheName, keySerializer, valueSerializer, cacheDecorator, true, lockFreeReads);
+    }
+
+    /**
+     * Allows reading entries from the cache file while another process holds the file lock, instead of waiting for the lock.
+     * Reads are validated against the state of the lock file and fall back to acquiring the lock when the cache was changed while reading.
+     * This only has an effect for caches that are locked on demand and that can detect changes by other processes.
+     */
+    public IndexedCacheParameters<K, V> withLockFreeReads() {
+        return new IndexedCacheParameters<K, V>(cacheName, keySerializer, valueSerializer, cacheDecorator, memoryMapped, true);
     }
 }
@@ -40,6 +40,7 @@
 import org.gradle.internal.UncheckedException;
 import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.os.OperatingSystem;
 import org.gradle.internal.serialize.Serializer;
 import org.gradle.util.internal.CollectionUtils;
 import org.slf4j.Logger;
@@ -61,6 +62,10 @@
 
 @ThreadSafe
 public class DefaultCacheCoordinator implements CacheCreationCoordinator, ExclusiveCacheAccessCoordinator {
+    /**
+     * Enables memory mapping for the indexed caches that allow it, see {@link IndexedCacheParameters#withMemoryMapping()}.
+     */
+    public static final String MEMORY_MAPPED_CACHES_SYSTEM_PROPERTY = "org.gradle.cache.memory-mapped";
     private final static Logger LOG = LoggerFactory.getLogger(DefaultCacheCoordinator.class);
     private final static Runnable NO_OP = () -> {
         // Empty initial operation to trigger onStartWork calls
@@ -74,6 +79,8 @@ public class DefaultCacheCoordinator implements CacheCreationCoordinator, Exclus
     private final Map<String, IndexedCacheEntry<?, ?>> caches = new HashMap<String, IndexedCacheEntry<?, ?>>();
     private final AbstractCrossProcessCacheAccess crossProcessCacheAccess;
     private final CacheAccessOperationsStack operations;
+    private final File lockTarget;
+    private final boolean optimisticReadsSupported;
 
     private ManagedExecutor cacheUpdateExecutor;
     private ExclusiveCacheAccessingWorker cacheAccessWorker;
@@ -83,6 +90,7 @@ public class DefaultCacheCoordinator implements CacheCreationCoordinator, Exclus
     private boolean open;
     private Thread owner;
     private FileLock fileLock;
+    private volatile boolean fileLockHeld;
     private FileLock.State stateAtOpen;
     private Runnable fileLockHeldByOwner;
     private int cacheClosedCount;
@@ -94,6 +102,10 @@ public DefaultCacheCoordinator(String cacheDisplayName, File lockTarget, LockOpt
         this.cleanupAction = cleanupAction;
         this.executorFactory = executorFactory;
         this.operations = new CacheAccessOperationsStack();
+        this.lockTarget = lockTarget;
+        // Reads without the lock are validated using the sequence number of the lock state, which the cross-version lock protocol does not have.
+        // Files locked on Windows cannot be read by other processes.
+        this.optimisticReadsSupported = lockOptions.getMode() == FileLockManager.LockMode.OnDemand && !lockOptions.isUseCrossVersionImplementation() && !OperatingSystem.current().isWindows();
 
         Action<FileLock> onFileLockAcquireAction = this::afterLockAcquire;
         Action<FileLock> onFileLockReleaseAction = this::beforeLockRelease;
@@ -182,6 +194,11 @@ public synchronized void close() {
                     fileLockHeldByOwner.run();
                 }
                 crossProcessCacheAccess.close();
+                for (IndexedCacheEntry<?, ?> entry : caches.values()) {
+                    if (entry.getCache() instanceof OptimisticReadIndexedCache) {
+                        ((OptimisticReadIndexedCache<?, ?>) entry.getCache()).close();
+                    }
+                }
 
                 // If cleanup is required, but has not already been invoked (e.g. at the end of the build session)
                 // perform cleanup on close.
@@ -310,7 +327,7 @@ public <K, V> MultiProcessSafeIndexedCache<K, V> newCache(final IndexedCachePara
             if (entry == null) {
                 File cacheFile = findCacheFile(parameters);
                 LOG.debug("Creating new cache for {}, path {}, access {}", parameters.getCacheName(), cacheFile, this);
-                Factory<BTreePersistentIndexedCache<K, V>> indexedCacheFactory = () -> doCreateCache(cacheFile, parameters.getKeySerializer(), parameters.getValueSerializer());
+                Factory<BTreePersistentIndexedCache<K, V>> indexedCacheFactory = () -> doCreateCache(cacheFile, parameters);
 
                 MultiProcessSafeIndexedCache<K, V> indexedCache = new DefaultMultiProcessSafeIndexedCache<K, V>(indexedCacheFactory, fileAccess);
                 CacheDecorator decorator = parameters.getCacheDecorator();
@@ -320,6 +337,10 @@ public <K, V> MultiProcessSafeIndexedCache<K, V> newCache(final IndexedCachePara
                         useCache(NO_OP);
                     }
                 }
+                if (parameters.isLockFreeReads() && optimisticReadsSupported) {
+                    Factory<BTreePersistentIndexedCache<K, V>> readOnlyCacheFactory = () -> BTreePersistentIndexedCache.openReadOnly(cacheFile, parameters.getKeySerializer(), parameters.getValueSerializer());
+                    indexedCache = new OptimisticReadIndexedCache<>(indexedCache, readOnlyCacheFactory, DefaultFileLockManager.determineLockTargetFile(lockTarget), () -> fileLockHeld);
+                }
                 entry = new IndexedCacheEntry<>(parameters, indexedCache);
                 caches.put(parameters.getCacheName(), entry);
                 if (fileLock != null) {
@@ -343,8 +364,10 @@ public <K, V> boolean cacheExists(IndexedCacheParameters<K, V> parameters) {
         return findCacheFile(parameters).exists();
     }
 
-    <K, V> BTreePersistentIndexedCache<K, V> doCreateCache(File cacheFile, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
-        return new BTreePersistentIndexedCache<>(cacheFile, keySerializer, valueSerializer);
+    <K, V> BTreePersistentIndexedCache<K, V> doCreateCache(File cacheFile, IndexedCacheParameters<K, V> parameters) {
+        // Files mapped on Windows cannot be truncated or deleted, so it keeps using buffered file I/O
+        boolean memoryMapped = parameters.isMemoryMapped() && Boolean.getBoolean(MEMORY_MAPPED_CACHES_SYSTEM_PROPERTY) && !OperatingSystem.current().isWindows();
+        return new BTreePersistentIndexedCache<>(cacheFile, parameters.getKeySerializer(), parameters.getValueSerializer(), memoryMapped);
     }
 
     /**
@@ -353,6 +376,7 @@ <K, V> BTreePersistentIndexedCache<K, V> doCreateCache(File cacheFile, Serialize
     private void afterLockAcquire(FileLock fileLock) {
         assert this.fileLock == null;
         this.fileLock = fileLock;
+        this.fileLockHeld = true;
         this.stateAtOpen = fileLock.getState();
 
         withOwnershipNow(() -> {
@@ -380,6 +404,7 @@ private void beforeLockRelease(FileLock fileLock) {
             });
         } finally {
             this.fileLock = null;
+            this.fileLockHeld = false;
             this.stateAtOpen = null;
         }
     }
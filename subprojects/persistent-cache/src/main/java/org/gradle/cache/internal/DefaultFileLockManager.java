@@ -68,22 +68,33 @@ public class DefaultFileLockManager implements FileLockManager {
     private final int lockTimeoutMs;
     private final IdGenerator<Long> generator;
     private final FileLockContentionHandler fileLockContentionHandler;
+    private final FileLockWaitListener fileLockWaitListener;
     private final int shortTimeoutMs = 10000;
 
     public DefaultFileLockManager(ProcessMetaDataProvider metaDataProvider, FileLockContentionHandler fileLockContentionHandler) {
         this(metaDataProvider, DEFAULT_LOCK_TIMEOUT, fileLockContentionHandler);
     }
 
+    public DefaultFileLockManager(ProcessMetaDataProvider metaDataProvider, FileLockContentionHandler fileLockContentionHandler, FileLockWaitListener fileLockWaitListener) {
+        this(metaDataProvider, DEFAULT_LOCK_TIMEOUT, fileLockContentionHandler, new RandomLongIdGenerator(), fileLockWaitListener);
+    }
+
     public DefaultFileLockManager(ProcessMetaDataProvider metaDataProvider, int lockTimeoutMs, FileLockContentionHandler fileLockContentionHandler) {
         this(metaDataProvider, lockTimeoutMs, fileLockContentionHandler, new RandomLongIdGenerator());
     }
 
     DefaultFileLockManager(ProcessMetaDataProvider metaDataProvider, int lockTimeoutMs, FileLockContentionHandler fileLockContentionHandler,
                            IdGenerator<Long> generator) {
+        this(metaDataProvider, lockTimeoutMs, fileLockContentionHandler, generator, (lockDisplayName, mode, startTime, endTime) -> {});
+    }
+
+    DefaultFileLockManager(ProcessMetaDataProvider metaDataProvider, int lockTimeoutMs, FileLockContentionHandler fileLockContentionHandler,
+                           IdGenerator<Long> generator, FileLockWaitListener fileLockWaitListener) {
         this.metaDataProvider = metaDataProvider;
         this.lockTimeoutMs = lockTimeoutMs;
         this.fileLockContentionHandler = fileLockContentionHandler;
         this.generator = generator;
+        this.fileLockWaitListener = fileLockWaitListener;
     }
 
     @Override
@@ -358,6 +369,20 @@ private LockInfo readInformationRegion(ExponentialBackoff<AwaitableFileLockRelea
         }
 
         private FileLockOutcome lockStateRegion(final LockMode lockMode) throws IOException, InterruptedException {
+            FileLockOutcome lockOutcome = lockFileAccess.tryLockState(lockMode == LockMode.Shared);
+            if (lockOutcome.isLockWasAcquired()) {
+                return lockOutcome;
+            }
+            // The lock is contended, report how long it takes to get it
+            long startTime = System.currentTimeMillis();
+            try {
+                return waitForStateRegion(lockMode);
+            } finally {
+                fileLockWaitListener.lockWaited(displayName, lockMode, startTime, System.currentTimeMillis());
+            }
+        }
+
+        private FileLockOutcome waitForStateRegion(final LockMode lockMode) throws IOException, InterruptedException {
             final ExponentialBackoff<AwaitableFileLockReleasedSignal> backoff = newExponentialBackoff(lockTimeoutMs);
             return backoff.retryUntil(new IOQuery<FileLockOutcome>() {
                 private long lastPingTime;
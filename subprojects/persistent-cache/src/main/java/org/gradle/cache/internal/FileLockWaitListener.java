@@ -0,0 +1,37 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal;
+
+import org.gradle.cache.FileLockManager;
+import org.gradle.internal.service.scopes.EventScope;
+import org.gradle.internal.service.scopes.Scope;
+
+/**
+ * Notified when acquiring a file lock had to wait, because the lock was held by another process or by another lock in this process.
+ */
+@EventScope(Scope.Global.class)
+public interface FileLockWaitListener {
+    /**
+     * Called after waiting for a lock, regardless of whether the lock was eventually acquired or the wait timed out.
+     *
+     * @param lockDisplayName The display name of the locked target, usually a cache.
+     * @param mode The requested lock mode.
+     * @param startTime When the wait started, in milliseconds since the epoch.
+     * @param endTime When the wait finished, in milliseconds since the epoch.
+     */
+    void lockWaited(String lockDisplayName, FileLockManager.LockMode mode, long startTime, long endTime);
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal;
+
+import org.gradle.cache.FileLock;
+import org.gradle.cache.MultiProcessSafeIndexedCache;
+import org.gradle.cache.internal.btree.BTreePersistentIndexedCache;
+import org.gradle.cache.internal.filelock.DefaultLockStateSerializer;
+import org.gradle.cache.internal.filelock.LockState;
+import org.gradle.cache.internal.filelock.LockStateAccess;
+import org.gradle.internal.Cast;
+import org.gradle.internal.Factory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+/**
+ * Reads entries from the cache file without acquiring the cross-process file lock, while the lock is held by another process.
+ *
+ * <p>Every change to the cache file is made while holding the file lock, and marks the state in the lock file as dirty before the change
+ * and as clean with a new sequence number after the change. An optimistic read checks the state before and after reading the entry, and only
+ * uses the entry when the cache file was clean and not changed in between. Otherwise, or when this process holds the lock anyway,
+ * the read goes through the delegate, which acquires the lock.</p>
+ *
+ * <p>Entries written by this process are kept until the file lock is released, which is after the decorators of the delegate have written them to the cache file.
+ * Reads without the lock use these entries first, so they never miss a write of this process that is still pending.</p>
+ *
+ * <p>Each reading thread uses its own read-only view of the cache file, and all of them share a single handle to the lock file.</p>
+ */
+class OptimisticReadIndexedCache<K, V> implements MultiProcessSafeIndexedCache<K, V>, Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(OptimisticReadIndexedCache.class);
+    private static final Object NOT_VALIDATED = new Object();
+    private static final Object REMOVED = new Object();
+
+    private final MultiProcessSafeIndexedCache<K, V> delegate;
+    private final Factory<BTreePersistentIndexedCache<K, V>> readOnlyCacheFactory;
+    private final File lockFile;
+    private final BooleanSupplier fileLockHeldByThisProcess;
+    private final LockStateAccess lockStateAccess = new LockStateAccess(new DefaultLockStateSerializer());
+    private final ConcurrentHashMap<K, Object> unreleasedWrites = new ConcurrentHashMap<>();
+    private final Queue<Reader> idleReaders = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Incremented whenever the idle readers are closed, so readers in use at the time are closed when they are returned.
+     */
+    private final AtomicInteger readerGeneration = new AtomicInteger();
+
+    // Guarded by this
+    private FileChannel lockFileChannel;
+    private boolean closed;
+
+    public OptimisticReadIndexedCache(MultiProcessSafeIndexedCache<K, V> delegate, Factory<BTreePersistentIndexedCache<K, V>> readOnlyCacheFactory, File lockFile, BooleanSupplier fileLockHeldByThisProcess) {
+        this.delegate = delegate;
+        this.readOnlyCacheFactory = readOnlyCacheFactory;
+        this.lockFile = lockFile;
+        this.fileLockHeldByThisProcess = fileLockHeldByThisProcess;
+    }
+
+    @Override
+    public String toString() {
+        return delegate.toString();
+    }
+
+    @Nullable
+    @Override
+    public V getIfPresent(K key) {
+        Object value = readWithoutLock(key);
+        if (value != NOT_VALIDATED) {
+            return Cast.uncheckedCast(value);
+        }
+        return delegate.getIfPresent(key);
+    }
+
+    @Override
+    public V get(K key, Function<? super K, ? extends V> producer) {
+        Object value = readWithoutLock(key);
+        if (value != NOT_VALIDATED && value != null) {
+            return Cast.uncheckedCast(value);
+        }
+        return delegate.get(key, producer);
+    }
+
+    @Override
+    public void put(K key, V value) {
+        unreleasedWrites.put(key, value);
+        delegate.put(key, value);
+    }
+
+    @Override
+    public void remove(K key) {
+        unreleasedWrites.put(key, REMOVED);
+        delegate.remove(key);
+    }
+
+    @Override
+    public void afterLockAcquire(FileLock.State currentCacheState) {
+        delegate.afterLockAcquire(currentCacheState);
+    }
+
+    @Override
+    public void finishWork() {
+        try {
+            delegate.finishWork();
+        } finally {
+            closeIdleReaders();
+        }
+    }
+
+    @Override
+    public void beforeLockRelease(FileLock.State currentCacheState) {
+        delegate.beforeLockRelease(currentCacheState);
+        // All writes have been flushed to the cache file by now
+        unreleasedWrites.clear();
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            if (lockFileChannel != null) {
+                try {
+                    lockFileChannel.close();
+                } catch (IOException e) {
+                    LOGGER.debug("Could not close lock file of {}.", this, e);
+                }
+                lockFileChannel = null;
+            }
+        }
+        closeIdleReaders();
+    }
+
+    /**
+     * Returns the entry read from the cache file, which may be {@code null}, or {@link #NOT_VALIDATED} when the read could not be validated.
+     */
+    @Nullable
+    private Object readWithoutLock(K key) {
+        if (fileLockHeldByThisProcess.getAsBoolean()) {
+            return NOT_VALIDATED;
+        }
+        Object unreleasedValue = unreleasedWrites.get(key);
+        if (unreleasedValue != null) {
+            return unreleasedValue == REMOVED ? null : unreleasedValue;
+        }
+        Reader reader = null;
+        try {
+            FileChannel lockFileChannel = getLockFileChannel();
+            if (lockFileChannel == null) {
+                return NOT_VALIDATED;
+            }
+            LockState stateBefore = lockStateAccess.readState(lockFileChannel);
+            if (stateBefore.isDirty() || stateBefore.isInInitialState()) {
+                return NOT_VALIDATED;
+            }
+            reader = takeReader(stateBefore);
+            V value = reader.cache.get(key);
+            LockState stateAfter = lockStateAccess.readState(lockFileChannel);
+            if (stateAfter.hasBeenUpdatedSince(stateBefore)) {
+                return NOT_VALIDATED;
+            }
+            return value;
+        } catch (Exception e) {
+            // Most likely a concurrent change, let the delegate handle it under the lock
+            LOGGER.debug("Could not read {} without locking it.", this, e);
+            if (reader != null) {
+                reader.close();
+                reader = null;
+            }
+            return NOT_VALIDATED;
+        } finally {
+            if (reader != null) {
+                returnReader(reader);
+            }
+        }
+    }
+
+    @Nullable
+    private synchronized FileChannel getLockFileChannel() throws IOException {
+        if (lockFileChannel == null && !closed) {
+            lockFileChannel = FileChannel.open(lockFile.toPath(), StandardOpenOption.READ);
+        }
+        return lockFileChannel;
+    }
+
+    private Reader takeReader(LockState state) {
+        Reader reader = idleReaders.poll();
+        if (reader != null && state.hasBeenUpdatedSince(reader.state)) {
+            // Blocks of the cache file are cached in memory, so start over after a change
+            reader.close();
+            reader = null;
+        }
+        if (reader == null) {
+            reader = new Reader(readOnlyCacheFactory.create(), state, readerGeneration.get());
+        }
+        return reader;
+    }
+
+    private void returnReader(Reader reader) {
+        idleReaders.add(reader);
+        if (reader.generation != readerGeneration.get() && idleReaders.remove(reader)) {
+            reader.close();
+        }
+    }
+
+    private void closeIdleReaders() {
+        readerGeneration.incrementAndGet();
+        Reader reader;
+        while ((reader = idleReaders.poll()) != null) {
+            reader.close();
+        }
+    }
+
+    private class Reader {
+        private final BTreePersistentIndexedCache<K, V> cache;
+        private final LockState state;
+        private final int generation;
+
+        Reader(BTreePersistentIndexedCache<K, V> cache, LockState state, int generation) {
+            this.cache = cache;
+            this.state = state;
+            this.generation = generation;
+        }
+
+        void close() {
+            try {
+                cache.close();
+            } catch (Exception e) {
+                LOGGER.debug("Could not close read-only {}.", OptimisticReadIndexedCache.this, e);
+            }
+        }
+    }
+}
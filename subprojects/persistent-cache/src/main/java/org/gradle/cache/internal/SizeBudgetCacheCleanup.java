@@ -0,0 +1,108 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal;
+
+import org.apache.commons.io.FileUtils;
+import org.gradle.cache.CleanableStore;
+import org.gradle.cache.CleanupProgressMonitor;
+import org.gradle.internal.file.FileAccessTimeJournal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Deletes the least recently used cache entries until the remaining entries fit within the specified number of bytes.
+ */
+public class SizeBudgetCacheCleanup extends AbstractCacheCleanup {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SizeBudgetCacheCleanup.class);
+
+    private final FilesFinder eligibleFilesFinder;
+    private final FileAccessTimeJournal journal;
+    private final Supplier<Long> maxSizeInBytes;
+    private final Set<File> filesToDelete = new HashSet<>();
+
+    public SizeBudgetCacheCleanup(FilesFinder eligibleFilesFinder, FileAccessTimeJournal journal, Supplier<Long> maxSizeInBytes) {
+        super(eligibleFilesFinder);
+        this.eligibleFilesFinder = eligibleFilesFinder;
+        this.journal = journal;
+        this.maxSizeInBytes = maxSizeInBytes;
+    }
+
+    @Override
+    public void clean(CleanableStore cleanableStore, CleanupProgressMonitor progressMonitor) {
+        List<Entry> entries = new ArrayList<>();
+        long totalSize = 0;
+        for (File file : eligibleFilesFinder.find(cleanableStore.getBaseDir(), new NonReservedFileFilter(cleanableStore.getReservedCacheFiles()))) {
+            Entry entry = new Entry(file, journal.getLastAccessTime(file), sizeOf(file));
+            entries.add(entry);
+            totalSize += entry.size;
+        }
+        long maxSize = maxSizeInBytes.get();
+        if (totalSize <= maxSize) {
+            LOGGER.debug("{} uses {} bytes, which is within {} bytes.", cleanableStore.getDisplayName(), totalSize, maxSize);
+            return;
+        }
+        entries.sort(Comparator.comparingLong(entry -> entry.lastAccessTime));
+        long remainingSize = totalSize;
+        for (Entry entry : entries) {
+            if (remainingSize <= maxSize) {
+                break;
+            }
+            filesToDelete.add(entry.file);
+            remainingSize -= entry.size;
+        }
+        LOGGER.info("{} uses {} bytes, removing {} least recently used entries to stay within {} bytes.", cleanableStore.getDisplayName(), totalSize, filesToDelete.size(), maxSize);
+        try {
+            super.clean(cleanableStore, progressMonitor);
+        } finally {
+            filesToDelete.clear();
+        }
+    }
+
+    @Override
+    protected boolean shouldDelete(File file) {
+        return filesToDelete.contains(file);
+    }
+
+    @Override
+    protected void handleDeletion(File file) {
+        journal.deleteLastAccessTime(file);
+    }
+
+    private static long sizeOf(File file) {
+        return file.isDirectory() ? FileUtils.sizeOfDirectory(file) : file.length();
+    }
+
+    private static class Entry {
+        private final File file;
+        private final long lastAccessTime;
+        private final long size;
+
+        Entry(File file, long lastAccessTime, long size) {
+            this.file = file;
+            this.lastAccessTime = lastAccessTime;
+            this.size = size;
+        }
+    }
+}
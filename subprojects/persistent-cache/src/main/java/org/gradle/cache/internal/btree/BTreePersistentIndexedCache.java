@@ -55,20 +55,37 @@
     private final short maxChildIndexEntries;
     private final int minIndexChildNodes;
     private final StateCheckBlockStore store;
+    private final boolean readOnly;
     private HeaderBlock header;
 
     public BTreePersistentIndexedCache(File cacheFile, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
-        this(cacheFile, keySerializer, valueSerializer, (short) 512, 512);
+        this(cacheFile, keySerializer, valueSerializer, false);
+    }
+
+    public BTreePersistentIndexedCache(File cacheFile, Serializer<K> keySerializer, Serializer<V> valueSerializer, boolean memoryMapped) {
+        this(cacheFile, keySerializer, valueSerializer, (short) 512, 512, memoryMapped);
     }
 
     public BTreePersistentIndexedCache(File cacheFile, Serializer<K> keySerializer, Serializer<V> valueSerializer,
                                        short maxChildIndexEntries, int maxFreeListEntries) {
+        this(cacheFile, keySerializer, valueSerializer, maxChildIndexEntries, maxFreeListEntries, false);
+    }
+
+    public BTreePersistentIndexedCache(File cacheFile, Serializer<K> keySerializer, Serializer<V> valueSerializer,
+                                       short maxChildIndexEntries, int maxFreeListEntries, boolean memoryMapped) {
+        this(cacheFile, keySerializer, valueSerializer, maxChildIndexEntries, maxFreeListEntries,
+            memoryMapped ? new MappedFileBlockStore(cacheFile) : new FileBackedBlockStore(cacheFile), false);
+    }
+
+    private BTreePersistentIndexedCache(File cacheFile, Serializer<K> keySerializer, Serializer<V> valueSerializer,
+                                        short maxChildIndexEntries, int maxFreeListEntries, BlockStore fileStore, boolean readOnly) {
         this.cacheFile = cacheFile;
+        this.readOnly = readOnly;
         this.keyHasher = new KeyHasher<K>(keySerializer);
         this.serializer = valueSerializer;
         this.maxChildIndexEntries = maxChildIndexEntries;
         this.minIndexChildNodes = maxChildIndexEntries / 2;
-        BlockStore cachingStore = new CachingBlockStore(new FileBackedBlockStore(cacheFile), ImmutableSet.of(IndexBlock.class, FreeListBlockStore.FreeListBlock.class));
+        BlockStore cachingStore = new CachingBlockStore(fileStore, ImmutableSet.of(IndexBlock.class, FreeListBlockStore.FreeListBlock.class));
         this.store = new StateCheckBlockStore(new FreeListBlockStore(cachingStore, maxFreeListEntries));
         try {
             open();
@@ -77,6 +94,17 @@ public BTreePersistentIndexedCache(File cacheFile, Serializer<K> keySerializer,
         }
     }
 
+    /**
+     * Opens an existing cache file for reading only, while another process may be writing to it.
+     *
+     * <p>Unlike a writable cache, a read-only cache does not discard a file it finds to be corrupt, and fails instead.
+     * Seemingly corrupt content may only be a change that is still in progress, so the caller has to check whether the file
+     * was changed while reading from it, and discard the result if so.</p>
+     */
+    public static <K, V> BTreePersistentIndexedCache<K, V> openReadOnly(File cacheFile, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+        return new BTreePersistentIndexedCache<>(cacheFile, keySerializer, valueSerializer, (short) 512, 512, new FileBackedBlockStore(cacheFile, true), true);
+    }
+
     @Override
     public String toString() {
         return "cache " + cacheFile.getName() + " (" + cacheFile + ")";
@@ -87,6 +115,9 @@ private void open() throws Exception {
         try {
             doOpen();
         } catch (CorruptedCacheException e) {
+            if (readOnly) {
+                throw e;
+            }
             rebuild();
         }
     }
@@ -130,6 +161,9 @@ public V get(K key) {
                 }
                 return null;
             } catch (CorruptedCacheException e) {
+                if (readOnly) {
+                    throw e;
+                }
                 rebuild();
                 return null;
             }
@@ -26,6 +26,7 @@
 
 public class FileBackedBlockStore implements BlockStore {
     private final File cacheFile;
+    private final boolean readOnly;
     private RandomAccessFile file;
     private ByteOutput output;
     private ByteInput input;
@@ -34,7 +35,15 @@ public class FileBackedBlockStore implements BlockStore {
     private long currentFileSize;
 
     public FileBackedBlockStore(File cacheFile) {
+        this(cacheFile, false);
+    }
+
+    /**
+     * @param readOnly Whether to open the file for reading only, so that any attempt to write to it fails.
+     */
+    public FileBackedBlockStore(File cacheFile, boolean readOnly) {
         this.cacheFile = cacheFile;
+        this.readOnly = readOnly;
     }
 
     @Override
@@ -46,8 +55,12 @@ public String toString() {
     public void open(Runnable runnable, Factory factory) {
         this.factory = factory;
         try {
-            cacheFile.getParentFile().mkdirs();
-            file = openRandomAccessFile();
+            if (readOnly) {
+                file = randomAccessFile("r");
+            } else {
+                cacheFile.getParentFile().mkdirs();
+                file = openRandomAccessFile();
+            }
             output = new ByteOutput(file);
             input = new ByteInput(file);
             currentFileSize = file.length();
@@ -0,0 +1,502 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.btree;
+
+import org.gradle.api.UncheckedIOException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A block store that accesses the cache file through memory mapped regions, using the same file format as {@link FileBackedBlockStore}.
+ *
+ * <p>Blocks are read from and written to the operating system's page cache directly, instead of being copied through buffers on the heap
+ * and a system call for each access. The file is grown a region at a time while the store is open, and truncated to the used size when it is closed.
+ * A file left at the end of a region by a process that did not close the store is truncated to its used size when it is opened again.</p>
+ */
+public class MappedFileBlockStore implements BlockStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MappedFileBlockStore.class);
+    static final int DEFAULT_REGION_SIZE = 8 * 1024 * 1024;
+
+    private final File cacheFile;
+    private final int regionSize;
+    private final List<MappedByteBuffer> regions = new ArrayList<MappedByteBuffer>();
+    private final RegionInputStream input = new RegionInputStream();
+    private final RegionOutputStream output = new RegionOutputStream();
+    private RandomAccessFile file;
+    private boolean writable;
+    private long nextBlock;
+    private Factory factory;
+    private long currentFileSize;
+
+    public MappedFileBlockStore(File cacheFile) {
+        this(cacheFile, DEFAULT_REGION_SIZE);
+    }
+
+    MappedFileBlockStore(File cacheFile, int regionSize) {
+        this.cacheFile = cacheFile;
+        this.regionSize = regionSize;
+    }
+
+    @Override
+    public String toString() {
+        return "cache '" + cacheFile + "'";
+    }
+
+    @Override
+    public void open(Runnable runnable, Factory factory) {
+        this.factory = factory;
+        try {
+            cacheFile.getParentFile().mkdirs();
+            openRandomAccessFile();
+            currentFileSize = file.length();
+            if (currentFileSize > 0 && currentFileSize % regionSize == 0) {
+                currentFileSize = recoverUsedSize();
+            }
+            nextBlock = currentFileSize;
+            if (currentFileSize == 0) {
+                runnable.run();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void openRandomAccessFile() throws FileNotFoundException {
+        try {
+            file = new RandomAccessFile(cacheFile, "rw");
+            writable = true;
+        } catch (FileNotFoundException e) {
+            file = new RandomAccessFile(cacheFile, "r");
+            writable = false;
+        }
+    }
+
+    /**
+     * Finds the end of the last block of a file that may still contain the zero padding of a mapped region, and truncates the file to it.
+     * Blocks are allocated one after the other and never have type 0, so the used part of the file ends at the first block without a type.
+     */
+    private long recoverUsedSize() throws IOException {
+        long length = file.length();
+        long pos = 0;
+        while (pos + BlockImpl.HEADER_SIZE <= length) {
+            file.seek(pos);
+            byte type = file.readByte();
+            int payloadSize = file.readInt();
+            long next = pos + BlockImpl.HEADER_SIZE + payloadSize + BlockImpl.TAIL_SIZE;
+            if (type == 0 || payloadSize < 0 || next > length) {
+                break;
+            }
+            pos = next;
+        }
+        if (pos < length && writable) {
+            LOGGER.debug("Truncating {} from {} to its used size of {} bytes.", this, length, pos);
+            file.setLength(pos);
+        }
+        return pos;
+    }
+
+    @Override
+    public void close() {
+        try {
+            try {
+                truncateToUsedSize();
+            } finally {
+                file.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void truncateToUsedSize() {
+        unmapRegions();
+        if (!writable) {
+            return;
+        }
+        try {
+            if (file.length() > currentFileSize) {
+                file.setLength(currentFileSize);
+            }
+        } catch (IOException e) {
+            // Some platforms do not allow truncating a file while it is still mapped, leave the unused space for the next store to allocate from
+            LOGGER.debug("Could not truncate {} to its used size.", this, e);
+        }
+    }
+
+    @Override
+    public void clear() {
+        // Accessing a mapping beyond the end of the truncated file would crash the process, so release the mappings first
+        unmapRegions();
+        try {
+            file.setLength(0);
+            currentFileSize = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        nextBlock = 0;
+    }
+
+    @Override
+    public void attach(BlockPayload block) {
+        if (block.getBlock() == null) {
+            block.setBlock(new BlockImpl(block));
+        }
+    }
+
+    @Override
+    public void remove(BlockPayload block) {
+        BlockImpl blockImpl = (BlockImpl) block.getBlock();
+        blockImpl.detach();
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public <T extends BlockPayload> T readFirst(Class<T> payloadType) {
+        return read(BlockPointer.pos(0), payloadType);
+    }
+
+    @Override
+    public <T extends BlockPayload> T read(BlockPointer pos, Class<T> payloadType) {
+        assert !pos.isNull();
+        try {
+            T payload = payloadType.cast(factory.create(payloadType));
+            BlockImpl block = new BlockImpl(payload, pos);
+            block.read();
+            return payload;
+        } catch (CorruptedCacheException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void write(BlockPayload block) {
+        BlockImpl blockImpl = (BlockImpl) block.getBlock();
+        try {
+            blockImpl.write();
+        } catch (CorruptedCacheException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long alloc(long length) {
+        long pos = nextBlock;
+        nextBlock += length;
+        return pos;
+    }
+
+    /**
+     * Returns the region containing the given position, mapping it if required.
+     * Regions of a writable file are mapped in full, which grows the file to the end of the region.
+     */
+    private MappedByteBuffer region(long pos) throws IOException {
+        int index = (int) (pos / regionSize);
+        while (regions.size() <= index) {
+            regions.add(null);
+        }
+        MappedByteBuffer region = regions.get(index);
+        if (region == null) {
+            long start = (long) index * regionSize;
+            if (writable) {
+                region = file.getChannel().map(FileChannel.MapMode.READ_WRITE, start, regionSize);
+            } else {
+                region = file.getChannel().map(FileChannel.MapMode.READ_ONLY, start, Math.min(regionSize, currentFileSize - start));
+            }
+            regions.set(index, region);
+        }
+        return region;
+    }
+
+    private int offsetInRegion(long pos) {
+        return (int) (pos % regionSize);
+    }
+
+    private void unmapRegions() {
+        for (MappedByteBuffer region : regions) {
+            if (region != null) {
+                Unmapper.unmap(region);
+            }
+        }
+        regions.clear();
+    }
+
+    /**
+     * Releases mapped regions immediately, instead of when they are garbage collected.
+     * There is no public API for this before Java 20, so it uses {@code Unsafe.invokeCleaner()} on Java 9 and later and the buffer's cleaner on Java 8.
+     * When neither is available, regions are left to the garbage collector.
+     */
+    private static class Unmapper {
+        private static final Object UNSAFE;
+        private static final Method INVOKE_CLEANER;
+
+        static {
+            Object unsafe = null;
+            Method invokeCleaner = null;
+            try {
+                Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+                invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+                Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+                theUnsafe.setAccessible(true);
+                unsafe = theUnsafe.get(null);
+            } catch (Exception e) {
+                // Java 8, see unmapWithCleaner()
+                invokeCleaner = null;
+            }
+            UNSAFE = unsafe;
+            INVOKE_CLEANER = invokeCleaner;
+        }
+
+        static void unmap(MappedByteBuffer region) {
+            try {
+                if (INVOKE_CLEANER != null) {
+                    INVOKE_CLEANER.invoke(UNSAFE, region);
+                } else {
+                    unmapWithCleaner(region);
+                }
+            } catch (Exception e) {
+                LOGGER.debug("Could not unmap region, leaving it to the garbage collector.", e);
+            }
+        }
+
+        private static void unmapWithCleaner(MappedByteBuffer region) throws Exception {
+            Method cleanerMethod = region.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(region);
+            if (cleaner != null) {
+                cleaner.getClass().getMethod("clean").invoke(cleaner);
+            }
+        }
+    }
+
+    private class RegionInputStream extends InputStream {
+        private long position;
+        private long start;
+
+        DataInputStream start(long offset) {
+            position = offset;
+            start = offset;
+            return new DataInputStream(this);
+        }
+
+        long getBytesRead() {
+            return position - start;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (position >= currentFileSize) {
+                return -1;
+            }
+            int value = region(position).get(offsetInRegion(position)) & 0xff;
+            position++;
+            return value;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (position >= currentFileSize) {
+                return -1;
+            }
+            MappedByteBuffer region = region(position);
+            int regionOffset = offsetInRegion(position);
+            int count = (int) Math.min(Math.min(length, currentFileSize - position), region.capacity() - regionOffset);
+            region.position(regionOffset);
+            region.get(bytes, offset, count);
+            position += count;
+            return count;
+        }
+    }
+
+    private class RegionOutputStream extends OutputStream {
+        private long position;
+        private long start;
+
+        DataOutputStream start(long offset) {
+            position = offset;
+            start = offset;
+            return new DataOutputStream(this);
+        }
+
+        long getBytesWritten() {
+            return position - start;
+        }
+
+        @Override
+        public void write(int value) throws IOException {
+            region(position).put(offsetInRegion(position), (byte) value);
+            position++;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                MappedByteBuffer region = region(position);
+                int regionOffset = offsetInRegion(position);
+                int count = Math.min(length, region.capacity() - regionOffset);
+                region.position(regionOffset);
+                region.put(bytes, offset, count);
+                position += count;
+                offset += count;
+                length -= count;
+            }
+        }
+    }
+
+    private final class BlockImpl extends Block {
+        private static final int HEADER_SIZE = 1 + INT_SIZE; // type, payload size
+        private static final int TAIL_SIZE = INT_SIZE;
+
+        private BlockPointer pos;
+        private int payloadSize;
+
+        private BlockImpl(BlockPayload payload, BlockPointer pos) {
+            this(payload);
+            setPos(pos);
+        }
+
+        public BlockImpl(BlockPayload payload) {
+            super(payload);
+            pos = null;
+            payloadSize = -1;
+        }
+
+        @Override
+        public boolean hasPos() {
+            return pos != null;
+        }
+
+        @Override
+        public BlockPointer getPos() {
+            if (pos == null) {
+                pos = BlockPointer.pos(alloc(getSize()));
+            }
+            return pos;
+        }
+
+        @Override
+        public void setPos(BlockPointer pos) {
+            assert this.pos == null && !pos.isNull();
+            this.pos = pos;
+        }
+
+        @Override
+        public int getSize() {
+            if (payloadSize < 0) {
+                payloadSize = getPayload().getSize();
+            }
+            return payloadSize + HEADER_SIZE + TAIL_SIZE;
+        }
+
+        @Override
+        public void setSize(int size) {
+            int newPayloadSize = size - HEADER_SIZE - TAIL_SIZE;
+            assert newPayloadSize >= payloadSize;
+            payloadSize = newPayloadSize;
+        }
+
+        public void write() throws Exception {
+            long pos = getPos().getPos();
+
+            DataOutputStream outputStream = output.start(pos);
+
+            BlockPayload payload = getPayload();
+
+            // Write header
+            outputStream.writeByte(payload.getType());
+            outputStream.writeInt(payloadSize);
+            long finalSize = pos + HEADER_SIZE + TAIL_SIZE + payloadSize;
+
+            // Write body
+            payload.write(outputStream);
+
+            // Write count
+            long bytesWritten = output.getBytesWritten();
+            if (bytesWritten > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Block payload exceeds maximum size");
+            }
+            outputStream.writeInt((int) bytesWritten);
+
+            // Pad, the mapped region already reserves the space in the file
+            if (currentFileSize < finalSize) {
+                currentFileSize = finalSize;
+            }
+        }
+
+        public void read() throws Exception {
+            long pos = getPos().getPos();
+            assert pos >= 0;
+            if (pos + HEADER_SIZE >= currentFileSize) {
+                throw blockCorruptedException();
+            }
+
+            DataInputStream inputStream = input.start(pos);
+
+            BlockPayload payload = getPayload();
+
+            // Read header
+            byte type = inputStream.readByte();
+            if (type != payload.getType()) {
+                throw blockCorruptedException();
+            }
+
+            // Read body
+            payloadSize = inputStream.readInt();
+            if (pos + HEADER_SIZE + TAIL_SIZE + payloadSize > currentFileSize) {
+                throw blockCorruptedException();
+            }
+            payload.read(inputStream);
+
+            // Read and verify count
+            long actualCount = input.getBytesRead();
+            long count = inputStream.readInt();
+            if (actualCount != count) {
+                throw blockCorruptedException();
+            }
+        }
+
+        @Override
+        public RuntimeException blockCorruptedException() {
+            return new CorruptedCacheException(String.format("Corrupted %s found in %s.", this,
+                    MappedFileBlockStore.this));
+        }
+    }
+}
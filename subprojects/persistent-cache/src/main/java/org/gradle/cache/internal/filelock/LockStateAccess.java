@@ -22,6 +22,8 @@
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
 import java.nio.channels.OverlappingFileLockException;
 
@@ -60,20 +62,37 @@ public void writeState(RandomAccessFile lockFileAccess, LockState lockState) thr
     }
 
     public LockState readState(RandomAccessFile lockFileAccess) throws IOException {
-        try {
-            byte[] buffer = new byte[stateRegionSize];
-            lockFileAccess.seek(REGION_START);
+        byte[] buffer = new byte[stateRegionSize];
+        lockFileAccess.seek(REGION_START);
 
-            int readPos = 0;
-            while (readPos < buffer.length) {
-                int nread = lockFileAccess.read(buffer, readPos, buffer.length - readPos);
-                if (nread < 0) {
-                    break;
-                }
-                readPos += nread;
+        int readPos = 0;
+        while (readPos < buffer.length) {
+            int nread = lockFileAccess.read(buffer, readPos, buffer.length - readPos);
+            if (nread < 0) {
+                break;
             }
+            readPos += nread;
+        }
+        return readState(buffer, readPos);
+    }
 
-            ByteArrayInputStream inputStream = new ByteArrayInputStream(buffer, 0, readPos);
+    /**
+     * Reads the state without changing the position of the channel, so the channel can be shared by concurrent readers.
+     */
+    public LockState readState(FileChannel lockFileChannel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(stateRegionSize);
+        while (buffer.hasRemaining()) {
+            int nread = lockFileChannel.read(buffer, REGION_START + buffer.position());
+            if (nread < 0) {
+                break;
+            }
+        }
+        return readState(buffer.array(), buffer.position());
+    }
+
+    private LockState readState(byte[] buffer, int length) throws IOException {
+        try {
+            ByteArrayInputStream inputStream = new ByteArrayInputStream(buffer, 0, length);
             DataInputStream dataInput = new DataInputStream(inputStream);
 
             byte protocolVersion = dataInput.readByte();
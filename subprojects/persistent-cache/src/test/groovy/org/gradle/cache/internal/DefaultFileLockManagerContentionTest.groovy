@@ -69,6 +69,39 @@ class DefaultFileLockManagerContentionTest extends ConcurrentSpec {
         lockMode << [Exclusive, Shared]
     }
 
+    def "lock wait listener is notified when lock is contended"() {
+        given:
+        def file = tmpDir.file("lock-file.bin")
+        def listener = Mock(FileLockWaitListener)
+        def waitingManager = new DefaultFileLockManager(Stub(ProcessMetaDataProvider), 2000, contentionHandler2, new LongIdGenerator(), listener)
+        FileLock lock
+        lock = createLock(Exclusive, file, manager) { FileLockReleasedSignal signal ->
+            lock.close()
+            signal.trigger()
+        }
+
+        when:
+        createLock(Exclusive, file, waitingManager)
+
+        then:
+        1 * listener.lockWaited("foo", Exclusive, _, _) >> { String displayName, FileLockManager.LockMode mode, long startTime, long endTime ->
+            assert startTime <= endTime
+        }
+    }
+
+    def "lock wait listener is not notified when lock is not contended"() {
+        given:
+        def file = tmpDir.file("lock-file.bin")
+        def listener = Mock(FileLockWaitListener)
+        def lockManager = new DefaultFileLockManager(Stub(ProcessMetaDataProvider), 2000, contentionHandler, new LongIdGenerator(), listener)
+
+        when:
+        createLock(Exclusive, file, lockManager)
+
+        then:
+        0 * listener._
+    }
+
     def "cannot acquire lock with mode #lockMode while another lock manager in same process is holding shared lock"() {
         given:
         def file = tmpDir.file("lock-file.bin")
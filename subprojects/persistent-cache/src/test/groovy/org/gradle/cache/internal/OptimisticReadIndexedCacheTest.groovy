@@ -0,0 +1,214 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal
+
+import org.gradle.cache.MultiProcessSafeIndexedCache
+import org.gradle.cache.internal.btree.BTreePersistentIndexedCache
+import org.gradle.cache.internal.filelock.DefaultLockStateSerializer
+import org.gradle.cache.internal.filelock.LockState
+import org.gradle.cache.internal.filelock.LockStateAccess
+import org.gradle.internal.serialize.DefaultSerializer
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+import java.util.function.Function
+
+class OptimisticReadIndexedCacheTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+    def cacheFile = tmpDir.file("cache.bin")
+    def lockFile = tmpDir.file("cache.lock")
+    def lockStateAccess = new LockStateAccess(new DefaultLockStateSerializer())
+    def delegate = Mock(MultiProcessSafeIndexedCache)
+    def lockHeld = false
+    def cache = new OptimisticReadIndexedCache<String, String>(
+        delegate,
+        { BTreePersistentIndexedCache.openReadOnly(cacheFile, new DefaultSerializer<String>(), new DefaultSerializer<String>()) },
+        lockFile,
+        { lockHeld }
+    )
+    LockState lockState = new DefaultLockStateSerializer().createInitialState()
+
+    def setup() {
+        update("key", "value")
+    }
+
+    def cleanup() {
+        cache.close()
+    }
+
+    def "reads entries from the file without the lock when the cache is not being changed"() {
+        when:
+        def value = cache.getIfPresent("key")
+        def missing = cache.getIfPresent("missing")
+        def produced = cache.get("key", Mock(Function))
+
+        then:
+        value == "value"
+        missing == null
+        produced == "value"
+        0 * delegate._
+    }
+
+    def "sees changes made since the previous read"() {
+        expect:
+        cache.getIfPresent("key") == "value"
+
+        when:
+        update("key", "new value")
+
+        then:
+        cache.getIfPresent("key") == "new value"
+        0 * delegate._
+    }
+
+    def "uses the delegate while the cache is being changed"() {
+        when:
+        writeLockState(lockState.beforeUpdate())
+        def value = cache.getIfPresent("key")
+
+        then:
+        value == "from delegate"
+        1 * delegate.getIfPresent("key") >> "from delegate"
+        0 * delegate._
+    }
+
+    def "uses the delegate while this process holds the lock"() {
+        when:
+        lockHeld = true
+        def value = cache.getIfPresent("key")
+
+        then:
+        value == "from delegate"
+        1 * delegate.getIfPresent("key") >> "from delegate"
+        0 * delegate._
+    }
+
+    def "uses the delegate to produce missing entries"() {
+        def producer = Mock(Function)
+
+        when:
+        def value = cache.get("missing", producer)
+
+        then:
+        value == "produced"
+        1 * delegate.get("missing", producer) >> "produced"
+        0 * delegate._
+    }
+
+    def "uses the delegate when the cache file does not exist yet"() {
+        when:
+        cacheFile.delete()
+        writeLockState(lockState.beforeUpdate().completeUpdate())
+        def value = cache.getIfPresent("key")
+
+        then:
+        value == "from delegate"
+        1 * delegate.getIfPresent("key") >> "from delegate"
+        0 * delegate._
+        !cacheFile.exists()
+    }
+
+    def "writes go through the delegate"() {
+        when:
+        cache.put("key", "other")
+        cache.remove("key")
+
+        then:
+        1 * delegate.put("key", "other")
+        1 * delegate.remove("key")
+        0 * delegate._
+    }
+
+    def "reads writes of this process that are still pending until the lock is released"() {
+        when:
+        cache.put("key", "pending")
+        cache.put("other", "pending other")
+        cache.remove("removed")
+
+        then:
+        1 * delegate.put("key", "pending")
+        1 * delegate.put("other", "pending other")
+        1 * delegate.remove("removed")
+
+        when:
+        def value = cache.getIfPresent("key")
+        def other = cache.get("other", Mock(Function))
+        def removed = cache.getIfPresent("removed")
+
+        then:
+        value == "pending"
+        other == "pending other"
+        removed == null
+        0 * delegate._
+
+        when:
+        cache.beforeLockRelease(lockState)
+        value = cache.getIfPresent("key")
+
+        then:
+        value == "value"
+        1 * delegate.beforeLockRelease(lockState)
+        0 * delegate._
+    }
+
+    def "reads from multiple threads concurrently"() {
+        def executor = Executors.newFixedThreadPool(4)
+
+        when:
+        def values = (1..100).collect { executor.submit({ cache.getIfPresent("key") } as Callable) }*.get()
+
+        then:
+        values.every { it == "value" }
+        0 * delegate._
+
+        cleanup:
+        executor.shutdown()
+    }
+
+    def "uses the delegate after it has been closed"() {
+        when:
+        cache.close()
+        def value = cache.getIfPresent("key")
+
+        then:
+        value == "from delegate"
+        1 * delegate.getIfPresent("key") >> "from delegate"
+        0 * delegate._
+    }
+
+    private void update(String key, String value) {
+        def writable = new BTreePersistentIndexedCache<String, String>(cacheFile, new DefaultSerializer<String>(), new DefaultSerializer<String>())
+        writeLockState(lockState.beforeUpdate())
+        writable.put(key, value)
+        writable.close()
+        writeLockState(lockState.beforeUpdate().completeUpdate())
+    }
+
+    private void writeLockState(LockState state) {
+        lockState = state
+        def file = new RandomAccessFile(lockFile, "rw")
+        try {
+            lockStateAccess.writeState(file, state)
+        } finally {
+            file.close()
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal
+
+import org.gradle.cache.CleanableStore
+import org.gradle.cache.CleanupProgressMonitor
+import org.gradle.internal.resource.local.ModificationTimeFileAccessTimeJournal
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+import spock.lang.Subject
+
+import java.util.concurrent.TimeUnit
+
+class SizeBudgetCacheCleanupTest extends Specification {
+    @Rule TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider(getClass())
+    def cacheDir = temporaryFolder.file("cache-dir").createDir()
+    def cleanableStore = Stub(CleanableStore) {
+        getBaseDir() >> cacheDir
+    }
+    def fileAccessTimeJournal = Spy(ModificationTimeFileAccessTimeJournal)
+    def progressMonitor = Stub(CleanupProgressMonitor)
+    @Subject def cleanupAction = new SizeBudgetCacheCleanup(
+        new SingleDepthFilesFinder(1), fileAccessTimeJournal, { 2500L })
+
+    def "deletes least recently used entries until within budget"() {
+        given:
+        long now = System.currentTimeMillis()
+        def cacheEntries = [
+            createCacheEntry(now),
+            createCacheEntry(now - TimeUnit.DAYS.toMillis(1)),
+            createCacheEntry(now - TimeUnit.DAYS.toMillis(3)),
+            createCacheEntry(now - TimeUnit.DAYS.toMillis(2)),
+        ]
+
+        when:
+        cleanupAction.clean(cleanableStore, progressMonitor)
+
+        then:
+        cacheEntries[0].assertExists()
+        cacheEntries[1].assertExists()
+        cacheEntries[2].assertDoesNotExist()
+        cacheEntries[3].assertDoesNotExist()
+        1 * fileAccessTimeJournal.deleteLastAccessTime(cacheEntries[2])
+        1 * fileAccessTimeJournal.deleteLastAccessTime(cacheEntries[3])
+    }
+
+    def "accounts for the contents of directory entries"() {
+        given:
+        long now = System.currentTimeMillis()
+        def directoryEntry = cacheDir.file("directory-entry").createDir()
+        createCacheEntry(directoryEntry, now)
+        createCacheEntry(directoryEntry, now)
+        directoryEntry.lastModified = now - TimeUnit.DAYS.toMillis(1)
+        def fileEntry = createCacheEntry(cacheDir, now)
+
+        when:
+        cleanupAction.clean(cleanableStore, progressMonitor)
+
+        then:
+        directoryEntry.assertDoesNotExist()
+        fileEntry.assertExists()
+    }
+
+    def "deletes no entries when within budget"() {
+        given:
+        long now = System.currentTimeMillis()
+        def cacheEntries = [
+            createCacheEntry(now),
+            createCacheEntry(now - TimeUnit.DAYS.toMillis(5)),
+        ]
+
+        when:
+        cleanupAction.clean(cleanableStore, progressMonitor)
+
+        then:
+        cacheEntries[0].assertExists()
+        cacheEntries[1].assertExists()
+        0 * fileAccessTimeJournal.deleteLastAccessTime(_)
+    }
+
+    private Random r = new Random()
+    def createCacheEntry(long timestamp) {
+        createCacheEntry(cacheDir, timestamp)
+    }
+
+    def createCacheEntry(TestFile dir, long timestamp) {
+        def cacheEntry = dir.file(String.format("%032x", r.nextInt()))
+        def data = new byte[1024]
+        r.nextBytes(data)
+        cacheEntry.bytes = data
+        cacheEntry.lastModified = timestamp
+        return cacheEntry
+    }
+}
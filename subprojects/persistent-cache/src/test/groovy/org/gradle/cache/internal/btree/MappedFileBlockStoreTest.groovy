@@ -0,0 +1,165 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.btree
+
+import org.gradle.internal.serialize.DefaultSerializer
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class MappedFileBlockStoreTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+    def cacheFile = tmpDir.file("cache.bin")
+    def factory = { Class<?> type -> new TextBlock() } as BlockStore.Factory
+
+    def "reads and writes blocks spanning regions"() {
+        def store = new MappedFileBlockStore(cacheFile, 16)
+        store.open({}, factory)
+        def blocks = ["first", "a block larger than a single region", "third"].collect { new TextBlock(it) }
+
+        when:
+        blocks.each {
+            store.attach(it)
+            store.write(it)
+        }
+
+        then:
+        blocks.collect { store.read(it.pos, TextBlock).text } == ["first", "a block larger than a single region", "third"]
+
+        when:
+        store.close()
+
+        then:
+        cacheFile.length() == blocks.sum { it.block.size }
+    }
+
+    def "truncates a file left at the end of a region by a process that did not close it"() {
+        def store = new MappedFileBlockStore(cacheFile, 16)
+        store.open({}, factory)
+        def blocks = ["first", "a block larger than a single region", "third"].collect { new TextBlock(it) }
+        blocks.each {
+            store.attach(it)
+            store.write(it)
+        }
+        store.close()
+        def usedSize = cacheFile.length()
+
+        given:
+        // The zero padding of the last mapped region
+        new RandomAccessFile(cacheFile, "rw").withCloseable { it.setLength((usedSize.intdiv(16) + 1) * 16) }
+
+        when:
+        store = new MappedFileBlockStore(cacheFile, 16)
+        store.open({ throw new AssertionError("Should not initialize an existing file") }, factory)
+
+        then:
+        cacheFile.length() == usedSize
+        blocks.collect { store.read(it.pos, TextBlock).text } == ["first", "a block larger than a single region", "third"]
+
+        when:
+        def fourth = new TextBlock("fourth")
+        store.attach(fourth)
+        store.write(fourth)
+        store.close()
+
+        then:
+        fourth.pos.pos == usedSize
+        cacheFile.length() == usedSize + fourth.block.size
+    }
+
+    def "can write blocks again after clearing the store"() {
+        def store = new MappedFileBlockStore(cacheFile, 16)
+        store.open({}, factory)
+        ["first", "a block larger than a single region"].each {
+            def block = new TextBlock(it)
+            store.attach(block)
+            store.write(block)
+        }
+
+        when:
+        store.clear()
+        def block = new TextBlock("after clear")
+        store.attach(block)
+        store.write(block)
+
+        then:
+        block.pos.pos == 0
+        store.read(block.pos, TextBlock).text == "after clear"
+
+        when:
+        store.close()
+
+        then:
+        cacheFile.length() == block.block.size
+    }
+
+    def "uses the same file format as the file backed store"() {
+        def entries = (1..1000).collectEntries { ["key_$it".toString(), it] }
+
+        when:
+        def cache = new BTreePersistentIndexedCache<String, Integer>(cacheFile, new DefaultSerializer<String>(), new DefaultSerializer<Integer>(), true)
+        entries.each { key, value -> cache.put(key, value) }
+        cache.close()
+        cache = new BTreePersistentIndexedCache<String, Integer>(cacheFile, new DefaultSerializer<String>(), new DefaultSerializer<Integer>(), false)
+
+        then:
+        entries.every { key, value -> cache.get(key) == value }
+        cache.verify()
+
+        when:
+        cache.put("key_1001", 1001)
+        cache.close()
+        cache = new BTreePersistentIndexedCache<String, Integer>(cacheFile, new DefaultSerializer<String>(), new DefaultSerializer<Integer>(), true)
+
+        then:
+        entries.every { key, value -> cache.get(key) == value }
+        cache.get("key_1001") == 1001
+        cache.verify()
+
+        cleanup:
+        cache?.close()
+    }
+
+    private static class TextBlock extends BlockPayload {
+        String text
+
+        TextBlock(String text = "") {
+            this.text = text
+        }
+
+        @Override
+        protected int getSize() {
+            return 2 + text.length()
+        }
+
+        @Override
+        protected byte getType() {
+            return 0x7f
+        }
+
+        @Override
+        protected void read(DataInputStream inputStream) {
+            text = inputStream.readUTF()
+        }
+
+        @Override
+        protected void write(DataOutputStream outputStream) {
+            outputStream.writeUTF(text)
+        }
+    }
+}
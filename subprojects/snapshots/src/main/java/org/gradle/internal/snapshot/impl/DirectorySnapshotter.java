@@ -49,11 +49,14 @@
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayDeque;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
@@ -64,6 +67,11 @@
  * For creating {@link DirectorySnapshot}s of directories.
  */
 public class DirectorySnapshotter {
+    /**
+     * System property to enable hashing the files of a directory concurrently ahead of walking it.
+     */
+    public static final String PARALLEL_SNAPSHOTTING_PROPERTY = "org.gradle.vfs.snapshot.parallel";
+
     private static final EnumSet<FileVisitOption> DONT_FOLLOW_SYMLINKS = EnumSet.noneOf(FileVisitOption.class);
     private static final SymbolicLinkMapping EMPTY_SYMBOLIC_LINK_MAPPING = new SymbolicLinkMapping() {
 
@@ -87,12 +95,25 @@ public Iterable<String> getRemappedSegments(Iterable<String> segments) {
     private final Interner<String> stringInterner;
     private final DefaultExcludes defaultExcludes;
     private final DirectorySnapshotterStatistics.Collector collector;
+    @Nullable
+    private final ParallelDirectoryHasher parallelDirectoryHasher;
 
     public DirectorySnapshotter(FileHasher hasher, Interner<String> stringInterner, Collection<String> defaultExcludes, DirectorySnapshotterStatistics.Collector collector) {
+        this(hasher, stringInterner, defaultExcludes, collector, Boolean.getBoolean(PARALLEL_SNAPSHOTTING_PROPERTY) ? ForkJoinPool.commonPool() : null);
+    }
+
+    /**
+     * Creates a snapshotter that hashes the files of a directory concurrently on the given pool before walking it, if a pool is given.
+     * The snapshots are the same as without concurrent hashing.
+     */
+    public DirectorySnapshotter(FileHasher hasher, Interner<String> stringInterner, Collection<String> defaultExcludes, DirectorySnapshotterStatistics.Collector collector, @Nullable ForkJoinPool parallelHashingPool) {
         this.hasher = hasher;
         this.stringInterner = stringInterner;
         this.defaultExcludes = new DefaultExcludes(defaultExcludes);
         this.collector = collector;
+        this.parallelDirectoryHasher = parallelHashingPool == null
+            ? null
+            : new ParallelDirectoryHasher(hasher, this.defaultExcludes, parallelHashingPool, collector);
     }
 
     /**
@@ -115,7 +136,10 @@ public FileSystemLocationSnapshot snapshot(String absolutePath, @Nullable Snapsh
         try {
             AtomicBoolean hasBeenFiltered = new AtomicBoolean();
             Path rootPath = Paths.get(absolutePath);
-            PathVisitor visitor = new PathVisitor(predicate, hasBeenFiltered, hasher, stringInterner, defaultExcludes, collector, EMPTY_SYMBOLIC_LINK_MAPPING, unfilteredSnapshotConsumer);
+            Map<String, ParallelDirectoryHasher.HashedFile> precomputedHashes = parallelDirectoryHasher == null
+                ? Collections.emptyMap()
+                : parallelDirectoryHasher.hashRegularFiles(rootPath, predicate);
+            PathVisitor visitor = new PathVisitor(predicate, hasBeenFiltered, hasher, precomputedHashes, stringInterner, defaultExcludes, collector, EMPTY_SYMBOLIC_LINK_MAPPING, unfilteredSnapshotConsumer);
             Files.walkFileTree(rootPath, DONT_FOLLOW_SYMLINKS, Integer.MAX_VALUE, visitor);
             FileSystemLocationSnapshot result = visitor.getResult();
             if (!hasBeenFiltered.get()) {
@@ -250,6 +274,7 @@ private static class PathVisitor extends DirectorySnapshotterStatistics.Collecti
         private final SnapshottingFilter.DirectoryWalkerPredicate predicate;
         private final AtomicBoolean hasBeenFiltered;
         private final FileHasher hasher;
+        private final Map<String, ParallelDirectoryHasher.HashedFile> precomputedHashes;
         private final Interner<String> stringInterner;
         private final DefaultExcludes defaultExcludes;
         private final SymbolicLinkMapping symbolicLinkMapping;
@@ -261,6 +286,7 @@ public PathVisitor(
             @Nullable SnapshottingFilter.DirectoryWalkerPredicate predicate,
             AtomicBoolean hasBeenFiltered,
             FileHasher hasher,
+            Map<String, ParallelDirectoryHasher.HashedFile> precomputedHashes,
             Interner<String> stringInterner,
             DefaultExcludes defaultExcludes,
             DirectorySnapshotterStatistics.Collector statisticsCollector,
@@ -272,6 +298,7 @@ public PathVisitor(
             this.predicate = predicate;
             this.hasBeenFiltered = hasBeenFiltered;
             this.hasher = hasher;
+            this.precomputedHashes = precomputedHashes;
             this.stringInterner = stringInterner;
             this.defaultExcludes = defaultExcludes;
             this.symbolicLinkMapping = symbolicLinkMapping;
@@ -368,6 +395,7 @@ private DirectorySnapshot followSymlink(Path file, String internedFileName, Atom
                         predicate,
                         symlinkHasBeenFiltered,
                         hasher,
+                        precomputedHashes,
                         stringInterner,
                         defaultExcludes,
                         collector,
@@ -422,10 +450,21 @@ private FileSystemLeafSnapshot snapshotFile(Path absoluteFilePath, String intern
             long lastModified = attrs.lastModifiedTime().toMillis();
             long fileLength = attrs.size();
             FileMetadata metadata = DefaultFileMetadata.file(lastModified, fileLength, accessType);
-            HashCode hash = hasher.hash(absoluteFilePath.toFile(), fileLength, lastModified);
+            HashCode hash = hash(absoluteFilePath, fileLength, lastModified);
             return new RegularFileSnapshot(internedRemappedAbsoluteFilePath, internedName, hash, metadata);
         }
 
+        private HashCode hash(Path absoluteFilePath, long fileLength, long lastModified) {
+            ParallelDirectoryHasher.HashedFile hashedFile = precomputedHashes.get(absoluteFilePath.toString());
+            if (hashedFile != null) {
+                HashCode hash = hashedFile.getHashIfUnchanged(fileLength, lastModified);
+                if (hash != null) {
+                    return hash;
+                }
+            }
+            return hasher.hash(absoluteFilePath.toFile(), fileLength, lastModified);
+        }
+
         /** unlistable directories (and maybe some locked files) will stop here */
         @Override
         protected FileVisitResult doVisitFileFailed(Path file, IOException exc) {
@@ -45,11 +45,24 @@ public interface DirectorySnapshotterStatistics {
      */
     long getFailedFiles();
 
+    /**
+     * The number of files hashed concurrently ahead of walking the directory trees.
+     */
+    long getConcurrentlyHashedFiles();
+
+    /**
+     * The average number of files hashed at the same time while hashing concurrently ahead of walking the directory trees.
+     */
+    double getHashingParallelism();
+
     class Collector {
         private final AtomicLong hierarchyCount = new AtomicLong();
         private final AtomicLong directoryCount = new AtomicLong();
         private final AtomicLong fileCount = new AtomicLong();
         private final AtomicLong failedFileCount = new AtomicLong();
+        private final AtomicLong concurrentlyHashedFileCount = new AtomicLong();
+        private final AtomicLong concurrentHashingTime = new AtomicLong();
+        private final AtomicLong concurrentHashingElapsedTime = new AtomicLong();
 
         public void recordVisitHierarchy() {
             hierarchyCount.incrementAndGet();
@@ -67,11 +80,23 @@ public void recordVisitFileFailed() {
             failedFileCount.incrementAndGet();
         }
 
+        public void recordConcurrentlyHashedFiles(long fileCount, long hashingTimeNanos, long elapsedTimeNanos) {
+            concurrentlyHashedFileCount.addAndGet(fileCount);
+            concurrentHashingTime.addAndGet(hashingTimeNanos);
+            concurrentHashingElapsedTime.addAndGet(elapsedTimeNanos);
+        }
+
         public DirectorySnapshotterStatistics collect() {
             long hierarchyCount = this.hierarchyCount.getAndSet(0);
             long directoryCount = this.directoryCount.getAndSet(0);
             long fileCount = this.fileCount.getAndSet(0);
             long failedFileCount = this.failedFileCount.getAndSet(0);
+            long concurrentlyHashedFileCount = this.concurrentlyHashedFileCount.getAndSet(0);
+            long concurrentHashingTime = this.concurrentHashingTime.getAndSet(0);
+            long concurrentHashingElapsedTime = this.concurrentHashingElapsedTime.getAndSet(0);
+            double hashingParallelism = concurrentHashingElapsedTime == 0
+                ? 0
+                : (double) concurrentHashingTime / concurrentHashingElapsedTime;
 
             return new DirectorySnapshotterStatistics() {
                 @Override
@@ -94,10 +119,21 @@ public long getFailedFiles() {
                     return failedFileCount;
                 }
 
+                @Override
+                public long getConcurrentlyHashedFiles() {
+                    return concurrentlyHashedFileCount;
+                }
+
+                @Override
+                public double getHashingParallelism() {
+                    return hashingParallelism;
+                }
+
                 @Override
                 public String toString() {
-                    return MessageFormat.format("Snapshot {0,number,integer} directory hierarchies (visited {1,number,integer} directories, {2,number,integer} files and {3,number,integer} failed files)",
-                        hierarchyCount, directoryCount, fileCount, failedFileCount);
+                    return MessageFormat.format("Snapshot {0,number,integer} directory hierarchies (visited {1,number,integer} directories, {2,number,integer} files and {3,number,integer} failed files, " +
+                            "hashed {4,number,integer} files concurrently with an average parallelism of {5,number,0.0})",
+                        hierarchyCount, directoryCount, fileCount, failedFileCount, concurrentlyHashedFileCount, hashingParallelism);
                 }
             };
         }
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2023 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.snapshot.impl;
+
+import com.google.common.collect.ImmutableList;
+import org.gradle.internal.hash.FileHasher;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.snapshot.SnapshottingFilter;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hashes the regular files in a directory hierarchy concurrently, walking subdirectories and hashing batches of files as fork-join tasks.
+ *
+ * <p>The result is only a cache of hashes for {@link DirectorySnapshotter}, which still walks the hierarchy sequentially to build the snapshot.
+ * This way the snapshot is the same as without concurrent hashing, while the expensive part, hashing the file contents, is spread over multiple threads.
+ * Symbolic links are not followed, and any failures are ignored, so the sequential walk can handle them as usual.</p>
+ */
+class ParallelDirectoryHasher {
+    private static final int FILES_PER_TASK = 16;
+
+    private final FileHasher hasher;
+    private final DirectorySnapshotter.DefaultExcludes defaultExcludes;
+    private final ForkJoinPool pool;
+    private final DirectorySnapshotterStatistics.Collector collector;
+
+    public ParallelDirectoryHasher(FileHasher hasher, DirectorySnapshotter.DefaultExcludes defaultExcludes, ForkJoinPool pool, DirectorySnapshotterStatistics.Collector collector) {
+        this.hasher = hasher;
+        this.defaultExcludes = defaultExcludes;
+        this.pool = pool;
+        this.collector = collector;
+    }
+
+    /**
+     * Hashes the regular files in the hierarchy rooted at the given path that are accepted by the default excludes and the predicate.
+     *
+     * @return the hashed files by their absolute path.
+     */
+    public Map<String, HashedFile> hashRegularFiles(Path root, @Nullable SnapshottingFilter.DirectoryWalkerPredicate predicate) {
+        Map<String, HashedFile> hashedFiles = new ConcurrentHashMap<>();
+        AtomicLong hashingTime = new AtomicLong();
+        long startTime = System.nanoTime();
+        pool.invoke(new HashDirectoryAction(root, ImmutableList.of(), predicate, hashedFiles, hashingTime));
+        long elapsedTime = System.nanoTime() - startTime;
+        collector.recordConcurrentlyHashedFiles(hashedFiles.size(), hashingTime.get(), elapsedTime);
+        return hashedFiles;
+    }
+
+    public static class HashedFile {
+        private final HashCode hash;
+        private final long length;
+        private final long lastModified;
+
+        public HashedFile(HashCode hash, long length, long lastModified) {
+            this.hash = hash;
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+
+        /**
+         * Returns the hash if the file still has the given metadata, {@code null} otherwise.
+         */
+        @Nullable
+        public HashCode getHashIfUnchanged(long length, long lastModified) {
+            return this.length == length && this.lastModified == lastModified
+                ? hash
+                : null;
+        }
+    }
+
+    private class HashDirectoryAction extends RecursiveAction {
+        private final Path directory;
+        private final ImmutableList<String> relativePath;
+        private final SnapshottingFilter.DirectoryWalkerPredicate predicate;
+        private final Map<String, HashedFile> hashedFiles;
+        private final AtomicLong hashingTime;
+
+        public HashDirectoryAction(Path directory, ImmutableList<String> relativePath, @Nullable SnapshottingFilter.DirectoryWalkerPredicate predicate, Map<String, HashedFile> hashedFiles, AtomicLong hashingTime) {
+            this.directory = directory;
+            this.relativePath = relativePath;
+            this.predicate = predicate;
+            this.hashedFiles = hashedFiles;
+            this.hashingTime = hashingTime;
+        }
+
+        @Override
+        protected void compute() {
+            List<RecursiveAction> subtasks = new ArrayList<>();
+            List<Path> files = new ArrayList<>();
+            List<BasicFileAttributes> fileAttributes = new ArrayList<>();
+            try (DirectoryStream<Path> children = Files.newDirectoryStream(directory)) {
+                for (Path child : children) {
+                    BasicFileAttributes attributes;
+                    try {
+                        attributes = Files.readAttributes(child, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                    } catch (IOException e) {
+                        continue;
+                    }
+                    String name = child.getFileName().toString();
+                    if (attributes.isDirectory()) {
+                        ImmutableList<String> childRelativePath = append(name);
+                        if (!defaultExcludes.excludeDir(name) && (predicate == null || predicate.test(child, name, true, childRelativePath))) {
+                            subtasks.add(new HashDirectoryAction(child, childRelativePath, predicate, hashedFiles, hashingTime));
+                        }
+                    } else if (attributes.isRegularFile()) {
+                        if (!defaultExcludes.excludeFile(name) && (predicate == null || predicate.test(child, name, false, append(name)))) {
+                            files.add(child);
+                            fileAttributes.add(attributes);
+                            if (files.size() == FILES_PER_TASK) {
+                                subtasks.add(new HashFilesAction(files, fileAttributes, hashedFiles, hashingTime));
+                                files = new ArrayList<>();
+                                fileAttributes = new ArrayList<>();
+                            }
+                        }
+                    }
+                }
+            } catch (IOException | DirectoryIteratorException e) {
+                // Leave it to the sequential walk to report the failure
+                return;
+            }
+            if (!files.isEmpty()) {
+                subtasks.add(new HashFilesAction(files, fileAttributes, hashedFiles, hashingTime));
+            }
+            invokeAll(subtasks);
+        }
+
+        private ImmutableList<String> append(String name) {
+            return ImmutableList.<String>builderWithExpectedSize(relativePath.size() + 1)
+                .addAll(relativePath)
+                .add(name)
+                .build();
+        }
+    }
+
+    private class HashFilesAction extends RecursiveAction {
+        private final List<Path> files;
+        private final List<BasicFileAttributes> fileAttributes;
+        private final Map<String, HashedFile> hashedFiles;
+        private final AtomicLong hashingTime;
+
+        public HashFilesAction(List<Path> files, List<BasicFileAttributes> fileAttributes, Map<String, HashedFile> hashedFiles, AtomicLong hashingTime) {
+            this.files = files;
+            this.fileAttributes = fileAttributes;
+            this.hashedFiles = hashedFiles;
+            this.hashingTime = hashingTime;
+        }
+
+        @Override
+        protected void compute() {
+            long startTime = System.nanoTime();
+            for (int i = 0; i < files.size(); i++) {
+                Path file = files.get(i);
+                BasicFileAttributes attributes = fileAttributes.get(i);
+                long length = attributes.size();
+                long lastModified = attributes.lastModifiedTime().toMillis();
+                try {
+                    HashCode hash = hasher.hash(file.toFile(), length, lastModified);
+                    hashedFiles.put(file.toString(), new HashedFile(hash, length, lastModified));
+                } catch (UncheckedIOException e) {
+                    // Leave it to the sequential walk to report the failure
+                }
+            }
+            hashingTime.addAndGet(System.nanoTime() - startTime);
+        }
+    }
+}
@@ -39,6 +39,7 @@ import spock.lang.Issue
 import spock.lang.Specification
 
 import java.nio.file.Paths
+import java.util.concurrent.ForkJoinPool
 import java.util.function.Consumer
 
 @UsesNativeServices
@@ -478,6 +479,38 @@ class DirectorySnapshotterTest extends Specification {
         !defaultExcludes.excludeFile('#some')
     }
 
+    def "hashing files concurrently produces the same snapshot"() {
+        given:
+        def rootDir = tmpDir.createDir("root")
+        (1..20).each { dirIndex ->
+            (1..20).each { fileIndex ->
+                rootDir.file("dir${dirIndex}/sub/file${fileIndex}.${fileIndex % 2 == 0 ? 'txt' : 'html'}").text = "content ${dirIndex} ${fileIndex}"
+            }
+        }
+        rootDir.file(".git/ignored.txt").text = "ignored"
+        def collector = new DirectorySnapshotterStatistics.Collector()
+        def parallelSnapshotter = new DirectorySnapshotter(fileHasher, new StringInterner(), DirectoryScanner.getDefaultExcludes() as List, collector, ForkJoinPool.commonPool())
+        def sequentialSnapshotter = new DirectorySnapshotter(fileHasher, new StringInterner(), DirectoryScanner.getDefaultExcludes() as List, collector, null)
+        def predicate = patterns == null ? null : directoryWalkerPredicate(patterns)
+        List<FileSystemLocationSnapshot> parallelUnfilteredSnapshots = []
+        List<FileSystemLocationSnapshot> sequentialUnfilteredSnapshots = []
+
+        when:
+        def parallelSnapshot = parallelSnapshotter.snapshot(rootDir.absolutePath, predicate, parallelUnfilteredSnapshots::add)
+        def sequentialSnapshot = sequentialSnapshotter.snapshot(rootDir.absolutePath, predicate, sequentialUnfilteredSnapshots::add)
+
+        then:
+        parallelSnapshot.hash == sequentialSnapshot.hash
+        SnapshotVisitorUtil.getRelativePaths(parallelSnapshot, true) == SnapshotVisitorUtil.getRelativePaths(sequentialSnapshot, true)
+        parallelUnfilteredSnapshots*.hash == sequentialUnfilteredSnapshots*.hash
+        collector.collect().concurrentlyHashedFiles == expectedHashedFiles
+
+        where:
+        patterns                                | expectedHashedFiles
+        null                                    | 400
+        new PatternSet().include("**/*.txt")    | 200
+    }
+
     private static String fileSystemRoot() {
         "${Paths.get("").toAbsolutePath().root}"
     }